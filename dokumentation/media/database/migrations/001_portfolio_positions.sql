@@ -0,0 +1,30 @@
+-- Portfolio als Positionen: eine Zeile je Nutzer und Aktie
+--   count          = gehaltene Stückzahl
+--   value          = durchschnittlicher Kaufpreis (gewichtet nach Stückzahl)
+--   id_stock_price = letzter Kurs, zu dem die Position verändert wurde
+--   date           = Zeitpunkt der letzten Änderung
+-- Bisher wurde je gekaufter Aktie eine eigene Zeile mit count = 1 angelegt.
+
+BEGIN;
+
+LOCK TABLE public.portfolio IN ACCESS EXCLUSIVE MODE;
+
+WITH removed AS (
+    DELETE FROM public.portfolio
+    RETURNING id_user, id_stock_price, id_stock, count, value, date
+)
+INSERT INTO public.portfolio (id_user, id_stock_price, id_stock, count, value, date)
+SELECT id_user,
+       MAX(id_stock_price),
+       id_stock,
+       SUM(count),
+       SUM(count * value) / SUM(count),
+       MAX(date)
+FROM removed
+GROUP BY id_user, id_stock
+HAVING SUM(count) > 0;
+
+ALTER TABLE public.portfolio
+    ADD CONSTRAINT portfolio_user_stock_key UNIQUE (id_user, id_stock);
+
+COMMIT;
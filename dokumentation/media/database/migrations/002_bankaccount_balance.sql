@@ -0,0 +1,107 @@
+-- Aktuelles Guthaben je Nutzer in einer eigenen Tabelle, bankaccount wird zum Kassenbuch
+--   bankaccount_balance: genau eine Zeile je Nutzer, wird bei jedem Kauf/Verkauf atomar geändert (version + 1)
+--   bankaccount:         jede Änderung des Guthabens als eigene Zeile mit Zeitstempel (Verlauf, Charts)
+
+BEGIN;
+
+-- Zeitstempel im Kassenbuch
+ALTER TABLE public.bankaccount
+    ADD COLUMN IF NOT EXISTS date timestamp(0) without time zone;
+
+-- Bestehende Zeilen: die n-te Buchung eines Nutzers gehört zur (n-1)-ten Transaktion,
+-- die erste Buchung ist das Startguthaben (so hat es der Chart bisher zugeordnet)
+WITH bank_rn AS (
+    SELECT id_bankaccount, id_user,
+           ROW_NUMBER() OVER (PARTITION BY id_user ORDER BY id_bankaccount) AS rn
+    FROM public.bankaccount
+),
+trans_rn AS (
+    SELECT id_user, date,
+           ROW_NUMBER() OVER (PARTITION BY id_user ORDER BY id_transaction) AS rn
+    FROM public.transaction
+)
+UPDATE public.bankaccount b
+SET date = COALESCE(t.date, s.start_date, now())
+FROM bank_rn br
+LEFT JOIN trans_rn t ON t.id_user = br.id_user AND br.rn = t.rn + 1
+LEFT JOIN public.season s ON s.active_flag = true
+WHERE b.id_bankaccount = br.id_bankaccount AND b.date IS NULL;
+
+ALTER TABLE public.bankaccount
+    ALTER COLUMN date SET DEFAULT now(),
+    ALTER COLUMN date SET NOT NULL;
+
+-- Aktuelles Guthaben
+CREATE TABLE IF NOT EXISTS public.bankaccount_balance
+(
+    id_user varchar(50) NOT NULL,
+    startworth double precision NOT NULL,
+    current_worth double precision NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
+    updated_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT bankaccount_balance_pkey PRIMARY KEY (id_user),
+    CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user)
+);
+
+INSERT INTO public.bankaccount_balance (id_user, startworth, current_worth, version, updated_at)
+SELECT DISTINCT ON (id_user) id_user, startworth, current_worth, 0, date
+FROM public.bankaccount
+ORDER BY id_user, id_bankaccount DESC
+ON CONFLICT (id_user) DO NOTHING;
+
+GRANT ALL PRIVILEGES ON public.bankaccount_balance TO swift;
+
+-- Rangliste liest das Guthaben aus bankaccount_balance statt DISTINCT ON über das gesamte Kassenbuch
+CREATE OR REPLACE VIEW public.v_leaderboard
+ AS
+ WITH users_portfolio AS (
+         SELECT u.id_user AS id_users_cust,
+            vp.id_stock,
+            vp.quantity
+           FROM user_service u
+             LEFT JOIN LATERAL virtual_portfolio(p_user_id => u.id_user, p_zeit_bis => now()::timestamp without time zone) vp(id_stock, id_user, quantity, average_price) ON true
+        ), latest_prices AS (
+         SELECT DISTINCT ON (sp.id_stock) sp.id_stock,
+            sp.price AS current_price
+           FROM stock_price sp
+          ORDER BY sp.id_stock, sp.date DESC
+        ), portfolio_sum AS (
+         SELECT users_portfolio.id_users_cust,
+            sum(users_portfolio.quantity::numeric::double precision * latest_prices.current_price) AS portfolio_wert
+           FROM users_portfolio
+             LEFT JOIN latest_prices ON latest_prices.id_stock = users_portfolio.id_stock
+          GROUP BY users_portfolio.id_users_cust
+        ), latest_bank AS (
+         SELECT bankaccount_balance.id_user,
+            bankaccount_balance.current_worth
+           FROM bankaccount_balance
+        ), index_performance AS (
+         SELECT round((unnamed_subquery.last_price_before_end::numeric - unnamed_subquery.first_price_after_start::numeric) / unnamed_subquery.first_price_after_start::numeric * 100::numeric, 2) AS index_performance
+           FROM ( SELECT ( SELECT index_price.price
+                           FROM index_price
+                          WHERE index_price.id_index = index.id_index AND index_price.date > season.start_date
+                          ORDER BY index_price.date
+                         LIMIT 1) AS first_price_after_start,
+                    ( SELECT index_price.price
+                           FROM index_price index_price
+                          WHERE index_price.id_index = index.id_index AND index_price.date <= season.end_date
+                          ORDER BY index_price.date DESC
+                         LIMIT 1) AS last_price_before_end
+                   FROM index
+                     LEFT JOIN season ON season.id_season = index.id_season
+                  WHERE season.active_flag = true) unnamed_subquery
+        )
+ SELECT DISTINCT ps.id_users_cust,
+    user_service.user_name,
+    user_service.email,
+    COALESCE(ps.portfolio_wert, 0::numeric::double precision) + COALESCE(lb.current_worth, 0::double precision) AS depot_balance,
+    ip.index_performance,
+    round(((COALESCE(ps.portfolio_wert, 0::numeric::double precision) + COALESCE(lb.current_worth, 0::double precision) - s.start_balance::double precision) / s.start_balance::double precision * 100::double precision - ip.index_performance::double precision)::numeric, 2) AS performance_vs_index
+   FROM portfolio_sum ps
+     LEFT JOIN latest_bank lb ON ps.id_users_cust::text = lb.id_user::text
+     LEFT JOIN user_service ON ps.id_users_cust::text = user_service.id_user::text
+     CROSS JOIN season s
+     CROSS JOIN index_performance ip
+  ORDER BY (round(((COALESCE(ps.portfolio_wert, 0::numeric::double precision) + COALESCE(lb.current_worth, 0::double precision) - s.start_balance::double precision) / s.start_balance::double precision * 100::double precision - ip.index_performance::double precision)::numeric, 2)) DESC;
+
+COMMIT;
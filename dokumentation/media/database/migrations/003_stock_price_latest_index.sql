@@ -0,0 +1,6 @@
+-- Index für die Abfrage des letzten Kurses je Aktie (ORDER BY date DESC LIMIT 1)
+--   wird vom Kurs-Cache beim Start, bei Cache-Fehlgriffen und von den Kurs-Routen verwendet
+--   CONCURRENTLY: die Tabelle bleibt während des Anlegens beschreibbar (nicht innerhalb von BEGIN/COMMIT ausführen)
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS stock_price_stock_date_idx
+    ON public.stock_price (id_stock, date DESC);
@@ -0,0 +1,18 @@
+-- Checkpoint des Trade-Journals (swift.trade.persistence=journal)
+--   höchste Journal-Sequenznummer, die bereits in transaction/portfolio/bankaccount geschrieben wurde
+--   wird in derselben Transaktion wie die Trades geändert, beim Start werden nur Einträge darüber nachgetragen
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS public.trade_journal_checkpoint
+(
+    id integer NOT NULL,
+    last_seq bigint NOT NULL DEFAULT 0,
+    updated_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT trade_journal_checkpoint_pkey PRIMARY KEY (id),
+    CONSTRAINT trade_journal_checkpoint_single_row CHECK (id = 1)
+);
+
+GRANT ALL PRIVILEGES ON public.trade_journal_checkpoint TO swift;
+
+COMMIT;
@@ -0,0 +1,25 @@
+-- Antworten auf Anfragen mit Idempotency-Key Header (/buyStock, /sellStock, /tradeBatch, /createOrder)
+--   eine Wiederholung mit demselben Schlüssel bekommt die gespeicherte Antwort, der Trade wird nicht erneut ausgeführt
+--   status_code = 0: Anfrage läuft noch; Zeilen werden nach swift.idempotency.ttl-hours vom Backend gelöscht
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS public.idempotency_key
+(
+    id_user varchar(50) NOT NULL,
+    idempotency_key varchar(100) NOT NULL,
+    route varchar(50) NOT NULL,
+    fingerprint varchar(64) NOT NULL,
+    status_code integer NOT NULL DEFAULT 0,
+    response text,
+    created_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT idempotency_key_pkey PRIMARY KEY (id_user, idempotency_key),
+    CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user)
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_key_created_at_idx
+    ON public.idempotency_key (created_at);
+
+GRANT ALL PRIVILEGES ON public.idempotency_key TO swift;
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Order-Typ TRAILING_STOP: der Stop-Preis folgt dem Hoch- (Verkauf) bzw. Tiefstkurs (Kauf) seit dem Anlegen
+--   im Abstand trail_amount oder trail_percent (Prozent des Hoch- bzw. Tiefstkurses), genau einer der beiden Werte ist > 0
+--   stop_price bleibt 0, bis die Order auslöst; dann steht dort der erreichte Stop-Preis und sie wird wie eine STOP-Order ausgeführt
+
+BEGIN;
+
+ALTER TABLE public.orders ALTER COLUMN order_type TYPE varchar(20);
+ALTER TABLE public.orders DROP CONSTRAINT IF EXISTS orders_order_type_check;
+ALTER TABLE public.orders ADD CONSTRAINT orders_order_type_check
+    CHECK (order_type IN ('MARKET', 'LIMIT', 'STOP', 'TRAILING_STOP'));
+
+ALTER TABLE public.orders_condition ADD COLUMN IF NOT EXISTS trail_amount double precision;
+ALTER TABLE public.orders_condition ADD COLUMN IF NOT EXISTS trail_percent double precision;
+
+COMMIT;
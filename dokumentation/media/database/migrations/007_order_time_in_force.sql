@@ -0,0 +1,17 @@
+-- Gültigkeit von Orders (time in force)
+--   GTC: bis zur Ausführung, DAY: bis zum nächsten Handelsschluss, GTD: bis expires_at
+--   expired_at wird vom Backend gesetzt, wenn die Order abläuft; abgelaufene Orders werden nicht mehr ausgeführt
+
+BEGIN;
+
+ALTER TABLE public.orders ADD COLUMN IF NOT EXISTS time_in_force varchar(3) NOT NULL DEFAULT 'GTC';
+ALTER TABLE public.orders ADD COLUMN IF NOT EXISTS expires_at timestamp(0) without time zone;
+ALTER TABLE public.orders ADD COLUMN IF NOT EXISTS expired_at timestamp(0) without time zone;
+ALTER TABLE public.orders DROP CONSTRAINT IF EXISTS orders_time_in_force_check;
+ALTER TABLE public.orders ADD CONSTRAINT orders_time_in_force_check CHECK (time_in_force IN ('GTC', 'DAY', 'GTD'));
+
+-- offene Orders mit Ablaufzeit, beim Start des Backends geladen
+CREATE INDEX IF NOT EXISTS orders_expires_at_idx
+    ON public.orders (expires_at) WHERE expires_at IS NOT NULL AND executed_at IS NULL AND expired_at IS NULL;
+
+COMMIT;
@@ -0,0 +1,20 @@
+-- Seitenweise Orderliste
+--   Stornierte Orders werden nicht mehr gelöscht, sondern mit cancelled_at markiert, damit sie in der Orderliste
+--   nach Status gefiltert werden können; stornierte Orders werden nicht mehr ausgeführt
+--   Die Orderliste wird über (id_user, id_order) seitenweise gelesen (Keyset-Pagination, neueste zuerst)
+
+BEGIN;
+
+ALTER TABLE public.orders ADD COLUMN IF NOT EXISTS cancelled_at timestamp(0) without time zone;
+
+-- die Statusspalten und die Aktie liegen im Index, die Filter der Orderliste brauchen keinen Zugriff auf die Tabelle
+CREATE INDEX IF NOT EXISTS orders_user_order_idx
+    ON public.orders (id_user, id_order) INCLUDE (id_stock, executed_at, expired_at, cancelled_at);
+
+-- offene Orders mit Ablaufzeit, ohne stornierte Orders
+DROP INDEX IF EXISTS orders_expires_at_idx;
+CREATE INDEX IF NOT EXISTS orders_expires_at_idx
+    ON public.orders (expires_at) WHERE expires_at IS NOT NULL AND executed_at IS NULL AND expired_at IS NULL
+    AND cancelled_at IS NULL;
+
+COMMIT;
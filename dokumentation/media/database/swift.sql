@@ -47,6 +47,9 @@ CREATE TABLE IF NOT EXISTS public.stock_price
     CONSTRAINT stock_fkey FOREIGN KEY (id_stock) REFERENCES public.stock(id_stock)
 );
 
+CREATE INDEX IF NOT EXISTS stock_price_stock_date_idx
+    ON public.stock_price (id_stock, date DESC);
+
 DROP TABLE IF EXISTS public.bankaccount CASCADE;
 CREATE TABLE IF NOT EXISTS public.bankaccount
 (
@@ -54,10 +57,50 @@ CREATE TABLE IF NOT EXISTS public.bankaccount
     id_user varchar(50) NOT NULL,
     startworth double precision NOT NULL,
     current_worth double precision NOT NULL,
+    date timestamp(0) without time zone NOT NULL DEFAULT now(),
     CONSTRAINT bankaccount_pkey PRIMARY KEY (id_bankaccount),
     CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user)
 );
 
+DROP TABLE IF EXISTS public.bankaccount_balance CASCADE;
+CREATE TABLE IF NOT EXISTS public.bankaccount_balance
+(
+    id_user varchar(50) NOT NULL,
+    startworth double precision NOT NULL,
+    current_worth double precision NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
+    updated_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT bankaccount_balance_pkey PRIMARY KEY (id_user),
+    CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user)
+);
+
+DROP TABLE IF EXISTS public.trade_journal_checkpoint CASCADE;
+CREATE TABLE IF NOT EXISTS public.trade_journal_checkpoint
+(
+    id integer NOT NULL,
+    last_seq bigint NOT NULL DEFAULT 0,
+    updated_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT trade_journal_checkpoint_pkey PRIMARY KEY (id),
+    CONSTRAINT trade_journal_checkpoint_single_row CHECK (id = 1)
+);
+
+DROP TABLE IF EXISTS public.idempotency_key CASCADE;
+CREATE TABLE IF NOT EXISTS public.idempotency_key
+(
+    id_user varchar(50) NOT NULL,
+    idempotency_key varchar(100) NOT NULL,
+    route varchar(50) NOT NULL,
+    fingerprint varchar(64) NOT NULL,
+    status_code integer NOT NULL DEFAULT 0,
+    response text,
+    created_at timestamp(0) without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT idempotency_key_pkey PRIMARY KEY (id_user, idempotency_key),
+    CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user)
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_key_created_at_idx
+    ON public.idempotency_key (created_at);
+
 DROP TABLE IF EXISTS public.portfolio CASCADE;
 CREATE TABLE IF NOT EXISTS public.portfolio
 (
@@ -69,6 +112,7 @@ CREATE TABLE IF NOT EXISTS public.portfolio
     value double precision NOT NULL,
     date timestamp(0) without time zone NOT NULL,
     CONSTRAINT portfolio_pkey PRIMARY KEY (id_portfolio),
+    CONSTRAINT portfolio_user_stock_key UNIQUE (id_user, id_stock),
     CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user),
     CONSTRAINT stock_fkey FOREIGN KEY (id_stock) REFERENCES public.stock(id_stock)
 );
@@ -119,18 +163,25 @@ CREATE TABLE IF NOT EXISTS public.orders
     bs boolean NOT NULL,
     quantity double precision NOT NULL,
     amount double precision NOT NULL,
-    order_type varchar(10) NOT NULL, 
+    order_type varchar(20) NOT NULL, 
     created_at timestamp(0) without time zone NOT NULL,
     updated_at timestamp(0) without time zone NOT NULL,
     executed_at timestamp(0) without time zone NOT NULL,
     executed_price_id bigint NOT NULL, 
     executed_price double precision NOT NULL,
+    time_in_force varchar(3) NOT NULL DEFAULT 'GTC',
+    expires_at timestamp(0) without time zone,
+    expired_at timestamp(0) without time zone,
+    cancelled_at timestamp(0) without time zone,
     CONSTRAINT order_pkey PRIMARY KEY (id_order),
     CONSTRAINT user_fkey FOREIGN KEY (id_user) REFERENCES public.user_service(id_user),
     CONSTRAINT stock_fkey FOREIGN KEY (id_stock) REFERENCES public.stock(id_stock),
     CONSTRAINT stock_price_fkey FOREIGN KEY (id_executed_price) REFERENCES public.stock_price(id_stock_price)
 );
 
+CREATE INDEX IF NOT EXISTS orders_user_order_idx
+    ON public.orders (id_user, id_order) INCLUDE (id_stock, executed_at, expired_at, cancelled_at);
+
 DROP TABLE IF EXISTS public.orders_condition CASCADE;
 CREATE TABLE IF NOT EXISTS public.orders_condition
 (
@@ -138,6 +189,8 @@ CREATE TABLE IF NOT EXISTS public.orders_condition
     id_order bigint NOT NULL,
     limit_price double precision NOT NULL,
     stop_price double precision NOT NULL,
+    trail_amount double precision,
+    trail_percent double precision,
     CONSTRAINT order_condition_pkey PRIMARY KEY (id_order_condition),
     CONSTRAINT order_fkey FOREIGN KEY (id_order) REFERENCES public.user_service(id_order)
 );
@@ -202,11 +255,9 @@ CREATE OR REPLACE VIEW public.v_leaderboard
              LEFT JOIN latest_prices ON latest_prices.id_stock = users_portfolio.id_stock
           GROUP BY users_portfolio.id_users_cust
         ), latest_bank AS (
-         SELECT DISTINCT ON (bankaccount.id_user) bankaccount.id_user,
-            bankaccount.current_worth,
-            bankaccount.id_bankaccount
-           FROM bankaccount
-          ORDER BY bankaccount.id_user, bankaccount.id_bankaccount DESC
+         SELECT bankaccount_balance.id_user,
+            bankaccount_balance.current_worth
+           FROM bankaccount_balance
         ), index_performance AS (
          SELECT round((unnamed_subquery.last_price_before_end::numeric - unnamed_subquery.first_price_after_start::numeric) / unnamed_subquery.first_price_after_start::numeric * 100::numeric, 2) AS index_performance
            FROM ( SELECT ( SELECT index_price.price
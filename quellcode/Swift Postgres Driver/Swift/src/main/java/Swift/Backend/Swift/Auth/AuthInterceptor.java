@@ -0,0 +1,102 @@
+package Swift.Backend.Swift.Auth;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import Swift.Backend.Swift.Googlecheck;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * AuthInterceptor
+ * 
+ * Authenticates every request whose route contains a {token} path variable exactly once,
+ * before the controller method runs, with the session token of the "Authorization: Bearer" header if there is one,
+ * otherwise with the path token as Google token. The Google user id ("sub") is stored as request attribute
+ * {@link #USER_ID} and injected into controllers with @RequestAttribute(AuthInterceptor.USER_ID).
+ * 
+ * - Authentication failures are answered uniformly with 401, the controller is not called
+ * - The time spent on authentication is reported per request in the "Server-Timing" header
+ *   and aggregated in {@link #stats()}
+ */
+@Component
+public class AuthInterceptor implements HandlerInterceptor {
+
+    public static final String USER_ID = "idUser";
+    private static final String TOKEN_VARIABLE = "token";
+
+    private final Googlecheck google;
+
+    private final LongAdder authenticated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    @Autowired
+    public AuthInterceptor(Googlecheck google){
+        this.google = google;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables == null || !pathVariables.containsKey(TOKEN_VARIABLE)) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        String idUser = null;
+        String error = null;
+        try {
+            Object sub = google.authenticate(pathVariables.get(TOKEN_VARIABLE), request.getHeader(HttpHeaders.AUTHORIZATION)).get("sub");
+            if (sub == null) {
+                error = "kein Nutzer im Token";
+            } else {
+                idUser = sub.toString();
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        long elapsed = System.nanoTime() - start;
+        totalNanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+        response.setHeader("Server-Timing", String.format(Locale.ROOT, "auth;dur=%.2f", elapsed / 1_000_000.0));
+
+        if (idUser == null) {
+            rejected.increment();
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("Token ungültig: " + error);
+            return false;
+        }
+        authenticated.increment();
+        request.setAttribute(USER_ID, idUser);
+        return true;
+    }
+
+    /**
+     * Returns how many requests were authenticated/rejected and how long authentication took.
+     */
+    public Map<String, Object> stats() {
+        long count = authenticated.sum() + rejected.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("authenticated", authenticated.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("avgMillis", count == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / count);
+        stats.put("maxMillis", maxNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
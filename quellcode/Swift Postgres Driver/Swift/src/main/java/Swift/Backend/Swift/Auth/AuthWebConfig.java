@@ -0,0 +1,31 @@
+package Swift.Backend.Swift.Auth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * AuthWebConfig
+ * 
+ * Registers the {@link AuthInterceptor} for all routes.
+ * The login route issues the session token itself and logout only removes a token from the cache,
+ * so both are not authenticated beforehand.
+ */
+@Configuration
+public class AuthWebConfig implements WebMvcConfigurer {
+
+    private final AuthInterceptor authInterceptor;
+
+    @Autowired
+    public AuthWebConfig(AuthInterceptor authInterceptor){
+        this.authInterceptor = authInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(authInterceptor)
+                .addPathPatterns("/**")
+                .excludePathPatterns("/google/**", "/logout/**");
+    }
+}
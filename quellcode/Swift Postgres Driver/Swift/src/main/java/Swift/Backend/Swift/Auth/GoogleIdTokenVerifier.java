@@ -0,0 +1,293 @@
+package Swift.Backend.Swift.Auth;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * GoogleIdTokenVerifier
+ * 
+ * Verifies signed Google ID tokens (JWT, RS256) locally against a cached JWKS key set
+ * instead of asking Google's userinfo endpoint for every request.
+ * 
+ * Checks performed:
+ * - RSA signature against the key referenced by the token's "kid"
+ * - issuer ("iss") is one of the configured issuers
+ * - audience ("aud") contains one of the configured client IDs
+ * - token is not expired ("exp")
+ * 
+ * The key set is loaded from a URL (default: Google's certs endpoint) or from a local file
+ * and refreshed periodically in the background.
+ */
+@Component
+public class GoogleIdTokenVerifier {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> JSON_MAP = new TypeReference<>() {};
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    private static final long MIN_ON_DEMAND_REFRESH_MILLIS = 30_000;
+
+    private final ObjectMapper objectMapper;
+    private final IdentityHttpClient identityHttpClient;
+    private final boolean enabled;
+    private final String jwksUrl;
+    private final String jwksFile;
+    private final Set<String> audiences;
+    private final Set<String> issuers;
+    private final long refreshMinutes;
+
+    // Replaced as a whole on every refresh, readers never see a half-filled key set
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile LocalDateTime lastRefresh;
+    private volatile long lastRefreshAttemptMillis;
+    private ScheduledExecutorService refresher;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    @Autowired
+    public GoogleIdTokenVerifier(ObjectMapper objectMapper, IdentityHttpClient identityHttpClient,
+    @Value("${swift.auth.mode:userinfo}") String mode,
+    @Value("${swift.auth.jwt.jwks-url:https://www.googleapis.com/oauth2/v3/certs}") String jwksUrl,
+    @Value("${swift.auth.jwt.jwks-file:}") String jwksFile,
+    @Value("${swift.auth.jwt.audience:}") String audiences,
+    @Value("${swift.auth.jwt.issuers:accounts.google.com,https://accounts.google.com}") String issuers,
+    @Value("${swift.auth.jwt.refresh-minutes:60}") long refreshMinutes){
+        this.objectMapper = objectMapper;
+        this.identityHttpClient = identityHttpClient;
+        this.enabled = "jwt".equalsIgnoreCase(mode);
+        this.jwksUrl = jwksUrl; this.jwksFile = jwksFile;
+        this.audiences = splitList(audiences); this.issuers = splitList(issuers);
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    /**
+     * Loads the key set once on startup and schedules the periodic background refresh.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        refreshKeys();
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshKeys, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if local JWT verification is configured (swift.auth.mode=jwt)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Quick structural check whether a token is a JWT (three dot-separated parts) rather than an opaque access token.
+     */
+    public static boolean looksLikeJwt(String token) {
+        return token.chars().filter(c -> c == '.').count() == 2;
+    }
+
+    /**
+     * Verifies the token and returns its claims (sub, email, name, picture, ...).
+     *
+     * @param token the signed Google ID token
+     * @return the token claims
+     * @throws IllegalArgumentException if the token is malformed, expired or not trusted
+     */
+    public LinkedHashMap<String, Object> verify(String token) {
+        try {
+            LinkedHashMap<String, Object> claims = verifyInternal(token);
+            verified.increment();
+            return claims;
+        } catch (RuntimeException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private LinkedHashMap<String, Object> verifyInternal(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("ID-Token hat kein JWT-Format");
+        }
+        Map<String, Object> header = decodeJson(parts[0]);
+        LinkedHashMap<String, Object> claims = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.get("alg"))) {
+            throw new IllegalArgumentException("Nicht unterstützter Signaturalgorithmus: " + header.get("alg"));
+        }
+
+        PublicKey key = findKey((String) header.get("kid"));
+        if (!signatureValid(key, parts)) {
+            throw new IllegalArgumentException("Signatur des ID-Tokens ungültig");
+        }
+
+        if (!issuers.contains(String.valueOf(claims.get("iss")))) {
+            throw new IllegalArgumentException("Aussteller des ID-Tokens ungültig: " + claims.get("iss"));
+        }
+        if (!audienceValid(claims.get("aud"))) {
+            throw new IllegalArgumentException("Audience des ID-Tokens ungültig: " + claims.get("aud"));
+        }
+
+        long now = Instant.now().getEpochSecond();
+        Object exp = claims.get("exp");
+        if (exp == null || Long.parseLong(exp.toString()) + CLOCK_SKEW_SECONDS < now) {
+            throw new IllegalArgumentException("ID-Token abgelaufen");
+        }
+        Object nbf = claims.get("nbf");
+        if (nbf != null && Long.parseLong(nbf.toString()) - CLOCK_SKEW_SECONDS > now) {
+            throw new IllegalArgumentException("ID-Token noch nicht gültig");
+        }
+        if (claims.get("sub") == null) {
+            throw new IllegalArgumentException("ID-Token enthält keine Nutzer-ID");
+        }
+        return claims;
+    }
+
+    /**
+     * Looks up the key by id. An unknown kid usually means Google rotated its keys,
+     * so the key set is reloaded once (rate limited) before giving up.
+     */
+    private PublicKey findKey(String kid) {
+        if (kid == null) {
+            throw new IllegalArgumentException("ID-Token enthält keine Schlüssel-ID");
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastRefreshAttemptMillis > MIN_ON_DEMAND_REFRESH_MILLIS) {
+            refreshKeys();
+            key = keys.get(kid);
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("Unbekannter Schlüssel im ID-Token: " + kid);
+        }
+        return key;
+    }
+
+    private boolean audienceValid(Object aud) {
+        if (audiences.isEmpty()) {
+            throw new IllegalStateException("swift.auth.jwt.audience ist nicht konfiguriert");
+        }
+        if (aud instanceof List<?> list) {
+            return list.stream().anyMatch(a -> audiences.contains(String.valueOf(a)));
+        }
+        return aud != null && audiences.contains(aud.toString());
+    }
+
+    private static boolean signatureValid(PublicKey key, String[] parts) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return signature.verify(Base64.getUrlDecoder().decode(parts[2]));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reloads the JWKS key set from the configured file or URL.
+     * On failure the previous key set stays active.
+     */
+    public synchronized void refreshKeys() {
+        lastRefreshAttemptMillis = System.currentTimeMillis();
+        try {
+            String json = jwksFile.isBlank()
+                ? identityHttpClient.getRestTemplate().getForObject(jwksUrl, String.class)
+                : Files.readString(Path.of(jwksFile));
+            keys = parseJwks(json);
+            lastRefresh = LocalDateTime.now();
+        } catch (Exception e) {
+            refreshFailures.increment();
+            System.out.println("JWKS konnte nicht geladen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a JWKS document ({"keys": [{"kid", "kty", "n", "e"}, ...]}) into RSA public keys.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, PublicKey> parseJwks(String json) throws Exception {
+        Map<String, Object> jwks = objectMapper.readValue(json, JSON_MAP);
+        Map<String, PublicKey> result = new HashMap<>();
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        for (Map<String, Object> jwk : (List<Map<String, Object>>) jwks.get("keys")) {
+            if (!"RSA".equals(jwk.get("kty"))) {
+                continue;
+            }
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+            result.put((String) jwk.get("kid"), keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+        }
+        return Map.copyOf(result);
+    }
+
+    private LinkedHashMap<String, Object> decodeJson(String part) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(part), JSON_MAP);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("ID-Token konnte nicht gelesen werden");
+        }
+    }
+
+    private static Set<String> splitList(String value) {
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Returns counters and state of the verifier.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("keys", keys.size());
+        result.put("lastRefresh", lastRefresh);
+        result.put("verified", verified.sum());
+        result.put("rejected", rejected.sum());
+        result.put("refreshFailures", refreshFailures.sum());
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package Swift.Backend.Swift.Auth;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * IdentityHttpClient
+ * 
+ * Shared, connection-pooled HTTP client for all outbound identity calls (Google userinfo, JWKS).
+ * 
+ * - Connections are kept alive and reused instead of opening a new TLS connection per request
+ * - Connect, read and pool-wait timeouts are bounded
+ * - The pool is limited in total and per route (host)
+ * - The proxy is chosen per request by a {@link ProxySelector} instead of JVM-wide system properties
+ */
+@Component
+public class IdentityHttpClient {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder saturatedRequests = new LongAdder();
+
+    @Autowired
+    public IdentityHttpClient(
+    @Value("${swift.http.proxy-host:proxy.th-wildau.de}") String proxyHost,
+    @Value("${swift.http.proxy-port:8080}") int proxyPort,
+    @Value("${swift.http.max-total:50}") int maxTotal,
+    @Value("${swift.http.max-per-route:20}") int maxPerRoute,
+    @Value("${swift.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+    @Value("${swift.http.read-timeout-ms:5000}") long readTimeoutMs,
+    @Value("${swift.http.pool-timeout-ms:1000}") long poolTimeoutMs){
+
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxTotal)
+            .setMaxConnPerRoute(maxPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                .build())
+            .build();
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setRoutePlanner(new SystemDefaultRoutePlanner(proxySelector(proxyHost, proxyPort)))
+            .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(60))
+            .build();
+
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        this.restTemplate.getInterceptors().add((request, body, execution) -> {
+            requests.increment();
+            PoolStats stats = connectionManager.getTotalStats();
+            if (stats.getLeased() >= stats.getMax()) {
+                saturatedRequests.increment();
+            }
+            return execution.execute(request, body);
+        });
+    }
+
+    /**
+     * @return the shared RestTemplate backed by the connection pool
+     */
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    /**
+     * Returns the current pool usage. "saturation" is the share of leased connections,
+     * "pending" counts requests currently waiting for a free connection.
+     */
+    public Map<String, Object> stats() {
+        PoolStats stats = connectionManager.getTotalStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("leased", stats.getLeased());
+        result.put("available", stats.getAvailable());
+        result.put("pending", stats.getPending());
+        result.put("max", stats.getMax());
+        result.put("saturation", stats.getMax() == 0 ? 0.0 : (double) stats.getLeased() / stats.getMax());
+        result.put("requests", requests.sum());
+        result.put("requestsWhileSaturated", saturatedRequests.sum());
+        return result;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Routes all requests through the given proxy, except for local addresses.
+     * An empty proxy host disables the proxy entirely.
+     */
+    private static ProxySelector proxySelector(String proxyHost, int proxyPort) {
+        if (proxyHost == null || proxyHost.isBlank()) {
+            return ProxySelector.of(null);
+        }
+        List<Proxy> viaProxy = List.of(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxyHost, proxyPort)));
+        return new ProxySelector() {
+            @Override
+            public List<Proxy> select(URI uri) {
+                String host = uri.getHost();
+                if ("localhost".equalsIgnoreCase(host) || "127.0.0.1".equals(host)) {
+                    return List.of(Proxy.NO_PROXY);
+                }
+                return viaProxy;
+            }
+
+            @Override
+            public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+                // the failed request reports the error to the caller, there is no other proxy to fall back to
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package Swift.Backend.Swift.Auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * SessionTokenService
+ *
+ * Issues and verifies short-lived session tokens for the frontend.
+ * After the Google login (/google/{token}) the backend hands out a session token that carries the user's "sub"
+ * and an expiry, signed with HMAC-SHA256. All later requests can be verified locally without any I/O.
+ *
+ * Format: swift_<base64url(sub|exp)>.<base64url(hmac)>
+ */
+@Component
+public class SessionTokenService {
+
+    public static final String PREFIX = "swift_";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    // Mac instances are not thread safe, every request thread gets its own
+    private final ThreadLocal<Mac> mac;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public SessionTokenService(
+    @Value("${swift.auth.session.secret:}") String secret,
+    @Value("${swift.auth.session.ttl-minutes:60}") long ttlMinutes){
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            // Without a configured secret all sessions end with a restart of the backend
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+            System.out.println("swift.auth.session.secret nicht gesetzt, es wird ein zufaelliger Schluessel verwendet");
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Returns true if the token was issued by this service (and not by Google).
+     */
+    public static boolean isSessionToken(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    /**
+     * Issues a new session token for the given user.
+     *
+     * @param sub the Google user id
+     * @return the signed session token and its expiry
+     */
+    public Session issue(String sub) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        String payload = encode((sub + "|" + expiresAt.getEpochSecond()).getBytes(StandardCharsets.UTF_8));
+        issued.increment();
+        return new Session(PREFIX + payload + "." + encode(sign(payload)), expiresAt);
+    }
+
+    /**
+     * Verifies the signature and expiry of a session token.
+     *
+     * @param token the session token sent by the frontend
+     * @return the claims "sub" and "exp" (epoch seconds)
+     * @throws IllegalArgumentException if the token is malformed, forged or expired
+     */
+    public LinkedHashMap<String, Object> verify(String token) {
+        try {
+            if (!isSessionToken(token)) {
+                throw new IllegalArgumentException("Kein Session-Token");
+            }
+            int dot = token.indexOf('.', PREFIX.length());
+            if (dot < 0) {
+                throw new IllegalArgumentException("Session-Token ungueltig");
+            }
+            String payload = token.substring(PREFIX.length(), dot);
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                throw new IllegalArgumentException("Session-Token Signatur ungueltig");
+            }
+
+            String decoded = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Session-Token ungueltig");
+            }
+            String sub = decoded.substring(0, separator);
+            long exp = Long.parseLong(decoded.substring(separator + 1));
+            if (Instant.now().getEpochSecond() >= exp) {
+                throw new IllegalArgumentException("Session-Token abgelaufen");
+            }
+
+            LinkedHashMap<String, Object> claims = new LinkedHashMap<>();
+            claims.put("sub", sub);
+            claims.put("exp", exp);
+            verified.increment();
+            return claims;
+        } catch (IllegalArgumentException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns counters of issued, verified and rejected session tokens.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttlMinutes", ttl.toMinutes());
+        stats.put("issued", issued.sum());
+        stats.put("verified", verified.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private byte[] sign(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * A freshly issued session token together with its expiry.
+     */
+    public record Session(String token, Instant expiresAt) {}
+}
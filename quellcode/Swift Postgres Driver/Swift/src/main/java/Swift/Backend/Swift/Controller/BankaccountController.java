@@ -6,10 +6,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
+import Swift.Backend.Swift.Auth.AuthInterceptor;
 import Swift.Backend.Swift.Services.BankaccountService;
 
 /**
@@ -19,7 +19,7 @@ import Swift.Backend.Swift.Services.BankaccountService;
  * 
  * Provides:
  * - Retrieval of current bank account worth
- * - Google token authentication
+ * - Authentication is done by the AuthInterceptor
  */
 @RestController
 public class BankaccountController {
@@ -29,18 +29,15 @@ public class BankaccountController {
     // ========================
     
     private final BankaccountService bankaccountService;
-    private final Googlecheck google;
 
     /**
      * Constructor injection of required services.
      * 
      * @param bankaccountService - Service for bank account logic
-     * @param google - Utility for validating Google ID tokens
      */
     @Autowired
-    public BankaccountController(BankaccountService bankaccountService, Googlecheck google){
+    public BankaccountController(BankaccountService bankaccountService){
         this.bankaccountService = bankaccountService;
-        this.google = google;
     }
 
     // ========================
@@ -50,25 +47,22 @@ public class BankaccountController {
     /**
      * Get current worth of a user's bank account.
      * 
-     * Authenticates the request using a Google token and returns the calculated balance.
+     * Returns the calculated balance of the authenticated user.
      * 
-     * @param token - Google authentication token (JWT)
-     * @return 200 OK with bank account data if token valid, 
-     *         401 UNAUTHORIZED if token is invalid or an error occurs
+     * @param IDUser - user id resolved by the AuthInterceptor
+     * @return 200 OK with bank account data, 
+     *         400 BAD_REQUEST if an error occurs (invalid tokens are rejected with 401 beforehand)
      */
     @GetMapping("/getCurrentWorthBankaccount/{token}")
-    public ResponseEntity<?> getCurrentWorthBankaccount(@PathVariable("token") String token) {
+    public ResponseEntity<?> getCurrentWorthBankaccount(@RequestAttribute(AuthInterceptor.USER_ID) String IDUser) {
         try {
-
-            // Extract user ID from token
-            String IDUser = (String) google.handleGoogleToken(token).get("sub");
             // Fetch current bank account worth
             Map<String, Object> payload = bankaccountService.getCurrentWorthBankaccount(IDUser);
              // Return successful response
             return ResponseEntity.ok(payload);
         } catch (Exception e) {
-            // Return error response in case of invalid token or other issues
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            // Return error response in case of other issues
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
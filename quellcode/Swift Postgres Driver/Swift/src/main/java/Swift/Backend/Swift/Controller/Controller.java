@@ -2,24 +2,38 @@ package Swift.Backend.Swift.Controller;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import Swift.Backend.Swift.Googlecheck;
+import Swift.Backend.Swift.Auth.AuthInterceptor;
+import Swift.Backend.Swift.Auth.SessionTokenService;
+import Swift.Backend.Swift.Entities.User_service;
 import Swift.Backend.Swift.Entities.Transaction;
 import Swift.Backend.Swift.Projections.PortfolioSnapshot;
+import Swift.Backend.Swift.Services.IdempotencyService;
+import Swift.Backend.Swift.Services.QuoteService;
 import Swift.Backend.Swift.Services.Service;
+import Swift.Backend.Swift.Services.TradeBatchException;
+import Swift.Backend.Swift.Services.TradeService;
 
 /**
  * Controller
  * 
+ * Routes containing {token} are authenticated by the AuthInterceptor beforehand,
+ * the user id is injected as request attribute.
+ * 
  * Handles portfolio-related operations such as:
  * - Buying and selling stocks
  * - Retrieving portfolio value at various time intervals
@@ -35,14 +49,21 @@ public class Controller {
 
     private final Service service;
     private final Googlecheck google;
+    private final TradeService tradeService;
+    private final IdempotencyService idempotencyService;
+    private final QuoteService quoteService;
 
     /**
      * Constructor for dependency injection
      */
     @Autowired
-    public Controller(Service service, Googlecheck google){
+    public Controller(Service service, Googlecheck google, TradeService tradeService, IdempotencyService idempotencyService,
+    QuoteService quoteService){
         this.service = service;
         this.google = google;
+        this.tradeService = tradeService;
+        this.idempotencyService = idempotencyService;
+        this.quoteService = quoteService;
     }
 
     // ========================
@@ -57,12 +78,13 @@ public class Controller {
      * @return Result of the buy operation or error
      */
     @PostMapping("/buyStock/{token}")
-    public ResponseEntity<?> buyStock(@PathVariable("token") String token, @RequestBody Transaction transaction){
+    public ResponseEntity<?> buyStock(@RequestAttribute(AuthInterceptor.USER_ID) String idUser, @RequestBody Transaction transaction,
+    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
         try {
-            String idUser = (String) google.handleGoogleToken(token).get("sub");
-            return ResponseEntity.ok(service.buyStock(idUser, transaction));
+            return idempotencyService.execute(idUser, idempotencyKey, "buyStock", transaction,
+                () -> ResponseEntity.ok(tradeService.buyStock(idUser, transaction)));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -70,12 +92,61 @@ public class Controller {
      * Endpoint to sell a stock
      */
     @PostMapping("/sellStock/{token}")
-    public ResponseEntity<?> sellStock(@PathVariable("token") String token, @RequestBody Transaction transaction){
+    public ResponseEntity<?> sellStock(@RequestAttribute(AuthInterceptor.USER_ID) String idUser, @RequestBody Transaction transaction,
+    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
         try {
-            String idUser = (String) google.handleGoogleToken(token).get("sub");
-            return ResponseEntity.ok(service.sellStock(idUser, transaction));
+            return idempotencyService.execute(idUser, idempotencyKey, "sellStock", transaction,
+                () -> ResponseEntity.ok(tradeService.sellStock(idUser, transaction)));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to buy and sell several stocks at once (all-or-nothing)
+     *
+     * @param transactions - Legs of the batch (id_stock, count, bs)
+     * @return Result of every leg, or the rejected legs if nothing was executed
+     */
+    @PostMapping("/tradeBatch/{token}")
+    public ResponseEntity<?> tradeBatch(@RequestAttribute(AuthInterceptor.USER_ID) String idUser, @RequestBody List<Transaction> transactions,
+    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
+        try {
+            return idempotencyService.execute(idUser, idempotencyKey, "tradeBatch", transactions,
+                () -> ResponseEntity.ok(tradeService.tradeBatch(idUser, transactions)));
+        } catch (TradeBatchException e) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("error", "Fehler: " + e.getMessage());
+            result.put("legs", e.getLegs());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to get a price-locked quote for a buy or sell
+     *
+     * @param id - Stock ID
+     * @param count - Number of shares
+     * @return Quote with quote_id, price and expiry; send the quote_id with buyStock or sellStock
+     */
+    @GetMapping("/getQuote/{IDStock}/{count}/{token}")
+    public ResponseEntity<?> getQuote(@RequestAttribute(AuthInterceptor.USER_ID) String idUser, @PathVariable("IDStock") long id,
+    @PathVariable("count") long count){
+        try {
+            QuoteService.Quote quote = quoteService.quote(idUser, id, count);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("quote_id", quote.quoteId());
+            result.put("id_stock", quote.idStock());
+            result.put("id_stock_price", quote.idStockPrice());
+            result.put("price", quote.price());
+            result.put("count", quote.count());
+            result.put("amount", quote.amount());
+            result.put("expires_at", quote.expiresAt().toString());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -87,12 +158,11 @@ public class Controller {
      * Retrieves current index growth for a given index ID
      */
     @GetMapping("/getCurrentIndex/{IDIndex}/{token}")
-    public ResponseEntity<?> getCurrentIndexGrowth(@PathVariable("IDIndex") long id, @PathVariable("token") String token){
+    public ResponseEntity<?> getCurrentIndexGrowth(@PathVariable("IDIndex") long id){
         try{
-            google.handleGoogleToken(token).get("sub");
             return ResponseEntity.ok(service.getCurrentIndexGrowth(id));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -100,13 +170,11 @@ public class Controller {
      * Retrieves the current portfolio by user ID
      */
     @GetMapping("/{token}/currentPortfolio")
-    public ResponseEntity<?> loadCurrentPortfolioByUserId(@PathVariable("token") String token){
+    public ResponseEntity<?> loadCurrentPortfolioByUserId(@RequestAttribute(AuthInterceptor.USER_ID) String idUser){
         try{
-            google.handleGoogleToken(token);
-            String idUser = (String) google.handleGoogleToken(token).get("sub");
             return ResponseEntity.ok(service.getCurrentPortfolioGroups(idUser));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         } 
     }
 
@@ -116,26 +184,46 @@ public class Controller {
     // ========================
 
     /**
-     * Verifies a Google token and returns user info
+     * Verifies a Google token and returns user info together with a session token.
+     * The session token is sent as "Authorization: Bearer ..." on all following requests
+     * and is verified locally, without asking Google again.
      */
     @GetMapping("/google/{token}")
     public ResponseEntity<?> verifyGoogleTokenPath(@PathVariable("token") String token) {
         try {
-            return ResponseEntity.ok(google.handleUserLogin(google.handleGoogleToken(token)));
+            User_service user = google.handleUserLogin(google.handleGoogleToken(token));
+            SessionTokenService.Session session = google.issueSessionToken(user.getId());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", user.getId());
+            result.put("name", user.getName());
+            result.put("email", user.getEmail());
+            result.put("profilePicture", user.getProfilePicture());
+            result.put("username", user.getUsername());
+            result.put("sessionToken", session.token());
+            result.put("sessionExpiresAt", session.expiresAt().toString());
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
         }
     }
 
+    /**
+     * Removes a token from the verification cache so the next request has to verify it again
+     */
+    @PostMapping("/logout/{token}")
+    public ResponseEntity<?> logout(@PathVariable("token") String token) {
+        google.invalidateToken(token);
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * Returns hourly portfolio snapshot for the last 24h
      */
     @GetMapping("/chart/daily/{token}")
-        public ResponseEntity<?> getDailyChart(@PathVariable("token") String token) {
+        public ResponseEntity<?> getDailyChart(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
             // Endpoint to retrieve the relative portfolio value for today, sampled at a 1-hour interval.
             try {
-                String userId = (String) google.handleGoogleToken(token).get("sub");
-
                 // Determining the correct time range depending on whether the current time is before or after 15:30.
                 LocalDateTime date = LocalDateTime.now();
                 LocalDateTime stop_date = date.minusHours(24);
@@ -153,7 +241,7 @@ public class Controller {
                 System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
                 return ResponseEntity.ok(result);
             } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
             }
         }
 
@@ -161,11 +249,9 @@ public class Controller {
      * Returns daily portfolio snapshot for the last 7 days
      */
     @GetMapping("/chart/weekly/{token}")
-    public ResponseEntity<?> getWeeklyChart(@PathVariable("token") String token) {
+    public ResponseEntity<?> getWeeklyChart(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         // Endpoint to retrieve the relative portfolio value for Week, sampled at a 1-day interval.
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusDays(7);
 
@@ -182,7 +268,7 @@ public class Controller {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -190,11 +276,9 @@ public class Controller {
      * Returns daily portfolio snapshot for the last month
      */
     @GetMapping("/chart/monthly/{token}")
-    public ResponseEntity<?> getMonthlyChart(@PathVariable("token") String token) {
+    public ResponseEntity<?> getMonthlyChart(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         // Endpoint to retrieve the relative portfolio value for Week, sampled at a 1-day interval.
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusMonths(1);
 
@@ -211,7 +295,7 @@ public class Controller {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 }
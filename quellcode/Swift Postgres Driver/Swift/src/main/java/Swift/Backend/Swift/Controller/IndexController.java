@@ -7,7 +7,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
 import Swift.Backend.Swift.Services.IndexService;
 
 /**
@@ -27,18 +26,15 @@ public class IndexController {
 
 
     private final IndexService indexService;
-    private final Googlecheck google;
 
     /**
      * Constructor for dependency injection
      * 
      * @param indexService - Service handling index logic
-     * @param google - Google token validation utility
      */
     @Autowired
-    public IndexController(IndexService indexService, Googlecheck google){
+    public IndexController(IndexService indexService){
         this.indexService = indexService;
-        this.google = google;
     }
 
     // ========================
@@ -48,16 +44,14 @@ public class IndexController {
     /**
      * Loads all available index data
      * 
-     * @param token - Google authentication token
      * @return List of index entities or error
      */
     @GetMapping("/loadIndexes/{token}")
-    public ResponseEntity<?> loadAllIndexes(@PathVariable("token") String token){
+    public ResponseEntity<?> loadAllIndexes(){
         try {
-            google.handleGoogleToken(token).get("sub");
             return ResponseEntity.ok(indexService.getIndexs());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -65,7 +59,6 @@ public class IndexController {
      * Retrieves a specific index by its ID
      * 
      * @param id - Index ID
-     * @param token - Google authentication token
      * @return Index data or error
      */
 //    @GetMapping("/getIndex/{IDIndex}/{token}")
@@ -11,7 +11,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
 import Swift.Backend.Swift.Projections.IndexPriceProjection;
 import Swift.Backend.Swift.Services.IndexPriceService;
 
@@ -34,18 +33,15 @@ public class IndexPricesController {
     // ========================
 
     private final IndexPriceService indexPriceService;
-    private final Googlecheck google;
 
     /**
      * Constructor for dependency injection
      * 
      * @param indexPriceService - Service for index price data
-     * @param google - Google token validation utility
      */
     @Autowired
-    public IndexPricesController(IndexPriceService indexPriceService, Googlecheck google){
+    public IndexPricesController(IndexPriceService indexPriceService){
         this.indexPriceService = indexPriceService;
-        this.google = google;
     }
 
     // ========================
@@ -57,26 +53,21 @@ public class IndexPricesController {
      * 
      * @param dateTime - Timestamp string
      * @param id - Index ID
-     * @param token - Google authentication token
      * @return Index value data or error
      */
     @GetMapping("/getIndexValueByHour/{dateTime}/{token}")
         public ResponseEntity<?> getIndexValueByHour(
-                @PathVariable("dateTime") String dateTime,
-                @PathVariable("token") String token) {
+                @PathVariable("dateTime") String dateTime) {
                 try{
-                    google.handleGoogleToken(token).get("sub");
                     return ResponseEntity.ok(indexPriceService.getIndexValueByHour(dateTime));
                 } catch (Exception e) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
                 }
         }
 
     @GetMapping("/getIndexValueToday/{token}")
-    public ResponseEntity<?> getIndexValueToday(@PathVariable("token") String token){
+    public ResponseEntity<?> getIndexValueToday(){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(24);
 
@@ -90,15 +81,13 @@ public class IndexPricesController {
             System.out.println(date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 
     @GetMapping("/getIndexValueLastWeek/{token}")
-    public ResponseEntity<?> getIndexValueLastWeek(@PathVariable("token") String token){
+    public ResponseEntity<?> getIndexValueLastWeek(){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(168);
 
@@ -112,15 +101,13 @@ public class IndexPricesController {
             System.out.println(date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 
     @GetMapping("/getIndexValueLastMonth/{token}")
-    public ResponseEntity<?> getIndexValueLastMonth(@PathVariable("token") String token){
+    public ResponseEntity<?> getIndexValueLastMonth(){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(720);
 
@@ -134,7 +121,7 @@ public class IndexPricesController {
             System.out.println(date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 }    
@@ -0,0 +1,120 @@
+package Swift.Backend.Swift.Controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import Swift.Backend.Swift.Googlecheck;
+import Swift.Backend.Swift.Auth.AuthInterceptor;
+import Swift.Backend.Swift.Auth.GoogleIdTokenVerifier;
+import Swift.Backend.Swift.Auth.IdentityHttpClient;
+import Swift.Backend.Swift.Auth.SessionTokenService;
+import Swift.Backend.Swift.Services.IdempotencyService;
+import Swift.Backend.Swift.Services.OrderEngineService;
+import Swift.Backend.Swift.Services.OrderEventService;
+import Swift.Backend.Swift.Services.OrderExpiryService;
+import Swift.Backend.Swift.Services.QuoteService;
+import Swift.Backend.Swift.Services.TradeGroupCommitService;
+import Swift.Backend.Swift.Services.TradeRiskService;
+import Swift.Backend.Swift.Services.TradeSequencerService;
+import Swift.Backend.Swift.Services.LatestPriceService;
+import Swift.Backend.Swift.Services.TradeJournalService;
+import Swift.Backend.Swift.Services.TradeService;
+
+/**
+ * MetricsController
+ * 
+ * Exposes internal runtime counters (caches, pools, ...) for monitoring.
+ * Protected by the same internal password as the order execution route.
+ */
+@RestController
+public class MetricsController {
+
+    // ========================
+    // Dependencies
+    // ========================
+
+    private final Googlecheck google;
+    private final GoogleIdTokenVerifier idTokenVerifier;
+    private final IdentityHttpClient identityHttpClient;
+    private final SessionTokenService sessionTokenService;
+    private final AuthInterceptor authInterceptor;
+    private final TradeService tradeService;
+    private final LatestPriceService latestPriceService;
+    private final TradeJournalService tradeJournalService;
+    private final IdempotencyService idempotencyService;
+    private final QuoteService quoteService;
+    private final TradeGroupCommitService tradeGroupCommitService;
+    private final TradeRiskService tradeRiskService;
+    private final TradeSequencerService tradeSequencerService;
+    private final OrderEngineService orderEngineService;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderEventService orderEventService;
+
+    /**
+     * Constructor for dependency injection
+     */
+    @Autowired
+    public MetricsController(Googlecheck google, GoogleIdTokenVerifier idTokenVerifier, IdentityHttpClient identityHttpClient,
+    SessionTokenService sessionTokenService, AuthInterceptor authInterceptor,
+    TradeService tradeService, LatestPriceService latestPriceService, TradeJournalService tradeJournalService,
+    IdempotencyService idempotencyService, QuoteService quoteService, TradeGroupCommitService tradeGroupCommitService,
+    TradeRiskService tradeRiskService, TradeSequencerService tradeSequencerService, OrderEngineService orderEngineService,
+    OrderExpiryService orderExpiryService, OrderEventService orderEventService){
+        this.google = google;
+        this.idTokenVerifier = idTokenVerifier;
+        this.identityHttpClient = identityHttpClient;
+        this.sessionTokenService = sessionTokenService;
+        this.authInterceptor = authInterceptor;
+        this.tradeService = tradeService;
+        this.latestPriceService = latestPriceService;
+        this.tradeJournalService = tradeJournalService;
+        this.idempotencyService = idempotencyService;
+        this.quoteService = quoteService;
+        this.tradeGroupCommitService = tradeGroupCommitService;
+        this.tradeRiskService = tradeRiskService;
+        this.tradeSequencerService = tradeSequencerService;
+        this.orderEngineService = orderEngineService;
+        this.orderExpiryService = orderExpiryService;
+        this.orderEventService = orderEventService;
+    }
+
+    // ========================
+    // REST Endpoints
+    // ========================
+
+    /**
+     * Returns all collected metrics
+     */
+    @GetMapping("/getMetrics/{Passwort}")
+    public ResponseEntity<?> getMetrics(@PathVariable("Passwort") String pw){
+        if (!"suprsecretpasswort".equals(pw)){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("nice Try Lukas!, but no");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("authRequests", authInterceptor.stats());
+        result.put("authTokenCache", google.getTokenCacheStats());
+        result.put("authInFlight", google.getInFlightStats());
+        result.put("authIdTokenVerifier", idTokenVerifier.stats());
+        result.put("identityHttpPool", identityHttpClient.stats());
+        result.put("sessionTokens", sessionTokenService.stats());
+        result.put("tradeRisk", tradeRiskService.getStats());
+        result.put("tradeLocks", tradeService.getLockStats());
+        result.put("latestPrices", latestPriceService.getStats());
+        result.put("tradeJournal", tradeJournalService.getStats());
+        result.put("tradeGroupCommit", tradeGroupCommitService.getStats());
+        result.put("tradeSequencer", tradeSequencerService.getStats());
+        result.put("orderEngine", orderEngineService.getStats());
+        result.put("orderExpiry", orderExpiryService.getStats());
+        result.put("orderEvents", orderEventService.getStats());
+        result.put("idempotency", idempotencyService.getStats());
+        result.put("quotes", quoteService.getStats());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,48 +1,89 @@
 package Swift.Backend.Swift.Controller;
 
-import Swift.Backend.Swift.Googlecheck;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import Swift.Backend.Swift.Auth.AuthInterceptor;
 import Swift.Backend.Swift.DTO.OrderRequestDTO;
+import Swift.Backend.Swift.Services.IdempotencyService;
+import Swift.Backend.Swift.Services.OrderEngineService;
+import Swift.Backend.Swift.Services.OrderEventService;
+import Swift.Backend.Swift.Services.OrderExpiryService;
 import Swift.Backend.Swift.Services.OrdersService;
+import Swift.Backend.Swift.Services.TradeService;
 
 @RestController
 public class OrdersController {
 
     private final OrdersService ordersService;
-    private final Googlecheck google;
+    private final TradeService tradeService;
+    private final IdempotencyService idempotencyService;
+    private final OrderEngineService orderEngineService;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderEventService orderEventService;
 
     @Autowired
-    public OrdersController(OrdersService ordersService, Googlecheck google){
-    this.ordersService = ordersService; this.google = google;
+    public OrdersController(OrdersService ordersService, TradeService tradeService, IdempotencyService idempotencyService,
+    OrderEngineService orderEngineService, OrderExpiryService orderExpiryService, OrderEventService orderEventService){
+    this.ordersService = ordersService;
+    this.tradeService = tradeService;
+    this.idempotencyService = idempotencyService;
+    this.orderEngineService = orderEngineService;
+    this.orderExpiryService = orderExpiryService;
+    this.orderEventService = orderEventService;
     }
 
     @PostMapping("/createOrder/{token}")
-    public ResponseEntity<?> createOrder(@PathVariable("token") String token, @RequestBody OrderRequestDTO orderRequestDTO){
+    public ResponseEntity<?> createOrder(@RequestAttribute(AuthInterceptor.USER_ID) String idUser, @RequestBody OrderRequestDTO orderRequestDTO,
+    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
         try {
-            String idUser = (String) google.handleGoogleToken(token).get("sub");
-            return ResponseEntity.ok(ordersService.saveOrder(idUser, orderRequestDTO));
+            return idempotencyService.execute(idUser, idempotencyKey, "createOrder", orderRequestDTO,
+                () -> ResponseEntity.ok(ordersService.saveOrder(idUser, orderRequestDTO)));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getAllOrders/{token}")
-    public ResponseEntity<?> getAllOrders(@PathVariable("token") String token) {
+    public ResponseEntity<?> getAllOrders(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
             return ResponseEntity.ok(ordersService.getAllOrders(userId));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/getOrders/{token}")
+    public ResponseEntity<?> getOrders(@RequestAttribute(AuthInterceptor.USER_ID) String userId,
+    @RequestParam(value = "status", required = false) String status,
+    @RequestParam(value = "idStock", required = false) Long idStock,
+    @RequestParam(value = "cursor", required = false) Long cursor,
+    @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(ordersService.getOrders(userId, status, idStock, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/orderEvents/{token}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> orderEvents(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
+        try {
+            return ResponseEntity.ok(orderEventService.subscribe(userId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -53,21 +94,23 @@ public class OrdersController {
             if (!"suprsecretpasswort".equals(pw)){
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("nice Try Lukas!, but no");
             } else {
-                return ResponseEntity.ok(ordersService.executeOrder(idOrder));
+                return ResponseEntity.ok(tradeService.executeOrder(idOrder));
             }
 
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @DeleteMapping("deleteOrder/{idOrder}/{token}")
-    public ResponseEntity<?> deleteOrder(@PathVariable("idOrder") long idOrder, @PathVariable("token") String token){
+    public ResponseEntity<?> deleteOrder(@PathVariable("idOrder") long idOrder, @RequestAttribute(AuthInterceptor.USER_ID) String userId){
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-            return ResponseEntity.ok(ordersService.deleteOrders(idOrder, userId));
+            long deleted = ordersService.deleteOrders(idOrder, userId);
+            orderEngineService.remove(idOrder);
+            orderExpiryService.cancel(idOrder);
+            return ResponseEntity.ok(deleted);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
 
     }
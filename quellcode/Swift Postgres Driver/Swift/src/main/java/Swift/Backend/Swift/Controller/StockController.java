@@ -7,7 +7,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
 import Swift.Backend.Swift.Services.StockService;
 
 /**
@@ -27,17 +26,15 @@ public class StockController {
     // ========================
 
     private final StockService stockservice;
-    private final Googlecheck google;
 
     /**
      * Constructor for dependency injection
      * 
-     * @param google - Google token validation utility
      * @param stockservice - Service handling stock logic
      */
     @Autowired
-    public StockController( Googlecheck google, StockService stockservice){
-        this.google = google; this.stockservice = stockservice;
+    public StockController(StockService stockservice){
+        this.stockservice = stockservice;
     }
 
     // ========================
@@ -48,16 +45,14 @@ public class StockController {
      * Retrieves a specific stock by its ID
      * 
      * @param id - Stock ID
-     * @param token - Google authentication token
      * @return Stock data or unauthorized error
      */
     @GetMapping("/getStock/{IDStock}/{token}")
-    public Object getStock(@PathVariable("IDStock") long id, @PathVariable("token") String token){
+    public Object getStock(@PathVariable("IDStock") long id){
         try {
-            google.handleGoogleToken(token);
             return stockservice.getStock(id);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
         
     }
@@ -65,16 +60,14 @@ public class StockController {
     /**
      * Loads all available stock entries
      * 
-     * @param token - Google authentication token
      * @return List of stocks or error if unauthorized
      */
     @GetMapping("/loadStocks/{token}")
-    public ResponseEntity<?> loadAllStocks(@PathVariable("token") String token){
+    public ResponseEntity<?> loadAllStocks(){
         try {
-            google.handleGoogleToken(token);
             return ResponseEntity.ok(stockservice.getStocks());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 }
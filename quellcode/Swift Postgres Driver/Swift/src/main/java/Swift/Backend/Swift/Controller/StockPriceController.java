@@ -13,7 +13,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
 import Swift.Backend.Swift.Projections.StockPriceProjection;
 import Swift.Backend.Swift.Services.StockPriceService;
 
@@ -35,15 +34,13 @@ public class StockPriceController {
     // ========================
 
     private final StockPriceService stockPriceService;
-    private final Googlecheck google;
 
     /**
      * Constructor for dependency injection
      */
     @Autowired
-    public StockPriceController(StockPriceService stockPriceService, Googlecheck google){
+    public StockPriceController(StockPriceService stockPriceService){
         this.stockPriceService = stockPriceService;
-        this.google = google;
     }
 
     // ========================
@@ -54,12 +51,11 @@ public class StockPriceController {
      * Returns the current stock price for a given stock ID
      */
     @GetMapping("/getcurrentStockPrice/{IDStock}/{token}")
-    public ResponseEntity<?> getCurrentStockPrice(@PathVariable("IDStock") long IDStock, @PathVariable("token") String token){
+    public ResponseEntity<?> getCurrentStockPrice(@PathVariable("IDStock") long IDStock){
         try {
-            google.handleGoogleToken(token);
             return ResponseEntity.ok(stockPriceService.getCurrentStockPrice(IDStock));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -69,12 +65,11 @@ public class StockPriceController {
     @GetMapping("/getStockPricesByPeriod/{IDStock}/{date}/{token}")
     public ResponseEntity<?> getStockPricebyPeriod(
             @PathVariable("IDStock") long IDStock,
-            @PathVariable("date") String date,  @PathVariable("token") String token) {
+            @PathVariable("date") String date) {
         try {
-            google.handleGoogleToken(token);
             return ResponseEntity.ok(stockPriceService.getStockPricebyPeriod(IDStock, date));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -84,12 +79,11 @@ public class StockPriceController {
     @GetMapping("/getStockPricesFromDate/{IDStock}/{startDate}/{token}")
     public ResponseEntity<?> getStockPricesFromDate(
             @PathVariable("IDStock") long IDStock,
-            @PathVariable("startDate") String startDate,  @PathVariable("token") String token) {
+            @PathVariable("startDate") String startDate) {
                 try {
-                google.handleGoogleToken(token);
                 return ResponseEntity.ok(stockPriceService.getStockPricesFromDate(IDStock, startDate));
                 } catch (Exception e) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
                 }
     }
 
@@ -97,20 +91,17 @@ public class StockPriceController {
      * Returns the growth of a list of stocks based on current and historical values
      */
     @PostMapping("/getStockGrowth/{token}")
-    public ResponseEntity<?> getStockGrowth(@PathVariable("token") String token, @RequestBody List<Long> stockIds){
+    public ResponseEntity<?> getStockGrowth(@RequestBody List<Long> stockIds){
         try {
-            google.handleGoogleToken(token).get("sub");
             return ResponseEntity.ok(stockPriceService.getStockGrowth(stockIds));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getStockPriceLastHour/{id}/{token}")
-    public ResponseEntity<?> getStockPriceLastHour(@PathVariable("id") long IDStock, @PathVariable("token") String token){
+    public ResponseEntity<?> getStockPriceLastHour(@PathVariable("id") long IDStock){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(1);
 
@@ -124,15 +115,13 @@ public class StockPriceController {
             System.out.println(IDStock + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 
     @GetMapping("/getStockPriceToday/{id}/{token}")
-    public ResponseEntity<?> getStockPriceToday(@PathVariable("id") long IDStock, @PathVariable("token") String token){
+    public ResponseEntity<?> getStockPriceToday(@PathVariable("id") long IDStock){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(24);
 
@@ -146,15 +135,13 @@ public class StockPriceController {
             System.out.println(IDStock + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 
     @GetMapping("/getStockPriceLastWeek/{id}/{token}")
-    public ResponseEntity<?> getStockPriceLastWeek(@PathVariable("id") long IDStock, @PathVariable("token") String token){
+    public ResponseEntity<?> getStockPriceLastWeek(@PathVariable("id") long IDStock){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(168);
 
@@ -168,15 +155,13 @@ public class StockPriceController {
             System.out.println(IDStock + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 
     @GetMapping("/getStockPriceLastMonth/{id}/{token}")
-    public ResponseEntity<?> getStockPriceLastMonth(@PathVariable("id") long IDStock, @PathVariable("token") String token){
+    public ResponseEntity<?> getStockPriceLastMonth(@PathVariable("id") long IDStock){
         try {
-            google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(720);
 
@@ -190,7 +175,7 @@ public class StockPriceController {
             System.out.println(IDStock + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }      
     }
 }
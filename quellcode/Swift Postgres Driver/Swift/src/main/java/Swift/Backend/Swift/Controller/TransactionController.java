@@ -9,10 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RestController;
 
-import Swift.Backend.Swift.Googlecheck;
+import Swift.Backend.Swift.Auth.AuthInterceptor;
 import Swift.Backend.Swift.Entities.Transaction;
 import Swift.Backend.Swift.Projections.PortfolioSnapshot;
 import Swift.Backend.Swift.Services.TransactionService;
@@ -33,15 +33,13 @@ public class TransactionController {
     // ========================
 
     private final TransactionService transactionService;
-    private final Googlecheck google;
 
     /**
      * Constructor for dependency injection
      */
     @Autowired
-    public TransactionController(TransactionService transactionService, Googlecheck google){
+    public TransactionController(TransactionService transactionService){
         this.transactionService = transactionService;
-        this.google = google;
     }
 
     // ========================
@@ -52,16 +50,15 @@ public class TransactionController {
      * Returns all transactions for the authenticated user
      */
     @GetMapping("/getAllTransactions/{token}")
-    public ResponseEntity<?> getAllTransactions(@PathVariable("token") String token) {
+    public ResponseEntity<?> getAllTransactions(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
             List<Transaction> txs = transactionService.getAllTransactions(userId);
             if (txs.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
             return ResponseEntity.ok(txs);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
@@ -69,10 +66,8 @@ public class TransactionController {
     /** Portfolio absolute values for different timeframes **/
 
     @GetMapping("/getPortfolioValueToday/{token}")
-    public ResponseEntity<?> getPortfolioValueToday(@PathVariable("token") String token) {
+    public ResponseEntity<?> getPortfolioValueToday(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime stop_time = now.minusHours(24);
             //LocalDateTime stop_time = now.withHour(15).withMinute(30).withSecond(0).withNano(0);
@@ -101,15 +96,13 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getPortfolioValueLastWeek/{token}")
-    public ResponseEntity<?> getPortfolioValueLastWeek(@PathVariable("token") String token) {
+    public ResponseEntity<?> getPortfolioValueLastWeek(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusHours(168);
             
@@ -127,15 +120,13 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getPortfolioValueLastMonth/{token}")
-    public ResponseEntity<?> getPortfolioValueLastMonth(@PathVariable("token") String token) {
+    public ResponseEntity<?> getPortfolioValueLastMonth(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusHours(720);
 
@@ -153,18 +144,16 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     /** Portfolio relative values for different timeframes **/
 
     @GetMapping("/getRelativePortfolioValueToday/{token}")
-    public ResponseEntity<?> getRelativePortfolioValueToday(@PathVariable("token") String token) {
+    public ResponseEntity<?> getRelativePortfolioValueToday(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         // Endpoint to retrieve the relative portfolio value for today, sampled at a 1-hour interval.
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             // Determining the correct time range depending on whether the current time is before or after 15:30.
             LocalDateTime now = LocalDateTime.now();
             //LocalDateTime stop_time = now.withHour(16).withMinute(30).withSecond(0).withNano(0);
@@ -195,16 +184,14 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getRelativePortfolioValueLastWeek/{token}")
-    public ResponseEntity<?> getRelativePortfolioValueLastWeek(@PathVariable("token") String token) {
+    public ResponseEntity<?> getRelativePortfolioValueLastWeek(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         // Endpoint to retrieve the relative portfolio value for Week, sampled at a 1-day interval.
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusDays(7);
 
@@ -221,16 +208,14 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 
     @GetMapping("/getRelativePortfolioValueLastMonth/{token}")
-    public ResponseEntity<?> getRelativePortfolioValueLastMonth(@PathVariable("token") String token) {
+    public ResponseEntity<?> getRelativePortfolioValueLastMonth(@RequestAttribute(AuthInterceptor.USER_ID) String userId) {
         // Endpoint to retrieve the relative portfolio value for today, sampled at a 1-day interval.
         try {
-            String userId = (String) google.handleGoogleToken(token).get("sub");
-
             LocalDateTime date = LocalDateTime.now();
             LocalDateTime stop_date = date.minusMonths(1);
 
@@ -246,7 +231,7 @@ public class TransactionController {
             System.out.println(userId + ' ' + date_str + ' ' + stop_date_str + ' ' + interval);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token ungültig oder Fehler: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Fehler: " + e.getMessage());
         }
     }
 }
@@ -31,6 +31,12 @@ public class OrderRequestDTO {
     // Optional: gleich mit Condition-Infos
     private Double limitPrice;
     private Double stopPrice;
+    // nur TRAILING_STOP: Abstand zum Hoch- bzw. Tiefstkurs, entweder als Betrag oder in Prozent
+    private Double trailAmount;
+    private Double trailPercent;
+    // Gültigkeit: GTC (Standard), DAY (bis Handelsschluss) oder GTD (bis expiresAt)
+    private String timeInForce;
+    private LocalDateTime expiresAt;
 
     // --- Konstruktoren ---
     public OrderRequestDTO() {}
@@ -171,6 +177,38 @@ public class OrderRequestDTO {
         this.stopPrice = stopPrice;
     }
 
+    public Double getTrailAmount() {
+        return trailAmount;
+    }
+
+    public void setTrailAmount(Double trailAmount) {
+        this.trailAmount = trailAmount;
+    }
+
+    public Double getTrailPercent() {
+        return trailPercent;
+    }
+
+    public void setTrailPercent(Double trailPercent) {
+        this.trailPercent = trailPercent;
+    }
+
+    public String getTimeInForce() {
+        return timeInForce;
+    }
+
+    public void setTimeInForce(String timeInForce) {
+        this.timeInForce = timeInForce;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
 
 
 }
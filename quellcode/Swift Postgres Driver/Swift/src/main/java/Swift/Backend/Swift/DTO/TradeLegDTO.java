@@ -0,0 +1,126 @@
+package Swift.Backend.Swift.DTO;
+
+/**
+ * TradeLegDTO
+ * 
+ * Result of one leg of a batch trade (/tradeBatch).
+ * Contains:
+ * - Position of the leg in the request
+ * - Stock ID, buy/sell flag and number of shares
+ * - Price and amount the leg was (or would have been) executed with
+ * - ID of the stored transaction (only if executed)
+ * - Status (EXECUTED, REJECTED, NOT_EXECUTED) and an optional message
+ */
+public class TradeLegDTO {
+
+    public static final String EXECUTED = "EXECUTED";
+    public static final String REJECTED = "REJECTED";
+    public static final String NOT_EXECUTED = "NOT_EXECUTED";
+
+    // ========================
+    // Fields
+    // ========================
+
+    private int leg;
+    private long idStock;
+    private boolean bs;
+    private long count;
+    private Double price;
+    private Double amount;
+    private Long idTransaction;
+    private String status;
+    private String message;
+
+    // ========================
+    // Constructor
+    // ========================
+
+    /**
+     * Constructs a new TradeLegDTO for a leg that has not been executed yet.
+     * 
+     * @param leg - Position of the leg in the request (starting at 0)
+     * @param idStock - ID of the stock
+     * @param bs - false = buy, true = sell
+     * @param count - Number of shares
+     */
+    public TradeLegDTO(int leg, long idStock, boolean bs, long count) {
+        this.leg = leg;
+        this.idStock = idStock;
+        this.bs = bs;
+        this.count = count;
+        this.status = NOT_EXECUTED;
+    }
+
+    /**
+     * Marks the leg as rejected, the whole batch is not executed.
+     * 
+     * @param message - Reason for the rejection
+     */
+    public void reject(String message) {
+        this.status = REJECTED;
+        this.message = message;
+    }
+
+    /**
+     * Returns true if the leg was rejected.
+     */
+    public boolean isRejected() {
+        return REJECTED.equals(status);
+    }
+
+    // ========================
+    // Getters and Setters
+    // ========================
+
+    public int getLeg() {
+        return leg;
+    }
+
+    public long getIdStock() {
+        return idStock;
+    }
+
+    public boolean getBs() {
+        return bs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    public Long getIdTransaction() {
+        return idTransaction;
+    }
+
+    public void setIdTransaction(Long idTransaction) {
+        this.idTransaction = idTransaction;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
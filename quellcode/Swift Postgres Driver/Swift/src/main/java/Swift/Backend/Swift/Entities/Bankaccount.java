@@ -1,5 +1,7 @@
 package Swift.Backend.Swift.Entities;
 
+import java.time.LocalDateTime;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Column;
@@ -8,6 +10,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
+/**
+ * Cash ledger: one row per change of a user's balance (balance before and after, time of the change).
+ * The current balance itself is read from {@link Bankaccount_balance}.
+ */
 @Entity
 public class Bankaccount {
     @Id
@@ -26,6 +32,9 @@ public class Bankaccount {
     @Column(name = "current_worth")
     private double currentWorth;
 
+    @Column(name = "date")
+    private LocalDateTime date;
+
     public Bankaccount(long id, String idUser, double startworth, double currentWorth){
         this.id = id; this.idUser = idUser; this.startworth = startworth; this.currentWorth = currentWorth;
     }
@@ -35,6 +44,10 @@ public class Bankaccount {
         this.idUser = idUser; this.startworth = startworth; this.currentWorth = currentWorth;
     }
     
+    public Bankaccount(String idUser, double startworth, double currentWorth, LocalDateTime date){
+        this.idUser = idUser; this.startworth = startworth; this.currentWorth = currentWorth; this.date = date;
+    }
+    
     public Bankaccount(){
     }
 
@@ -69,4 +82,12 @@ public class Bankaccount {
     public void setCurrentWorth(double currentWorth){
         this.currentWorth = currentWorth;
     }
+
+    public LocalDateTime getDate(){
+        return date;
+    }
+
+    public void setDate(LocalDateTime date){
+        this.date = date;
+    }
 }
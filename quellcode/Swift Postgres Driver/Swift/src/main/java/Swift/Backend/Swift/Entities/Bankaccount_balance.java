@@ -0,0 +1,82 @@
+package Swift.Backend.Swift.Entities;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Current cash balance of a user, exactly one row per user.
+ * The history of all balance changes is kept in the {@link Bankaccount} ledger.
+ * Every change increments {@code version}.
+ */
+@Entity
+@Table(name = "bankaccount_balance")
+public class Bankaccount_balance {
+    @Id
+    @JsonProperty("id_user")
+    @Column(name = "id_user")
+    private String idUser;
+
+    @Column(name = "startworth")
+    private double startworth;
+
+    @JsonProperty("current_worth")
+    @Column(name = "current_worth")
+    private double currentWorth;
+
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Bankaccount_balance(String idUser, double startworth, double currentWorth, LocalDateTime updatedAt){
+        this.idUser = idUser; this.startworth = startworth; this.currentWorth = currentWorth; this.updatedAt = updatedAt;
+    }
+
+    public Bankaccount_balance(){
+    }
+
+    public String getIdUser(){
+        return idUser;
+    }
+
+    public void setIdUser(String idUser){
+        this.idUser = idUser;
+    }
+
+    public double getStartWorth(){
+        return startworth;
+    }
+
+    public void setStartWorth(double startworth){
+        this.startworth = startworth;
+    }
+
+    public double getCurrentWorth(){
+        return currentWorth;
+    }
+
+    public void setCurrentWorth(double currentWorth){
+        this.currentWorth = currentWorth;
+    }
+
+    public long getVersion(){
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt(){
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt){
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,100 @@
+package Swift.Backend.Swift.Entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Response of a trade request sent with an Idempotency-Key header.
+ * A retry with the same key gets this response instead of executing the trade again.
+ * {@code statusCode = 0} marks a request that is still running (or was interrupted by a crash).
+ */
+@Entity
+@Table(name = "idempotency_key")
+@IdClass(Idempotency_key.Key.class)
+public class Idempotency_key {
+    @Id
+    @Column(name = "id_user")
+    private String idUser;
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "route")
+    private String route;
+
+    @Column(name = "fingerprint")
+    private String fingerprint;
+
+    @Column(name = "status_code")
+    private int statusCode;
+
+    @Column(name = "response")
+    private String response;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public Idempotency_key(){
+    }
+
+    public String getIdUser(){
+        return idUser;
+    }
+
+    public String getIdempotencyKey(){
+        return idempotencyKey;
+    }
+
+    public String getRoute(){
+        return route;
+    }
+
+    public String getFingerprint(){
+        return fingerprint;
+    }
+
+    public int getStatusCode(){
+        return statusCode;
+    }
+
+    public String getResponse(){
+        return response;
+    }
+
+    public LocalDateTime getCreatedAt(){
+        return createdAt;
+    }
+
+    /**
+     * Composite primary key (id_user, idempotency_key).
+     */
+    public static class Key implements Serializable {
+        private String idUser;
+        private String idempotencyKey;
+
+        public Key(){
+        }
+
+        public Key(String idUser, String idempotencyKey){
+            this.idUser = idUser; this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(idUser, other.idUser) && Objects.equals(idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idUser, idempotencyKey);
+        }
+    }
+}
@@ -46,6 +46,19 @@ public class Orders {
     @Column(name = "executed_price")
     private double executed_price;
 
+    // GTC = bis zur Ausführung, DAY = bis Handelsschluss, GTD = bis expires_at
+    @Column(name = "time_in_force")
+    private String time_in_force = "GTC";
+
+    @Column(name = "expires_at")
+    private LocalDateTime expires_at;
+
+    @Column(name = "expired_at")
+    private LocalDateTime expired_at;
+
+    @Column(name = "cancelled_at")
+    private LocalDateTime cancelled_at;
+
      
 
      public Orders(String idUser, Long idStock, boolean bs, Long quantity, 
@@ -155,5 +168,37 @@ public class Orders {
     public void setExecutedPrice(double executed_price){
         this.executed_price = executed_price;
     }
+
+    public String getTimeInForce(){
+        return time_in_force;
+    }
+
+    public void setTimeInForce(String time_in_force){
+        this.time_in_force = time_in_force;
+    }
+
+    public LocalDateTime getExpiresAt(){
+        return expires_at;
+    }
+
+    public void setExpiresAt(LocalDateTime expires_at){
+        this.expires_at = expires_at;
+    }
+
+    public LocalDateTime getExpiredAt(){
+        return expired_at;
+    }
+
+    public void setExpiredAt(LocalDateTime expired_at){
+        this.expired_at = expired_at;
+    }
+
+    public LocalDateTime getCancelledAt(){
+        return cancelled_at;
+    }
+
+    public void setCancelledAt(LocalDateTime cancelled_at){
+        this.cancelled_at = cancelled_at;
+    }
 }
 
@@ -23,10 +23,21 @@ public class Orders_condition {
     @Column(name = "stop_price")
     private Double stop_price;
 
+    @Column(name = "trail_amount")
+    private Double trail_amount;
+
+    @Column(name = "trail_percent")
+    private Double trail_percent;
+
     public Orders_condition(long idOrder, Double limit_price, Double stop_price) {
         this.idOrder = idOrder; this.limit_price = limit_price; this.stop_price = stop_price;
     }
 
+    public Orders_condition(long idOrder, Double limit_price, Double stop_price, Double trail_amount, Double trail_percent) {
+        this.idOrder = idOrder; this.limit_price = limit_price; this.stop_price = stop_price;
+        this.trail_amount = trail_amount; this.trail_percent = trail_percent;
+    }
+
     public Orders_condition() {
      }
 
@@ -61,4 +72,20 @@ public class Orders_condition {
     public void setStopPrice(Double stop_price){
         this.stop_price = stop_price;
     }
+
+    public Double getTrailAmount(){
+        return trail_amount;
+    }
+
+    public void setTrailAmount(Double trail_amount){
+        this.trail_amount = trail_amount;
+    }
+
+    public Double getTrailPercent(){
+        return trail_percent;
+    }
+
+    public void setTrailPercent(Double trail_percent){
+        this.trail_percent = trail_percent;
+    }
 }
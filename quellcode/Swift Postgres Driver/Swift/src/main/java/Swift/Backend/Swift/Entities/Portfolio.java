@@ -10,6 +10,11 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
+/**
+ * A position: the shares a user holds of one stock.
+ * {@code count} is the number of shares, {@code value} the average purchase price,
+ * {@code date} the time of the last change. There is at most one row per user and stock.
+ */
 @Entity
 public class Portfolio {
     @Id
@@ -0,0 +1,42 @@
+package Swift.Backend.Swift.Entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Highest sequence number of the trade journal that has been written to the database.
+ * Exactly one row (id = 1), updated in the same transaction as the journaled trades,
+ * so a replay after a crash never writes a trade twice.
+ */
+@Entity
+@Table(name = "trade_journal_checkpoint")
+public class Trade_journal_checkpoint {
+    @Id
+    @Column(name = "id")
+    private int id;
+
+    @Column(name = "last_seq")
+    private long lastSeq;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Trade_journal_checkpoint(){
+    }
+
+    public int getId(){
+        return id;
+    }
+
+    public long getLastSeq(){
+        return lastSeq;
+    }
+
+    public LocalDateTime getUpdatedAt(){
+        return updatedAt;
+    }
+}
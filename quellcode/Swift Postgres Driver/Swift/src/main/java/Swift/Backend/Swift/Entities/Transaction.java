@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
 
 @Entity
 public class Transaction {
@@ -43,6 +44,11 @@ public class Transaction {
     @Column(name = "bs")
     private boolean bs;
 
+    // optional quote from /getQuote, the trade is then executed at the quoted price
+    @Transient
+    @JsonProperty(value = "quote_id", access = JsonProperty.Access.WRITE_ONLY)
+    private String quoteId;
+
     public Transaction(Long id, String id_user, long id_stock, Long id_stock_price, long count, double value, LocalDateTime date, boolean bs){
         this.id = id; this.id_user = id_user; this.id_stock = id_stock; this.id_stock_price = id_stock_price; 
         this.count = count; this.value = value; this.date = date; this.bs = bs;
@@ -119,6 +125,14 @@ public class Transaction {
         this.bs = bs;
     }
 
+    public String getQuoteId(){
+        return quoteId;
+    }
+
+    public void setQuoteId(String quoteId){
+        this.quoteId = quoteId;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" + "id=" + id + ", id_user=" + id_user + ", id_stock=" + id_stock + ", id_stock_price=" + id_stock_price + ", count=" + count + 
@@ -1,69 +1,92 @@
 package Swift.Backend.Swift;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 
+import Swift.Backend.Swift.Auth.GoogleIdTokenVerifier;
+import Swift.Backend.Swift.Auth.IdentityHttpClient;
+import Swift.Backend.Swift.Auth.SessionTokenService;
 import Swift.Backend.Swift.Entities.User_service;
 import Swift.Backend.Swift.Repositories.UserRepository;
-import Swift.Backend.Swift.Entities.Bankaccount;
-import Swift.Backend.Swift.Repositories.BankaccountRepository;
-import Swift.Backend.Swift.Repositories.SeasonRepository;
+import Swift.Backend.Swift.Services.SeasonService;
+import Swift.Backend.Swift.Util.SingleFlight;
+import Swift.Backend.Swift.Util.TtlCache;
 
 @org.springframework.stereotype.Service
 public class Googlecheck {
     @Autowired
     public final UserRepository userRepository;
-    public final BankaccountRepository bankaccountRepository;
-    public final SeasonRepository seasonRepository;
+    public final SeasonService seasonService;
+
+    // Verified Google responses, keyed by the SHA-256 hash of the token (the raw token is never stored)
+    @SuppressWarnings("rawtypes")
+    private final TtlCache<String, LinkedHashMap> tokenCache;
+    private final Duration tokenCacheTtl;
+    // Concurrent verifications of the same token (parallel requests on page load) share one call
+    @SuppressWarnings("rawtypes")
+    private final SingleFlight<String, LinkedHashMap> inFlightVerifications = new SingleFlight<>();
+    private final GoogleIdTokenVerifier idTokenVerifier;
+    private final IdentityHttpClient identityHttpClient;
+    private final SessionTokenService sessionTokenService;
+    private final String userinfoUrl;
 
     @Autowired
-    public Googlecheck(UserRepository userRepository, BankaccountRepository bankaccountRepository, SeasonRepository seasonRepository){
+    public Googlecheck(UserRepository userRepository, SeasonService seasonService,
+    GoogleIdTokenVerifier idTokenVerifier, IdentityHttpClient identityHttpClient, SessionTokenService sessionTokenService,
+    @Value("${swift.auth.userinfo-url:https://www.googleapis.com/oauth2/v3/userinfo}") String userinfoUrl,
+    @Value("${swift.auth.token-cache.max-size:10000}") int tokenCacheMaxSize,
+    @Value("${swift.auth.token-cache.ttl-seconds:300}") long tokenCacheTtlSeconds){
         this.userRepository = userRepository;
-        this.bankaccountRepository = bankaccountRepository;
-        this.seasonRepository = seasonRepository;
+        this.seasonService = seasonService;
+        this.tokenCache = new TtlCache<>(tokenCacheMaxSize);
+        this.tokenCacheTtl = Duration.ofSeconds(tokenCacheTtlSeconds);
+        this.idTokenVerifier = idTokenVerifier;
+        this.identityHttpClient = identityHttpClient;
+        this.sessionTokenService = sessionTokenService;
+        this.userinfoUrl = userinfoUrl;
     }
 
     /**
      * Handles the Google OAuth token by either simulating a user (if token is '1234-swift')
      * or by making a real API call to Google's userinfo endpoint to fetch user data.
+     * Successful responses are cached per token for the configured TTL (never longer than a verified ID token is
+     * valid), so repeated calls from the same session do not hit Google again.
+     * With swift.auth.mode=jwt, signed ID tokens are verified locally against the cached Google key set
+     * and only opaque access tokens still go to the userinfo endpoint.
+     * Session tokens are not accepted here, so /google/{token} only issues a session for a token Google verified
+     * and a session cannot renew itself.
      *
      * @param token the OAuth token provided by the frontend
      * @return a LinkedHashMap containing the user's Google profile information
      */
     @SuppressWarnings("rawtypes")
     public LinkedHashMap handleGoogleToken(String token) {
+        if (SessionTokenService.isSessionToken(token)) {
+            throw new IllegalArgumentException("Session-Tokens werden nur im Authorization-Header angenommen.");
+        }
+
         if (!token.equals("1234-swift"))
         {
-            // Set HTTP proxy
-            System.setProperty("http.proxyHost", "proxy.th-wildau.de");
-            System.setProperty("http.proxyPort", "8080");
-
-            // Set HTTPS proxy
-            System.setProperty("https.proxyHost", "proxy.th-wildau.de");
-            System.setProperty("https.proxyPort", "8080");
-
-            String url = "https://www.googleapis.com/oauth2/v3/userinfo";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(token);
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-
-            ResponseEntity<Map> response = new RestTemplate().exchange(
-                    url,
-                    HttpMethod.GET,
-                    request,
-                    Map.class
-            );
-                
-            return (LinkedHashMap) response.getBody();
+            String cacheKey = hashToken(token);
+            LinkedHashMap cached = tokenCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+
+            return inFlightVerifications.execute(cacheKey, () -> verifyToken(token, cacheKey));
         } else {
             // Return simulated user data for local development/testing
             Map<String, String> exampleJson = new LinkedHashMap<>();
@@ -77,40 +100,160 @@ public class Googlecheck {
         }
     }
 
+    /**
+     * Issues a session token for a verified Google user, used by the frontend for all following requests.
+     *
+     * @param sub the Google user id
+     * @return the signed session token and its expiry
+     */
+    public SessionTokenService.Session issueSessionToken(String sub) {
+        return sessionTokenService.issue(sub);
+    }
+
+    /**
+     * Authenticates a request: a session token issued by /google/{token} is only accepted from the
+     * "Authorization: Bearer" header (never from the path, so it does not end up in access logs) and is verified
+     * locally; without one, the path token is verified as Google token.
+     *
+     * @param pathToken the token of the request path
+     * @param authorization the Authorization header of the request, may be null
+     * @return the claims of the session or the user's Google profile information
+     */
+    @SuppressWarnings("rawtypes")
+    public LinkedHashMap authenticate(String pathToken, String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            String token = authorization.substring("Bearer ".length()).trim();
+            if (SessionTokenService.isSessionToken(token)) {
+                return sessionTokenService.verify(token);
+            }
+        }
+        return handleGoogleToken(pathToken);
+    }
+
+    /**
+     * Verifies a token that is not cached yet (locally as ID token or via Google's userinfo endpoint)
+     * and stores a successful result in the cache.
+     */
+    @SuppressWarnings("rawtypes")
+    private LinkedHashMap verifyToken(String token, String cacheKey) {
+        if (idTokenVerifier.isEnabled() && GoogleIdTokenVerifier.looksLikeJwt(token)) {
+            LinkedHashMap<String, Object> claims = idTokenVerifier.verify(token);
+            tokenCache.put(cacheKey, claims, cacheLifetime(claims.get("exp")));
+            return claims;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        // Shared pooled client: keep-alive connections, timeouts and proxy selection are configured there
+        ResponseEntity<Map> response = identityHttpClient.getRestTemplate().exchange(
+                userinfoUrl,
+                HttpMethod.GET,
+                request,
+                Map.class
+        );
+            
+        LinkedHashMap googleUser = (LinkedHashMap) response.getBody();
+        if (googleUser != null && googleUser.get("sub") != null) {
+            // userinfo does not say when the access token expires, the TTL bounds how long a revoked token still works
+            tokenCache.put(cacheKey, googleUser, tokenCacheTtl);
+        }
+        return googleUser;
+    }
+
+    /**
+     * Removes a token from the verification cache, e.g. after logout.
+     *
+     * @param token the OAuth token provided by the frontend
+     */
+    public void invalidateToken(String token) {
+        tokenCache.invalidate(hashToken(token));
+    }
+
+    /**
+     * Removes all tokens from the verification cache.
+     */
+    public void invalidateAllTokens() {
+        tokenCache.invalidateAll();
+    }
+
+    /**
+     * Returns hit/miss counters of the token verification cache.
+     */
+    public Map<String, Object> getTokenCacheStats() {
+        return tokenCache.stats();
+    }
+
+    /**
+     * Returns how many verifications were executed and how many were coalesced into a running one.
+     */
+    public Map<String, Object> getInFlightStats() {
+        return inFlightVerifications.stats();
+    }
+
+    /**
+     * Determines how long a verified ID token may stay in the cache, never longer than its "exp" claim
+     * (epoch seconds, always present after {@link GoogleIdTokenVerifier#verify}).
+     */
+    private Duration cacheLifetime(Object exp) {
+        if (exp == null) {
+            return tokenCacheTtl;
+        }
+        Duration remaining = Duration.between(Instant.now(), Instant.ofEpochSecond(Long.parseLong(exp.toString())));
+        return remaining.compareTo(tokenCacheTtl) < 0 ? remaining : tokenCacheTtl;
+    }
+
+    /**
+     * Hashes a token with SHA-256 so that raw tokens are not kept in memory as cache keys.
+     */
+    private static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Handles the login or registration of a user after Google authentication.
      * If the user already exists, their data is returned.
      * Otherwise, a new user and default bank account are created.
+     * Both happen in one upsert statement, the start balance of the active season comes from a cache.
      *
      * @param googleUser a LinkedHashMap containing Google user data
      * @return a User_service object representing the logged-in or newly registered user
      */
     @SuppressWarnings("rawtypes")
     public User_service handleUserLogin(LinkedHashMap googleUser) {
-        Optional<User_service> existingUser = userRepository.findById(googleUser.get("sub").toString());
+        String idUser = googleUser.get("sub").toString();
+        if (googleUser.get("email") == null) {
+            // Tokens without the email scope only carry the user id, such a user has to be registered before
+            return userRepository.findById(idUser).orElseThrow(() -> new IllegalStateException("Nutzer nicht gefunden."));
+        }
 
-        User_service user;
-        if (existingUser.isPresent()) {
-            user = existingUser.get();
-        } else {
-            user = new User_service(null, null, null, null, null);
-            user.setId(googleUser.get("sub").toString());
-            user.setName(googleUser.get("name").toString());
-            user.setProfilePicture(googleUser.get("picture").toString());
-            user.setEmail(googleUser.get("email").toString());
-            user.setUsername(googleUser.get("given_name").toString());
-            user = userRepository.save(user);
-
-            Double startWorth = (double) seasonRepository.getActiveSeason().getStartBalance();
-
-            Bankaccount bankaccount = new Bankaccount();
-            bankaccount.setId(0);
-            bankaccount.setIdUser(googleUser.get("sub").toString());
-            bankaccount.setStartWorth(startWorth);
-            bankaccount.setCurrentWorth(startWorth);
-            bankaccount = bankaccountRepository.save(bankaccount);
+        // name, picture and given_name depend on the granted scopes and the account, they may be missing
+        String email = googleUser.get("email").toString();
+        String name = claim(googleUser, "name", email);
+        User_service user = userRepository.upsertOnLogin(
+            idUser,
+            name,
+            email,
+            claim(googleUser, "picture", ""),
+            claim(googleUser, "given_name", name),
+            seasonService.getActiveStartBalance());
+
+        if (user == null) {
+            // Registered by a concurrent first login of the same user
+            user = userRepository.findById(idUser).orElseThrow(() -> new IllegalStateException("Nutzer nicht gefunden."));
         }
-            
-        return user;      
+        return user;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static String claim(LinkedHashMap googleUser, String name, String fallback) {
+        Object value = googleUser.get(name);
+        return value == null ? fallback : value.toString();
     }
-}
\ No newline at end of file
+}
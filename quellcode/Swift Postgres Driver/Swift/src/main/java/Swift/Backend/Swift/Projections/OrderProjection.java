@@ -14,4 +14,8 @@ public interface OrderProjection {
     LocalDateTime getUpdatedAt();
     LocalDateTime getExecutedAt();
     Double getExecutedPrice();
+    String getTimeInForce();
+    LocalDateTime getExpiresAt();
+    LocalDateTime getExpiredAt();
+    LocalDateTime getCancelledAt();
 }
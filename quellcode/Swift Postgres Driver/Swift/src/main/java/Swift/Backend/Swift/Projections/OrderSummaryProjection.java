@@ -0,0 +1,21 @@
+package Swift.Backend.Swift.Projections;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact view of an order for the order list, without the condition and with the status derived from the
+ * executed, cancelled and expired timestamps (OPEN, EXECUTED, CANCELLED, EXPIRED).
+ */
+public interface OrderSummaryProjection {
+    Long getIdOrder();
+    Long getIdStock();
+    Boolean getBs();
+    Long getQuantity();
+    Double getAmount();
+    String getOrderType();
+    String getTimeInForce();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getExecutedAt();
+    Double getExecutedPrice();
+    String getStatus();
+}
@@ -1,7 +1,10 @@
 package Swift.Backend.Swift.Repositories;
 
 
+import java.time.LocalDateTime;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
 import org.springframework.data.jpa.repository.Query;
 
@@ -10,19 +13,39 @@ import Swift.Backend.Swift.Entities.Bankaccount;
 /**
  * Repository interface for accessing {@link Bankaccount} entities from the database.
  * Extends {@link JpaRepository} to provide basic CRUD operations and custom queries.
+ * <p>
+ * The bankaccount table is the cash ledger (history); the current balance lives in {@code bankaccount_balance}.
  */
 public interface BankaccountRepository extends JpaRepository<Bankaccount, Long>{
 
     /**
-     * Retrieves the most recent value of {@code current_worth} for the user with the given ID.
+     * Retrieves the current balance for the user with the given ID.
      * <p>
-     * This query selects the latest bank account entry (based on {@code id_bankaccount} in descending order)
-     * for the specified user and returns its {@code current_worth}.
+     * Reads the user's row in {@code bankaccount_balance} by primary key instead of searching the ledger.
      *
      * @param IDUser the unique identifier of the user
      * @return the current worth of the user's most recent bank account
      */
-    @Query(value = "SELECT current_worth FROM bankaccount WHERE id_user = ?1 ORDER BY id_bankaccount DESC LIMIT 1" , nativeQuery = true)
+    @Query(value = "SELECT current_worth FROM bankaccount_balance WHERE id_user = ?1" , nativeQuery = true)
     double getCurrentWorth(String IDUser);
-    
+
+    /**
+     * Inserts the ledger entries of a group commit with a single statement.
+     * The arrays hold one element per entry, all entries get the same date.
+     *
+     * @param IDUsers       the user of each entry
+     * @param startworths   the balance before each trade
+     * @param currentWorths the balance after each trade
+     * @param date          the commit time
+     * @return number of inserted rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO bankaccount (id_user, startworth, current_worth, date)
+        SELECT l.id_user, l.startworth, l.current_worth, CAST(?4 AS timestamp)
+        FROM unnest(CAST(?1 AS varchar[]), CAST(?2 AS double precision[]), CAST(?3 AS double precision[]))
+             AS l(id_user, startworth, current_worth)
+        """, nativeQuery = true)
+    int insertAll(String[] IDUsers, double[] startworths, double[] currentWorths, LocalDateTime date);
+
 }
@@ -0,0 +1,66 @@
+package Swift.Backend.Swift.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import Swift.Backend.Swift.Entities.Bankaccount_balance;
+
+/**
+ * Repository interface for the current balance of each user ({@link Bankaccount_balance}).
+ * Balance reads are primary key lookups, balance changes are single atomic updates.
+ */
+public interface Bankaccount_balanceRepository extends JpaRepository<Bankaccount_balance, String> {
+
+    /**
+     * Returns the current balance of the user.
+     *
+     * @param IDUser the unique identifier of the user
+     * @return the current balance
+     */
+    @Query(value = "SELECT current_worth FROM bankaccount_balance WHERE id_user = ?1", nativeQuery = true)
+    Double getCurrentWorth(String IDUser);
+
+    /**
+     * Changes the balance of a user by the given amount in one atomic statement and increments the version.
+     * <p>
+     * The update only happens if the balance stays above zero, so two concurrent purchases can never
+     * spend the same money twice.
+     * <p>
+     * Deliberately without {@code @Modifying}, the new balance comes from RETURNING and a modifying query only
+     * yields the update count. Loaded Bankaccount_balance entities are not refreshed by this statement.
+     *
+     * @param IDUser the unique identifier of the user
+     * @param delta  amount to add (negative for purchases)
+     * @return the new balance, or {@code null} if the balance would drop to zero or below (or the user has no account)
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE bankaccount_balance
+        SET current_worth = current_worth + ?2, version = version + 1, updated_at = now()
+        WHERE id_user = ?1 AND current_worth + ?2 > 0
+        RETURNING current_worth
+        """, nativeQuery = true)
+    Double applyDelta(String IDUser, double delta);
+
+    /**
+     * Rebuilds the balances from the newest ledger row of every user.
+     * Used after the season change, which resets the ledger inside the database.
+     *
+     * @return number of written balances
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO bankaccount_balance (id_user, startworth, current_worth, version, updated_at)
+        SELECT DISTINCT ON (id_user) id_user, startworth, current_worth, 0, now()
+        FROM bankaccount
+        ORDER BY id_user, id_bankaccount DESC
+        ON CONFLICT (id_user) DO UPDATE SET
+            startworth = EXCLUDED.startworth,
+            current_worth = EXCLUDED.current_worth,
+            version = bankaccount_balance.version + 1,
+            updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int syncFromLedger();
+}
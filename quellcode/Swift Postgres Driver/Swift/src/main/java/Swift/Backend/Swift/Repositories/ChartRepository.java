@@ -25,7 +25,7 @@ public interface ChartRepository extends JpaRepository<Portfolio, Long> {
      *   <li>Calculates the user's net stock position at each time</li>
      *   <li>Fetches the latest stock prices available at each timestamp</li>
      *   <li>Multiplies the net stock count by the latest price to get stock value</li>
-     *   <li>Adds corresponding bank account values per timepoint</li>
+     *   <li>Adds the bank balance valid at each timepoint (from the timestamped cash ledger)</li>
      * </ul>
      *
      * @param idUser     the ID of the user whose data is requested
@@ -98,24 +98,15 @@ public interface ChartRepository extends JpaRepository<Portfolio, Long> {
           FROM positions
           GROUP BY snapshot_time
       ),
-      bank_rn AS (
-          SELECT *,
-                ROW_NUMBER() OVER (ORDER BY id_bankaccount) AS rn
-          FROM bankaccount
-          WHERE id_user = ?1
-      ),
-      trans_rn AS (
-          SELECT *,
-                ROW_NUMBER() OVER (ORDER BY id_transaction) AS rn
-          FROM transaction
-          WHERE id_user = ?1
-      ),
       bank_with_time AS (
           SELECT
-              b.current_worth,
-              COALESCE(t.date, TIMESTAMP '1970-01-01') AS bank_time  -- fallback für Startguthaben
-          FROM bank_rn b
-          LEFT JOIN trans_rn t ON b.rn = t.rn + 1
+              current_worth,
+              CASE WHEN ROW_NUMBER() OVER (ORDER BY id_bankaccount) = 1
+                   THEN TIMESTAMP '1970-01-01'  -- fallback für Startguthaben
+                   ELSE date
+              END AS bank_time
+          FROM bankaccount
+          WHERE id_user = ?1
       ),
       bank_balance AS (
           SELECT 
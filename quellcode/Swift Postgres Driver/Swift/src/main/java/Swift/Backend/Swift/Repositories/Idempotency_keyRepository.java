@@ -0,0 +1,64 @@
+package Swift.Backend.Swift.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import Swift.Backend.Swift.Entities.Idempotency_key;
+
+/**
+ * Repository interface for stored responses of idempotent trade requests ({@link Idempotency_key}).
+ */
+public interface Idempotency_keyRepository extends JpaRepository<Idempotency_key, Idempotency_key.Key> {
+
+    /**
+     * Returns the stored request of the user with this key.
+     *
+     * @param IDUser the unique identifier of the user
+     * @param key    the Idempotency-Key sent by the client
+     * @return the stored request, or null if the key is unknown
+     */
+    @Query(value = "SELECT * FROM idempotency_key WHERE id_user = ?1 AND idempotency_key = ?2", nativeQuery = true)
+    Idempotency_key findByKey(String IDUser, String key);
+
+    /**
+     * Claims the key before the request is executed; only one request per key can win.
+     *
+     * @return 1 if the key was claimed, 0 if it already exists
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO idempotency_key (id_user, idempotency_key, route, fingerprint, status_code, created_at)
+        VALUES (?1, ?2, ?3, ?4, 0, now())
+        ON CONFLICT (id_user, idempotency_key) DO NOTHING
+        """, nativeQuery = true)
+    int claim(String IDUser, String key, String route, String fingerprint);
+
+    /**
+     * Stores the response of the executed request.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE idempotency_key SET status_code = ?3, response = ?4 WHERE id_user = ?1 AND idempotency_key = ?2", nativeQuery = true)
+    int complete(String IDUser, String key, int statusCode, String response);
+
+    /**
+     * Releases a claimed key whose request failed, the client may retry it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_key WHERE id_user = ?1 AND idempotency_key = ?2 AND status_code = 0", nativeQuery = true)
+    int release(String IDUser, String key);
+
+    /**
+     * Deletes all keys older than the given number of hours.
+     *
+     * @return number of deleted keys
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_key WHERE created_at < now() - make_interval(hours => ?1)", nativeQuery = true)
+    int deleteExpired(int hours);
+}
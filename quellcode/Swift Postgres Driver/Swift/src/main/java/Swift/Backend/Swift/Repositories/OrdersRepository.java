@@ -3,11 +3,13 @@ package Swift.Backend.Swift.Repositories;
 import Swift.Backend.Swift.Entities.Orders;
 import Swift.Backend.Swift.Entities.Orders_condition;
 import Swift.Backend.Swift.Projections.OrderProjection;
+import Swift.Backend.Swift.Projections.OrderSummaryProjection;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -26,6 +28,10 @@ public interface OrdersRepository extends JpaRepository<Orders, Long>{
            o.updated_at AS updatedAt,       -- CHANGED FROM updated_at
            o.executed_at AS executedAt,     -- CHANGED FROM executed_at
            o.executed_price AS executedPrice, -- CHANGED FROM executed_price
+           o.time_in_force AS timeInForce,
+           o.expires_at AS expiresAt,
+           o.expired_at AS expiredAt,
+           o.cancelled_at AS cancelledAt,
            oc.limit_price AS limitPrice,
            oc.stop_price AS stopPrice
     FROM orders o
@@ -34,21 +40,267 @@ public interface OrdersRepository extends JpaRepository<Orders, Long>{
     """, nativeQuery = true)
 List<OrderProjection> findOrdersById_user(String id_user);
 
+/**
+ * Returns one page of a user's orders, newest first, without their conditions. The page starts below the cursor
+ * (keyset pagination on id_order), so every page is a range scan of the (id_user, id_order) index no matter how
+ * far the user has paged.
+ *
+ * @param id_user the ID of the user
+ * @param beforeId only orders with a lower ID, Long.MAX_VALUE for the first page
+ * @param idStock only orders of this stock, 0 for all stocks
+ * @param status only orders with this status (OPEN, EXECUTED, CANCELLED, EXPIRED), ALL for all orders
+ * @param limit maximum number of orders
+ * @return the orders of the page, ordered by ID descending
+ */
+@Query(value = """
+    SELECT *
+    FROM (SELECT o.id_order AS idOrder,
+                 o.id_stock AS idStock,
+                 o.bs AS bs,
+                 CAST(o.quantity AS bigint) AS quantity,
+                 o.amount AS amount,
+                 o.order_type AS orderType,
+                 o.time_in_force AS timeInForce,
+                 o.created_at AS createdAt,
+                 o.executed_at AS executedAt,
+                 o.executed_price AS executedPrice,
+                 CASE WHEN o.executed_at IS NOT NULL THEN 'EXECUTED'
+                      WHEN o.cancelled_at IS NOT NULL THEN 'CANCELLED'
+                      WHEN o.expired_at IS NOT NULL THEN 'EXPIRED'
+                      ELSE 'OPEN'
+                 END AS status
+          FROM orders o
+          WHERE o.id_user = ?1 AND o.id_order < ?2 AND (?3 = 0 OR o.id_stock = ?3)) page
+    WHERE ?4 = 'ALL' OR page.status = ?4
+    ORDER BY page.idOrder DESC
+    LIMIT ?5
+    """, nativeQuery = true)
+List<OrderSummaryProjection> findOrderPage(String id_user, long beforeId, long idStock, String status, int limit);
+
 Orders findOrdersById(long id);
 
+/**
+ * Returns an order and locks it until the end of the transaction, like {@link #findOrdersForExecution}, so a batch
+ * execution or a cancel of the same order waits for the transaction.
+ *
+ * @param id the ID of the order
+ * @return the order, null if it does not exist
+ */
+@Query(value = "SELECT * FROM orders WHERE id_order = ?1 FOR UPDATE", nativeQuery = true)
+Orders findOrderForUpdate(long id);
+
+/**
+ * Projection interface representing an order that has not been executed yet, with its condition.
+ */
+interface OpenOrder{
+    Long getIdOrder();
+    String getIdUser();
+    Long getIdStock();
+    Boolean getBs();
+    String getOrderType();
+    Double getLimitPrice();
+    Double getStopPrice();
+    Double getTrailAmount();
+    Double getTrailPercent();
+}
+
+/**
+ * Projection interface representing an open order as loaded by the order engine, with the water mark of a
+ * TRAILING_STOP order.
+ */
+interface OpenEngineOrder extends OpenOrder{
+    Double getTrailMark();
+}
+
+/**
+ * Returns all orders that have neither been executed, expired nor cancelled, loaded by the order engine on startup.
+ * For TRAILING_STOP orders the water mark is rebuilt from the prices since the order was created:
+ * the highest price for a sell, the lowest for a buy.
+ *
+ * @return the open orders with their limit, stop and trail values
+ */
+@Query(value = """
+    SELECT o.id_order AS idOrder,
+           o.id_user AS idUser,
+           o.id_stock AS idStock,
+           o.bs AS bs,
+           o.order_type AS orderType,
+           oc.limit_price AS limitPrice,
+           oc.stop_price AS stopPrice,
+           oc.trail_amount AS trailAmount,
+           oc.trail_percent AS trailPercent,
+           CASE WHEN upper(o.order_type) = 'TRAILING_STOP' THEN
+               (SELECT CASE WHEN o.bs THEN max(sp.price) ELSE min(sp.price) END
+                FROM stock_price sp
+                WHERE sp.id_stock = o.id_stock AND sp.date >= o.created_at)
+           END AS trailMark
+    FROM orders o
+    LEFT JOIN orders_condition oc ON o.id_order = oc.id_order
+    WHERE o.executed_at IS NULL AND o.expired_at IS NULL AND o.cancelled_at IS NULL
+    """, nativeQuery = true)
+List<OpenEngineOrder> findOpenOrders();
+
+/**
+ * Projection interface representing an open order with everything needed to execute it.
+ */
+interface ExecutableOrder extends OpenOrder{
+    Long getQuantity();
+    Double getAmount();
+}
+
+/**
+ * Returns the orders of a batch that have not been executed yet and locks them until the end of the transaction,
+ * so no other execution can pick them up at the same time.
+ *
+ * @param idOrders the IDs of the orders
+ * @return the open orders among them, ordered by ID
+ */
+@Query(value = """
+    SELECT o.id_order AS idOrder,
+           o.id_user AS idUser,
+           o.id_stock AS idStock,
+           o.bs AS bs,
+           CAST(o.quantity AS bigint) AS quantity,
+           o.amount AS amount,
+           o.order_type AS orderType,
+           oc.limit_price AS limitPrice,
+           oc.stop_price AS stopPrice,
+           oc.trail_amount AS trailAmount,
+           oc.trail_percent AS trailPercent
+    FROM orders o
+    LEFT JOIN orders_condition oc ON o.id_order = oc.id_order
+    WHERE o.id_order = ANY(CAST(?1 AS bigint[])) AND o.executed_at IS NULL AND o.expired_at IS NULL AND o.cancelled_at IS NULL
+    ORDER BY o.id_order
+    FOR UPDATE OF o
+    """, nativeQuery = true)
+List<ExecutableOrder> findOrdersForExecution(long[] idOrders);
+
+/**
+ * Marks all orders of a batch as executed at the same price with one statement.
+ *
+ * @param idOrders the IDs of the executed orders
+ * @param executed_price_id the ID of the price they were executed at
+ * @param executed_price the price they were executed at
+ * @return number of updated orders
+ */
+@Modifying
+@Query(value = """
+    UPDATE orders o
+    SET executed_at = now(), executed_price_id = ?2, executed_price = ?3
+    FROM unnest(CAST(?1 AS bigint[])) AS v(id_order)
+    WHERE o.id_order = v.id_order AND o.executed_at IS NULL AND o.expired_at IS NULL AND o.cancelled_at IS NULL
+    """, nativeQuery = true)
+int markExecuted(long[] idOrders, long executed_price_id, double executed_price);
+
+/**
+ * Stores the stop level at which TRAILING_STOP orders fired, from then on they are executed like STOP orders.
+ *
+ * @param idOrders the IDs of the orders
+ * @param stopPrices the stop level of each order
+ * @return number of updated conditions
+ */
+@Modifying
+@Query(value = """
+    UPDATE orders_condition oc
+    SET stop_price = v.stop_price
+    FROM unnest(CAST(?1 AS bigint[]), CAST(?2 AS double precision[])) AS v(id_order, stop_price)
+    WHERE oc.id_order = v.id_order
+    """, nativeQuery = true)
+int setStopPrices(long[] idOrders, double[] stopPrices);
+
+
+/**
+ * Projection interface representing an open order with an expiry time (DAY and GTD).
+ */
+interface ExpiringOrder{
+    Long getIdOrder();
+    LocalDateTime getExpiresAt();
+}
+
+/**
+ * Returns the open orders that expire, loaded into the timing wheel of the OrderExpiryService on startup.
+ *
+ * @return the open orders with their expiry time
+ */
+@Query(value = """
+    SELECT o.id_order AS idOrder,
+           o.expires_at AS expiresAt
+    FROM orders o
+    WHERE o.expires_at IS NOT NULL AND o.executed_at IS NULL AND o.expired_at IS NULL AND o.cancelled_at IS NULL
+    """, nativeQuery = true)
+List<ExpiringOrder> findExpiringOrders();
+
+/**
+ * Projection interface representing an order that was just marked as expired.
+ */
+interface ExpiredOrder{
+    Long getIdOrder();
+    String getIdUser();
+    Long getIdStock();
+}
+
+/**
+ * Marks open orders as expired with one statement, orders executed in the meantime are left as they are.
+ * <p>
+ * Not {@code @Modifying} because the marked orders are read from RETURNING (a modifying query only returns the row
+ * count); Orders entities already loaded in the persistence context keep their old expired_at.
+ *
+ * @param idOrders the IDs of the due orders
+ * @return the orders that were marked
+ */
+@Transactional
+@Query(value = """
+    UPDATE orders
+    SET expired_at = now(), updated_at = now()
+    WHERE id_order = ANY(CAST(?1 AS bigint[])) AND executed_at IS NULL AND expired_at IS NULL AND cancelled_at IS NULL
+    RETURNING id_order AS idOrder, id_user AS idUser, id_stock AS idStock
+    """, nativeQuery = true)
+List<ExpiredOrder> markExpired(long[] idOrders);
+
+/**
+ * Marks all open DAY orders as expired with one statement, returning the marked orders like {@link #markExpired}.
+ *
+ * @return the orders that were marked
+ */
+@Transactional
+@Query(value = """
+    UPDATE orders
+    SET expired_at = now(), updated_at = now()
+    WHERE time_in_force = 'DAY' AND executed_at IS NULL AND expired_at IS NULL AND cancelled_at IS NULL
+    RETURNING id_order AS idOrder, id_user AS idUser, id_stock AS idStock
+    """, nativeQuery = true)
+List<ExpiredOrder> expireDayOrders();
 
 @Query(value = "SELECT * FROM orders_condition where id_order = ?1", nativeQuery = true)
 Orders_condition findByIdOrder(long idOrder);
 
 @Transactional
 @Modifying
-@Query(value = "Update orders set executed_at = now(), executed_price_id = ?2, executed_price = ?3 where id_order = ?1", nativeQuery = true)
+@Query(value = """
+    UPDATE orders SET executed_at = now(), executed_price_id = ?2, executed_price = ?3
+    WHERE id_order = ?1 AND executed_at IS NULL AND expired_at IS NULL AND cancelled_at IS NULL
+    """, nativeQuery = true)
 int updateExecutedOrders(long id_order, long executed_price_id, double executed_price);
 
 @Modifying
 @Query(value = "delete from orders where id_order = ?1 and executed_at is null", nativeQuery = true)
 int deleteOrder(long id_order);
 
+/**
+ * Marks an open order of the user as cancelled, the order and its condition are kept for the order list.
+ *
+ * @param id_order the ID of the order
+ * @param id_user the ID of the user the order has to belong to
+ * @return number of cancelled orders, 0 if the order is not open or belongs to another user
+ */
+@Modifying
+@Query(value = """
+    UPDATE orders
+    SET cancelled_at = now(), updated_at = now()
+    WHERE id_order = ?1 AND id_user = ?2 AND executed_at IS NULL AND expired_at IS NULL AND cancelled_at IS NULL
+    """, nativeQuery = true)
+int cancelOrder(long id_order, String id_user);
+
 @Modifying
 @Query(value = "delete from orders_condition where orders_condition.id_order = ?1", nativeQuery = true)
 int deleteOrderCondition(long id_order);
@@ -14,6 +14,9 @@ import org.springframework.data.jpa.repository.Modifying;
 /**
  * Repository interface for accessing and manipulating {@link Portfolio} data.
  * Includes both derived query methods and complex native SQL queries for performance-optimized operations.
+ * <p>
+ * The portfolio holds one row (position) per user and stock: {@code count} is the number of shares held,
+ * {@code value} the average purchase price. Positions are updated in place on buy and sell.
  */
 public interface PortfolioRepository  extends JpaRepository<Portfolio, Long>{
 
@@ -28,12 +31,12 @@ public interface PortfolioRepository  extends JpaRepository<Portfolio, Long>{
     /**
      * Returns grouped portfolio data for a given user: stock ID, total count, and average value.
      * <p>
-     * This is a more performant SQL-based grouping query.
+     * Reads the positions directly, one row per stock.
      *
      * @param idUser the ID of the user
      * @return a list of {@link PortfolioGroup} projections
      */
-    @Query(value="SELECT id_user AS idUser, id_stock as idStock, COUNT(count) as count, AVG(value) as value FROM public.portfolio WHERE id_user = ?1 GROUP BY id_user, id_stock", nativeQuery = true)
+    @Query(value="SELECT id_user AS idUser, id_stock as idStock, CAST(count AS bigint) as count, value FROM public.portfolio WHERE id_user = ?1 AND count > 0", nativeQuery = true)
     List<PortfolioGroup> findPortfolioGroupByIdUser(String idUser);
 
     /**
@@ -65,52 +68,131 @@ public interface PortfolioRepository  extends JpaRepository<Portfolio, Long>{
     }
 
     /**
-     * Counts the number of portfolio entries for a specific user and stock combination.
+     * Returns the number of shares a user holds of a specific stock.
      *
      * @param IDStock the ID of the stock
      * @param IDUser  the ID of the user
-     * @return number of matching portfolio entries
+     * @return number of shares held (0 if there is no position)
      */
-    @Query(value = "SELECT COUNT(id_portfolio) FROM portfolio WHERE id_stock = ?1 AND id_user = ?2", nativeQuery = true)
+    @Query(value = "SELECT CAST(COALESCE(SUM(count), 0) AS bigint) FROM portfolio WHERE id_stock = ?1 AND id_user = ?2", nativeQuery = true)
     Long getStockCountByIDs(long IDStock,  String IDUser);
 
     /**
-     * Deletes a specific number of portfolio entries for a user and stock, ordered by the oldest date.
+     * Adds bought shares to the user's position in a single statement.
      * <p>
-     * Uses a CTE to select the entries to delete, improving performance.
+     * Creates the position if it does not exist yet, otherwise increases the count and
+     * recalculates the average purchase price weighted by the number of shares.
+     *
+     * @param IDUser       the ID of the user
+     * @param IDStock      the ID of the stock
+     * @param IDStockPrice the ID of the price the shares were bought at
+     * @param count        number of shares bought
+     * @param price        price per share
+     * @return number of affected rows (always 1)
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO portfolio (id_user, id_stock_price, id_stock, count, value, date)
+        VALUES (?1, ?3, ?2, ?4, ?5, now())
+        ON CONFLICT (id_user, id_stock) DO UPDATE SET
+            value = (portfolio.count * portfolio.value + EXCLUDED.count * EXCLUDED.value) / (portfolio.count + EXCLUDED.count),
+            count = portfolio.count + EXCLUDED.count,
+            id_stock_price = EXCLUDED.id_stock_price,
+            date = EXCLUDED.date
+        """, nativeQuery = true)
+    int addToPosition(String IDUser, long IDStock, long IDStockPrice, long count, double price);
+
+    /**
+     * Adds bought shares to several positions in a single statement, like {@link #addToPosition}.
+     * The arrays hold one element per position, every (user, stock) may occur only once.
+     *
+     * @param IDUsers       the user of each position
+     * @param IDStocks      the stock of each position
+     * @param IDStockPrices the ID of the price the shares were bought at
+     * @param counts        number of shares bought
+     * @param prices        average price per share
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO portfolio (id_user, id_stock_price, id_stock, count, value, date)
+        SELECT p.id_user, p.id_stock_price, p.id_stock, p.count, p.value, now()
+        FROM unnest(CAST(?1 AS varchar[]), CAST(?2 AS bigint[]), CAST(?3 AS bigint[]), CAST(?4 AS bigint[]),
+                    CAST(?5 AS double precision[])) AS p(id_user, id_stock, id_stock_price, count, value)
+        ON CONFLICT (id_user, id_stock) DO UPDATE SET
+            value = (portfolio.count * portfolio.value + EXCLUDED.count * EXCLUDED.value) / (portfolio.count + EXCLUDED.count),
+            count = portfolio.count + EXCLUDED.count,
+            id_stock_price = EXCLUDED.id_stock_price,
+            date = EXCLUDED.date
+        """, nativeQuery = true)
+    int addToPositions(String[] IDUsers, long[] IDStocks, long[] IDStockPrices, long[] counts, double[] prices);
+
+    /**
+     * Removes sold shares from the user's position.
+     * <p>
+     * The update only happens if the position holds enough shares, so overselling is rejected atomically.
+     * The average purchase price of the remaining shares stays unchanged.
      *
      * @param IDStock the ID of the stock
      * @param IDUser  the ID of the user
-     * @param Count   number of entries to delete
-     * @return number of deleted rows
+     * @param Count   number of shares sold
+     * @return 1 if the shares were removed, 0 if the position does not hold enough shares
      */
     @Modifying
     @Query(value = """
-        WITH to_delete AS MATERIALIZED (
-            SELECT id_portfolio FROM portfolio 
-            WHERE id_stock = ?1 AND id_user = ?2 
-            ORDER BY date ASC 
-            LIMIT ?3
-        )
-        DELETE FROM portfolio 
-        WHERE id_portfolio IN (SELECT id_portfolio FROM to_delete)
+        UPDATE portfolio SET count = count - ?3, date = now()
+        WHERE id_stock = ?1 AND id_user = ?2 AND count >= ?3
         """, nativeQuery = true)
-    int deleteByIDAndCount(long IDStock, String IDUser, long Count);
+    int removeFromPosition(long IDStock, String IDUser, long Count);
 
     /**
-     * Counts how many portfolio entries exist for a user and a given stock.
+     * Deletes the position of a user and stock once all shares are sold.
      *
      * @param IDStock the ID of the stock
      * @param IDUser  the ID of the user
-     * @return count of matching entries
+     * @return number of deleted rows
      */
-    @Query(value = "select count(*) from portfolio where id_stock = ?1 AND id_user = ?2", nativeQuery = true)
+    @Modifying
+    @Query(value = "DELETE FROM portfolio WHERE id_stock = ?1 AND id_user = ?2 AND count <= 0", nativeQuery = true)
+    int deleteEmptyPosition(long IDStock, String IDUser);
+
+    /**
+     * Returns how many shares a user holds of a given stock.
+     *
+     * @param IDStock the ID of the stock
+     * @param IDUser  the ID of the user
+     * @return number of shares held (0 if there is no position)
+     */
+    @Query(value = "select CAST(COALESCE(SUM(count), 0) AS bigint) from portfolio where id_stock = ?1 AND id_user = ?2", nativeQuery = true)
     long getCountofStock(long IDStock, String IDUser);
 
+    /**
+     * Projection interface representing the number of shares a user holds of one stock.
+     */
+    interface PositionCount{
+        String getIdUser();
+        Long getCount();
+    }
+
+    /**
+     * Returns how many shares several users hold of a given stock, with one query.
+     *
+     * @param IDStock the ID of the stock
+     * @param IDUsers the IDs of the users
+     * @return one row per user with a position
+     */
+    @Query(value = """
+        SELECT id_user AS idUser, CAST(SUM(count) AS bigint) AS count
+        FROM portfolio
+        WHERE id_stock = ?1 AND id_user = ANY(CAST(?2 AS varchar[]))
+        GROUP BY id_user
+        """, nativeQuery = true)
+    List<PositionCount> getCountsOfStock(long IDStock, String[] IDUsers);
+
     /**
      * Retrieves the user's portfolio data including the latest price for each stock.
      * <p>
-     * Aggregates the total count per stock and joins it with the most recent stock price to calculate total value.
+     * Joins each position with the most recent stock price to calculate total value.
      *
      * @param IDUser the ID of the user
      * @return a list of {@link PortfolioView} projections with price and value details
@@ -125,10 +207,9 @@ public interface PortfolioRepository  extends JpaRepository<Portfolio, Long>{
         FROM (
             SELECT 
                 id_stock, 
-                SUM(count) AS total_count
+                count AS total_count
             FROM portfolio
-            WHERE id_user = ?1
-            GROUP BY id_stock
+            WHERE id_user = ?1 AND count > 0
         ) AS p
         JOIN (
             SELECT sp1.*
@@ -1,5 +1,7 @@
 package Swift.Backend.Swift.Repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -71,6 +73,70 @@ public interface Stock_priceRepository extends JpaRepository<Stock_price, Long>{
     @Query(value = "SELECT id_stock_price AS idStockPrice, price FROM stock_price WHERE id_stock = ?1 ORDER BY date DESC LIMIT 1", nativeQuery = true)
     StockPriceProjection getLatestStockPrice(long IDStock);   
 
+    /**
+     * Retrieves the latest price of several stocks in one query (one index lookup per stock).
+     *
+     * @param IDStocks the IDs of the stocks
+     * @return one {@link LatestStockPrice} per stock that has at least one price
+     */
+    @Query(value = """
+        SELECT s.id_stock AS idStock, lp.id_stock_price AS idStockPrice, lp.price AS price, lp.date AS date
+        FROM stock s
+        CROSS JOIN LATERAL (
+            SELECT sp.id_stock_price, sp.price, sp.date
+            FROM stock_price sp
+            WHERE sp.id_stock = s.id_stock
+            ORDER BY sp.date DESC
+            LIMIT 1
+        ) lp
+        WHERE s.id_stock IN (?1)
+        """, nativeQuery = true)
+    List<LatestStockPrice> getLatestStockPrices(Collection<Long> IDStocks);
+
+    /**
+     * Retrieves the latest price of every stock (initial load of the latest-price cache).
+     *
+     * @return one {@link LatestStockPrice} per stock that has at least one price
+     */
+    @Query(value = """
+        SELECT s.id_stock AS idStock, lp.id_stock_price AS idStockPrice, lp.price AS price, lp.date AS date
+        FROM stock s
+        CROSS JOIN LATERAL (
+            SELECT sp.id_stock_price, sp.price, sp.date
+            FROM stock_price sp
+            WHERE sp.id_stock = s.id_stock
+            ORDER BY sp.date DESC
+            LIMIT 1
+        ) lp
+        """, nativeQuery = true)
+    List<LatestStockPrice> getLatestStockPricesOfAllStocks();
+
+    /**
+     * Retrieves the latest price per stock among the rows inserted after a given row
+     * (incremental refresh of the latest-price cache, uses the primary key index).
+     * Ids are not committed in order, the caller passes a watermark from before the rows it may have missed.
+     *
+     * @param watermark the id_stock_price to read above
+     * @return one {@link LatestStockPrice} per stock with new rows
+     */
+    @Query(value = """
+        SELECT DISTINCT ON (id_stock) id_stock AS idStock, id_stock_price AS idStockPrice, price, date
+        FROM stock_price
+        WHERE id_stock_price > ?1
+        ORDER BY id_stock, date DESC, id_stock_price DESC
+        """, nativeQuery = true)
+    List<LatestStockPrice> getLatestStockPricesSince(long watermark);
+
+    /**
+     * Projection of the latest price of a stock.
+     */
+    interface LatestStockPrice{
+        Long getIdStock();
+        Long getIdStockPrice();
+        Double getPrice();
+        LocalDateTime getDate();
+    }
+
     /**
      * Retrieves stock prices within the last hour before a specified timestamp.
      *
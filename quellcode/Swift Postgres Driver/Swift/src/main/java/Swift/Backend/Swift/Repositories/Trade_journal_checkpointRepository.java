@@ -0,0 +1,35 @@
+package Swift.Backend.Swift.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import Swift.Backend.Swift.Entities.Trade_journal_checkpoint;
+
+/**
+ * Repository interface for the checkpoint of the trade journal ({@link Trade_journal_checkpoint}).
+ */
+public interface Trade_journal_checkpointRepository extends JpaRepository<Trade_journal_checkpoint, Integer> {
+
+    /**
+     * Returns the highest journal sequence number stored in the database (0 if nothing was journaled yet).
+     */
+    @Query(value = "SELECT COALESCE(MAX(last_seq), 0) FROM trade_journal_checkpoint WHERE id = 1", nativeQuery = true)
+    long getLastSeq();
+
+    /**
+     * Moves the checkpoint forward, must run in the transaction that writes the journaled trades.
+     *
+     * @param lastSeq the highest sequence number written by this transaction
+     * @return number of changed rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO trade_journal_checkpoint (id, last_seq, updated_at)
+        VALUES (1, ?1, now())
+        ON CONFLICT (id) DO UPDATE SET
+            last_seq = GREATEST(trade_journal_checkpoint.last_seq, EXCLUDED.last_seq),
+            updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int advance(long lastSeq);
+}
@@ -5,6 +5,8 @@ import Swift.Backend.Swift.Projections.PortfolioSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long>{
@@ -166,4 +168,35 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>{
         nativeQuery = true)
     List<PortfolioSnapshot> getRelativePortfolioSnapshots(@Param("user_id") String idUser,@Param("date_start") String date, @Param("date_stop") String date_stop, @Param("interval") String interval);
 
+
+    /**
+     * Inserts the transactions of a group commit with a single statement.
+     * <p>
+     * The arrays hold one element per transaction, all transactions get the same date.
+     * The ids are returned in the order of the arrays.
+     * <p>
+     * Runs as a query and not as {@code @Modifying}, which could not return the generated ids. Joins the caller's
+     * transaction, so the rows are written together with the balances of the group commit.
+     *
+     * @param IDUsers       the user of each transaction
+     * @param IDStocks      the stock of each transaction
+     * @param IDStockPrices the stock_price row each transaction was priced with
+     * @param counts        the number of shares of each transaction
+     * @param values        the price per share of each transaction
+     * @param bs            false = buy, true = sell
+     * @param date          the commit time
+     * @return the generated id_transaction of each transaction
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO transaction (id_user, id_stock, id_stock_price, count, value, date, bs)
+        SELECT t.id_user, t.id_stock, t.id_stock_price, t.count, t.value, CAST(?7 AS timestamp), t.bs
+        FROM unnest(CAST(?1 AS varchar[]), CAST(?2 AS bigint[]), CAST(?3 AS bigint[]), CAST(?4 AS bigint[]),
+                    CAST(?5 AS double precision[]), CAST(?6 AS boolean[]))
+             WITH ORDINALITY AS t(id_user, id_stock, id_stock_price, count, value, bs, ord)
+        ORDER BY t.ord
+        RETURNING id_transaction
+        """, nativeQuery = true)
+    List<Long> insertAll(String[] IDUsers, long[] IDStocks, long[] IDStockPrices, long[] counts, double[] values, boolean[] bs, LocalDateTime date);
+
 }
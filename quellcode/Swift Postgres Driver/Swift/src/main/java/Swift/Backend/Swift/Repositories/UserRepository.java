@@ -1,6 +1,8 @@
 package Swift.Backend.Swift.Repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import Swift.Backend.Swift.Entities.User_service;
 
@@ -11,5 +13,48 @@ import Swift.Backend.Swift.Entities.User_service;
  * for the User_service entity, where the primary key type is String.
  */
 public interface UserRepository extends JpaRepository<User_service, String> {
-    // You can define custom query methods here if needed
-}
\ No newline at end of file
+
+    /**
+     * Registers a user on first login in a single statement.
+     * <p>
+     * The user is inserted with {@code ON CONFLICT DO NOTHING}; only if the row was actually created
+     * the initial balance and the first ledger row with the season's start balance are inserted as well.
+     * Concurrent first logins of the same user therefore create exactly one user and one bank account.
+     * <p>
+     * Returns the newly created user, or the existing user if it was already registered.
+     * Returns {@code null} only if a concurrent login created the user while this statement was running
+     * (the row is not visible in this statement's snapshot), the caller then reads it with {@code findById}.
+     * <p>
+     * Not {@code @Modifying}: that would run the statement with executeUpdate, which can only return a row count
+     * and not the user selected by the statement. It runs as a query in a write transaction instead.
+     *
+     * @param idUser         the Google user id ("sub")
+     * @param name           the full name
+     * @param email          the email address
+     * @param profilePicture the profile picture URL
+     * @param userName       the display name
+     * @param startBalance   the start balance of the active season
+     * @return the registered user or {@code null} (see above)
+     */
+    @Transactional
+    @Query(value = """
+        WITH new_user AS (
+            INSERT INTO user_service (id_user, name, email, profile_picture, user_name)
+            VALUES (?1, ?2, ?3, ?4, ?5)
+            ON CONFLICT (id_user) DO NOTHING
+            RETURNING id_user, name, email, profile_picture, user_name
+        ),
+        new_balance AS (
+            INSERT INTO bankaccount_balance (id_user, startworth, current_worth, version, updated_at)
+            SELECT id_user, ?6, ?6, 0, now() FROM new_user
+        ),
+        new_bankaccount AS (
+            INSERT INTO bankaccount (id_user, startworth, current_worth, date)
+            SELECT id_user, ?6, ?6, now() FROM new_user
+        )
+        SELECT id_user, name, email, profile_picture, user_name FROM new_user
+        UNION ALL
+        SELECT id_user, name, email, profile_picture, user_name FROM user_service WHERE id_user = ?1
+        """, nativeQuery = true)
+    User_service upsertOnLogin(String idUser, String name, String email, String profilePicture, String userName, double startBalance);
+}
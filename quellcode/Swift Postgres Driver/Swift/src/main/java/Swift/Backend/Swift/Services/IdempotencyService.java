@@ -0,0 +1,261 @@
+package Swift.Backend.Swift.Services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionSystemException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Swift.Backend.Swift.Entities.Idempotency_key;
+import Swift.Backend.Swift.Repositories.Idempotency_keyRepository;
+import Swift.Backend.Swift.Trading.TradeOutcomeUnknownException;
+import Swift.Backend.Swift.Util.SingleFlight;
+import Swift.Backend.Swift.Util.TtlCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Executes trade requests at most once per Idempotency-Key.
+ * <p>
+ * The first request with a key claims it in the database, runs the trade and stores the response.
+ * A retry with the same key (e.g. after a client timeout) gets the stored response with the header
+ * {@code Idempotent-Replayed: true} and does not touch the trade path again. Recent responses are kept in a
+ * bounded in-memory cache, concurrent retries of a running request wait for it. Rejected requests release the key,
+ * nothing was executed so the client may retry. If the outcome is unknown ({@link TradeOutcomeUnknownException},
+ * a failed commit), the key stays claimed and a retry gets a conflict instead of a possible second trade.
+ * Keys are deleted after the configured time.
+ */
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    public final Idempotency_keyRepository idempotency_keyRepository;
+    private final ObjectMapper objectMapper;
+
+    private final TtlCache<String, StoredResponse> responses;
+    private final SingleFlight<String, ResponseEntity<?>> inFlight = new SingleFlight<>();
+    private final Duration ttl;
+    private final long cleanupMinutes;
+    private ScheduledExecutorService cleaner;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayedFromMemory = new LongAdder();
+    private final LongAdder replayedFromDatabase = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder unknownOutcomes = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+
+    @Autowired
+    public IdempotencyService(Idempotency_keyRepository idempotency_keyRepository, ObjectMapper objectMapper,
+    @Value("${swift.idempotency.cache-max-size:10000}") int cacheMaxSize,
+    @Value("${swift.idempotency.ttl-hours:24}") long ttlHours,
+    @Value("${swift.idempotency.cleanup-minutes:10}") long cleanupMinutes){
+        this.idempotency_keyRepository = idempotency_keyRepository;
+        this.objectMapper = objectMapper;
+        this.responses = new TtlCache<>(cacheMaxSize);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cleanupMinutes = cleanupMinutes;
+    }
+
+    /**
+     * Schedules the deletion of expired keys.
+     */
+    @PostConstruct
+    public void start() {
+        if (cleanupMinutes <= 0) {
+            return;
+        }
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+        cleaner.scheduleWithFixedDelay(this::deleteExpired, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the request once per key, or returns the stored response of an earlier request with the same key.
+     *
+     * @param idUser  the ID of the user (keys are per user)
+     * @param key     the Idempotency-Key header, without a key the request is simply executed
+     * @param route   name of the route, a key can only be used for one route
+     * @param request the request body, a key can only be used for one body
+     * @param action  executes the request, throws if nothing was executed
+     * @return the response of the request
+     */
+    public ResponseEntity<?> execute(String idUser, String key, String route, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " darf höchstens " + MAX_KEY_LENGTH + " Zeichen lang sein.");
+        }
+        // computed before the action runs, the trade path fills in the request object
+        String fingerprint = fingerprint(route, request);
+        String cacheKey = idUser + "|" + key;
+
+        StoredResponse stored = responses.get(cacheKey);
+        if (stored != null) {
+            replayedFromMemory.increment();
+            return replay(stored, fingerprint);
+        }
+        // only identical requests wait for each other, another body with the same key is rejected by executeOnce
+        boolean[] leader = new boolean[1];
+        ResponseEntity<?> response = inFlight.execute(cacheKey + "|" + fingerprint, () -> {
+            leader[0] = true;
+            return executeOnce(idUser, key, cacheKey, route, fingerprint, action);
+        });
+        if (leader[0]) {
+            return response;
+        }
+        // joined a running identical request: answered like a retry, with the replay header
+        stored = responses.get(cacheKey);
+        if (stored == null) {
+            return response;
+        }
+        replayedFromMemory.increment();
+        return replay(stored, fingerprint);
+    }
+
+    /**
+     * Returns counters of executed and replayed requests.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = responses.stats();
+        stats.put("executed", executed.sum());
+        stats.put("replayedFromMemory", replayedFromMemory.sum());
+        stats.put("replayedFromDatabase", replayedFromDatabase.sum());
+        stats.put("conflicts", conflicts.sum());
+        stats.put("unknownOutcomes", unknownOutcomes.sum());
+        stats.put("deleted", deleted.sum());
+        stats.put("inFlight", inFlight.stats());
+        return stats;
+    }
+
+    private ResponseEntity<?> executeOnce(String idUser, String key, String cacheKey, String route, String fingerprint,
+            Supplier<ResponseEntity<?>> action) {
+        // a request with the same key may have completed while this one was waiting
+        StoredResponse stored = responses.get(cacheKey);
+        if (stored != null) {
+            replayedFromMemory.increment();
+            return replay(stored, fingerprint);
+        }
+
+        if (idempotency_keyRepository.claim(idUser, key, route, fingerprint) == 0) {
+            Idempotency_key existing = idempotency_keyRepository.findByKey(idUser, key);
+            if (existing != null && !fingerprint.equals(existing.getFingerprint())) {
+                // same key for another request, also while the first one is still running
+                return keyReused();
+            }
+            if (existing == null || existing.getStatusCode() == 0) {
+                conflicts.increment();
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Fehler: Die Anfrage mit diesem " + HEADER + " wird noch verarbeitet.");
+            }
+            stored = new StoredResponse(existing.getFingerprint(), existing.getStatusCode(), existing.getResponse());
+            responses.put(cacheKey, stored, ttl);
+            replayedFromDatabase.increment();
+            return replay(stored, fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            if (isOutcomeUnknown(e)) {
+                // the trade may still be committed; the key stays claimed, so a retry gets a conflict
+                unknownOutcomes.increment();
+                System.out.println("Ausgang der Anfrage zu " + HEADER + " unbekannt, der Schlüssel bleibt belegt: " + e.getMessage());
+            } else {
+                idempotency_keyRepository.release(idUser, key);
+            }
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            idempotency_keyRepository.release(idUser, key);
+            return response;
+        }
+        executed.increment();
+        try {
+            stored = new StoredResponse(fingerprint, response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()));
+            idempotency_keyRepository.complete(idUser, key, stored.statusCode(), stored.body());
+            responses.put(cacheKey, stored, ttl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // the trade is done; the key stays claimed, so a retry gets a conflict instead of a second trade
+            System.out.println("Antwort zu " + HEADER + " konnte nicht gespeichert werden: " + e.getMessage());
+        }
+        return response;
+    }
+
+    // a rejection or a rolled back transaction executed nothing; a trade handed on without a confirmed commit or a
+    // failing commit itself may have been executed
+    private static boolean isOutcomeUnknown(RuntimeException e) {
+        return e instanceof TradeOutcomeUnknownException || e instanceof TransactionSystemException;
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            return keyReused();
+        }
+        return ResponseEntity.status(stored.statusCode())
+            .header(REPLAYED_HEADER, "true")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(stored.body());
+    }
+
+    private ResponseEntity<?> keyReused() {
+        conflicts.increment();
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body("Fehler: " + HEADER + " wurde bereits für eine andere Anfrage verwendet.");
+    }
+
+    private void deleteExpired() {
+        try {
+            deleted.add(idempotency_keyRepository.deleteExpired((int) ttl.toHours()));
+        } catch (RuntimeException e) {
+            System.out.println("Abgelaufene " + HEADER + " konnten nicht gelöscht werden: " + e.getMessage());
+        }
+    }
+
+    private String fingerprint(String route, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(route.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Anfrage konnte nicht geprüft werden: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Response of an executed request as stored in memory and in the database.
+     */
+    private record StoredResponse(String fingerprint, int statusCode, String body) {}
+}
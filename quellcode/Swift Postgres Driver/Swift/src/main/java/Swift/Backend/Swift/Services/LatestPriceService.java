@@ -0,0 +1,186 @@
+package Swift.Backend.Swift.Services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository.LatestStockPrice;
+import Swift.Backend.Swift.Trading.LatestPriceCache;
+import Swift.Backend.Swift.Trading.PriceTick;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Latest price of every stock for trading, orders and the price endpoints.
+ * <p>
+ * A background thread polls the stock_price rows inserted since the last refresh and publishes them into the
+ * {@link LatestPriceCache}. Lookups are served from memory; if a stock is not cached or the refresher has fallen
+ * behind the staleness bound, the price is read from the database (and published for the next caller).
+ * Every tick that is newer than the cached one is passed to the registered listeners (e.g. the order engine).
+ */
+@Service
+public class LatestPriceService {
+    public final Stock_priceRepository stock_priceRepository;
+
+    private final LatestPriceCache cache;
+    private final long refreshMillis;
+    private final LongAdder databaseReads = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final List<Consumer<PriceTick>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public LatestPriceService(Stock_priceRepository stock_priceRepository,
+    @Value("${swift.prices.refresh-ms:1000}") long refreshMillis,
+    @Value("${swift.prices.max-staleness-ms:5000}") long maxStalenessMillis,
+    @Value("${swift.prices.refresh-overlap-ms:10000}") long refreshOverlapMillis){
+        this.stock_priceRepository = stock_priceRepository;
+        this.refreshMillis = refreshMillis;
+        this.cache = new LatestPriceCache(Duration.ofMillis(maxStalenessMillis), Duration.ofMillis(refreshOverlapMillis));
+    }
+
+    /**
+     * Starts polling for new prices (refreshMillis = 0 disables the cache, every lookup reads the database).
+     */
+    @PostConstruct
+    public void start() {
+        if (refreshMillis <= 0) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "latest-price-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads all prices inserted since the last refresh (on the first run the latest price of every stock), together
+     * with the rows of the last swift.prices.refresh-overlap-ms that may have been committed after higher ids.
+     */
+    public void refresh() {
+        try {
+            List<LatestStockPrice> rows = loaded
+                ? stock_priceRepository.getLatestStockPricesSince(cache.refreshFrom())
+                : stock_priceRepository.getLatestStockPricesOfAllStocks();
+            long highest = 0;
+            for (LatestStockPrice row : rows) {
+                publish(toTick(row));
+                highest = Math.max(highest, row.getIdStockPrice());
+            }
+            cache.advanceWatermark(highest);
+            cache.markRefreshed();
+            loaded = true;
+        } catch (RuntimeException e) {
+            // keep the thread alive, lookups fall back to the database once the cache is stale
+            refreshFailures.increment();
+            System.out.println("Kurs-Cache konnte nicht aktualisiert werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the latest price of a stock.
+     *
+     * @param idStock the ID of the stock
+     * @return the latest tick, or null if the stock has no price
+     */
+    public PriceTick getLatest(long idStock) {
+        PriceTick tick = cache.get(idStock);
+        if (tick != null) {
+            return tick;
+        }
+        Map<Long, PriceTick> loadedTicks = load(List.of(idStock));
+        return loadedTicks.get(idStock);
+    }
+
+    /**
+     * Returns the latest prices of several stocks, all cache misses are read with a single query.
+     *
+     * @param idStocks the IDs of the stocks
+     * @return the latest tick per stock, stocks without a price are missing
+     */
+    public Map<Long, PriceTick> getLatest(Collection<Long> idStocks) {
+        Map<Long, PriceTick> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long idStock : idStocks) {
+            PriceTick tick = cache.get(idStock);
+            if (tick != null) {
+                result.put(idStock, tick);
+            } else {
+                missing.add(idStock);
+            }
+        }
+        if (!missing.isEmpty()) {
+            result.putAll(load(missing));
+        }
+        return result;
+    }
+
+    /**
+     * Registers a listener for new prices. It is called on the thread that read the price, so it must not block.
+     */
+    public void addListener(Consumer<PriceTick> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns hit rate and staleness of the cache.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = cache.stats();
+        stats.put("databaseReads", databaseReads.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        return stats;
+    }
+
+    private Map<Long, PriceTick> load(Collection<Long> idStocks) {
+        databaseReads.increment();
+        Map<Long, PriceTick> result = new HashMap<>();
+        for (LatestStockPrice row : stock_priceRepository.getLatestStockPrices(idStocks)) {
+            PriceTick tick = toTick(row);
+            publish(tick);
+            result.put(tick.idStock(), tick);
+        }
+        return result;
+    }
+
+    private void publish(PriceTick tick) {
+        if (!cache.publish(tick)) {
+            return;
+        }
+        for (Consumer<PriceTick> listener : listeners) {
+            try {
+                listener.accept(tick);
+            } catch (RuntimeException e) {
+                System.out.println("Kurs-Listener fehlgeschlagen: " + e.getMessage());
+            }
+        }
+    }
+
+    private static PriceTick toTick(LatestStockPrice row) {
+        return new PriceTick(row.getIdStock(), row.getIdStockPrice(), row.getPrice(), row.getDate());
+    }
+}
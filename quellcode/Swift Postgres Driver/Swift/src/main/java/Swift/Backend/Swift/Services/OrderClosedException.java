@@ -0,0 +1,12 @@
+package Swift.Backend.Swift.Services;
+
+/**
+ * Thrown when an order is executed that is no longer open: not found, already executed, cancelled or expired.
+ * Unlike other rejections, executing the order again will never succeed.
+ */
+public class OrderClosedException extends IllegalStateException {
+
+    public OrderClosedException(String message) {
+        super(message);
+    }
+}
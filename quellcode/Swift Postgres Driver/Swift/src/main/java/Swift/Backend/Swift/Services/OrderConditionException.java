@@ -0,0 +1,12 @@
+package Swift.Backend.Swift.Services;
+
+/**
+ * Thrown when an order is executed while its LIMIT, STOP or TRAILING_STOP condition is not met by the latest price.
+ * Nothing has been executed, the order stays open.
+ */
+public class OrderConditionException extends IllegalArgumentException {
+
+    public OrderConditionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,384 @@
+package Swift.Backend.Swift.Services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.OrdersRepository.OpenEngineOrder;
+import Swift.Backend.Swift.Trading.OrderBook;
+import Swift.Backend.Swift.Trading.OrderTrigger;
+import Swift.Backend.Swift.Trading.PriceTick;
+import Swift.Backend.Swift.Trading.TrailingStopBook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Executes LIMIT and STOP orders as soon as a new price crosses their threshold, MARKET orders right after they
+ * were created.
+ * <p>
+ * TRAILING_STOP orders are held in the {@link TrailingStopBook}, which moves their stop level with the price.
+ * Once the price reaches the level, the level is stored as the order's stop_price and the order is executed like a
+ * STOP order from then on.
+ * <p>
+ * On startup all open orders are loaded into the {@link OrderBook}. Every new price published by the
+ * {@link LatestPriceService} takes the orders of its stock whose threshold was crossed out of the book; they are
+ * executed together on one of the engine's threads through {@link TradeService#executeOrders} (one transaction per
+ * up to swift.orders.engine.batch-size orders), with the condition checked again against the latest price.
+ * If the price has moved back in the meantime, the order was rejected (e.g. not enough money) or the whole batch
+ * failed (e.g. during the season change), the order goes back into the book and is executed again at the next
+ * price that crosses its threshold. A MARKET order that could not be executed is retried with the next price of
+ * its stock. Only orders that are no longer open (executed, cancelled or expired) are dropped.
+ */
+@Service
+public class OrderEngineService {
+    public final OrdersRepository ordersRepository;
+    public final OrdersService ordersService;
+    public final TradeService tradeService;
+    public final LatestPriceService latestPriceService;
+
+    private final boolean enabled;
+    private final int threads;
+    private final int batchSize;
+    // guarded by book, like trailingStops
+    private final OrderBook book = new OrderBook();
+    private final TrailingStopBook trailingStops = new TrailingStopBook();
+    // stop level of fired TRAILING_STOP orders that went back into the book before the level was stored
+    private final Map<Long, Double> stopLevels = new HashMap<>();
+    // MARKET orders per stock that could not be executed, retried with the stock's next price
+    private final Map<Long, Set<Long>> marketRetries = new HashMap<>();
+    private ExecutorService executor;
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder conditionMissed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Autowired
+    public OrderEngineService(OrdersRepository ordersRepository, OrdersService ordersService, TradeService tradeService,
+    LatestPriceService latestPriceService,
+    @Value("${swift.orders.engine.enabled:true}") boolean enabled,
+    @Value("${swift.orders.engine.threads:4}") int threads,
+    @Value("${swift.orders.engine.batch-size:500}") int batchSize){
+        this.ordersRepository = ordersRepository; this.ordersService = ordersService; this.tradeService = tradeService;
+        this.latestPriceService = latestPriceService;
+        this.enabled = enabled;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Loads the open orders, executes open MARKET orders and orders whose threshold was crossed while the
+     * application was down, then listens for new prices.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "order-engine-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<OpenEngineOrder> openOrders = ordersRepository.findOpenOrders();
+        for (OpenEngineOrder order : openOrders) {
+            if (isTrailing(order.getOrderType(), order.getStopPrice())) {
+                synchronized (book) {
+                    trailingStops.add(order.getIdOrder(), order.getIdStock(), order.getBs(), valueOf(order.getTrailAmount()),
+                        valueOf(order.getTrailPercent()), order.getTrailMark() == null ? Double.NaN : order.getTrailMark());
+                }
+                continue;
+            }
+            OrderTrigger trigger = toTrigger(order.getIdOrder(), order.getIdStock(), order.getBs(),
+                order.getOrderType(), order.getLimitPrice(), order.getStopPrice());
+            if (trigger == null) {
+                execute(order.getIdStock(), order.getIdOrder());
+            } else {
+                synchronized (book) {
+                    book.add(trigger);
+                }
+            }
+        }
+        System.out.println("Order-Engine: " + openOrders.size() + " offene Orders geladen");
+
+        latestPriceService.addListener(this::onTick);
+        ordersService.addCreatedListener((order, request) -> add(order, request.getLimitPrice(), request.getStopPrice(),
+            request.getTrailAmount(), request.getTrailPercent()));
+        Set<Long> stocks;
+        synchronized (book) {
+            stocks = stocks();
+        }
+        for (PriceTick tick : latestPriceService.getLatest(stocks).values()) {
+            onTick(tick);
+        }
+    }
+
+    /**
+     * Stops the engine, orders that are being executed are finished.
+     */
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns whether orders are executed by the engine.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a newly created order, called by {@link OrdersService} once the order is committed. A MARKET order is executed right away, a LIMIT or STOP order as soon as
+     * the price crosses its threshold (right away if it already has). A TRAILING_STOP order starts trailing
+     * from the latest price.
+     *
+     * @param order the saved order
+     * @param limitPrice the limit price of the order (LIMIT)
+     * @param stopPrice the stop price of the order (STOP)
+     * @param trailAmount the trail amount of the order (TRAILING_STOP)
+     * @param trailPercent the trail percentage of the order (TRAILING_STOP)
+     */
+    public void add(Orders order, Double limitPrice, Double stopPrice, Double trailAmount, Double trailPercent) {
+        if (!enabled) {
+            return;
+        }
+        if (isTrailing(order.getOrderType(), stopPrice)) {
+            PriceTick latest = latestPriceService.getLatest(order.getIdStock());
+            synchronized (book) {
+                trailingStops.add(order.getId(), order.getIdStock(), order.getBs(), valueOf(trailAmount), valueOf(trailPercent),
+                    latest == null ? Double.NaN : latest.price());
+            }
+            return;
+        }
+        OrderTrigger trigger = toTrigger(order.getId(), order.getIdStock(), order.getBs(),
+            order.getOrderType(), limitPrice, stopPrice);
+        if (trigger == null) {
+            execute(order.getIdStock(), order.getId());
+            return;
+        }
+        synchronized (book) {
+            book.add(trigger);
+        }
+        PriceTick latest = latestPriceService.getLatest(order.getIdStock());
+        if (latest != null) {
+            onTick(latest);
+        }
+    }
+
+    /**
+     * Removes a deleted order from the engine.
+     *
+     * @param idOrder the ID of the order
+     */
+    public void remove(long idOrder) {
+        synchronized (book) {
+            if (!book.remove(idOrder)) {
+                trailingStops.remove(idOrder);
+            }
+            stopLevels.remove(idOrder);
+            for (Set<Long> retries : marketRetries.values()) {
+                retries.remove(idOrder);
+            }
+        }
+    }
+
+    /**
+     * Executes all orders of the tick's stock whose threshold or trailing stop level the new price has crossed.
+     */
+    public void onTick(PriceTick tick) {
+        ticks.increment();
+        List<OrderTrigger> triggered;
+        List<OrderTrigger> trailed;
+        Map<Long, Double> stopPrices = new HashMap<>();
+        Set<Long> markets;
+        synchronized (book) {
+            triggered = book.match(tick.idStock(), tick.price());
+            trailed = trailingStops.match(tick.idStock(), tick.price());
+            if (!stopLevels.isEmpty()) {
+                for (OrderTrigger trigger : triggered) {
+                    Double level = stopLevels.remove(trigger.idOrder());
+                    if (level != null) {
+                        stopPrices.put(trigger.idOrder(), level);
+                    }
+                }
+            }
+            markets = marketRetries.remove(tick.idStock());
+        }
+        if (markets != null) {
+            for (long idOrder : markets) {
+                execute(tick.idStock(), idOrder);
+            }
+        }
+        if (!trailed.isEmpty()) {
+            for (OrderTrigger trigger : trailed) {
+                stopPrices.put(trigger.idOrder(), trigger.threshold());
+            }
+            triggered = new ArrayList<>(triggered);
+            triggered.addAll(trailed);
+        }
+        fired.add(triggered.size());
+        for (int i = 0; i < triggered.size(); i += batchSize) {
+            execute(tick.idStock(), triggered.subList(i, Math.min(i + batchSize, triggered.size())), stopPrices);
+        }
+    }
+
+    /**
+     * Returns the open orders held by the engine and the executions.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (book) {
+            int retries = 0;
+            for (Set<Long> orders : marketRetries.values()) {
+                retries += orders.size();
+            }
+            stats.put("openOrders", book.size() + trailingStops.size() + retries);
+            stats.put("trailingStops", trailingStops.size());
+            stats.put("stocks", stocks().size());
+        }
+        stats.put("ticks", ticks.sum());
+        stats.put("fired", fired.sum());
+        stats.put("batches", batches.sum());
+        stats.put("executed", executed.sum());
+        stats.put("conditionMissed", conditionMissed.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    // the stocks with open orders in either book, the caller holds the lock of book
+    private Set<Long> stocks() {
+        Set<Long> stocks = new HashSet<>(book.stocks());
+        stocks.addAll(trailingStops.stocks());
+        stocks.addAll(marketRetries.keySet());
+        return stocks;
+    }
+
+    private void execute(long idStock, List<OrderTrigger> triggers, Map<Long, Double> trailingStopPrices) {
+        Map<Long, OrderTrigger> byId = new HashMap<>();
+        Map<Long, Double> stopPrices = new HashMap<>();
+        for (OrderTrigger trigger : triggers) {
+            byId.put(trigger.idOrder(), trigger);
+            Double stopPrice = trailingStopPrices.get(trigger.idOrder());
+            if (stopPrice != null) {
+                stopPrices.put(trigger.idOrder(), stopPrice);
+            }
+        }
+        executor.execute(() -> {
+            OrdersService.BatchResult result;
+            try {
+                result = tradeService.executeOrders(idStock, new ArrayList<>(byId.keySet()), stopPrices);
+            } catch (RuntimeException e) {
+                failed.add(byId.size());
+                batches.increment();
+                System.out.println("Order-Engine: " + byId.size() + " Orders der Aktie " + idStock + " konnten nicht ausgeführt werden: " + e.getMessage());
+                // nothing was executed, the orders fire again at the next crossing
+                requeue(byId.values(), stopPrices);
+                return;
+            }
+            batches.increment();
+            executed.add(result.executed().size());
+            conditionMissed.add(result.conditionMissed().size());
+            failed.add(result.rejected().size());
+            // the latest price has moved back since the tick or the order was rejected, wait for the next crossing
+            // (a fired TRAILING_STOP order waits as a STOP order at its stop level)
+            List<OrderTrigger> open = new ArrayList<>();
+            for (long idOrder : result.conditionMissed()) {
+                open.add(byId.get(idOrder));
+            }
+            for (Map.Entry<Long, String> rejection : result.rejected().entrySet()) {
+                open.add(byId.get(rejection.getKey()));
+                System.out.println("Order-Engine: Order " + rejection.getKey() + " konnte nicht ausgeführt werden: " + rejection.getValue());
+            }
+            requeue(open, stopPrices);
+            for (long idOrder : result.closed()) {
+                System.out.println("Order-Engine: Order " + idOrder + " ist nicht mehr offen");
+            }
+        });
+    }
+
+    // puts triggers that did not execute back into the book, the caller must not hold the lock of book
+    private void requeue(Iterable<OrderTrigger> triggers, Map<Long, Double> stopPrices) {
+        synchronized (book) {
+            for (OrderTrigger trigger : triggers) {
+                book.add(trigger);
+                Double level = stopPrices.get(trigger.idOrder());
+                if (level != null) {
+                    // the level may have been rolled back with the batch, it is stored again when the order fires
+                    stopLevels.put(trigger.idOrder(), level);
+                }
+            }
+        }
+    }
+
+    private void execute(long idStock, long idOrder) {
+        executor.execute(() -> {
+            try {
+                tradeService.executeOrder(idOrder);
+                executed.increment();
+            } catch (OrderClosedException e) {
+                System.out.println("Order-Engine: Order " + idOrder + " ist nicht mehr offen");
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.out.println("Order-Engine: Order " + idOrder + " konnte nicht ausgeführt werden: " + e.getMessage());
+                synchronized (book) {
+                    marketRetries.computeIfAbsent(idStock, id -> new HashSet<>()).add(idOrder);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the trigger of a LIMIT or STOP order or of a TRAILING_STOP order that already fired, null for a
+     * MARKET order.
+     */
+    static OrderTrigger toTrigger(long idOrder, long idStock, boolean bs, String orderType,
+    Double limitPrice, Double stopPrice) {
+        if ("LIMIT".equalsIgnoreCase(orderType)) {
+            return new OrderTrigger(idOrder, idStock, bs, false, limitPrice);
+        }
+        if ("STOP".equalsIgnoreCase(orderType) || "TRAILING_STOP".equalsIgnoreCase(orderType)) {
+            return new OrderTrigger(idOrder, idStock, bs, true, stopPrice);
+        }
+        return null;
+    }
+
+    /**
+     * Returns true for a TRAILING_STOP order that has not fired yet (no stop level stored).
+     */
+    static boolean isTrailing(String orderType, Double stopPrice) {
+        return "TRAILING_STOP".equalsIgnoreCase(orderType) && (stopPrice == null || stopPrice <= 0);
+    }
+
+    private static double valueOf(Double value) {
+        return value == null ? 0 : value;
+    }
+}
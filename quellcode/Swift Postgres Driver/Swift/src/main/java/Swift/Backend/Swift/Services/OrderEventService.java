@@ -0,0 +1,315 @@
+package Swift.Backend.Swift.Services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import Swift.Backend.Swift.Trading.DropOldestQueue;
+import Swift.Backend.Swift.Trading.OrderEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes the status changes of orders (created, triggered, executed, rejected, expired, cancelled) to the user
+ * the order belongs to as Server-Sent Events.
+ * <p>
+ * Every open stream has its own {@link DropOldestQueue} of swift.orders.events.queue-size events. Publishing only
+ * puts the event into the queues of the user's streams and never waits for a client, so the order execution is
+ * not slowed down by slow or dead connections. The events are written by swift.orders.events.threads sender
+ * threads; if a client falls behind, its oldest events are dropped and the next write starts with an OVERFLOW
+ * event carrying the number of dropped events, the client then reloads its orders with /getOrders.
+ * A user has at most swift.orders.events.max-streams-per-user streams, opening another one closes the oldest.
+ */
+@Service
+public class OrderEventService {
+
+    static final String OVERFLOW = "OVERFLOW";
+
+    private final boolean enabled;
+    private final int queueSize;
+    private final int maxStreamsPerUser;
+    private final long timeoutMillis;
+    private final int threads;
+    // guarded by itself, the lists are replaced on every change and can be read without the lock
+    private final Map<String, List<Stream>> streams = new HashMap<>();
+    // streams with queued events, each stream is in here at most once
+    private final LinkedBlockingQueue<Stream> ready = new LinkedBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private ExecutorService senders;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+
+    @Autowired
+    public OrderEventService(@Value("${swift.orders.events.enabled:true}") boolean enabled,
+    @Value("${swift.orders.events.queue-size:64}") int queueSize,
+    @Value("${swift.orders.events.max-streams-per-user:4}") int maxStreamsPerUser,
+    @Value("${swift.orders.events.timeout-ms:1800000}") long timeoutMillis,
+    @Value("${swift.orders.events.threads:2}") int threads){
+        this.enabled = enabled;
+        this.queueSize = Math.max(1, queueSize);
+        this.maxStreamsPerUser = Math.max(1, maxStreamsPerUser);
+        this.timeoutMillis = timeoutMillis;
+        this.threads = Math.max(1, threads);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "order-events-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            senders.execute(this::sendLoop);
+        }
+    }
+
+    /**
+     * Stops the sender threads and closes all streams, the clients reconnect to another instance or after the restart.
+     */
+    @PreDestroy
+    public void stop() {
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        List<Stream> all = new ArrayList<>();
+        synchronized (streams) {
+            for (List<Stream> userStreams : streams.values()) {
+                all.addAll(userStreams);
+            }
+            streams.clear();
+        }
+        for (Stream stream : all) {
+            stream.emitter.complete();
+        }
+    }
+
+    /**
+     * Returns whether order events are pushed.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens a new stream of the user's order events.
+     *
+     * @param idUser the ID of the user
+     * @return the emitter of the stream
+     */
+    public SseEmitter subscribe(String idUser) {
+        return subscribe(idUser, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String idUser, SseEmitter emitter) {
+        if (!enabled) {
+            throw new IllegalStateException("Order-Events sind deaktiviert.");
+        }
+        Stream stream = new Stream(idUser, emitter, queueSize);
+        Stream evicted = null;
+        synchronized (streams) {
+            List<Stream> userStreams = new ArrayList<>(streams.getOrDefault(idUser, List.of()));
+            if (userStreams.size() >= maxStreamsPerUser) {
+                evicted = userStreams.remove(0);
+            }
+            userStreams.add(stream);
+            streams.put(idUser, List.copyOf(userStreams));
+        }
+        opened.increment();
+        if (evicted != null) {
+            close(evicted);
+            evicted.emitter.complete();
+        }
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(() -> close(stream));
+        emitter.onError(e -> close(stream));
+        return emitter;
+    }
+
+    /**
+     * Queues an event for all streams of the order's user, without waiting for any client.
+     */
+    public void publish(OrderEvent event) {
+        if (!enabled) {
+            return;
+        }
+        published.increment();
+        List<Stream> userStreams;
+        synchronized (streams) {
+            userStreams = streams.get(event.idUser());
+        }
+        if (userStreams == null) {
+            return;
+        }
+        for (Stream stream : userStreams) {
+            stream.offer(event);
+        }
+    }
+
+    /**
+     * Publishes the events once the current transaction is committed, right away without a transaction. Events of a
+     * rolled back transaction are not published.
+     */
+    public void publishAfterCommit(List<OrderEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(OrderEventService.this::publish);
+                }
+            });
+        } else {
+            events.forEach(this::publish);
+        }
+    }
+
+    /**
+     * Returns the open streams and the published, sent and dropped events.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (streams) {
+            stats.put("users", streams.size());
+            stats.put("streams", streams.values().stream().mapToInt(List::size).sum());
+        }
+        stats.put("opened", opened.sum());
+        stats.put("closed", closed.sum());
+        stats.put("published", published.sum());
+        stats.put("sent", sent.sum());
+        stats.put("dropped", dropped.sum());
+        return stats;
+    }
+
+    /**
+     * Writes the queued events of all ready streams on the calling thread.
+     */
+    void sendReady() {
+        Stream stream;
+        while ((stream = ready.poll()) != null) {
+            send(stream);
+        }
+    }
+
+    private void sendLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                send(ready.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the stream stays scheduled until its queue is empty, so only one thread writes to it at a time
+    private void send(Stream stream) {
+        List<OrderEvent> batch = new ArrayList<>();
+        while (true) {
+            long lost;
+            synchronized (stream) {
+                if (stream.closed || stream.queue.isEmpty()) {
+                    stream.scheduled = false;
+                    return;
+                }
+                lost = stream.queue.drainTo(batch);
+            }
+            try {
+                if (lost > 0) {
+                    stream.emitter.send(SseEmitter.event().name(OVERFLOW).data(Map.of("dropped", lost), MediaType.APPLICATION_JSON));
+                }
+                for (OrderEvent event : batch) {
+                    stream.emitter.send(SseEmitter.event().id(Long.toString(sequence.incrementAndGet()))
+                        .name(event.type()).data(event, MediaType.APPLICATION_JSON));
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone, the emitter reports the error to the container
+                close(stream);
+                stream.emitter.completeWithError(e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void close(Stream stream) {
+        synchronized (stream) {
+            if (stream.closed) {
+                return;
+            }
+            stream.closed = true;
+        }
+        closed.increment();
+        synchronized (streams) {
+            List<Stream> userStreams = streams.get(stream.idUser);
+            if (userStreams != null && userStreams.contains(stream)) {
+                List<Stream> remaining = new ArrayList<>(userStreams);
+                remaining.remove(stream);
+                if (remaining.isEmpty()) {
+                    streams.remove(stream.idUser);
+                } else {
+                    streams.put(stream.idUser, List.copyOf(remaining));
+                }
+            }
+        }
+    }
+
+    private final class Stream {
+        final String idUser;
+        final SseEmitter emitter;
+        // guarded by the stream
+        final DropOldestQueue<OrderEvent> queue;
+        boolean scheduled;
+        boolean closed;
+
+        Stream(String idUser, SseEmitter emitter, int capacity) {
+            this.idUser = idUser;
+            this.emitter = emitter;
+            this.queue = new DropOldestQueue<>(capacity);
+        }
+
+        void offer(OrderEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue.offer(event)) {
+                    dropped.increment();
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            ready.add(this);
+        }
+    }
+}
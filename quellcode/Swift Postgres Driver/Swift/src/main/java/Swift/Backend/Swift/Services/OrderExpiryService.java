@@ -0,0 +1,213 @@
+package Swift.Backend.Swift.Services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.OrdersRepository.ExpiredOrder;
+import Swift.Backend.Swift.Repositories.OrdersRepository.ExpiringOrder;
+import Swift.Backend.Swift.Trading.OrderEvent;
+import Swift.Backend.Swift.Trading.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Expires DAY and GTD orders.
+ * <p>
+ * The expiry times of all open orders are held in a {@link TimingWheel}. Every swift.orders.expiry.tick-ms the wheel
+ * is advanced; all orders that became due are marked as expired with one statement and taken out of the
+ * {@link OrderEngineService}. DAY orders all expire at the market close (swift.orders.market-close), so they are due
+ * in the same tick and expire in one batch. A season change expires all open DAY orders at once with
+ * {@link #expireDayOrders()}. The users are notified of their expired orders through the {@link OrderEventService}.
+ */
+@Service
+public class OrderExpiryService {
+    public final OrdersRepository ordersRepository;
+    public final OrdersService ordersService;
+    public final OrderEngineService orderEngineService;
+    public final OrderEventService orderEventService;
+
+    private final boolean enabled;
+    private final long tickMillis;
+    // guarded by itself
+    private final TimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dayBatches = new LongAdder();
+
+    @Autowired
+    public OrderExpiryService(OrdersRepository ordersRepository, OrdersService ordersService, OrderEngineService orderEngineService,
+    OrderEventService orderEventService,
+    @Value("${swift.orders.expiry.enabled:true}") boolean enabled,
+    @Value("${swift.orders.expiry.tick-ms:1000}") long tickMillis){
+        this.ordersRepository = ordersRepository; this.ordersService = ordersService; this.orderEngineService = orderEngineService;
+        this.orderEventService = orderEventService;
+        this.enabled = enabled;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.wheel = new TimingWheel(this.tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads the expiry times of the open orders and starts the ticks; orders that expired while the application
+     * was down expire with the first tick.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        List<ExpiringOrder> orders = ordersRepository.findExpiringOrders();
+        synchronized (wheel) {
+            for (ExpiringOrder order : orders) {
+                wheel.schedule(order.getIdOrder(), toMillis(order.getExpiresAt()));
+            }
+        }
+        System.out.println("Order-Ablauf: " + orders.size() + " ablaufende Orders geladen");
+        ordersService.addCreatedListener((order, request) -> schedule(order));
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::expireDue, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules the expiry of a newly created order, called by {@link OrdersService} once the order is committed.
+     * GTC orders do not expire.
+     *
+     * @param order the saved order
+     */
+    public void schedule(Orders order) {
+        if (!enabled || order.getExpiresAt() == null) {
+            return;
+        }
+        synchronized (wheel) {
+            wheel.schedule(order.getId(), toMillis(order.getExpiresAt()));
+        }
+    }
+
+    /**
+     * Cancels the expiry of a cancelled order.
+     *
+     * @param idOrder the ID of the order
+     */
+    public void cancel(long idOrder) {
+        synchronized (wheel) {
+            wheel.cancel(idOrder);
+        }
+    }
+
+    /**
+     * Marks all open DAY orders as expired in one statement and takes them out of the engine once the
+     * transaction is committed.
+     *
+     * @return the IDs of the expired orders
+     */
+    @Transactional
+    public List<Long> expireDayOrders() {
+        List<ExpiredOrder> orders = ordersRepository.expireDayOrders();
+        dayBatches.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(orders);
+                }
+            });
+        } else {
+            forget(orders);
+        }
+        List<Long> ids = new ArrayList<>(orders.size());
+        for (ExpiredOrder order : orders) {
+            ids.add(order.getIdOrder());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the scheduled expiries and the expired orders.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (wheel) {
+            stats.put("scheduled", wheel.size());
+        }
+        stats.put("expired", expired.sum());
+        stats.put("batches", batches.sum());
+        stats.put("dayBatches", dayBatches.sum());
+        return stats;
+    }
+
+    // executed orders may still be in the wheel, the update skips them
+    private void expireDue() {
+        List<Long> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (wheel) {
+            wheel.advance(now, due::add);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        long[] ids = new long[due.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = due.get(i);
+        }
+        try {
+            List<ExpiredOrder> marked = ordersRepository.markExpired(ids);
+            batches.increment();
+            forget(marked);
+        } catch (RuntimeException e) {
+            System.out.println("Order-Ablauf fehlgeschlagen, neuer Versuch mit dem nächsten Tick: " + e.getMessage());
+            synchronized (wheel) {
+                for (long idOrder : ids) {
+                    wheel.schedule(idOrder, now);
+                }
+            }
+        }
+    }
+
+    private void forget(List<ExpiredOrder> orders) {
+        expired.add(orders.size());
+        synchronized (wheel) {
+            for (ExpiredOrder order : orders) {
+                wheel.cancel(order.getIdOrder());
+            }
+        }
+        for (ExpiredOrder order : orders) {
+            orderEngineService.remove(order.getIdOrder());
+            orderEventService.publish(OrderEvent.of(OrderEvent.EXPIRED, order.getIdOrder(), order.getIdUser(),
+                order.getIdStock(), null, null));
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
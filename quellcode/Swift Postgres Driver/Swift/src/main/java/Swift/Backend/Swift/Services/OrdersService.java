@@ -4,20 +4,38 @@ import org.springframework.stereotype.Service;
 //import Swift.Backend.Swift.Services.Service;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import Swift.Backend.Swift.DTO.OrderRequestDTO;
 import Swift.Backend.Swift.Entities.Orders;
 import Swift.Backend.Swift.Entities.Transaction;
 import Swift.Backend.Swift.Projections.OrderProjection;
+import Swift.Backend.Swift.Projections.OrderSummaryProjection;
 import Swift.Backend.Swift.Entities.Orders_condition;
 import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.OrdersRepository.ExecutableOrder;
 import Swift.Backend.Swift.Repositories.Orders_conditionRepository;
 import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository.PositionCount;
 import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Trading.OrderEvent;
+import Swift.Backend.Swift.Trading.PendingTrade;
+import Swift.Backend.Swift.Trading.PriceTick;
 
 @Service
 public class OrdersService {
@@ -27,15 +45,42 @@ public class OrdersService {
     public final PortfolioRepository portfolioRepository;
 
     public final Swift.Backend.Swift.Services.Service service;
+    public final OrderEventService orderEventService;
+
+    static final int MAX_PAGE_SIZE = 200;
+    private static final Set<String> ORDER_STATUS = Set.of("ALL", "OPEN", "EXECUTED", "CANCELLED", "EXPIRED");
+
+    // DAY orders expire at the next market close
+    private final LocalTime marketClose;
+    private final List<BiConsumer<Orders, OrderRequestDTO>> createdListeners = new CopyOnWriteArrayList<>();
 
     @Autowired
     public OrdersService(OrdersRepository ordersRepository, Orders_conditionRepository orders_conditionRepository, 
     Stock_priceRepository stock_priceRepository, PortfolioRepository portfolioRepository,
-    Swift.Backend.Swift.Services.Service service){
+    Swift.Backend.Swift.Services.Service service, OrderEventService orderEventService,
+    @Value("${swift.orders.market-close:22:00}") String marketClose){
         this.ordersRepository = ordersRepository; this.orders_conditionRepository = orders_conditionRepository;  
         this.stock_priceRepository = stock_priceRepository; this.portfolioRepository = portfolioRepository; this.service = service;
+        this.orderEventService = orderEventService;
+        this.marketClose = LocalTime.parse(marketClose);
+    }
+
+    /**
+     * Registers a listener for new orders (order engine, expiry). It is called once the order is committed and
+     * must not block; its failures are logged and do not fail the request.
+     */
+    public void addCreatedListener(BiConsumer<Orders, OrderRequestDTO> listener){
+        createdListeners.add(listener);
     }
 
+    /**
+     * Saves a new order with its condition and hands it to the created listeners after the commit.
+     *
+     * @param idUser the ID of the user
+     * @param orderRequestDTO the order
+     * @return the saved order
+     */
+    @Transactional
     public Orders saveOrder(String idUser, OrderRequestDTO orderRequestDTO){
         LocalDateTime now = LocalDateTime.now();
 
@@ -51,6 +96,13 @@ public class OrdersService {
             if (orderRequestDTO.getLimitPrice() == null || orderRequestDTO.getStopPrice() != 0 || orderRequestDTO.getLimitPrice() == 0){
                 throw new IllegalArgumentException("limit_price has to be > 0 and stop_price has to be 0 by order_type: LIMIT");
             }
+        } else if ("TRAILING_STOP".equalsIgnoreCase(orderRequestDTO.getOrderType())){
+            double trailAmount = valueOf(orderRequestDTO.getTrailAmount());
+            double trailPercent = valueOf(orderRequestDTO.getTrailPercent());
+            if (valueOf(orderRequestDTO.getLimitPrice()) != 0 || valueOf(orderRequestDTO.getStopPrice()) != 0
+                || trailAmount < 0 || trailPercent < 0 || (trailAmount > 0) == (trailPercent > 0) || trailPercent >= 100){
+                throw new IllegalArgumentException("either trail_amount > 0 or trail_percent between 0 and 100 has to be set and limit_price and stop_price have to be 0 by order_type: TRAILING_STOP");
+            }
         }
         if (
             (orderRequestDTO.getQuantity() == 0 && orderRequestDTO.getAmount() == 0) || 
@@ -58,6 +110,8 @@ public class OrdersService {
         ){
             throw new IllegalArgumentException("Either quantity or amount must be set – not both and not neither.");
         }
+        String timeInForce = orderRequestDTO.getTimeInForce() == null ? "GTC" : orderRequestDTO.getTimeInForce().toUpperCase();
+        LocalDateTime expiresAt = expiresAt(timeInForce, orderRequestDTO.getExpiresAt(), now);
 
         Orders order = new Orders(
             idUser,
@@ -69,12 +123,23 @@ public class OrdersService {
             now, // createdAt = jetzt
             now  // updatedAt = jetzt
         );
-
+        order.setTimeInForce(timeInForce);
+        order.setExpiresAt(expiresAt);
 
 
         Orders savedOrder = ordersRepository.save(order);
 
-        if (orderRequestDTO.getLimitPrice() != null && orderRequestDTO.getStopPrice() != null) {
+        if ("TRAILING_STOP".equalsIgnoreCase(orderRequestDTO.getOrderType())) {
+            // stop_price stays 0 until the order fires, see OrderEngineService
+            Orders_condition orders_condition = new Orders_condition(
+                savedOrder.getId(),
+                0.0,
+                0.0,
+                valueOf(orderRequestDTO.getTrailAmount()),
+                valueOf(orderRequestDTO.getTrailPercent())
+            );
+            orders_conditionRepository.save(orders_condition);
+        } else if (orderRequestDTO.getLimitPrice() != null && orderRequestDTO.getStopPrice() != null) {
             Orders_condition orders_condition = new Orders_condition(
                 savedOrder.getId(),
                 orderRequestDTO.getLimitPrice(),
@@ -83,95 +148,415 @@ public class OrdersService {
             orders_conditionRepository.save(orders_condition);
         }
 
+        orderEventService.publishAfterCommit(List.of(OrderEvent.of(OrderEvent.CREATED, savedOrder.getId(), idUser,
+            savedOrder.getIdStock(), null, null)));
+        notifyCreatedAfterCommit(savedOrder, orderRequestDTO);
         return savedOrder;
     }
 
-    public List<OrderProjection> getAllOrders(String idUser) {
-        System.out.println(ordersRepository.findOrdersById_user(idUser));
-        return ordersRepository.findOrdersById_user(idUser);
+    // the order is stored once the request succeeds, a retry with the same Idempotency-Key must not create it again
+    private void notifyCreatedAfterCommit(Orders order, OrderRequestDTO orderRequestDTO){
+        if (createdListeners.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyCreated(order, orderRequestDTO);
+                }
+            });
+        } else {
+            notifyCreated(order, orderRequestDTO);
+        }
     }
 
-    public long executeOrder(long idOrder){
+    private void notifyCreated(Orders order, OrderRequestDTO orderRequestDTO){
+        for (BiConsumer<Orders, OrderRequestDTO> listener : createdListeners) {
+            try {
+                listener.accept(order, orderRequestDTO);
+            } catch (RuntimeException e) {
+                // the order stays open in the database, the engine and the expiry load it again on the next start
+                System.out.println("Order " + order.getId() + " konnte nicht eingeplant werden: " + e.getMessage());
+            }
+        }
+    }
 
-        Orders order = ordersRepository.findOrdersById(idOrder);
-        Orders_condition orders_condition = ordersRepository.findByIdOrder(idOrder);
+    /**
+     * Returns the expiry time of an order: none for GTC, the next market close for DAY, the given time for GTD.
+     *
+     * @throws IllegalArgumentException for an unknown time in force or a GTD time that is missing or not in the future
+     */
+    LocalDateTime expiresAt(String timeInForce, LocalDateTime requested, LocalDateTime now){
+        switch (timeInForce) {
+            case "GTC":
+                if (requested != null) {
+                    throw new IllegalArgumentException("expires_at is only allowed by time_in_force: GTD");
+                }
+                return null;
+            case "DAY":
+                if (requested != null) {
+                    throw new IllegalArgumentException("expires_at is only allowed by time_in_force: GTD");
+                }
+                LocalDateTime close = now.toLocalDate().atTime(marketClose);
+                return now.isBefore(close) ? close : close.plusDays(1);
+            case "GTD":
+                if (requested == null || !requested.isAfter(now)) {
+                    throw new IllegalArgumentException("expires_at has to be in the future by time_in_force: GTD");
+                }
+                return requested;
+            default:
+                throw new IllegalArgumentException("time_in_force has to be GTC, DAY or GTD");
+        }
+    }
 
-        var latestStockPrice = stock_priceRepository.getLatestStockPrice(order.getIdStock());
-        double stockPrice = latestStockPrice.getPrice();
+    public List<OrderProjection> getAllOrders(String idUser) {
+        return ordersRepository.findOrdersById_user(idUser);
+    }
 
-        if (order.getAmount() > 0){
-            double amount = order.getAmount();
-            Long quantity = (long) Math.floor(amount / stockPrice);
-            order.setQuantity(quantity);
+    /**
+     * One page of the order list, nextCursor is passed as cursor to get the next page and is null on the last page.
+     */
+    public record OrderPage(List<OrderSummaryProjection> orders, Long nextCursor) {}
+
+    /**
+     * Returns one page of the user's orders, newest first.
+     *
+     * @param idUser  the ID of the user
+     * @param status  OPEN, EXECUTED, CANCELLED or EXPIRED, null for all orders
+     * @param idStock only orders of this stock, null for all stocks
+     * @param cursor  nextCursor of the previous page, null for the first page
+     * @param limit   maximum number of orders, at most MAX_PAGE_SIZE
+     */
+    public OrderPage getOrders(String idUser, String status, Long idStock, Long cursor, int limit) {
+        String filter = status == null || status.isBlank() ? "ALL" : status.trim().toUpperCase();
+        if (!ORDER_STATUS.contains(filter)) {
+            throw new IllegalArgumentException("status muss OPEN, EXECUTED, CANCELLED oder EXPIRED sein.");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit muss zwischen 1 und " + MAX_PAGE_SIZE + " liegen.");
+        }
+        // one order more than requested tells whether there is a next page
+        List<OrderSummaryProjection> orders = ordersRepository.findOrderPage(idUser,
+            cursor == null ? Long.MAX_VALUE : cursor, idStock == null ? 0 : idStock, filter, limit + 1);
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
         }
+        List<OrderSummaryProjection> page = orders.subList(0, limit);
+        return new OrderPage(page, page.get(limit - 1).getIdOrder());
+    }
 
-        String orderType = order.getOrderType().toUpperCase();
-        
-        switch (orderType) {
-            case "LIMIT":
-                double limitPrice = orders_condition.getLimitPrice();
-                if(order.getBs() == false && stockPrice > limitPrice){
-                    throw new IllegalArgumentException("current_stock_price higher as the Limit-Buy_price");
+    /**
+     * Executes a single order at the latest price in one transaction. The order is locked first, so a batch
+     * execution or a cancel of the same order waits; the final update only marks an order that is still open and
+     * rolls the trade back otherwise.
+     *
+     * @param idOrder the ID of the order
+     * @return the ID of the executed order
+     */
+    @Transactional
+    public long executeOrder(long idOrder){
 
-                } else if (order.getBs() == true && stockPrice < limitPrice){
-                        throw new IllegalArgumentException("current_stock_price not higher as the Limit-Sell_price");
-                }
-                break;
+        Orders order = ordersRepository.findOrderForUpdate(idOrder);
+        if (order == null) {
+            throw new OrderClosedException("Order nicht gefunden.");
+        }
+        if (order.getExecutedAt() != null) {
+            throw new OrderClosedException("Die Order wurde bereits ausgeführt.");
+        }
+        if (order.getExpiredAt() != null) {
+            throw new OrderClosedException("Die Order ist abgelaufen.");
+        }
+        if (order.getCancelledAt() != null) {
+            throw new OrderClosedException("Die Order wurde storniert.");
+        }
+        Orders_condition orders_condition = ordersRepository.findByIdOrder(idOrder);
 
-            case "STOP":
-                double stopPrice = orders_condition.getStopPrice();
-                if(order.getBs() == false && stockPrice < stopPrice){
-                    throw new IllegalArgumentException("current_stock_price lower as the Stop-Buy_price");
-                } else if (order.getBs() == true && stockPrice > stopPrice){
-                    throw new IllegalArgumentException("current_stock_price higher as the Stop-Sell_price");
-                } 
-                break;
+        PriceTick latestPrice = service.getLatestPrice(order.getIdStock());
+        double stockPrice = latestPrice.price();
 
-            default:
-                break;
+        // the order is managed in this transaction, the shares of an order by amount are not written back to it
+        long quantity = order.getAmount() > 0 ? (long) Math.floor(order.getAmount() / stockPrice) : order.getQuantity();
+
+        checkCondition(order.getOrderType(), order.getBs(),
+            orders_condition == null ? null : orders_condition.getLimitPrice(),
+            orders_condition == null ? null : orders_condition.getStopPrice(), stockPrice);
+        List<OrderEvent> events = new ArrayList<>();
+        if (!"MARKET".equalsIgnoreCase(order.getOrderType())) {
+            events.add(OrderEvent.of(OrderEvent.TRIGGERED, idOrder, order.getIdUser(), order.getIdStock(), stockPrice, null));
         }
 
-        Transaction transaction = new Transaction(order.getIdStock(), (long) order.getQuantity());
+        Transaction transaction = new Transaction(order.getIdStock(), quantity);
 
         try {
             if (order.getBs() == false){
                 service.buyStock(order.getIdUser(), transaction);
             } else {
-                Long quantity_owned_stock = portfolioRepository.getCountofStock(order.getIdStock(), order.getIdUser());
-                if (quantity_owned_stock < order.getQuantity()){
-                    order.setQuantity(quantity_owned_stock);
-                }
                 service.sellStock(order.getIdUser(), transaction);
             }
-            ordersRepository.updateExecutedOrders(idOrder,  stock_priceRepository.getLatestStockPrice(order.getIdStock()).getIdStockPrice(),  stockPrice);
-            
         } catch (Exception e) {
+            events.add(OrderEvent.of(OrderEvent.REJECTED, idOrder, order.getIdUser(), order.getIdStock(), null, e.getMessage()));
+            events.forEach(orderEventService::publish);
             throw new IllegalStateException("Order Execution canceled, here is why: " + e.getMessage());
         }
+        if (ordersRepository.updateExecutedOrders(idOrder, latestPrice.idStockPrice(), stockPrice) == 0) {
+            // executed, cancelled or expired in the meantime: the exception rolls the trade back
+            throw new OrderClosedException("Die Order ist nicht mehr offen.");
+        }
+        events.add(OrderEvent.of(OrderEvent.EXECUTED, idOrder, order.getIdUser(), order.getIdStock(), stockPrice, null));
+        orderEventService.publishAfterCommit(events);
         
         return order.getId();
     }
 
+    /**
+     * Result of a batch execution: the executed orders, the orders whose condition the price no longer meets
+     * (still open), the rejected orders with the reason (still open) and the orders that are no longer open.
+     *
+     * @param executed the IDs of the executed orders
+     * @param conditionMissed the IDs of the orders whose condition was not met
+     * @param rejected the reason per rejected order
+     * @param closed the IDs of the orders that were not found, already executed, cancelled or expired
+     * @param users the users of the executed orders
+     */
+    public record BatchResult(List<Long> executed, List<Long> conditionMissed, Map<Long, String> rejected,
+    List<Long> closed, Set<String> users) {}
+
+    /**
+     * Executes all triggered orders of one stock in one database transaction.
+     * <p>
+     * The price is read once, the orders and the positions of the selling users with one query each.
+     * Every order is checked against the price and executed on its own (not enough money or shares rejects only
+     * this order), the trades are written with {@link Service#commitTradeGroup} and all executed orders are marked
+     * with one statement. Sales are executed first and at most with the shares held before the batch.
+     * Once the transaction is committed, the users are notified of their triggered, executed and rejected orders.
+     *
+     * @param idStock the ID of the stock
+     * @param idOrders the IDs of the triggered orders of this stock
+     * @return the outcome of every order
+     */
     @Transactional
-    public long deleteOrders(long id_order, String idUser){
-        //Orders order = ordersRepository.findOrdersById(id_order);
-        //String id_User = order.getIdUser();
+    public BatchResult executeOrderBatch(long idStock, List<Long> idOrders){
+        return executeOrderBatch(idStock, idOrders, Map.of());
+    }
+
+    /**
+     * Executes all triggered orders of one stock in one database transaction, see {@link #executeOrderBatch(long, List)}.
+     * The stop levels of fired TRAILING_STOP orders are stored in the same transaction and checked like the
+     * stop price of a STOP order.
+     *
+     * @param idStock the ID of the stock
+     * @param idOrders the IDs of the triggered orders of this stock
+     * @param stopPrices the stop level per fired TRAILING_STOP order
+     * @return the outcome of every order
+     */
+    @Transactional
+    public BatchResult executeOrderBatch(long idStock, List<Long> idOrders, Map<Long, Double> stopPrices){
+        PriceTick latestPrice = service.getLatestPrice(idStock);
+        double stockPrice = latestPrice.price();
+
+        long[] ids = new long[idOrders.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOrders.get(i);
+        }
+        List<ExecutableOrder> orders = ordersRepository.findOrdersForExecution(ids);
+
+        List<Long> conditionMissed = new ArrayList<>();
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        List<Long> closed = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        List<ExecutableOrder> sells = new ArrayList<>();
+        List<ExecutableOrder> buys = new ArrayList<>();
+        Map<Long, Double> fired = new LinkedHashMap<>();
+        Map<Long, ExecutableOrder> byId = new HashMap<>();
+        List<OrderEvent> events = new ArrayList<>();
+        for (ExecutableOrder order : orders) {
+            found.add(order.getIdOrder());
+            byId.put(order.getIdOrder(), order);
+            if (order.getIdStock() != idStock) {
+                rejected.put(order.getIdOrder(), "Die Order gehört zu einer anderen Aktie.");
+                continue;
+            }
+            Double stopPrice = order.getStopPrice();
+            if ("TRAILING_STOP".equalsIgnoreCase(order.getOrderType()) && stopPrices.containsKey(order.getIdOrder())) {
+                stopPrice = stopPrices.get(order.getIdOrder());
+                fired.put(order.getIdOrder(), stopPrice);
+            }
+            try {
+                checkCondition(order.getOrderType(), order.getBs(), order.getLimitPrice(), stopPrice, stockPrice);
+            } catch (OrderConditionException e) {
+                conditionMissed.add(order.getIdOrder());
+                continue;
+            }
+            events.add(OrderEvent.of(OrderEvent.TRIGGERED, order.getIdOrder(), order.getIdUser(), idStock,
+                fired.getOrDefault(order.getIdOrder(), stockPrice), null));
+            (order.getBs() ? sells : buys).add(order);
+        }
+        for (long idOrder : idOrders) {
+            if (!found.contains(idOrder)) {
+                closed.add(idOrder);
+            }
+        }
+        if (!fired.isEmpty()) {
+            saveStopPrices(fired);
+        }
 
+        // shares held per selling user, a user's sales share them
+        Map<String, Long> held = new HashMap<>();
+        if (!sells.isEmpty()) {
+            String[] sellers = sells.stream().map(ExecutableOrder::getIdUser).distinct().toArray(String[]::new);
+            for (PositionCount position : portfolioRepository.getCountsOfStock(idStock, sellers)) {
+                held.put(position.getIdUser(), position.getCount());
+            }
+        }
+
+        List<ExecutableOrder> tradedOrders = new ArrayList<>();
+        List<PendingTrade> trades = new ArrayList<>();
+        for (ExecutableOrder order : sells) {
+            long count = quantity(order, stockPrice);
+            long available = held.getOrDefault(order.getIdUser(), 0L);
+            if (count <= 0) {
+                rejected.put(order.getIdOrder(), "Keine Aktien zum Verkaufen im Portfolio.");
+                continue;
+            }
+            // no partial fills, like executeOrder: the order stays open until the user holds enough shares
+            if (count > available) {
+                rejected.put(order.getIdOrder(), "Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+                continue;
+            }
+            held.put(order.getIdUser(), available - count);
+            tradedOrders.add(order);
+            trades.add(new PendingTrade(order.getIdUser(), idStock, count, true, latestPrice));
+        }
+        for (ExecutableOrder order : buys) {
+            long count = quantity(order, stockPrice);
+            if (count <= 0) {
+                rejected.put(order.getIdOrder(), "Der Betrag reicht für keine Aktie.");
+                continue;
+            }
+            tradedOrders.add(order);
+            trades.add(new PendingTrade(order.getIdUser(), idStock, count, false, latestPrice));
+        }
+        if (!trades.isEmpty()) {
+            service.commitTradeGroup(trades);
+        }
 
-        //System.out.println("id_order: " + id_order + " idUser: " + idUser);
-        //System.out.println("id_order: " + id_order + " (" + ((Object) id_order).getClass().getName() + ")");
-        //System.out.println("idUser (aus Token): " + idUser + " (" + ((Object) idUser).getClass().getName() + ")");
-        //System.out.println("id_User (aus Order): " + id_User + " (" + ((Object) id_User).getClass().getName() + ")");
-        /*if (order.getExecutedAt() != null || !idUser.equals(id_User)){
-            throw new IllegalArgumentException("deleting executed orders or orders that not belong to to this User is not allowed!");
+        List<Long> executed = new ArrayList<>();
+        Set<String> users = new HashSet<>();
+        for (int i = 0; i < trades.size(); i++) {
+            ExecutableOrder order = tradedOrders.get(i);
+            if (trades.get(i).isRejected()) {
+                rejected.put(order.getIdOrder(), trades.get(i).getRejection());
+            } else {
+                executed.add(order.getIdOrder());
+                users.add(order.getIdUser());
+            }
         }
-        if (!order.getOrderType().equalsIgnoreCase("MARKET")){
-            ordersRepository.deleteOrderCondition(id_order);
-        }*/
-        ordersRepository.deleteOrderCondition(id_order);
-        ordersRepository.deleteOrder(id_order);
+        if (!executed.isEmpty()) {
+            long[] executedIds = new long[executed.size()];
+            for (int i = 0; i < executedIds.length; i++) {
+                executedIds[i] = executed.get(i);
+            }
+            ordersRepository.markExecuted(executedIds, latestPrice.idStockPrice(), stockPrice);
+        }
+        for (long idOrder : executed) {
+            events.add(OrderEvent.of(OrderEvent.EXECUTED, idOrder, byId.get(idOrder).getIdUser(), idStock, stockPrice, null));
+        }
+        for (Map.Entry<Long, String> rejection : rejected.entrySet()) {
+            ExecutableOrder order = byId.get(rejection.getKey());
+            events.add(OrderEvent.of(OrderEvent.REJECTED, order.getIdOrder(), order.getIdUser(), order.getIdStock(),
+                null, rejection.getValue()));
+        }
+        orderEventService.publishAfterCommit(events);
+        return new BatchResult(executed, conditionMissed, rejected, closed, users);
+    }
 
-        return 1;
+    /**
+     * Stores the stop levels at which TRAILING_STOP orders fired.
+     *
+     * @param stopPrices the stop level per order
+     */
+    @Transactional
+    public void saveStopPrices(Map<Long, Double> stopPrices){
+        long[] ids = new long[stopPrices.size()];
+        double[] levels = new double[stopPrices.size()];
+        int i = 0;
+        for (Map.Entry<Long, Double> entry : stopPrices.entrySet()) {
+            ids[i] = entry.getKey();
+            levels[i++] = entry.getValue();
+        }
+        ordersRepository.setStopPrices(ids, levels);
+    }
+
+    /**
+     * Returns the number of shares of an order: the quantity, or for an order by amount as many shares as the
+     * amount buys at the price.
+     */
+    private static long quantity(ExecutableOrder order, double stockPrice) {
+        if (order.getAmount() != null && order.getAmount() > 0) {
+            return (long) Math.floor(order.getAmount() / stockPrice);
+        }
+        return order.getQuantity() == null ? 0 : order.getQuantity();
+    }
+
+    private static double valueOf(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Checks the LIMIT or STOP condition of an order against the price, MARKET orders have none.
+     * A TRAILING_STOP order is checked like a STOP order once it fired and its stop level was stored.
+     *
+     * @throws OrderConditionException if the price does not meet the condition
+     */
+    private static void checkCondition(String orderType, boolean bs, Double limitPrice, Double stopPrice, double stockPrice){
+        switch (orderType.toUpperCase()) {
+            case "LIMIT":
+                if(bs == false && stockPrice > limitPrice){
+                    throw new OrderConditionException("current_stock_price higher as the Limit-Buy_price");
+
+                } else if (bs == true && stockPrice < limitPrice){
+                        throw new OrderConditionException("current_stock_price not higher as the Limit-Sell_price");
+                }
+                break;
+
+            case "STOP":
+                if(bs == false && stockPrice < stopPrice){
+                    throw new OrderConditionException("current_stock_price lower as the Stop-Buy_price");
+                } else if (bs == true && stockPrice > stopPrice){
+                    throw new OrderConditionException("current_stock_price higher as the Stop-Sell_price");
+                } 
+                break;
+
+            case "TRAILING_STOP":
+                if (stopPrice == null || stopPrice <= 0){
+                    throw new OrderConditionException("Trailing-Stop has not been triggered yet");
+                } else if(bs == false && stockPrice < stopPrice){
+                    throw new OrderConditionException("current_stock_price lower as the Trailing-Stop-Buy_price");
+                } else if (bs == true && stockPrice > stopPrice){
+                    throw new OrderConditionException("current_stock_price higher as the Trailing-Stop-Sell_price");
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Cancels an open order of the user. The order is kept with cancelled_at for the order list and is no longer
+     * executed.
+     *
+     * @return number of cancelled orders
+     */
+    @Transactional
+    public long deleteOrders(long id_order, String idUser){
+        int cancelled = ordersRepository.cancelOrder(id_order, idUser);
+        if (cancelled == 0) {
+            throw new IllegalArgumentException("Die Order ist nicht offen oder gehört nicht zu diesem Nutzer.");
+        }
+        orderEventService.publishAfterCommit(List.of(OrderEvent.of(OrderEvent.CANCELLED, id_order, idUser, null, null, null)));
+        return cancelled;
     }
 
 }
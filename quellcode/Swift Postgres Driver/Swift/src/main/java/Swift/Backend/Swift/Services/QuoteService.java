@@ -0,0 +1,184 @@
+package Swift.Backend.Swift.Services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Trading.PriceTick;
+import Swift.Backend.Swift.Util.TtlCache;
+
+/**
+ * Price-locked quotes for trades.
+ * <p>
+ * A quote carries user, stock, count, the quoted price and an expiry, signed with HMAC-SHA256. A buy or sell that
+ * sends the quote id before it expires is executed at the quoted price without reading the current price again.
+ * Every quote can be used for one trade only.
+ * <p>
+ * Format: q_&lt;base64url(idStock|idStockPrice|price|priceTime|count|exp|idUser)&gt;.&lt;base64url(hmac)&gt;
+ */
+@Service
+public class QuoteService {
+    public static final String PREFIX = "q_";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    public final LatestPriceService latestPriceService;
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    // Mac instances are not thread safe, every request thread gets its own
+    private final ThreadLocal<Mac> mac;
+    // signatures of quotes that were already traded, kept until the quote would have expired anyway
+    private final TtlCache<String, Boolean> usedQuotes;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public QuoteService(LatestPriceService latestPriceService,
+    @Value("${swift.trade.quote.secret:}") String secret,
+    @Value("${swift.trade.quote.ttl-seconds:10}") long ttlSeconds,
+    @Value("${swift.trade.quote.max-open:100000}") int maxOpenQuotes){
+        this.latestPriceService = latestPriceService;
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            // quotes only live for seconds, a new key after a restart just invalidates the open ones
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.usedQuotes = new TtlCache<>(maxOpenQuotes);
+    }
+
+    /**
+     * Quotes the current price of a stock for the user.
+     *
+     * @param idUser  the ID of the user
+     * @param idStock the ID of the stock
+     * @param count   number of shares
+     * @return the signed quote
+     */
+    public Quote quote(String idUser, long idStock, long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Die Anzahl muss größer als 0 sein.");
+        }
+        PriceTick tick = latestPriceService.getLatest(idStock);
+        if (tick == null) {
+            throw new IllegalStateException("Für diese Aktie ist kein Kurs vorhanden.");
+        }
+        Instant expiresAt = Instant.now().plus(ttl);
+        String payload = encode((idStock + "|" + tick.idStockPrice() + "|" + tick.price() + "|"
+            + tick.date().toEpochSecond(ZoneOffset.UTC) + "|" + count + "|" + expiresAt.toEpochMilli() + "|" + idUser)
+            .getBytes(StandardCharsets.UTF_8));
+        issued.increment();
+        return new Quote(PREFIX + payload + "." + encode(sign(payload)), idStock, tick.idStockPrice(), tick.price(),
+            count, tick.price() * count, expiresAt);
+    }
+
+    /**
+     * Checks a quote sent with a trade and marks it as used.
+     * Must be called under the trade lock of the user, so a quote can not be used by two trades at once.
+     *
+     * @param quoteId the quote id from {@link #quote}
+     * @param idUser  the ID of the trading user
+     * @param idStock the stock of the trade
+     * @param count   the number of shares of the trade
+     * @return the quoted price
+     * @throws IllegalArgumentException if the quote is forged, expired, already used or does not match the trade
+     */
+    public PriceTick redeem(String quoteId, String idUser, long idStock, long count) {
+        int dot = quoteId.indexOf('.', PREFIX.length());
+        if (!quoteId.startsWith(PREFIX) || dot < 0) {
+            throw reject("Quote ungültig.");
+        }
+        String payload = quoteId.substring(PREFIX.length(), dot);
+        String signature = quoteId.substring(dot + 1);
+
+        String[] fields;
+        try {
+            if (!MessageDigest.isEqual(sign(payload), Base64.getUrlDecoder().decode(signature))) {
+                throw reject("Quote ungültig.");
+            }
+            fields = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8).split("\\|", 7);
+        } catch (IllegalArgumentException e) {
+            throw reject("Quote ungültig.");
+        }
+        // the signature is valid, so the fields are the ones written by quote()
+        if (!fields[6].equals(idUser) || Long.parseLong(fields[0]) != idStock || Long.parseLong(fields[4]) != count) {
+            throw reject("Quote passt nicht zu diesem Auftrag.");
+        }
+        if (System.currentTimeMillis() > Long.parseLong(fields[5])) {
+            expired.increment();
+            throw reject("Quote abgelaufen, bitte neuen Kurs abfragen.");
+        }
+        if (usedQuotes.get(signature) != null) {
+            throw reject("Quote wurde bereits verwendet.");
+        }
+        usedQuotes.put(signature, Boolean.TRUE, ttl.plusSeconds(1));
+        accepted.increment();
+        return new PriceTick(idStock, Long.parseLong(fields[1]), Double.parseDouble(fields[2]),
+            LocalDateTime.ofEpochSecond(Long.parseLong(fields[3]), 0, ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns counters of issued, accepted and rejected quotes; expired quotes are counted as rejected as well.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttlSeconds", ttl.toSeconds());
+        stats.put("issued", issued.sum());
+        stats.put("accepted", accepted.sum());
+        stats.put("expired", expired.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private byte[] sign(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private IllegalArgumentException reject(String message) {
+        rejected.increment();
+        return new IllegalArgumentException(message);
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * A price-locked quote.
+     */
+    public record Quote(String quoteId, long idStock, long idStockPrice, double price, long count, double amount, Instant expiresAt) {}
+}
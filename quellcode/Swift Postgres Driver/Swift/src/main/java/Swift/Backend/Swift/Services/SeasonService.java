@@ -1,37 +1,131 @@
 package Swift.Backend.Swift.Services;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import Swift.Backend.Swift.Entities.Season;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
 import Swift.Backend.Swift.Repositories.SeasonRepository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class SeasonService {
     public final SeasonRepository seasonRepository;
+    public final Bankaccount_balanceRepository bankaccount_balanceRepository;
+    public final TradeJournalService tradeJournalService;
+    public final TradeRiskService tradeRiskService;
+    public final TradeSequencerService tradeSequencerService;
+    public final OrderExpiryService orderExpiryService;
+    public final TradeService tradeService;
+
+    // Start balance of the active season, read on every first login; only changes with a season change
+    private final long startBalanceCacheNanos;
+    private volatile Double cachedStartBalance;
+    private volatile long cachedStartBalanceAt;
+    private final Duration tradeDrainTimeout;
 
     @Autowired
-    public SeasonService(SeasonRepository seasonRepository){
+    public SeasonService(SeasonRepository seasonRepository, Bankaccount_balanceRepository bankaccount_balanceRepository,
+    TradeJournalService tradeJournalService, TradeRiskService tradeRiskService, TradeSequencerService tradeSequencerService,
+    OrderExpiryService orderExpiryService, TradeService tradeService,
+    @Value("${swift.season.start-balance-cache-seconds:300}") long startBalanceCacheSeconds,
+    @Value("${swift.season.trade-drain-ms:15000}") long tradeDrainMillis){
         this.seasonRepository = seasonRepository;
+        this.bankaccount_balanceRepository = bankaccount_balanceRepository;
+        this.tradeJournalService = tradeJournalService;
+        this.tradeRiskService = tradeRiskService;
+        this.tradeSequencerService = tradeSequencerService;
+        this.orderExpiryService = orderExpiryService;
+        this.tradeService = tradeService;
+        this.tradeDrainTimeout = Duration.ofMillis(tradeDrainMillis);
+        this.startBalanceCacheNanos = startBalanceCacheSeconds * 1_000_000_000L;
     }
 
+    /**
+     * Switches to the next season. No trade runs from the journal flush until the in-memory accounts are dropped
+     * after the commit, trades sent in the meantime are rejected.
+     *
+     * @return the new active season
+     */
     @Transactional(rollbackFor = Exception.class)
     public Season runSeasonChange() {
+        tradeService.closeForSeasonChange(tradeDrainTimeout);
+        boolean reopenOnCompletion = false;
         try {
+            reopenOnCompletion = invalidateAfterCommit();
+            // journaled trades belong to the old season
+            tradeJournalService.flush();
             seasonRepository.callPersistLeaderboard();
             seasonRepository.callSwitchActiveSeason();
             seasonRepository.callResetBankaccount();
+            bankaccount_balanceRepository.syncFromLedger();
+            // DAY orders do not outlive the season, one statement for all of them
+            orderExpiryService.expireDayOrders();
             seasonRepository.callDropOrders();
             seasonRepository.callDropTransaction();
             seasonRepository.callDropPortfolio();
             seasonRepository.callDropStockPrice();
             seasonRepository.callDropIndexPrice();
 
+            cachedStartBalance = null;
             return seasonRepository.getActiveSeason();
         } catch (Exception e) {
             System.out.println("Failed to change season: " + e.getMessage());
             throw new RuntimeException("Failed to change season: " + e.getMessage(), e);
+        } finally {
+            if (!reopenOnCompletion) {
+                tradeService.reopenAfterSeasonChange();
+            }
+        }
+    }
+
+    /**
+     * Returns the start balance of the active season.
+     * The value is cached for the configured time and dropped right after a season change.
+     *
+     * @return start balance for new bank accounts
+     */
+    public double getActiveStartBalance() {
+        Double balance = cachedStartBalance;
+        if (balance != null && System.nanoTime() - cachedStartBalanceAt < startBalanceCacheNanos) {
+            return balance;
         }
+        balance = (double) seasonRepository.getActiveSeason().getStartBalance();
+        cachedStartBalanceAt = System.nanoTime();
+        cachedStartBalance = balance;
+        return balance;
+    }
+
+    /**
+     * Drops the cached start balance and the in-memory trading accounts once the season change is committed,
+     * so no login or trade in between can cache the old season's values again. Trades are accepted again when
+     * the transaction has completed, also after a rollback.
+     *
+     * @return false if there is no transaction, the caller reopens the trades itself
+     */
+    private boolean invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cachedStartBalance = null;
+                tradeJournalService.invalidateAll();
+                tradeRiskService.invalidateAll();
+                tradeSequencerService.invalidateAll();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                tradeService.reopenAfterSeasonChange();
+            }
+        });
+        return true;
     }
-}
\ No newline at end of file
+}
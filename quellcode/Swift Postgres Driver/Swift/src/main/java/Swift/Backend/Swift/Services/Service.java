@@ -2,30 +2,37 @@ package Swift.Backend.Swift.Services;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import Swift.Backend.Swift.DTO.TradeLegDTO;
 import Swift.Backend.Swift.Entities.Bankaccount;
 import Swift.Backend.Swift.Entities.Index;
 import Swift.Backend.Swift.Entities.Index_prices;
-import Swift.Backend.Swift.Entities.Portfolio;
 import Swift.Backend.Swift.Entities.Transaction;
 import Swift.Backend.Swift.Projections.PortfolioSnapshot;
 import Swift.Backend.Swift.Projections.PortfolioView;
-import Swift.Backend.Swift.Projections.StockPriceProjection;
 import Swift.Backend.Swift.Repositories.BankaccountRepository;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
 import Swift.Backend.Swift.Repositories.ChartRepository;
 import Swift.Backend.Swift.Repositories.IndexRepository;
 import Swift.Backend.Swift.Repositories.Index_pricesRepository;
 import Swift.Backend.Swift.Repositories.PortfolioRepository;
 import Swift.Backend.Swift.Repositories.PortfolioRepository.PortfolioGroup;
 import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Repositories.Trade_journal_checkpointRepository;
 import Swift.Backend.Swift.Repositories.TransactionRepository;
+import Swift.Backend.Swift.Trading.JournalEntry;
+import Swift.Backend.Swift.Trading.PendingTrade;
+import Swift.Backend.Swift.Trading.PriceTick;
 import jakarta.transaction.Transactional;
 
 /**
@@ -38,19 +45,28 @@ public class Service {
     public final TransactionRepository transactionRepository;
     public final PortfolioRepository portfolioRepository;
     public final BankaccountRepository bankaccountRepository;
+    public final Bankaccount_balanceRepository bankaccount_balanceRepository;
     public final IndexRepository indexRepository; 
     public final Index_pricesRepository index_pricesRepository;
     public final ChartRepository chartRepository;
+    public final LatestPriceService latestPriceService;
+    public final Trade_journal_checkpointRepository trade_journal_checkpointRepository;
+    public final QuoteService quoteService;
+    public final TradeRiskService tradeRiskService;
 
     /**
      * Constructor injecting all necessary repositories.
      */
     @Autowired
     public Service(Stock_priceRepository stock_priceRepository, TransactionRepository transactionRepository, PortfolioRepository portfolioRepository, 
-    BankaccountRepository bankaccountRepository, IndexRepository indexRepository, Index_pricesRepository index_pricesRepository, ChartRepository chartRepository){
+    BankaccountRepository bankaccountRepository, Bankaccount_balanceRepository bankaccount_balanceRepository, IndexRepository indexRepository, Index_pricesRepository index_pricesRepository, ChartRepository chartRepository,
+    LatestPriceService latestPriceService, Trade_journal_checkpointRepository trade_journal_checkpointRepository, QuoteService quoteService,
+    TradeRiskService tradeRiskService){
         this.stock_priceRepository = stock_priceRepository; this.transactionRepository = transactionRepository; 
         this.portfolioRepository = portfolioRepository; this.bankaccountRepository = bankaccountRepository;this.indexRepository = indexRepository; this.index_pricesRepository = index_pricesRepository;
-        this.chartRepository = chartRepository;
+        this.chartRepository = chartRepository; this.bankaccount_balanceRepository = bankaccount_balanceRepository;
+        this.latestPriceService = latestPriceService; this.trade_journal_checkpointRepository = trade_journal_checkpointRepository;
+        this.quoteService = quoteService; this.tradeRiskService = tradeRiskService;
     }
 
     /**
@@ -96,25 +112,27 @@ public class Service {
         // Executes the logic for buying a stock for a specific user.
         /* Business Logic Summary:
          * - Retrieves the latest stock price for the given stock.
-         * - Checks if the user has sufficient funds to complete the purchase.
+         * - Checks order size and funds against the in-memory risk state before anything is written.
          * - Optionally restricts trading to weekdays between 16:30 and 22:00 (currently commented out).
          * - Updates the user's bank account balance.
-         * - Creates portfolio entries for each stock unit purchased.
+         * - Adds the purchased shares to the user's position (one row per stock).
          * - Records the transaction details and persists all relevant entities. */
 
         transaction.setIdUser(idUser);
 
-        // Get the latest price for the selected stock
-        StockPriceProjection stockPriceProjection = stock_priceRepository.getLatestStockPrice(transaction.getIdStock());
-        System.out.println("ID: " + stockPriceProjection.getIdStockPrice() + ", Price: " + stockPriceProjection.getPrice());
+        // Get the quoted or else the latest price for the selected stock
+        PriceTick latestPrice = getTradePrice(idUser, transaction);
+        System.out.println("ID: " + latestPrice.idStockPrice() + ", Price: " + latestPrice.price());
         
-        // Retrieve user's current account balance
-        double current_worth = bankaccountRepository.getCurrentWorth(transaction.getIdUser());
-        double stock_price = stockPriceProjection.getPrice();
-        double new_worth = current_worth - stock_price * transaction.getCount();
+        double stock_price = latestPrice.price();
+        double cost = stock_price * transaction.getCount();
+
+        // Reject order size, missing funds or missing account before anything is written
+        tradeRiskService.check(idUser, transaction.getIdStock(), transaction.getCount(), cost, false);
 
-        // Check if user has enough Money to buy the requested number of stocks
-        if (new_worth <= 0) {
+        // Debit the balance atomically, only succeeds if the user has enough Money to buy the requested number of stocks
+        Double new_worth = bankaccount_balanceRepository.applyDelta(transaction.getIdUser(), -cost);
+        if (new_worth == null) {
             throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
         }
 
@@ -131,34 +149,29 @@ public class Service {
             throw new IllegalStateException("Aktionen sind nur von Montag bis Freitag zwischen 16:30 und 22:00 Uhr möglich.");
         }*/
 
-        // Create a new bank account object with updated balance
+        // Create a new ledger entry with the balance before and after the purchase
         Bankaccount bankaccount = new Bankaccount(
         transaction.getIdUser(),
-        current_worth,
-        new_worth);
-
-        // Create one portfolio entry per stock unit bought
-        List<Portfolio> portfolios = new ArrayList<>();
-        for (int i = 0; i < transaction.getCount(); i++) {
-        Portfolio portfolio = new Portfolio(
-                transaction.getIdUser(),
-                stockPriceProjection.getIdStockPrice(),
-                transaction.getIdStock(),
-                1, // one unit per record
-                stock_price,
-                now
-            );
-            portfolios.add(portfolio);
-        }
+        new_worth + cost,
+        new_worth,
+        now);
 
         // Set missing transaction details
-        transaction.setIdStockPrice(stockPriceProjection.getIdStockPrice());
+        transaction.setIdStockPrice(latestPrice.idStockPrice());
         transaction.setValue(stock_price);
         transaction.setDate(now);
         transaction.setBs(false);
 
-        // Persist transaction, portfolio entries, and updated bank account
-        saveAll(transaction, portfolios, bankaccount);
+        // Persist transaction, position, and updated bank account
+        saveAll(transaction, bankaccount);
+        portfolioRepository.addToPosition(
+            transaction.getIdUser(),
+            transaction.getIdStock(),
+            latestPrice.idStockPrice(),
+            transaction.getCount(),
+            stock_price
+        );
+        tradeRiskService.record(idUser, transaction.getIdStock(), transaction.getCount(), cost, false);
 
         return(transaction);
     }
@@ -168,21 +181,22 @@ public class Service {
         //Executes the logic for selling a stock for a specific user.
         /*Business Logic Summary:
         * - Retrieves the latest stock price for the given stock.
-        * - Validates that the user owns enough shares to sell.
+        * - Checks order size and held shares against the in-memory risk state before anything is written.
         * - Optionally restricts trading to weekdays between 16:30 and 22:00 (currently commented out).
         * - Updates the user's bank account balance.
         * - Removes the sold shares from the portfolio.
         * - Records the transaction and persists all relevant entities. */
         transaction.setIdUser(idUser);
 
-        // Get the latest stock price
-        StockPriceProjection stockPriceProjection = stock_priceRepository.getLatestStockPrice(transaction.getIdStock());
-        System.out.println("ID: " + stockPriceProjection.getIdStockPrice() + ", Price: " + stockPriceProjection.getPrice());
+        // Get the quoted or else the latest stock price
+        PriceTick latestPrice = getTradePrice(idUser, transaction);
+        System.out.println("ID: " + latestPrice.idStockPrice() + ", Price: " + latestPrice.price());
         
-        // calculate new balance
-        double current_worth = bankaccountRepository.getCurrentWorth(transaction.getIdUser());
-        double stock_price = stockPriceProjection.getPrice();
-        double new_worth = current_worth + stock_price * transaction.getCount();
+        double stock_price = latestPrice.price();
+        double proceeds = stock_price * transaction.getCount();
+
+        // Reject order size or missing shares before anything is written
+        tradeRiskService.check(idUser, transaction.getIdStock(), transaction.getCount(), proceeds, true);
 
         // Check how many shares the user currently owns
         //long current_stock_count = portfolioRepository.getStockCountByIDs(transaction.getIdStock(), transaction.getIdUser());
@@ -206,53 +220,391 @@ public class Service {
             throw new IllegalStateException("Aktionen sind nur von Montag bis Freitag zwischen 16:30 und 22:00 Uhr möglich.");
         }*/
 
-        // Create updated bank account entry with increased balance
-        Bankaccount bankaccount = new Bankaccount(
-        transaction.getIdUser(),
-        current_worth,
-        new_worth);
 
         // Set missing transaction details
-        transaction.setIdStockPrice(stockPriceProjection.getIdStockPrice());
+        transaction.setIdStockPrice(latestPrice.idStockPrice());
         transaction.setValue(stock_price);
         transaction.setDate(now);
         transaction.setBs(true);
 
-        // Save transaction and bank account update
-        transactionRepository.save(transaction);
-        bankaccountRepository.save(bankaccount);
         //portfolioRepository.deleteByIDAndCount(transaction.getIdStock(), transaction.getIdUser(), transaction.getCount());
 
-        // Remove sold shares from the user's portfolio
-        int deletedRows = portfolioRepository.deleteByIDAndCount(
+        // Remove sold shares from the user's position first (only succeeds if enough shares are held), nothing is written otherwise
+        int updatedRows = portfolioRepository.removeFromPosition(
             transaction.getIdStock(),
             transaction.getIdUser(),
             transaction.getCount()
         );
 
-        System.out.println("Es wurden " + deletedRows + " Portfolio-Einträge gelöscht.");
-
-        // Validate that the correct number of portfolio entries were removed
-        if (deletedRows < transaction.getCount()) {
+        if (updatedRows == 0) {
             throw new IllegalStateException("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
         }
+        portfolioRepository.deleteEmptyPosition(transaction.getIdStock(), transaction.getIdUser());
+
+        // Save transaction
+        transactionRepository.save(transaction);
+
+        // Credit the balance atomically and record the ledger entry with the balance before and after the sale
+        Double new_worth = bankaccount_balanceRepository.applyDelta(transaction.getIdUser(), proceeds);
+        if (new_worth == null) {
+            throw new IllegalStateException("Kein Bankkonto vorhanden.");
+        }
+        bankaccountRepository.save(new Bankaccount(
+        transaction.getIdUser(),
+        new_worth - proceeds,
+        new_worth,
+        now));
+        tradeRiskService.record(idUser, transaction.getIdStock(), transaction.getCount(), proceeds, true);
 
         return(transaction);
     }
 
     /**
-     * Saves a transaction, list of portfolio entries, and bank account update in a single transactional context.
+     * Executes several buys and sells of one user in a single database transaction (all-or-nothing).
+     *
+     * @param idUser the ID of the user trading
+     * @param transactions the legs of the batch (id_stock, count, bs)
+     * @return the result of every leg, in the order of the request
+     * @throws TradeBatchException if a leg is rejected, nothing of the batch is executed
+     */
+    @Transactional
+    public List<TradeLegDTO> tradeBatch(String idUser, List<Transaction> transactions){
+        /* Business Logic Summary:
+         * - Retrieves the latest price of every distinct stock of the batch (cache, misses with one query).
+         * - Validates every leg (count, known stock, enough shares held before the batch).
+         * - Checks the net amount of the batch (sales minus purchases) against the balance.
+         * - Records all transactions, updates every position once and the balance once with a single ledger entry.
+         * - If any leg is rejected nothing is written and the result of every leg is reported. */
+        List<TradeLegDTO> legs = new ArrayList<>();
+        Set<Long> stockIds = new LinkedHashSet<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            legs.add(new TradeLegDTO(i, transaction.getIdStock(), transaction.getBs(), transaction.getCount()));
+            stockIds.add(transaction.getIdStock());
+        }
+
+        // One price lookup for all stocks and one read of the user's positions
+        Map<Long, PriceTick> prices = latestPriceService.getLatest(stockIds);
+        Map<Long, Long> held = new HashMap<>();
+        for (PortfolioGroup position : portfolioRepository.findPortfolioGroupByIdUser(idUser)) {
+            held.put(position.getIdStock(), position.getCount());
+        }
+
+        // Validate the legs, sales refer to the shares held before the batch
+        Map<Long, Long> bought = new LinkedHashMap<>();
+        Map<Long, Long> sold = new LinkedHashMap<>();
+        double delta = 0;
+        for (TradeLegDTO leg : legs) {
+            PriceTick price = prices.get(leg.getIdStock());
+            if (leg.getCount() <= 0) {
+                leg.reject("Die Anzahl muss größer als 0 sein.");
+                continue;
+            }
+            if (price == null) {
+                leg.reject("Für diese Aktie ist kein Kurs vorhanden.");
+                continue;
+            }
+            double amount = price.price() * leg.getCount();
+            leg.setPrice(price.price());
+            leg.setAmount(amount);
+            if (leg.getBs()) {
+                long total = sold.merge(leg.getIdStock(), leg.getCount(), Long::sum);
+                if (total > held.getOrDefault(leg.getIdStock(), 0L)) {
+                    leg.reject("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+                    continue;
+                }
+                delta += amount;
+            } else {
+                bought.merge(leg.getIdStock(), leg.getCount(), Long::sum);
+                delta -= amount;
+            }
+        }
+
+        Double current_worth = bankaccount_balanceRepository.getCurrentWorth(idUser);
+        if (current_worth == null) {
+            throw new TradeBatchException("Kein Bankkonto vorhanden.", legs);
+        }
+        if (current_worth + delta <= 0) {
+            for (TradeLegDTO leg : legs) {
+                if (!leg.getBs() && !leg.isRejected()) {
+                    leg.reject("Nicht genug Guthaben auf dem Bankkonto.");
+                }
+            }
+        }
+        if (legs.stream().anyMatch(TradeLegDTO::isRejected)) {
+            throw new TradeBatchException("Der Auftrag wurde abgelehnt, es wurde nichts ausgeführt.", legs);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Record all transactions
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            PriceTick price = prices.get(transaction.getIdStock());
+            transaction.setIdUser(idUser);
+            transaction.setIdStockPrice(price.idStockPrice());
+            transaction.setValue(price.price());
+            transaction.setDate(now);
+        }
+        transactionRepository.saveAll(transactions);
+
+        // Update every position once, sales first so a position sold completely can be bought again
+        for (Map.Entry<Long, Long> entry : sold.entrySet()) {
+            int updatedRows = portfolioRepository.removeFromPosition(entry.getKey(), idUser, entry.getValue());
+            if (updatedRows == 0) {
+                throw new IllegalStateException("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+            }
+            portfolioRepository.deleteEmptyPosition(entry.getKey(), idUser);
+        }
+        for (Map.Entry<Long, Long> entry : bought.entrySet()) {
+            PriceTick price = prices.get(entry.getKey());
+            portfolioRepository.addToPosition(idUser, entry.getKey(), price.idStockPrice(), entry.getValue(), price.price());
+        }
+
+        // One balance update and one ledger entry for the whole batch
+        Double new_worth = bankaccount_balanceRepository.applyDelta(idUser, delta);
+        if (new_worth == null) {
+            throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
+        }
+        bankaccountRepository.save(new Bankaccount(idUser, new_worth - delta, new_worth, now));
+
+        for (int i = 0; i < legs.size(); i++) {
+            legs.get(i).setIdTransaction(transactions.get(i).getId());
+            legs.get(i).setStatus(TradeLegDTO.EXECUTED);
+        }
+        return legs;
+    }
+
+    /**
+     * Writes a batch of journaled trades to the database in one transaction.
+     *
+     * @param entries the journal entries in journal order
+     */
+    @Transactional
+    public void persistJournalBatch(List<JournalEntry> entries){
+        // Moves the journal checkpoint in the same transaction, so a replay never writes a trade twice
+        persistTrades(entries);
+        long lastSeq = 0;
+        for (JournalEntry entry : entries) {
+            lastSeq = Math.max(lastSeq, entry.seq());
+        }
+        trade_journal_checkpointRepository.advance(lastSeq);
+    }
+
+    /**
+     * Writes trades that were already accepted against an in-memory account book in one transaction
+     * (journal writer, trade sequencer).
+     *
+     * @param entries the accepted trades in the order they were accepted
+     * @return the saved transactions, in the order of the entries
+     */
+    @Transactional
+    public List<Transaction> persistTrades(List<JournalEntry> entries){
+        /* Business Logic Summary:
+         * - The trades were already checked and accepted against the in-memory account book.
+         * - Records one transaction and one ledger entry per trade.
+         * - Updates every position (user, stock) and every balance only once for the whole batch. */
+        List<Transaction> transactions = new ArrayList<>();
+        List<Bankaccount> ledger = new ArrayList<>();
+        Map<String, Double> deltas = new LinkedHashMap<>();
+        Map<PositionKey, PositionChange> changes = new LinkedHashMap<>();
+
+        for (JournalEntry entry : entries) {
+            transactions.add(new Transaction(null, entry.idUser(), entry.idStock(), entry.idStockPrice(),
+                entry.count(), entry.price(), entry.date(), entry.bs()));
+            ledger.add(new Bankaccount(entry.idUser(), entry.balanceBefore(), entry.balanceAfter(), entry.date()));
+            deltas.merge(entry.idUser(), entry.bs() ? entry.amount() : -entry.amount(), Double::sum);
+
+            PositionChange change = changes.computeIfAbsent(new PositionKey(entry.idUser(), entry.idStock()), k -> new PositionChange());
+            if (entry.bs()) {
+                change.sold += entry.count();
+            } else {
+                change.bought += entry.count();
+                change.cost += entry.amount();
+                change.idStockPrice = entry.idStockPrice();
+            }
+        }
+
+        transactionRepository.saveAll(transactions);
+        bankaccountRepository.saveAll(ledger);
+
+        // Purchases first: a sale in the batch may refer to shares bought earlier in the same batch
+        for (Map.Entry<PositionKey, PositionChange> entry : changes.entrySet()) {
+            PositionChange change = entry.getValue();
+            if (change.bought > 0) {
+                portfolioRepository.addToPosition(entry.getKey().idUser(), entry.getKey().idStock(), change.idStockPrice,
+                    change.bought, change.cost / change.bought);
+            }
+        }
+        for (Map.Entry<PositionKey, PositionChange> entry : changes.entrySet()) {
+            PositionChange change = entry.getValue();
+            if (change.sold > 0) {
+                int updatedRows = portfolioRepository.removeFromPosition(entry.getKey().idStock(), entry.getKey().idUser(), change.sold);
+                if (updatedRows == 0) {
+                    throw new IllegalStateException("Position im Speicher passt nicht zur Datenbank: " + entry.getKey());
+                }
+                portfolioRepository.deleteEmptyPosition(entry.getKey().idStock(), entry.getKey().idUser());
+            }
+        }
+
+        for (Map.Entry<String, Double> delta : deltas.entrySet()) {
+            if (bankaccount_balanceRepository.applyDelta(delta.getKey(), delta.getValue()) == null) {
+                throw new IllegalStateException("Guthaben im Speicher passt nicht zur Datenbank: " + delta.getKey());
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Executes a group of buys and sells of different users in one database transaction (group commit).
+     * <p>
+     * Every trade is checked on its own, in the order of the group: a rejected trade (not enough money or shares)
+     * writes nothing and is recorded on the trade, the others are still executed. The transaction and ledger rows and
+     * the bought shares of the whole group are written with one statement each, so a sale only sees the shares held
+     * before the group.
+     *
+     * @param trades the priced trades, each user at most once at a time (see {@link TradeService}) or sales first
+     * (see {@link OrdersService#executeOrderBatch})
+     * @throws RuntimeException if the group could not be written, nothing of it is committed
+     */
+    @Transactional
+    public void commitTradeGroup(List<PendingTrade> trades){
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingTrade> executed = new ArrayList<>(trades.size());
+        List<Double> balancesBefore = new ArrayList<>(trades.size());
+        Map<PositionKey, PositionChange> bought = new LinkedHashMap<>();
+
+        for (PendingTrade trade : trades) {
+            trade.reset();
+            double amount = trade.amount();
+            Double new_worth;
+            if (!trade.getBs()) {
+                // Debit first, only succeeds if the user has enough money
+                new_worth = bankaccount_balanceRepository.applyDelta(trade.getIdUser(), -amount);
+                if (new_worth == null) {
+                    trade.reject("Nicht genug Guthaben auf dem Bankkonto.");
+                    continue;
+                }
+                PositionChange change = bought.computeIfAbsent(new PositionKey(trade.getIdUser(), trade.getIdStock()), k -> new PositionChange());
+                change.bought += trade.getCount();
+                change.cost += amount;
+                change.idStockPrice = trade.getPrice().idStockPrice();
+                balancesBefore.add(new_worth + amount);
+            } else {
+                // Remove the shares first, only succeeds if enough shares are held
+                if (portfolioRepository.removeFromPosition(trade.getIdStock(), trade.getIdUser(), trade.getCount()) == 0) {
+                    trade.reject("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+                    continue;
+                }
+                portfolioRepository.deleteEmptyPosition(trade.getIdStock(), trade.getIdUser());
+                new_worth = bankaccount_balanceRepository.applyDelta(trade.getIdUser(), amount);
+                if (new_worth == null) {
+                    throw new IllegalStateException("Kein Bankkonto vorhanden.");
+                }
+                balancesBefore.add(new_worth - amount);
+            }
+            trade.executed(new_worth, now);
+            executed.add(trade);
+        }
+        if (executed.isEmpty()) {
+            return;
+        }
+
+        if (!bought.isEmpty()) {
+            int p = bought.size();
+            String[] positionUsers = new String[p];
+            long[] positionStocks = new long[p];
+            long[] positionPrices = new long[p];
+            long[] positionCounts = new long[p];
+            double[] positionValues = new double[p];
+            int i = 0;
+            for (Map.Entry<PositionKey, PositionChange> entry : bought.entrySet()) {
+                positionUsers[i] = entry.getKey().idUser();
+                positionStocks[i] = entry.getKey().idStock();
+                positionPrices[i] = entry.getValue().idStockPrice;
+                positionCounts[i] = entry.getValue().bought;
+                positionValues[i] = entry.getValue().cost / entry.getValue().bought;
+                i++;
+            }
+            portfolioRepository.addToPositions(positionUsers, positionStocks, positionPrices, positionCounts, positionValues);
+        }
+
+        int n = executed.size();
+        String[] users = new String[n];
+        long[] stocks = new long[n];
+        long[] stockPrices = new long[n];
+        long[] counts = new long[n];
+        double[] values = new double[n];
+        boolean[] bs = new boolean[n];
+        double[] before = new double[n];
+        double[] after = new double[n];
+        for (int i = 0; i < n; i++) {
+            PendingTrade trade = executed.get(i);
+            users[i] = trade.getIdUser();
+            stocks[i] = trade.getIdStock();
+            stockPrices[i] = trade.getPrice().idStockPrice();
+            counts[i] = trade.getCount();
+            values[i] = trade.getPrice().price();
+            bs[i] = trade.getBs();
+            before[i] = balancesBefore.get(i);
+            after[i] = trade.getBalanceAfter();
+        }
+        List<Long> ids = transactionRepository.insertAll(users, stocks, stockPrices, counts, values, bs, now);
+        bankaccountRepository.insertAll(users, before, after, now);
+        for (int i = 0; i < n; i++) {
+            executed.get(i).setIdTransaction(ids.get(i));
+        }
+    }
+
+    private record PositionKey(String idUser, long idStock) {}
+
+    private static class PositionChange {
+        long bought;
+        double cost;
+        long sold;
+        long idStockPrice;
+    }
+
+    /**
+     * Returns the latest price of a stock from the latest-price cache.
+     *
+     * @param IDStock the stock ID
+     * @return the latest {@link PriceTick}
+     */
+    public PriceTick getLatestPrice(long IDStock){
+        PriceTick latestPrice = latestPriceService.getLatest(IDStock);
+        if (latestPrice == null) {
+            throw new IllegalStateException("Für diese Aktie ist kein Kurs vorhanden.");
+        }
+        return latestPrice;
+    }
+
+    /**
+     * Returns the price a single trade is executed at: the quoted price if the transaction carries a quote id,
+     * otherwise the latest price. A quote is used up even if the trade fails afterwards.
+     *
+     * @param idUser the ID of the trading user
+     * @param transaction the transaction, optionally with a quote id
+     * @return the {@link PriceTick} to trade at
+     */
+    public PriceTick getTradePrice(String idUser, Transaction transaction){
+        if (transaction.getQuoteId() == null || transaction.getQuoteId().isBlank()) {
+            return getLatestPrice(transaction.getIdStock());
+        }
+        return quoteService.redeem(transaction.getQuoteId(), idUser, transaction.getIdStock(), transaction.getCount());
+    }
+
+    /**
+     * Saves a transaction and bank account update in a single transactional context.
      *
      * @param transaction the transaction entity
-     * @param portfolios list of portfolio entries
      * @param bankaccount the bank account entity
      */
     @Transactional
-    public void saveAll(Transaction transaction, List<Portfolio> portfolios, Bankaccount bankaccount) {
+    public void saveAll(Transaction transaction, Bankaccount bankaccount) {
         //Addition to buyStock & SellStock Routes
         transactionRepository.save(transaction);
         transactionRepository.flush();
-        portfolioRepository.saveAll(portfolios);
         bankaccountRepository.save(bankaccount);
     }
 
@@ -22,6 +22,7 @@ import Swift.Backend.Swift.DTO.StockPriceDto;
 import Swift.Backend.Swift.Entities.Stock_price;
 import Swift.Backend.Swift.Projections.StockPriceProjection;
 import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Trading.PriceTick;
 
 /**
  * Service class for managing stock price data and related operations.
@@ -29,17 +30,19 @@ import Swift.Backend.Swift.Repositories.Stock_priceRepository;
 @Service
 public class StockPriceService {
     public final Stock_priceRepository stock_priceRepository;
+    public final LatestPriceService latestPriceService;
 
     @Autowired
-    public StockPriceService(Stock_priceRepository stock_priceRepository){
+    public StockPriceService(Stock_priceRepository stock_priceRepository, LatestPriceService latestPriceService){
         this.stock_priceRepository = stock_priceRepository; 
+        this.latestPriceService = latestPriceService;
     }
 
     /**
      * Retrieves the most recent stock price for a given stock ID.
      */
     public Object getCurrentStockPrice(long IDStock){
-        return stock_priceRepository.findStock_pricebyIDStockOrderByDate(IDStock);
+        return toStockPrice(latestPriceService.getLatest(IDStock));
     }
 
     /**
@@ -73,9 +76,12 @@ public class StockPriceService {
         List<StockGrowthDto> result = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
         
+        // Current prices of all stocks at once from the latest-price cache
+        Map<Long, PriceTick> currentPrices = latestPriceService.getLatest(stockIds);
+
         for (Long stockId : stockIds) {
            // Get current price
-            Stock_price currentPrice = stock_priceRepository.findStock_pricebyIDStockOrderByDate(stockId);
+            Stock_price currentPrice = toStockPrice(currentPrices.get(stockId));
             if (currentPrice == null) continue;
             
             // Determine the previous day (22:01 format like in getStockPriceByHour)
@@ -249,4 +255,14 @@ public class StockPriceService {
         //The business logic for processing and validating the parameters is handled in the controller.
         return stock_priceRepository.findStockPriceByTime(id, startTs, endTs, interval);
     }
+
+    /**
+     * Converts a cached tick into the stock_price entity returned by the price endpoints.
+     */
+    private static Stock_price toStockPrice(PriceTick tick) {
+        if (tick == null) {
+            return null;
+        }
+        return new Stock_price(tick.idStockPrice(), tick.idStock(), tick.price(), tick.date());
+    }
 }
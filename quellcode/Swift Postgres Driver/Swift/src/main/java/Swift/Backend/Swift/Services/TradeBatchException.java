@@ -0,0 +1,23 @@
+package Swift.Backend.Swift.Services;
+
+import java.util.List;
+
+import Swift.Backend.Swift.DTO.TradeLegDTO;
+
+/**
+ * Thrown when a batch trade is rejected. Nothing of the batch has been executed,
+ * the legs tell which of them caused the rejection.
+ */
+public class TradeBatchException extends IllegalStateException {
+
+    private final transient List<TradeLegDTO> legs;
+
+    public TradeBatchException(String message, List<TradeLegDTO> legs) {
+        super(message);
+        this.legs = legs;
+    }
+
+    public List<TradeLegDTO> getLegs() {
+        return legs;
+    }
+}
@@ -0,0 +1,130 @@
+package Swift.Backend.Swift.Services;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Trading.GroupCommitter;
+import Swift.Backend.Swift.Trading.PendingTrade;
+import Swift.Backend.Swift.Trading.PriceTick;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Group commit of buys and sells (swift.trade.persistence=group).
+ * <p>
+ * Trades of different users that arrive within a short window are written in one database transaction
+ * ({@link Service#commitTradeGroup}), so they share one commit instead of paying one each.
+ * Every caller still waits for the commit of its own trade and gets the same answer as with direct persistence:
+ * the saved transaction, or the error if its trade was rejected.
+ * <p>
+ * All trading methods must be called under the trade lock of the user ({@link TradeService}).
+ */
+@Service
+public class TradeGroupCommitService {
+    public final Swift.Backend.Swift.Services.Service service;
+    public final TradeRiskService tradeRiskService;
+
+    private final boolean enabled;
+    private final int maxGroupSize;
+    private final Duration window;
+    private final Duration timeout;
+    private GroupCommitter<PendingTrade> committer;
+
+    @Autowired
+    public TradeGroupCommitService(Swift.Backend.Swift.Services.Service service, TradeRiskService tradeRiskService,
+    @Value("${swift.trade.persistence:direct}") String persistence,
+    @Value("${swift.trade.group.max-size:64}") int maxGroupSize,
+    @Value("${swift.trade.group.window-ms:2}") long windowMillis,
+    @Value("${swift.trade.group.timeout-ms:10000}") long timeoutMillis){
+        this.service = service; this.tradeRiskService = tradeRiskService;
+        this.enabled = "group".equalsIgnoreCase(persistence);
+        this.maxGroupSize = maxGroupSize;
+        this.window = Duration.ofMillis(windowMillis);
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            committer = new GroupCommitter<>("trade-group-commit", maxGroupSize, window, timeout, service::commitTradeGroup);
+        }
+    }
+
+    /**
+     * Commits the trades that are still waiting and stops the committer.
+     */
+    @PreDestroy
+    public void stop() {
+        if (committer != null) {
+            committer.close();
+        }
+    }
+
+    /**
+     * Returns whether buys and sells are group committed.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buys a stock for the user in the next group commit.
+     *
+     * @param idUser the ID of the user making the purchase
+     * @param transaction the transaction details
+     * @return the saved transaction
+     */
+    public Transaction buyStock(String idUser, Transaction transaction) {
+        return trade(idUser, transaction, false);
+    }
+
+    /**
+     * Sells a stock for the user in the next group commit.
+     *
+     * @param idUser the ID of the user selling
+     * @param transaction the transaction details
+     * @return the saved transaction
+     */
+    public Transaction sellStock(String idUser, Transaction transaction) {
+        return trade(idUser, transaction, true);
+    }
+
+    /**
+     * Returns the group statistics (groups, trades per group, split groups).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (committer != null) {
+            stats.putAll(committer.stats());
+        }
+        return stats;
+    }
+
+    private Transaction trade(String idUser, Transaction transaction, boolean bs) {
+        PriceTick price = service.getTradePrice(idUser, transaction);
+        PendingTrade trade = new PendingTrade(idUser, transaction.getIdStock(), transaction.getCount(), bs, price);
+        // invalid trades never reach the group
+        tradeRiskService.check(idUser, trade.getIdStock(), trade.getCount(), trade.amount(), bs);
+        committer.submit(trade);
+        if (trade.isRejected()) {
+            tradeRiskService.invalidate(idUser);
+            throw new IllegalStateException(trade.getRejection());
+        }
+        tradeRiskService.record(idUser, trade.getIdStock(), trade.getCount(), trade.amount(), bs);
+
+        transaction.setId(trade.getIdTransaction());
+        transaction.setIdUser(idUser);
+        transaction.setIdStockPrice(price.idStockPrice());
+        transaction.setValue(price.price());
+        transaction.setDate(trade.getDate());
+        transaction.setBs(bs);
+        return transaction;
+    }
+}
@@ -0,0 +1,403 @@
+package Swift.Backend.Swift.Services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository.PortfolioGroup;
+import Swift.Backend.Swift.Repositories.Trade_journal_checkpointRepository;
+import Swift.Backend.Swift.Trading.AccountBook;
+import Swift.Backend.Swift.Trading.JournalEntry;
+import Swift.Backend.Swift.Trading.PriceTick;
+import Swift.Backend.Swift.Trading.TradeJournal;
+import Swift.Backend.Swift.Trading.TradeOutcomeUnknownException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence of buys and sells (swift.trade.persistence=journal).
+ * <p>
+ * A trade is checked against the in-memory {@link AccountBook}, appended to the {@link TradeJournal} and acknowledged.
+ * A background writer persists the journaled trades in large batches ({@link Service#persistJournalBatch}), together
+ * with the journal checkpoint. On startup every entry above the checkpoint is replayed before trading starts.
+ * <p>
+ * All trading methods must be called under the trade lock of the user ({@link TradeService}).
+ */
+@Service
+public class TradeJournalService {
+    public final Swift.Backend.Swift.Services.Service service;
+    public final Bankaccount_balanceRepository bankaccount_balanceRepository;
+    public final PortfolioRepository portfolioRepository;
+    public final Trade_journal_checkpointRepository trade_journal_checkpointRepository;
+    public final TradeRiskService tradeRiskService;
+
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final boolean enabled;
+    private final Path path;
+    private final int capacityBytes;
+    private final boolean fsync;
+    private final int batchSize;
+    private final long flushMillis;
+
+    private final AccountBook accountBook = new AccountBook();
+    private final ConcurrentLinkedQueue<JournalEntry> pending = new ConcurrentLinkedQueue<>();
+    private final Object persistedMonitor = new Object();
+    private volatile long persistedSeq;
+    private volatile boolean running;
+    private TradeJournal journal;
+    private Thread writer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder forcedFlushes = new LongAdder();
+
+    @Autowired
+    public TradeJournalService(Swift.Backend.Swift.Services.Service service, Bankaccount_balanceRepository bankaccount_balanceRepository,
+    PortfolioRepository portfolioRepository, Trade_journal_checkpointRepository trade_journal_checkpointRepository,
+    TradeRiskService tradeRiskService,
+    @Value("${swift.trade.persistence:direct}") String persistence,
+    @Value("${swift.trade.journal.path:data/trade-journal.dat}") String path,
+    @Value("${swift.trade.journal.size-mb:64}") int sizeMb,
+    @Value("${swift.trade.journal.fsync:false}") boolean fsync,
+    @Value("${swift.trade.journal.batch-size:500}") int batchSize,
+    @Value("${swift.trade.journal.flush-ms:50}") long flushMillis){
+        this.service = service; this.bankaccount_balanceRepository = bankaccount_balanceRepository;
+        this.portfolioRepository = portfolioRepository; this.trade_journal_checkpointRepository = trade_journal_checkpointRepository;
+        this.tradeRiskService = tradeRiskService;
+        this.enabled = "journal".equalsIgnoreCase(persistence);
+        this.path = Path.of(path);
+        this.capacityBytes = sizeMb * 1024 * 1024;
+        this.fsync = fsync; this.batchSize = batchSize; this.flushMillis = flushMillis;
+    }
+
+    /**
+     * Replays unpersisted journal entries (also if the journal mode was switched off since) and starts the writer.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled && !Files.exists(path)) {
+            return;
+        }
+        journal = new TradeJournal(path, capacityBytes, fsync);
+        persistedSeq = trade_journal_checkpointRepository.getLastSeq();
+        List<JournalEntry> unpersisted = new ArrayList<>();
+        for (JournalEntry entry : journal.recover()) {
+            if (entry.seq() > persistedSeq) {
+                unpersisted.add(entry);
+            }
+        }
+        journal.continueAfter(persistedSeq);
+        if (!unpersisted.isEmpty()) {
+            System.out.println("Trade-Journal: " + unpersisted.size() + " Einträge werden nachgetragen");
+            for (int i = 0; i < unpersisted.size(); i += batchSize) {
+                List<JournalEntry> batch = unpersisted.subList(i, Math.min(i + batchSize, unpersisted.size()));
+                service.persistJournalBatch(batch);
+                persistedSeq = batch.get(batch.size() - 1).seq();
+                replayed.add(batch.size());
+            }
+        }
+        journal.resetIfPersisted(persistedSeq);
+
+        if (!enabled) {
+            journal.close();
+            journal = null;
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "trade-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer after it has persisted everything that is still pending.
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(FLUSH_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * @return true if buys and sells are journaled (swift.trade.persistence=journal)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buys a stock: checks and debits the in-memory balance, journals the trade and returns without waiting for the database.
+     * The transaction id stays empty until the writer has persisted the trade.
+     *
+     * @param idUser the ID of the user making the purchase
+     * @param transaction the transaction details
+     * @return the accepted transaction
+     */
+    public Transaction buyStock(String idUser, Transaction transaction){
+        return trade(idUser, transaction, false);
+    }
+
+    /**
+     * Sells a stock: checks the in-memory position, credits the balance, journals the trade and returns
+     * without waiting for the database.
+     *
+     * @param idUser the ID of the user selling
+     * @param transaction the transaction details
+     * @return the accepted transaction
+     */
+    public Transaction sellStock(String idUser, Transaction transaction){
+        return trade(idUser, transaction, true);
+    }
+
+    /**
+     * Must be called (under the user's trade lock) before the user's account is changed in the database directly,
+     * e.g. by a batch trade or an order execution: waits until the journal is persisted.
+     */
+    public void beforeDirectWrite(String idUser) {
+        if (journal != null && !pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Must be called after the user's account was changed in the database directly, the book reloads it on the next trade.
+     */
+    public void afterDirectWrite(String idUser) {
+        accountBook.invalidate(idUser);
+    }
+
+    /**
+     * Drops all in-memory accounts (e.g. after the season change).
+     */
+    public void invalidateAll() {
+        accountBook.invalidateAll();
+    }
+
+    /**
+     * Waits until everything journaled so far is persisted.
+     *
+     * @throws TradeOutcomeUnknownException if the database does not catch up within the timeout, the journaled
+     *         trades may still be persisted
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        long target = journal.lastSeq();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT.toNanos();
+        forcedFlushes.increment();
+        synchronized (persistedMonitor) {
+            while (persistedSeq < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    throw new TradeOutcomeUnknownException("Das Trade-Journal konnte nicht rechtzeitig gespeichert werden.");
+                }
+                LockSupport.unpark(writer);
+                try {
+                    persistedMonitor.wait(Math.max(1, Math.min(remaining / 1_000_000, 100)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TradeOutcomeUnknownException("Warten auf das Trade-Journal wurde unterbrochen.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns counters of the journal and the writer.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("accepted", accepted.sum());
+        stats.put("pending", journal == null ? 0 : journal.lastSeq() - persistedSeq);
+        stats.put("persistedSeq", persistedSeq);
+        stats.put("persisted", persisted.sum());
+        stats.put("batches", batches.sum());
+        stats.put("avgBatchSize", batches.sum() == 0 ? 0.0 : (double) persisted.sum() / batches.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("failures", failures.sum());
+        stats.put("forcedFlushes", forcedFlushes.sum());
+        stats.put("accounts", accountBook.size());
+        stats.put("journal", journal == null ? null : journal.stats());
+        return stats;
+    }
+
+    private Transaction trade(String idUser, Transaction transaction, boolean bs) {
+        if (transaction.getCount() <= 0) {
+            throw new IllegalArgumentException("Die Anzahl muss größer als 0 sein.");
+        }
+        PriceTick latestPrice = service.getTradePrice(idUser, transaction);
+        double amount = latestPrice.price() * transaction.getCount();
+        // funds and shares are checked against the journal's own book below
+        tradeRiskService.checkOrderSize(transaction.getCount(), amount);
+
+        AccountBook.Account account = account(idUser);
+        double before = account.getBalance();
+        if (bs) {
+            if (!account.sell(transaction.getIdStock(), transaction.getCount(), amount)) {
+                throw new IllegalStateException("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+            }
+        } else if (!account.buy(transaction.getIdStock(), transaction.getCount(), amount)) {
+            throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        JournalEntry entry = new JournalEntry(0, idUser, transaction.getIdStock(), latestPrice.idStockPrice(), bs,
+            transaction.getCount(), latestPrice.price(), before, account.getBalance(), now);
+        try {
+            append(entry);
+        } catch (RuntimeException e) {
+            // not journaled, undo the change of the in-memory account
+            if (bs) {
+                account.buy(transaction.getIdStock(), transaction.getCount(), amount);
+            } else {
+                account.sell(transaction.getIdStock(), transaction.getCount(), amount);
+            }
+            if (e instanceof TradeOutcomeUnknownException) {
+                // the flush for a full journal timed out before this trade was appended, so it was not executed
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            throw e;
+        }
+        accepted.increment();
+
+        transaction.setIdUser(idUser);
+        transaction.setIdStockPrice(latestPrice.idStockPrice());
+        transaction.setValue(latestPrice.price());
+        transaction.setDate(now);
+        transaction.setBs(bs);
+        return transaction;
+    }
+
+    private void append(JournalEntry entry) {
+        if (journal == null) {
+            throw new IllegalStateException("Das Trade-Journal ist nicht aktiv.");
+        }
+        if (tryAppend(entry)) {
+            return;
+        }
+        // journal full: wait for the writer, then start again at the beginning of the file
+        flush();
+        journal.resetIfPersisted(persistedSeq);
+        if (!tryAppend(entry)) {
+            throw new IllegalStateException("Das Trade-Journal ist voll.");
+        }
+    }
+
+    private boolean tryAppend(JournalEntry entry) {
+        // the queue must have the same order as the journal, so both happen under the journal's lock
+        synchronized (journal) {
+            JournalEntry appended = journal.append(entry);
+            if (appended == null) {
+                return false;
+            }
+            pending.add(appended);
+            if (appended.seq() - persistedSeq >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+        }
+        return true;
+    }
+
+    private AccountBook.Account account(String idUser) {
+        if (!accountBook.contains(idUser) && !pending.isEmpty()) {
+            // the database may still lack journaled trades of this user
+            flush();
+        }
+        AccountBook.Account account = accountBook.get(idUser, this::loadAccount);
+        if (account == null) {
+            throw new IllegalStateException("Kein Bankkonto vorhanden.");
+        }
+        return account;
+    }
+
+    private AccountBook.Account loadAccount(String idUser) {
+        Double balance = bankaccount_balanceRepository.getCurrentWorth(idUser);
+        if (balance == null) {
+            return null;
+        }
+        Map<Long, Long> positions = new HashMap<>();
+        for (PortfolioGroup position : portfolioRepository.findPortfolioGroupByIdUser(idUser)) {
+            positions.put(position.getIdStock(), position.getCount());
+        }
+        return new AccountBook.Account(balance, positions);
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<JournalEntry> batch = new ArrayList<>();
+            JournalEntry entry;
+            while (batch.size() < batchSize && (entry = pending.peek()) != null) {
+                batch.add(entry);
+                pending.poll();
+            }
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                journal.resetIfPersisted(persistedSeq);
+                LockSupport.parkNanos(flushMillis * 1_000_000);
+                continue;
+            }
+            if (!persistWithRetry(batch)) {
+                // shutting down with the database unavailable, the rest is replayed from the journal on the next start
+                return;
+            }
+        }
+    }
+
+    private boolean persistWithRetry(List<JournalEntry> batch) {
+        while (true) {
+            try {
+                service.persistJournalBatch(batch);
+                batches.increment();
+                persisted.add(batch.size());
+                synchronized (persistedMonitor) {
+                    persistedSeq = batch.get(batch.size() - 1).seq();
+                    persistedMonitor.notifyAll();
+                }
+                return true;
+            } catch (RuntimeException e) {
+                // the entries stay in the journal, the batch is retried until the database accepts it
+                failures.increment();
+                System.out.println("Trade-Journal konnte nicht gespeichert werden: " + e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                LockSupport.parkNanos(Duration.ofSeconds(1).toNanos());
+            }
+        }
+    }
+}
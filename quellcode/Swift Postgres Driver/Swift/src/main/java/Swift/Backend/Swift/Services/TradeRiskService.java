@@ -0,0 +1,208 @@
+package Swift.Backend.Swift.Services;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository.PortfolioGroup;
+import Swift.Backend.Swift.Trading.AccountBook;
+
+/**
+ * Pre-trade risk checks against in-memory balance and positions.
+ * <p>
+ * A buy or sell is checked for order size, funds and held shares before anything is written, so an invalid trade
+ * costs no database round trip and no rollback. The per-user state is loaded on the first trade and kept up to date
+ * by every committed trade; paths that change an account in another way drop it ({@link #invalidate}).
+ * The conditional updates in the database stay in place, the gate only rejects early.
+ * <p>
+ * Checks and updates of a user must run under the trade lock of the user ({@link TradeService}).
+ */
+@Service
+public class TradeRiskService {
+    public final Bankaccount_balanceRepository bankaccount_balanceRepository;
+    public final PortfolioRepository portfolioRepository;
+
+    private final boolean enabled;
+    private final long maxOrderCount;
+    private final double maxOrderAmount;
+    private final AccountBook accountBook = new AccountBook();
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rejectedSize = new LongAdder();
+    private final LongAdder rejectedFunds = new LongAdder();
+    private final LongAdder rejectedShares = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public TradeRiskService(Bankaccount_balanceRepository bankaccount_balanceRepository, PortfolioRepository portfolioRepository,
+    @Value("${swift.trade.risk.enabled:true}") boolean enabled,
+    @Value("${swift.trade.risk.max-order-count:100000}") long maxOrderCount,
+    @Value("${swift.trade.risk.max-order-amount:0}") double maxOrderAmount){
+        this.bankaccount_balanceRepository = bankaccount_balanceRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.enabled = enabled;
+        this.maxOrderCount = maxOrderCount;
+        this.maxOrderAmount = maxOrderAmount;
+    }
+
+    /**
+     * Checks the size of an order: positive count, at most swift.trade.risk.max-order-count shares
+     * and, if configured, at most swift.trade.risk.max-order-amount in value.
+     *
+     * @param count  number of shares
+     * @param amount value of the order
+     * @throws IllegalArgumentException if the order is too small or too large
+     */
+    public void checkOrderSize(long count, double amount) {
+        if (count <= 0) {
+            rejectedSize.increment();
+            throw new IllegalArgumentException("Die Anzahl muss größer als 0 sein.");
+        }
+        if (maxOrderCount > 0 && count > maxOrderCount) {
+            rejectedSize.increment();
+            throw new IllegalArgumentException("Ein Auftrag darf höchstens " + maxOrderCount + " Aktien umfassen.");
+        }
+        if (maxOrderAmount > 0 && amount > maxOrderAmount) {
+            rejectedSize.increment();
+            throw new IllegalArgumentException("Ein Auftrag darf höchstens einen Wert von " + maxOrderAmount + " haben.");
+        }
+    }
+
+    /**
+     * Checks a buy or sell of the user before anything is written.
+     *
+     * @param idUser  the ID of the user
+     * @param idStock the ID of the stock
+     * @param count   number of shares
+     * @param amount  price times count
+     * @param bs      false = buy, true = sell
+     * @throws IllegalArgumentException if the order size is not allowed
+     * @throws IllegalStateException if the user has not enough money or shares, or no bank account
+     */
+    public void check(String idUser, long idStock, long count, double amount, boolean bs) {
+        checkOrderSize(count, amount);
+        if (!enabled) {
+            return;
+        }
+        checked.increment();
+        AccountBook.Account account = account(idUser);
+        if (bs) {
+            if (account.getShares(idStock) < count) {
+                rejectedShares.increment();
+                throw new IllegalStateException("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+            }
+        } else if (account.getBalance() - amount <= 0) {
+            rejectedFunds.increment();
+            throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
+        }
+    }
+
+    /**
+     * Applies a trade to the user's state once it is committed. Inside a database transaction the change is applied
+     * after the commit, a rollback drops the user's state instead.
+     *
+     * @param idUser  the ID of the user
+     * @param idStock the ID of the stock
+     * @param count   number of shares
+     * @param amount  price times count
+     * @param bs      false = buy, true = sell
+     */
+    public void record(String idUser, long idStock, long count, double amount, boolean bs) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(idUser, idStock, count, amount, bs);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    apply(idUser, idStock, count, amount, bs);
+                } else {
+                    invalidate(idUser);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the state of the user, e.g. after a batch trade or an order execution changed the account.
+     */
+    public void invalidate(String idUser) {
+        if (accountBook.contains(idUser)) {
+            invalidations.increment();
+        }
+        accountBook.invalidate(idUser);
+    }
+
+    /**
+     * Drops the state of all users (e.g. after the season change).
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        accountBook.invalidateAll();
+    }
+
+    /**
+     * Returns the checks, rejections per reason and the number of accounts held in memory.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxOrderCount", maxOrderCount);
+        stats.put("maxOrderAmount", maxOrderAmount);
+        stats.put("checked", checked.sum());
+        stats.put("rejectedSize", rejectedSize.sum());
+        stats.put("rejectedFunds", rejectedFunds.sum());
+        stats.put("rejectedShares", rejectedShares.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("accounts", accountBook.size());
+        return stats;
+    }
+
+    private void apply(String idUser, long idStock, long count, double amount, boolean bs) {
+        if (!accountBook.contains(idUser)) {
+            return;
+        }
+        AccountBook.Account account = accountBook.get(idUser, this::loadAccount);
+        boolean applied = bs ? account.sell(idStock, count, amount) : account.buy(idStock, count, amount);
+        if (!applied) {
+            // the database accepted what the book would not have, trust the database
+            invalidate(idUser);
+        }
+    }
+
+    private AccountBook.Account account(String idUser) {
+        AccountBook.Account account = accountBook.get(idUser, this::loadAccount);
+        if (account == null) {
+            throw new IllegalStateException("Kein Bankkonto vorhanden.");
+        }
+        return account;
+    }
+
+    private AccountBook.Account loadAccount(String idUser) {
+        Double balance = bankaccount_balanceRepository.getCurrentWorth(idUser);
+        if (balance == null) {
+            return null;
+        }
+        loads.increment();
+        Map<Long, Long> positions = new HashMap<>();
+        for (PortfolioGroup position : portfolioRepository.findPortfolioGroupByIdUser(idUser)) {
+            positions.put(position.getIdStock(), position.getCount());
+        }
+        return new AccountBook.Account(balance, positions);
+    }
+}
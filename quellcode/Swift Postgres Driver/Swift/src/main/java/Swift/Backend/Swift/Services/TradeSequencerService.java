@@ -0,0 +1,282 @@
+package Swift.Backend.Swift.Services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository.PortfolioGroup;
+import Swift.Backend.Swift.Trading.AccountBook;
+import Swift.Backend.Swift.Trading.JournalEntry;
+import Swift.Backend.Swift.Trading.PriceTick;
+import Swift.Backend.Swift.Trading.TradeCommand;
+import Swift.Backend.Swift.Trading.TradeSequencer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-writer trade execution (swift.trade.execution=sequencer).
+ * <p>
+ * Buys, sells, batch trades and order executions are submitted to the {@link TradeSequencer} instead of taking the
+ * user's lock. Every partition thread owns the balances and positions of its users in its own {@link AccountBook}
+ * and checks buys and sells against it without touching the database. Accepted trades are collected and written
+ * with {@link Service#persistTrades} once the partition's ring is drained, one database transaction per run;
+ * the callers are answered after that commit. Batch trades and order executions run on the partition thread as well,
+ * after the collected trades were written, and the user's account is reloaded afterwards.
+ */
+@Service
+public class TradeSequencerService implements TradeSequencer.Handler {
+    public final Swift.Backend.Swift.Services.Service service;
+    public final Bankaccount_balanceRepository bankaccount_balanceRepository;
+    public final PortfolioRepository portfolioRepository;
+    public final TradeRiskService tradeRiskService;
+
+    private final boolean enabled;
+    private final String persistence;
+    private final int partitionCount;
+    private final int ringSize;
+    private final int batchSize;
+    private TradeSequencer sequencer;
+
+    // one entry per partition, only used by the partition's thread
+    private AccountBook[] books;
+    private List<Accepted>[] accepted;
+    // set by other threads, 1 = drop the partition's accounts before its next trade
+    private AtomicIntegerArray invalidateRequested;
+
+    private final LongAdder persistedRuns = new LongAdder();
+    private final LongAdder persistedTrades = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+
+    @Autowired
+    public TradeSequencerService(Swift.Backend.Swift.Services.Service service, Bankaccount_balanceRepository bankaccount_balanceRepository,
+    PortfolioRepository portfolioRepository, TradeRiskService tradeRiskService,
+    @Value("${swift.trade.execution:locks}") String execution,
+    @Value("${swift.trade.persistence:direct}") String persistence,
+    @Value("${swift.trade.sequencer.partitions:4}") int partitions,
+    @Value("${swift.trade.sequencer.ring-size:1024}") int ringSize,
+    @Value("${swift.trade.sequencer.batch-size:256}") int batchSize){
+        this.service = service; this.bankaccount_balanceRepository = bankaccount_balanceRepository;
+        this.portfolioRepository = portfolioRepository; this.tradeRiskService = tradeRiskService;
+        this.enabled = "sequencer".equalsIgnoreCase(execution);
+        this.persistence = persistence;
+        this.partitionCount = partitions;
+        this.ringSize = ringSize;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!"direct".equalsIgnoreCase(persistence)) {
+            // the sequencer persists its own runs, it can not be combined with the journal or the group commit
+            throw new IllegalStateException("swift.trade.execution=sequencer braucht swift.trade.persistence=direct");
+        }
+        sequencer = new TradeSequencer("trade-sequencer", partitionCount, ringSize, batchSize, this);
+        int partitions = sequencer.partitions();
+        books = new AccountBook[partitions];
+        accepted = new List[partitions];
+        invalidateRequested = new AtomicIntegerArray(partitions);
+        for (int i = 0; i < partitions; i++) {
+            books[i] = new AccountBook();
+            accepted[i] = new ArrayList<>(batchSize);
+        }
+        sequencer.start();
+    }
+
+    /**
+     * Executes everything that was submitted and stops the partition threads.
+     */
+    @PreDestroy
+    public void stop() {
+        if (sequencer != null) {
+            sequencer.close();
+        }
+    }
+
+    /**
+     * Returns whether trades are executed by the sequencer.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buys a stock on the user's partition.
+     *
+     * @param idUser the ID of the user making the purchase
+     * @param transaction the transaction details
+     * @return the saved transaction
+     */
+    public Transaction buyStock(String idUser, Transaction transaction) {
+        return (Transaction) sequencer.submit(TradeCommand.BUY, idUser, transaction, null);
+    }
+
+    /**
+     * Sells a stock on the user's partition.
+     *
+     * @param idUser the ID of the user selling
+     * @param transaction the transaction details
+     * @return the saved transaction
+     */
+    public Transaction sellStock(String idUser, Transaction transaction) {
+        return (Transaction) sequencer.submit(TradeCommand.SELL, idUser, transaction, null);
+    }
+
+    /**
+     * Runs an action that writes the user's account in the database directly (batch trade, order execution)
+     * on the user's partition, in order with the user's other trades.
+     *
+     * @param idUser the ID of the user
+     * @param action the action
+     * @return the result of the action
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T direct(String idUser, Supplier<T> action) {
+        return (T) sequencer.submit(TradeCommand.DIRECT, idUser, null, action);
+    }
+
+    /**
+     * Drops the accounts of all partitions (e.g. after the season change), each partition before its next run.
+     */
+    public void invalidateAll() {
+        if (invalidateRequested == null) {
+            return;
+        }
+        for (int i = 0; i < invalidateRequested.length(); i++) {
+            invalidateRequested.set(i, 1);
+        }
+    }
+
+    /**
+     * Returns the sequencer statistics and the persisted runs.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("persistedRuns", persistedRuns.sum());
+        stats.put("persistedTrades", persistedTrades.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("failedRuns", failedRuns.sum());
+        if (sequencer != null) {
+            stats.putAll(sequencer.stats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void handle(int partition, TradeCommand command) {
+        // not while trades of the partition wait for their run to be written, the database lacks them yet
+        if (accepted[partition].isEmpty() && invalidateRequested.compareAndSet(partition, 1, 0)) {
+            books[partition].invalidateAll();
+        }
+        if (command.getType() == TradeCommand.DIRECT) {
+            // the database has to contain the user's accepted trades before the action reads it
+            endOfBatch(partition);
+            try {
+                command.complete(command.getAction().get());
+            } finally {
+                books[partition].invalidate(command.getIdUser());
+            }
+            return;
+        }
+
+        boolean bs = command.getType() == TradeCommand.SELL;
+        String idUser = command.getIdUser();
+        Transaction transaction = (Transaction) command.getPayload();
+        PriceTick price = service.getTradePrice(idUser, transaction);
+        double amount = price.price() * transaction.getCount();
+        tradeRiskService.checkOrderSize(transaction.getCount(), amount);
+
+        AccountBook.Account account = books[partition].get(idUser, this::loadAccount);
+        if (account == null) {
+            rejected.increment();
+            throw new IllegalStateException("Kein Bankkonto vorhanden.");
+        }
+        double before = account.getBalance();
+        if (bs) {
+            if (!account.sell(transaction.getIdStock(), transaction.getCount(), amount)) {
+                rejected.increment();
+                throw new IllegalStateException("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!");
+            }
+        } else if (!account.buy(transaction.getIdStock(), transaction.getCount(), amount)) {
+            rejected.increment();
+            throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
+        }
+
+        JournalEntry entry = new JournalEntry(0, idUser, transaction.getIdStock(), price.idStockPrice(), bs,
+            transaction.getCount(), price.price(), before, account.getBalance(), LocalDateTime.now());
+        accepted[partition].add(new Accepted(command, entry));
+        if (accepted[partition].size() >= batchSize) {
+            endOfBatch(partition);
+        }
+    }
+
+    @Override
+    public void endOfBatch(int partition) {
+        List<Accepted> run = accepted[partition];
+        if (run.isEmpty()) {
+            return;
+        }
+        List<JournalEntry> entries = new ArrayList<>(run.size());
+        for (Accepted a : run) {
+            entries.add(a.entry());
+        }
+        try {
+            List<Transaction> saved = service.persistTrades(entries);
+            persistedRuns.increment();
+            persistedTrades.add(run.size());
+            for (int i = 0; i < run.size(); i++) {
+                Accepted a = run.get(i);
+                Transaction transaction = (Transaction) a.command().getPayload();
+                transaction.setId(saved.get(i).getId());
+                transaction.setIdUser(a.entry().idUser());
+                transaction.setIdStockPrice(a.entry().idStockPrice());
+                transaction.setValue(a.entry().price());
+                transaction.setDate(a.entry().date());
+                transaction.setBs(a.entry().bs());
+                a.command().complete(transaction);
+            }
+        } catch (RuntimeException e) {
+            // nothing of the run was written, the accounts are reloaded from the database
+            failedRuns.increment();
+            System.out.println("TradeSequencer: Trades konnten nicht gespeichert werden: " + e.getMessage());
+            for (Accepted a : run) {
+                books[partition].invalidate(a.entry().idUser());
+                a.command().fail(new IllegalStateException("Der Auftrag konnte nicht gespeichert werden.", e));
+            }
+        } finally {
+            run.clear();
+        }
+    }
+
+    private AccountBook.Account loadAccount(String idUser) {
+        Double balance = bankaccount_balanceRepository.getCurrentWorth(idUser);
+        if (balance == null) {
+            return null;
+        }
+        Map<Long, Long> positions = new HashMap<>();
+        for (PortfolioGroup position : portfolioRepository.findPortfolioGroupByIdUser(idUser)) {
+            positions.put(position.getIdStock(), position.getCount());
+        }
+        return new AccountBook.Account(balance, positions);
+    }
+
+    private record Accepted(TradeCommand command, JournalEntry entry) {}
+}
@@ -0,0 +1,282 @@
+package Swift.Backend.Swift.Services;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import Swift.Backend.Swift.DTO.TradeLegDTO;
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Util.StripedLocks;
+
+/**
+ * Serializes all trades of the same user (buy, sell, order execution).
+ * <p>
+ * Each trade runs under the lock of its user, so two concurrent trades of one user can not both pass
+ * the funds or position check. The lock is taken before the database transaction starts and released
+ * after it has committed. Trades of different users run in parallel, waiting for a lock is bounded.
+ * With swift.trade.execution=sequencer the trades are handed to the user's partition thread instead
+ * ({@link TradeSequencerService}), no lock is taken.
+ * <p>
+ * While a season change runs, all trades are rejected ({@link #closeForSeasonChange}), so no trade reaches the
+ * in-memory accounts of the journal or the sequencer between their last flush and their invalidation.
+ */
+@Service
+public class TradeService {
+    public final Swift.Backend.Swift.Services.Service service;
+    public final OrdersService ordersService;
+    public final OrdersRepository ordersRepository;
+    public final TradeJournalService tradeJournalService;
+    public final TradeGroupCommitService tradeGroupCommitService;
+    public final TradeRiskService tradeRiskService;
+    public final TradeSequencerService tradeSequencerService;
+
+    private final StripedLocks<String> userLocks;
+    private final int batchMaxLegs;
+    // trades hold the read lock, a season change holds the write lock until the in-memory accounts are dropped
+    private final ReentrantReadWriteLock seasonGate = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor injecting all necessary services.
+     */
+    @Autowired
+    public TradeService(Swift.Backend.Swift.Services.Service service, OrdersService ordersService, OrdersRepository ordersRepository,
+    TradeJournalService tradeJournalService, TradeGroupCommitService tradeGroupCommitService, TradeRiskService tradeRiskService,
+    TradeSequencerService tradeSequencerService,
+    @Value("${swift.trade.lock-stripes:1024}") int lockStripes,
+    @Value("${swift.trade.lock-timeout-ms:2000}") long lockTimeoutMs,
+    @Value("${swift.trade.batch-max-legs:100}") int batchMaxLegs){
+        this.service = service; this.ordersService = ordersService; this.ordersRepository = ordersRepository;
+        this.tradeJournalService = tradeJournalService; this.tradeGroupCommitService = tradeGroupCommitService;
+        this.tradeRiskService = tradeRiskService; this.tradeSequencerService = tradeSequencerService;
+        this.userLocks = new StripedLocks<>(lockStripes, Duration.ofMillis(lockTimeoutMs));
+        this.batchMaxLegs = batchMaxLegs;
+    }
+
+    /**
+     * Buys a stock for the user, serialized with all other trades of the user.
+     *
+     * @param idUser the ID of the user making the purchase
+     * @param transaction the transaction details
+     * @return the completed transaction object
+     */
+    public Transaction buyStock(String idUser, Transaction transaction){
+        return gated(() -> buy(idUser, transaction));
+    }
+
+    private Transaction buy(String idUser, Transaction transaction){
+        if (tradeSequencerService.isEnabled()) {
+            return tradeSequencerService.buyStock(idUser, transaction);
+        }
+        if (tradeJournalService.isEnabled()) {
+            return userLocks.withLock(idUser, () -> tradeJournalService.buyStock(idUser, transaction));
+        }
+        if (tradeGroupCommitService.isEnabled()) {
+            return userLocks.withLock(idUser, () -> tradeGroupCommitService.buyStock(idUser, transaction));
+        }
+        return userLocks.withLock(idUser, () -> service.buyStock(idUser, transaction));
+    }
+
+    /**
+     * Sells a stock for the user, serialized with all other trades of the user.
+     *
+     * @param idUser the ID of the user selling
+     * @param transaction the transaction details
+     * @return the completed transaction object
+     */
+    public Transaction sellStock(String idUser, Transaction transaction){
+        return gated(() -> sell(idUser, transaction));
+    }
+
+    private Transaction sell(String idUser, Transaction transaction){
+        if (tradeSequencerService.isEnabled()) {
+            return tradeSequencerService.sellStock(idUser, transaction);
+        }
+        if (tradeJournalService.isEnabled()) {
+            return userLocks.withLock(idUser, () -> tradeJournalService.sellStock(idUser, transaction));
+        }
+        if (tradeGroupCommitService.isEnabled()) {
+            return userLocks.withLock(idUser, () -> tradeGroupCommitService.sellStock(idUser, transaction));
+        }
+        return userLocks.withLock(idUser, () -> service.sellStock(idUser, transaction));
+    }
+
+    /**
+     * Executes several buys and sells of the user in one database transaction (all-or-nothing),
+     * serialized with all other trades of the user.
+     *
+     * @param idUser the ID of the user trading
+     * @param transactions the legs of the batch
+     * @return the result of every leg
+     */
+    public List<TradeLegDTO> tradeBatch(String idUser, List<Transaction> transactions){
+        if (transactions == null || transactions.isEmpty()) {
+            throw new IllegalArgumentException("Der Auftrag enthält keine Positionen.");
+        }
+        if (transactions.size() > batchMaxLegs) {
+            throw new IllegalArgumentException("Ein Auftrag darf höchstens " + batchMaxLegs + " Positionen enthalten.");
+        }
+        return gated(() -> {
+            if (tradeSequencerService.isEnabled()) {
+                return tradeSequencerService.direct(idUser, () -> directWrite(idUser, () -> service.tradeBatch(idUser, transactions)));
+            }
+            return userLocks.withLock(idUser, () -> directWrite(idUser, () -> service.tradeBatch(idUser, transactions)));
+        });
+    }
+
+    /**
+     * Executes an order, serialized with all other trades of the order's user.
+     *
+     * @param idOrder the ID of the order
+     * @return the ID of the executed order
+     */
+    public long executeOrder(long idOrder){
+        Orders order = ordersRepository.findOrdersById(idOrder);
+        if (order == null) {
+            throw new OrderClosedException("Order nicht gefunden.");
+        }
+        return executeOrder(order);
+    }
+
+    private long executeOrder(Orders order){
+        long idOrder = order.getId();
+        return gated(() -> {
+            if (tradeSequencerService.isEnabled()) {
+                return tradeSequencerService.direct(order.getIdUser(), () -> directWrite(order.getIdUser(), () -> ordersService.executeOrder(idOrder)));
+            }
+            return userLocks.withLock(order.getIdUser(), () -> directWrite(order.getIdUser(), () -> ordersService.executeOrder(idOrder)));
+        });
+    }
+
+    /**
+     * Executes the triggered orders of one stock. With database-backed accounts all orders are executed in one
+     * transaction ({@link OrdersService#executeOrderBatch}); the database checks funds and shares per order, so no
+     * user lock is held. With the journal or the sequencer the accounts are owned in memory, then every order is
+     * executed on its own like {@link #executeOrder}, after the stop levels of fired TRAILING_STOP orders were stored.
+     *
+     * @param idStock the ID of the stock
+     * @param idOrders the IDs of the triggered orders
+     * @param stopPrices the stop level per fired TRAILING_STOP order
+     * @return the outcome of every order
+     */
+    public OrdersService.BatchResult executeOrders(long idStock, List<Long> idOrders, Map<Long, Double> stopPrices){
+        if (tradeSequencerService.isEnabled() || tradeJournalService.isEnabled()) {
+            if (!stopPrices.isEmpty()) {
+                ordersService.saveStopPrices(stopPrices);
+            }
+            List<Long> executed = new ArrayList<>();
+            List<Long> conditionMissed = new ArrayList<>();
+            Map<Long, String> rejected = new LinkedHashMap<>();
+            List<Long> closed = new ArrayList<>();
+            Set<String> users = new HashSet<>();
+            for (long idOrder : idOrders) {
+                Orders order = ordersRepository.findOrdersById(idOrder);
+                if (order == null) {
+                    closed.add(idOrder);
+                    continue;
+                }
+                try {
+                    executeOrder(order);
+                    executed.add(idOrder);
+                    users.add(order.getIdUser());
+                } catch (OrderConditionException e) {
+                    conditionMissed.add(idOrder);
+                } catch (OrderClosedException e) {
+                    closed.add(idOrder);
+                } catch (RuntimeException e) {
+                    rejected.put(idOrder, e.getMessage());
+                }
+            }
+            return new OrdersService.BatchResult(executed, conditionMissed, rejected, closed, users);
+        }
+        OrdersService.BatchResult result = gated(() -> ordersService.executeOrderBatch(idStock, idOrders, stopPrices));
+        // the balances and positions changed without the users' locks, the risk checks reload them
+        for (String idUser : result.users()) {
+            tradeRiskService.invalidate(idUser);
+        }
+        return result;
+    }
+
+    /**
+     * Waits until the running trades are finished and rejects all further trades until
+     * {@link #reopenAfterSeasonChange} is called on the same thread.
+     *
+     * @param timeout maximum time to wait for the running trades
+     * @throws IllegalStateException if the running trades did not finish in time
+     */
+    public void closeForSeasonChange(Duration timeout){
+        boolean closed;
+        try {
+            closed = seasonGate.writeLock().tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten auf laufende Aufträge wurde unterbrochen.", e);
+        }
+        if (!closed) {
+            throw new IllegalStateException("Laufende Aufträge wurden nicht rechtzeitig beendet.");
+        }
+    }
+
+    /**
+     * Accepts trades again after {@link #closeForSeasonChange}.
+     */
+    public void reopenAfterSeasonChange(){
+        seasonGate.writeLock().unlock();
+    }
+
+    /**
+     * Runs a trade unless a season change is running.
+     */
+    private <T> T gated(Supplier<T> trade){
+        boolean open;
+        try {
+            // unlike tryLock(), the timed variant does not overtake a waiting season change
+            open = seasonGate.readLock().tryLock(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten auf die Sperre wurde unterbrochen.", e);
+        }
+        if (!open) {
+            throw new IllegalStateException("Der Saisonwechsel läuft, bitte gleich erneut versuchen.");
+        }
+        try {
+            return trade.get();
+        } finally {
+            seasonGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a trade that writes to the database directly. With the journal enabled, the user's journaled trades are
+     * persisted first. The in-memory accounts (journal and risk checks) are reloaded afterwards.
+     */
+    private <T> T directWrite(String idUser, Supplier<T> action){
+        tradeJournalService.beforeDirectWrite(idUser);
+        try {
+            return action.get();
+        } finally {
+            tradeJournalService.afterDirectWrite(idUser);
+            tradeRiskService.invalidate(idUser);
+        }
+    }
+
+    /**
+     * Returns the lock statistics (contention, wait times, timeouts).
+     */
+    public Map<String, Object> getLockStats(){
+        return userLocks.stats();
+    }
+}
@@ -0,0 +1,116 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * AccountBook
+ * 
+ * In-memory balance and positions of trading users, the state the journal and the pre-trade risk checks work against.
+ * While trades are only journaled, the database lags behind; the book is the state the checks are made against.
+ * An account is loaded from the database on first use and dropped whenever the database is changed by another path.
+ * <p>
+ * The map itself is thread safe, a single {@link Account} must only be used under the trade lock of its user.
+ */
+public class AccountBook {
+
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the account of the user, loading it if it is not in the book.
+     *
+     * @param idUser the ID of the user
+     * @param loader reads balance and positions from the database
+     * @return the account, or null if the user has no bank account
+     */
+    public Account get(String idUser, Function<String, Account> loader) {
+        return accounts.computeIfAbsent(idUser, loader);
+    }
+
+    /**
+     * Returns true if the user's account is in the book.
+     */
+    public boolean contains(String idUser) {
+        return accounts.containsKey(idUser);
+    }
+
+    /**
+     * Drops the account of the user, the next trade loads it from the database again.
+     */
+    public void invalidate(String idUser) {
+        accounts.remove(idUser);
+    }
+
+    /**
+     * Drops all accounts (e.g. after the season change).
+     */
+    public void invalidateAll() {
+        accounts.clear();
+    }
+
+    /**
+     * Returns the number of accounts in the book.
+     */
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Balance and shares per stock of one user.
+     */
+    public static class Account {
+        private double balance;
+        private final Map<Long, Long> positions;
+
+        public Account(double balance, Map<Long, Long> positions) {
+            this.balance = balance;
+            this.positions = new HashMap<>(positions);
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        /**
+         * Returns the number of shares of the stock the user holds.
+         */
+        public long getShares(long idStock) {
+            return positions.getOrDefault(idStock, 0L);
+        }
+
+        /**
+         * Debits the cost of a purchase and adds the shares.
+         *
+         * @return false if the balance would drop to zero or below, nothing is changed then
+         */
+        public boolean buy(long idStock, long count, double cost) {
+            if (balance - cost <= 0) {
+                return false;
+            }
+            balance -= cost;
+            positions.merge(idStock, count, Long::sum);
+            return true;
+        }
+
+        /**
+         * Removes the shares and credits the proceeds of a sale.
+         *
+         * @return false if the user holds fewer shares, nothing is changed then
+         */
+        public boolean sell(long idStock, long count, double proceeds) {
+            long held = getShares(idStock);
+            if (held < count) {
+                return false;
+            }
+            if (held == count) {
+                positions.remove(idStock);
+            } else {
+                positions.put(idStock, held - count);
+            }
+            balance += proceeds;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.List;
+
+/**
+ * DropOldestQueue
+ *
+ * A FIFO queue of fixed capacity in a ring buffer. When the queue is full, a new element replaces the oldest one,
+ * so a consumer that falls behind loses the oldest elements instead of holding up the producer or growing the
+ * queue. The number of dropped elements is counted until the next drain, so the consumer can tell that it missed
+ * some.
+ * <p>
+ * Not thread-safe, the caller serializes all access.
+ */
+public class DropOldestQueue<E> {
+
+    private final Object[] elements;
+    private int head;
+    private int size;
+    private long dropped;
+
+    /**
+     * @param capacity maximum number of elements
+     */
+    public DropOldestQueue(int capacity) {
+        this.elements = new Object[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds an element, the oldest element is dropped if the queue is full.
+     *
+     * @return true if an element was dropped
+     */
+    public boolean offer(E element) {
+        int tail = head + size;
+        if (tail >= elements.length) {
+            tail -= elements.length;
+        }
+        elements[tail] = element;
+        if (size < elements.length) {
+            size++;
+            return false;
+        }
+        // the new element took the place of the oldest one
+        head = tail + 1 == elements.length ? 0 : tail + 1;
+        dropped++;
+        return true;
+    }
+
+    /**
+     * Moves all elements into the list, oldest first, and resets the number of dropped elements.
+     *
+     * @return number of elements dropped since the last drain
+     */
+    @SuppressWarnings("unchecked")
+    public long drainTo(List<? super E> target) {
+        for (int i = 0; i < size; i++) {
+            int pos = head + i;
+            if (pos >= elements.length) {
+                pos -= elements.length;
+            }
+            target.add((E) elements[pos]);
+            elements[pos] = null;
+        }
+        head = 0;
+        size = 0;
+        long count = dropped;
+        dropped = 0;
+        return count;
+    }
+
+    /**
+     * Returns the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,199 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * GroupCommitter
+ *
+ * Collects items submitted by many threads and commits them in groups on a single committer thread.
+ * A group is closed when it holds maxGroupSize items or when the window after its first item has passed;
+ * items that queued up while the previous group was committing are taken right away.
+ * The window is only waited for while trading is busy (the previous group had more than one item),
+ * so a single trade at low load is committed without delay.
+ * Every submitter blocks until the group containing its item has been committed.
+ * <p>
+ * If committing a group fails, every item of the group is committed again on its own,
+ * so one bad item only fails its own submitter.
+ *
+ * @param <T> the item type, the commit function may record per-item results on the items
+ */
+public class GroupCommitter<T> implements AutoCloseable {
+
+    private final Consumer<List<T>> commit;
+    private final int maxGroupSize;
+    private final long windowNanos;
+    private final Duration submitTimeout;
+    private final LinkedBlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAccumulator largestGroup = new LongAccumulator(Long::max, 0);
+
+    /**
+     * @param name          name of the committer thread
+     * @param maxGroupSize  maximum number of items per commit
+     * @param window        how long a group waits for more items after its first one (0 = only take what is queued)
+     * @param submitTimeout how long a submitter waits for its commit
+     * @param commit        commits a group in one transaction, throws if nothing of the group was committed;
+     *                      after a failure it is called again for single items, so it has to reset per-item results
+     */
+    public GroupCommitter(String name, int maxGroupSize, Duration window, Duration submitTimeout, Consumer<List<T>> commit) {
+        this.commit = commit;
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+        this.windowNanos = window.toNanos();
+        this.submitTimeout = submitTimeout;
+        this.committer = new Thread(this::run, name);
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Submits an item and waits until its group has been committed.
+     *
+     * @param item the item to commit
+     * @throws RuntimeException the exception of the failed commit
+     * @throws IllegalStateException if the committer is closed
+     * @throws TradeOutcomeUnknownException if the commit did not finish in time, the item may still be committed
+     */
+    public void submit(T item) {
+        if (!running) {
+            throw new IllegalStateException("GroupCommitter is closed");
+        }
+        Pending<T> pending = new Pending<>(item);
+        queue.add(pending);
+        try {
+            pending.done.get(submitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new TradeOutcomeUnknownException("Der Auftrag konnte nicht rechtzeitig gespeichert werden.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TradeOutcomeUnknownException("Der Auftrag wurde abgebrochen.", e);
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> group = new ArrayList<>(maxGroupSize);
+        int previousGroupSize = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - group.size());
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize && running && (previousGroupSize > 1 || group.size() > 1)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group, maxGroupSize - group.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                commitGroup(group);
+                previousGroupSize = group.size();
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<Pending<T>> group) {
+        List<T> items = new ArrayList<>(group.size());
+        for (Pending<T> pending : group) {
+            items.add(pending.item);
+        }
+        try {
+            commit.accept(items);
+            groups.increment();
+            committed.add(items.size());
+            largestGroup.accumulate(items.size());
+            for (Pending<T> pending : group) {
+                pending.done.complete(null);
+            }
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                failed.increment();
+                group.get(0).done.completeExceptionally(e);
+                return;
+            }
+            // find the item that broke the group, all others are committed on their own
+            fallbacks.increment();
+            for (Pending<T> pending : group) {
+                commitGroup(List.of(pending));
+            }
+        }
+    }
+
+    /**
+     * Commits everything that is still queued and stops the committer thread.
+     */
+    @Override
+    public void close() {
+        // no interrupt, it could hit the committer in the middle of a commit; it notices within one poll
+        running = false;
+        try {
+            committer.join(submitTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of groups, committed items, groups split up after a failure and failed items.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long groupCount = groups.sum();
+        long itemCount = committed.sum();
+        stats.put("maxGroupSize", maxGroupSize);
+        stats.put("windowMicros", windowNanos / 1_000);
+        stats.put("groups", groupCount);
+        stats.put("committed", itemCount);
+        stats.put("averageGroupSize", groupCount == 0 ? 0.0 : Math.round(itemCount * 10.0 / groupCount) / 10.0);
+        stats.put("largestGroup", largestGroup.get());
+        stats.put("splitGroups", fallbacks.sum());
+        stats.put("failed", failed.sum());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+
+    private static final class Pending<T> {
+        final T item;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+}
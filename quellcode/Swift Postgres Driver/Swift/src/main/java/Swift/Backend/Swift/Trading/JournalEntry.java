@@ -0,0 +1,38 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.LocalDateTime;
+
+/**
+ * JournalEntry
+ * 
+ * An accepted trade as written to the {@link TradeJournal}, before it is persisted to the database.
+ * Carries everything the writer needs for the transaction, the position and the ledger row.
+ *
+ * @param seq           position in the journal (assigned on append, strictly increasing)
+ * @param idUser        ID of the user
+ * @param idStock       ID of the stock
+ * @param idStockPrice  ID of the stock_price row the trade was priced with
+ * @param bs            false = buy, true = sell
+ * @param count         number of shares
+ * @param price         price per share
+ * @param balanceBefore balance of the user before the trade
+ * @param balanceAfter  balance of the user after the trade
+ * @param date          time the trade was accepted
+ */
+public record JournalEntry(long seq, String idUser, long idStock, long idStockPrice, boolean bs, long count,
+        double price, double balanceBefore, double balanceAfter, LocalDateTime date) {
+
+    /**
+     * Returns a copy of this entry with the given sequence number.
+     */
+    public JournalEntry withSeq(long seq) {
+        return new JournalEntry(seq, idUser, idStock, idStockPrice, bs, count, price, balanceBefore, balanceAfter, date);
+    }
+
+    /**
+     * Returns the amount of the trade (price * count).
+     */
+    public double amount() {
+        return price * count;
+    }
+}
@@ -0,0 +1,164 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * LatestPriceCache
+ * 
+ * Holds the latest {@link PriceTick} of every stock.
+ * Readers never block: a lookup is a single ConcurrentHashMap read of an immutable tick.
+ * The cache is fed by a refresher that reads new stock_price rows above a watermark (the highest id_stock_price seen).
+ * Ids are taken when a row is inserted, not when it is committed, so a row of a slow transaction can become visible
+ * after rows with higher ids were read. The refresher therefore reads from the watermark of a refresh at least
+ * refreshOverlap ago ({@link #refreshFrom()}), rows already seen are not newer than the cached ticks and change nothing.
+ * If the refresher has not confirmed the cache within the staleness bound, lookups report a miss,
+ * so callers read the database instead of trading on an outdated price.
+ */
+public class LatestPriceCache {
+
+    private final ConcurrentHashMap<Long, PriceTick> ticks = new ConcurrentHashMap<>();
+    private final long maxStalenessNanos;
+    private final long refreshOverlapNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong watermark = new AtomicLong();
+    // {time, watermark} of the refreshes within the overlap window and the newest one before it, guarded by itself
+    private final ArrayDeque<long[]> refreshWatermarks = new ArrayDeque<>();
+    // System.nanoTime() of the last successful refresh, readers only need the latest value
+    private volatile long refreshedAt;
+    private volatile boolean refreshed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleMisses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAccumulator maxServedAgeNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * @param maxStaleness   how long after the last refresh a cached tick may still be served
+     * @param refreshOverlap how long a refresh keeps reading rows below the watermark, at least as long as the
+     *                       longest transaction that inserts prices
+     */
+    public LatestPriceCache(Duration maxStaleness, Duration refreshOverlap) {
+        this(maxStaleness, refreshOverlap, System::nanoTime);
+    }
+
+    LatestPriceCache(Duration maxStaleness, Duration refreshOverlap, LongSupplier nanoClock) {
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.refreshOverlapNanos = Math.max(0, refreshOverlap.toNanos());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the cached tick of the stock.
+     *
+     * @param idStock ID of the stock
+     * @return the tick, or null if the stock is unknown or the cache is stale
+     */
+    public PriceTick get(long idStock) {
+        if (!isFresh()) {
+            staleMisses.increment();
+            return null;
+        }
+        PriceTick tick = ticks.get(idStock);
+        if (tick == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        maxServedAgeNanos.accumulate(nanoClock.getAsLong() - refreshedAt);
+        return tick;
+    }
+
+    /**
+     * Stores a tick unless a more recent one is already cached.
+     *
+     * @return true if the tick is now the cached one, false if a more recent or the same tick was cached
+     */
+    public boolean publish(PriceTick tick) {
+        return ticks.merge(tick.idStock(), tick, (current, update) -> update.isNewerThan(current) ? update : current) == tick;
+    }
+
+    /**
+     * Moves the watermark forward, ticks up to this id_stock_price have been seen by the refresher.
+     */
+    public void advanceWatermark(long idStockPrice) {
+        watermark.accumulateAndGet(idStockPrice, Math::max);
+    }
+
+    /**
+     * Returns the highest id_stock_price the refresher has seen (0 = not loaded yet).
+     */
+    public long watermark() {
+        return watermark.get();
+    }
+
+    /**
+     * Returns the id_stock_price above which the next refresh reads: the watermark of the newest refresh that is at
+     * least refreshOverlap old (the current watermark if there is none yet).
+     */
+    public long refreshFrom() {
+        long cutoff = nanoClock.getAsLong() - refreshOverlapNanos;
+        synchronized (refreshWatermarks) {
+            // a refresh before the cutoff is not needed once a later one is before the cutoff too
+            while (refreshWatermarks.size() > 1) {
+                long[] oldest = refreshWatermarks.pollFirst();
+                if (refreshWatermarks.peekFirst()[0] - cutoff > 0) {
+                    refreshWatermarks.addFirst(oldest);
+                    break;
+                }
+            }
+            long[] from = refreshWatermarks.peekFirst();
+            return from == null ? watermark.get() : from[1];
+        }
+    }
+
+    /**
+     * Marks the cache as confirmed by a successful refresh and remembers the watermark it reached.
+     */
+    public void markRefreshed() {
+        long now = nanoClock.getAsLong();
+        synchronized (refreshWatermarks) {
+            refreshWatermarks.addLast(new long[] {now, watermark.get()});
+        }
+        refreshedAt = now;
+        refreshed = true;
+        refreshes.increment();
+    }
+
+    /**
+     * Returns true if the last successful refresh is within the staleness bound.
+     */
+    public boolean isFresh() {
+        return refreshed && nanoClock.getAsLong() - refreshedAt <= maxStalenessNanos;
+    }
+
+    /**
+     * Returns hit rate and staleness of the cache.
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum() + staleMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stocks", ticks.size());
+        stats.put("watermark", watermark.get());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("staleMisses", staleMisses.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("refreshes", refreshes.sum());
+        stats.put("fresh", isFresh());
+        stats.put("lastRefreshAgeMillis", refreshed ? (nanoClock.getAsLong() - refreshedAt) / 1_000_000.0 : null);
+        stats.put("maxServedAgeMillis", maxServedAgeNanos.get() / 1_000_000.0);
+        stats.put("maxStalenessMillis", maxStalenessNanos / 1_000_000);
+        return stats;
+    }
+}
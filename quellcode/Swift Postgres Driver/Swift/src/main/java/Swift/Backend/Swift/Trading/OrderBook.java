@@ -0,0 +1,210 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OrderBook
+ *
+ * Open LIMIT and STOP orders per stock. Every stock has one {@link TriggerIndex} for each of buy-limit, sell-limit,
+ * buy-stop and sell-stop orders, so a new price only takes the range of orders whose threshold it crossed from one
+ * end of each index; the orders that stay open cost nothing. Orders are held as primitive (threshold, ID) pairs plus
+ * one primitive hash entry for removal by ID, {@link OrderTrigger} objects are only created for fired orders.
+ * <p>
+ * Not thread-safe, the caller serializes all access.
+ */
+public class OrderBook {
+
+    // index of the order type, see StockOrders
+    private static final byte BUY_LIMIT = 0;
+    private static final byte SELL_LIMIT = 1;
+    private static final byte BUY_STOP = 2;
+    private static final byte SELL_STOP = 3;
+
+    private final Map<Long, StockOrders> stocks = new HashMap<>();
+    private final Locations locations = new Locations();
+
+    /**
+     * Adds an order, an order with the same ID is replaced.
+     */
+    public void add(OrderTrigger trigger) {
+        remove(trigger.idOrder());
+        byte kind = kind(trigger.bs(), trigger.stop());
+        stocks.computeIfAbsent(trigger.idStock(), id -> new StockOrders()).indexes[kind].add(trigger.threshold(), trigger.idOrder());
+        locations.put(trigger.idOrder(), trigger.idStock(), kind, trigger.threshold());
+    }
+
+    /**
+     * Removes an order.
+     *
+     * @return true if the order was in the book
+     */
+    public boolean remove(long idOrder) {
+        int slot = locations.find(idOrder);
+        if (slot < 0) {
+            return false;
+        }
+        long idStock = locations.stocks[slot];
+        StockOrders orders = stocks.get(idStock);
+        orders.indexes[locations.kinds[slot]].remove(locations.thresholds[slot], idOrder);
+        locations.removeAt(slot);
+        if (orders.isEmpty()) {
+            stocks.remove(idStock);
+        }
+        return true;
+    }
+
+    /**
+     * Takes all orders of the stock that have to be executed at this price out of the book.
+     *
+     * @param idStock ID of the stock
+     * @param price   the new price
+     * @return the fired orders, empty if no threshold was crossed
+     */
+    public List<OrderTrigger> match(long idStock, double price) {
+        StockOrders orders = stocks.get(idStock);
+        if (orders == null) {
+            return List.of();
+        }
+        List<OrderTrigger> fired = new ArrayList<>();
+        // LIMIT buys and STOP sells fire when the price falls to their threshold, the highest threshold first
+        orders.indexes[BUY_LIMIT].pollAtOrAbove(price, (id, threshold) -> fired.add(fire(id, idStock, false, false, threshold)));
+        orders.indexes[SELL_LIMIT].pollAtOrBelow(price, (id, threshold) -> fired.add(fire(id, idStock, true, false, threshold)));
+        orders.indexes[BUY_STOP].pollAtOrBelow(price, (id, threshold) -> fired.add(fire(id, idStock, false, true, threshold)));
+        orders.indexes[SELL_STOP].pollAtOrAbove(price, (id, threshold) -> fired.add(fire(id, idStock, true, true, threshold)));
+        if (orders.isEmpty()) {
+            stocks.remove(idStock);
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the IDs of all stocks with open orders.
+     */
+    public List<Long> stocks() {
+        return new ArrayList<>(stocks.keySet());
+    }
+
+    /**
+     * Returns the number of open orders.
+     */
+    public int size() {
+        return locations.size;
+    }
+
+    private OrderTrigger fire(long idOrder, long idStock, boolean bs, boolean stop, double threshold) {
+        locations.removeAt(locations.find(idOrder));
+        return new OrderTrigger(idOrder, idStock, bs, stop, threshold);
+    }
+
+    private static byte kind(boolean bs, boolean stop) {
+        return stop ? (bs ? SELL_STOP : BUY_STOP) : (bs ? SELL_LIMIT : BUY_LIMIT);
+    }
+
+    private static final class StockOrders {
+        final TriggerIndex[] indexes = {new TriggerIndex(), new TriggerIndex(), new TriggerIndex(), new TriggerIndex()};
+
+        boolean isEmpty() {
+            for (TriggerIndex index : indexes) {
+                if (!index.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Where an order is held: stock, order type and threshold by order ID. Open addressing with linear probing
+     * over primitive arrays, deletions shift the following entries back instead of leaving tombstones.
+     */
+    private static final class Locations {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        long[] keys;
+        long[] stocks;
+        byte[] kinds;
+        double[] thresholds;
+        int size;
+
+        Locations() {
+            allocate(64);
+        }
+
+        int find(long idOrder) {
+            int mask = keys.length - 1;
+            for (int slot = hash(idOrder) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == idOrder) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void put(long idOrder, long idStock, byte kind, double threshold) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(idOrder) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != idOrder) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                size++;
+            }
+            keys[slot] = idOrder;
+            stocks[slot] = idStock;
+            kinds[slot] = kind;
+            thresholds[slot] = threshold;
+        }
+
+        void removeAt(int slot) {
+            int mask = keys.length - 1;
+            size--;
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                // the entry may move into the gap if the gap lies between its home slot and its current slot
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    stocks[gap] = stocks[next];
+                    kinds[gap] = kinds[next];
+                    thresholds[gap] = thresholds[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = EMPTY;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            long[] oldStocks = stocks;
+            byte[] oldKinds = kinds;
+            double[] oldThresholds = thresholds;
+            allocate(oldKeys.length * 2);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldStocks[i], oldKinds[i], oldThresholds[i]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            stocks = new long[capacity];
+            kinds = new byte[capacity];
+            thresholds = new double[capacity];
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.LocalDateTime;
+
+/**
+ * OrderEvent
+ *
+ * A status change of an order, pushed to the user the order belongs to.
+ *
+ * @param type    CREATED, TRIGGERED, EXECUTED, REJECTED, EXPIRED or CANCELLED
+ * @param idOrder ID of the order
+ * @param idUser  ID of the user the order belongs to
+ * @param idStock ID of the stock, null if not known
+ * @param price   execution price (EXECUTED), stop level of a fired TRAILING_STOP order or price the condition was met
+ *                at (TRIGGERED), otherwise null
+ * @param message reason of a rejection, otherwise null
+ * @param time    time of the change
+ */
+public record OrderEvent(String type, long idOrder, String idUser, Long idStock, Double price, String message,
+        LocalDateTime time) {
+
+    public static final String CREATED = "CREATED";
+    public static final String TRIGGERED = "TRIGGERED";
+    public static final String EXECUTED = "EXECUTED";
+    public static final String REJECTED = "REJECTED";
+    public static final String EXPIRED = "EXPIRED";
+    public static final String CANCELLED = "CANCELLED";
+
+    public static OrderEvent of(String type, long idOrder, String idUser, Long idStock, Double price, String message) {
+        return new OrderEvent(type, idOrder, idUser, idStock, price, message, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,31 @@
+package Swift.Backend.Swift.Trading;
+
+/**
+ * OrderTrigger
+ *
+ * An open LIMIT or STOP order as added to and fired by the {@link OrderBook}: the price at which it has to be executed and
+ * the direction from which the price has to cross it.
+ *
+ * @param idOrder   ID of the order
+ * @param idStock   ID of the stock
+ * @param bs        false = buy, true = sell
+ * @param stop      true = STOP order, false = LIMIT order
+ * @param threshold limit_price of a LIMIT order, stop_price of a STOP order
+ */
+public record OrderTrigger(long idOrder, long idStock, boolean bs, boolean stop, double threshold) {
+
+    /**
+     * Returns true if the order fires once the price is at or above the threshold (LIMIT sell, STOP buy),
+     * false if it fires at or below the threshold (LIMIT buy, STOP sell).
+     */
+    public boolean firesAtOrAbove() {
+        return bs != stop;
+    }
+
+    /**
+     * Returns true if the order has to be executed at this price.
+     */
+    public boolean isTriggeredBy(double price) {
+        return firesAtOrAbove() ? price >= threshold : price <= threshold;
+    }
+}
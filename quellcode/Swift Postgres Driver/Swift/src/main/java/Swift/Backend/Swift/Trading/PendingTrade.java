@@ -0,0 +1,114 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.LocalDateTime;
+
+/**
+ * PendingTrade
+ * 
+ * A checked and priced buy or sell that waits for its group commit.
+ * The commit records the outcome on the trade: the new transaction id and balance, or the reason it was rejected.
+ * The outcome is only read by the submitting thread after the commit has finished.
+ */
+public class PendingTrade {
+    private final String idUser;
+    private final long idStock;
+    private final long count;
+    private final boolean bs;
+    private final PriceTick price;
+
+    private Long idTransaction;
+    private double balanceAfter;
+    private LocalDateTime date;
+    private String rejection;
+
+    /**
+     * @param idUser  ID of the user
+     * @param idStock ID of the stock
+     * @param count   number of shares
+     * @param bs      false = buy, true = sell
+     * @param price   the price the trade is executed at
+     */
+    public PendingTrade(String idUser, long idStock, long count, boolean bs, PriceTick price) {
+        this.idUser = idUser;
+        this.idStock = idStock;
+        this.count = count;
+        this.bs = bs;
+        this.price = price;
+    }
+
+    public String getIdUser() {
+        return idUser;
+    }
+
+    public long getIdStock() {
+        return idStock;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean getBs() {
+        return bs;
+    }
+
+    public PriceTick getPrice() {
+        return price;
+    }
+
+    /**
+     * Returns price times count.
+     */
+    public double amount() {
+        return price.price() * count;
+    }
+
+    /**
+     * Clears the outcome of an earlier commit attempt.
+     */
+    public void reset() {
+        idTransaction = null;
+        balanceAfter = 0;
+        date = null;
+        rejection = null;
+    }
+
+    /**
+     * Records that the trade was executed.
+     */
+    public void executed(double balanceAfter, LocalDateTime date) {
+        this.balanceAfter = balanceAfter;
+        this.date = date;
+    }
+
+    /**
+     * Records that the trade was rejected, nothing of it was written.
+     */
+    public void reject(String rejection) {
+        this.rejection = rejection;
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    public String getRejection() {
+        return rejection;
+    }
+
+    public Long getIdTransaction() {
+        return idTransaction;
+    }
+
+    public void setIdTransaction(Long idTransaction) {
+        this.idTransaction = idTransaction;
+    }
+
+    public double getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,25 @@
+package Swift.Backend.Swift.Trading;
+
+import java.time.LocalDateTime;
+
+/**
+ * PriceTick
+ * 
+ * The latest known price of a stock as stored in stock_price.
+ * Immutable, so it can be handed to any number of reader threads without copying.
+ *
+ * @param idStock      ID of the stock
+ * @param idStockPrice ID of the stock_price row
+ * @param price        price of the stock
+ * @param date         time of the price
+ */
+public record PriceTick(long idStock, long idStockPrice, double price, LocalDateTime date) {
+
+    /**
+     * Returns true if this tick is more recent than the other one (later date, on equal dates the higher row id).
+     */
+    public boolean isNewerThan(PriceTick other) {
+        int byDate = date.compareTo(other.date);
+        return byDate > 0 || (byDate == 0 && idStockPrice > other.idStockPrice);
+    }
+}
@@ -0,0 +1,184 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * TimingWheel
+ *
+ * Deadlines of IDs in a hierarchical timing wheel: 4 wheels of 64 slots each, the first with one slot per tick,
+ * every further wheel with one slot per turn of the wheel below (with 1 s ticks the wheels cover 64 s, 68 min,
+ * 73 h and 194 days; later deadlines wait in an overflow list). Scheduling and cancelling link or unlink one entry
+ * in a slot list, advancing the time takes the entries of the current slot of the first wheel, so every ID costs
+ * O(1) no matter how many others are scheduled. When a wheel has turned, the entries of the next slot of the wheel
+ * above are moved down, each entry moves at most once per wheel.
+ * <p>
+ * Not thread-safe, the caller serializes all access.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    // one sentinel per slot and one for the overflow list, the lists are circular
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+    private final Entry overflow = new Entry(0, 0);
+    // deadlines that were already due when they were scheduled
+    private final Entry due = new Entry(0, 0);
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis length of a tick, deadlines are rounded up to full ticks
+     * @param nowMillis  the current time
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.currentTick = nowMillis / this.tickMillis;
+        for (Entry[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Entry(0, 0);
+            }
+        }
+    }
+
+    /**
+     * Schedules an ID, an earlier deadline of the same ID is replaced.
+     *
+     * @param id             the ID
+     * @param deadlineMillis the time the ID is due at
+     */
+    public void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        Entry entry = new Entry(id, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        entries.put(id, entry);
+        place(entry);
+    }
+
+    /**
+     * Cancels the deadline of an ID.
+     *
+     * @return true if the ID was scheduled
+     */
+    public boolean cancel(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.unlink();
+        return true;
+    }
+
+    /**
+     * Advances the time and takes out all IDs that are due.
+     *
+     * @param nowMillis the current time
+     * @param expired   receives the due IDs
+     * @return number of due IDs
+     */
+    public int advance(long nowMillis, LongConsumer expired) {
+        int count = drain(due, expired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            // a cascaded entry due right at this tick went to the due list
+            count += drain(due, expired);
+            count += drain(slots[0][(int) (currentTick & (SLOTS - 1))], expired);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of scheduled IDs.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    // links the entry into the slot of the wheel whose range covers the distance to its deadline
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            entry.linkBefore(due);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                int slot = (int) ((entry.deadlineTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                entry.linkBefore(slots[level][slot]);
+                return;
+            }
+        }
+        entry.linkBefore(overflow);
+    }
+
+    // after a wheel turned, moves the entries of the now current slot of the wheels above down, highest first
+    private void cascade() {
+        if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            replace(overflow);
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                replace(slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1))]);
+            }
+        }
+    }
+
+    private void replace(Entry sentinel) {
+        Entry entry = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (entry != sentinel) {
+            Entry next = entry.next;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private int drain(Entry sentinel, LongConsumer expired) {
+        int count = 0;
+        Entry entry = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (entry != sentinel) {
+            Entry next = entry.next;
+            entry.prev = entry;
+            entry.next = entry;
+            entries.remove(entry.id);
+            expired.accept(entry.id);
+            count++;
+            entry = next;
+        }
+        return count;
+    }
+
+    private static final class Entry {
+        final long id;
+        final long deadlineTick;
+        Entry prev = this;
+        Entry next = this;
+
+        Entry(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void linkBefore(Entry sentinel) {
+            prev = sentinel.prev;
+            next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * TradeCommand
+ *
+ * A pre-allocated slot of the {@link TradeSequencer} ring buffer. The submitting thread fills it, the partition's
+ * consumer executes it and completes it, then the submitter reads the outcome and frees the slot for reuse.
+ * No object is allocated for the hand-off itself.
+ * <p>
+ * Visibility: the submitter's writes are published by the volatile write of {@code published},
+ * the consumer's outcome by the volatile write of {@code completed}.
+ */
+public final class TradeCommand {
+    public static final int BUY = 1;
+    public static final int SELL = 2;
+    // runs an arbitrary action on the partition's thread (batch trades, order execution)
+    public static final int DIRECT = 3;
+
+    private int type;
+    private String idUser;
+    private Object payload;
+    private Supplier<?> action;
+
+    private Object result;
+    private RuntimeException error;
+
+    volatile long published = -1;
+    volatile long completed = -1;
+    volatile long freeFor;
+    volatile Thread waiter;
+    long seq;
+
+    TradeCommand(long firstSeq) {
+        this.freeFor = firstSeq;
+    }
+
+    void fill(long seq, int type, String idUser, Object payload, Supplier<?> action, Thread waiter) {
+        this.seq = seq;
+        this.type = type;
+        this.idUser = idUser;
+        this.payload = payload;
+        this.action = action;
+        this.result = null;
+        this.error = null;
+        this.waiter = waiter;
+    }
+
+    void clear(int ringSize) {
+        payload = null;
+        action = null;
+        result = null;
+        error = null;
+        waiter = null;
+        freeFor = seq + ringSize;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getIdUser() {
+        return idUser;
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public Supplier<?> getAction() {
+        return action;
+    }
+
+    Object getResult() {
+        return result;
+    }
+
+    RuntimeException getError() {
+        return error;
+    }
+
+    /**
+     * Returns true once the command was completed or failed.
+     */
+    public boolean isDone() {
+        return completed == seq;
+    }
+
+    /**
+     * Completes the command with a result and wakes up the submitter. Must be called once, on the consumer thread.
+     */
+    public void complete(Object result) {
+        this.result = result;
+        finish();
+    }
+
+    /**
+     * Fails the command, the submitter throws the error. Must be called once, on the consumer thread.
+     */
+    public void fail(RuntimeException error) {
+        this.error = error;
+        finish();
+    }
+
+    private void finish() {
+        Thread submitter = waiter;
+        completed = seq;
+        LockSupport.unpark(submitter);
+    }
+}
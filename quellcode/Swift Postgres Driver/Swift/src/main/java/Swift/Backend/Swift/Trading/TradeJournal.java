@@ -0,0 +1,222 @@
+package Swift.Backend.Swift.Trading;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * TradeJournal
+ * 
+ * Append-only journal of accepted trades in a memory-mapped file of fixed size.
+ * A record is written completely into the mapping before the trade is acknowledged, so it survives a crash of the
+ * backend (the operating system still writes the pages). With fsync enabled every append is also forced to disk,
+ * which additionally survives a crash of the machine.
+ * <p>
+ * Record layout: {@code [int length][long seq][payload][int crc32(seq + payload)]}, followed by a zero length as end
+ * marker. On recovery the file is read up to the first record that is incomplete, has a wrong checksum or does not
+ * continue the sequence (torn write or left-overs from before a reset).
+ * Once the writer has persisted everything, the journal is reset and written from the start again.
+ * <p>
+ * Not thread safe on its own, all methods are synchronized on the journal.
+ */
+public class TradeJournal implements Closeable {
+
+    private static final int HEADER = Integer.BYTES + Long.BYTES;
+    private static final int TRAILER = Integer.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean fsync;
+
+    private long lastSeq;
+    private long appended;
+    private long resets;
+
+    /**
+     * Opens (or creates) the journal file.
+     *
+     * @param file     path of the journal file
+     * @param capacity size of the file in bytes
+     * @param fsync    force every append to disk
+     */
+    public TradeJournal(Path file, int capacity, boolean fsync) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.fsync = fsync;
+    }
+
+    /**
+     * Reads all complete records from the start of the file and positions the journal after the last one.
+     *
+     * @return the recovered entries in journal order
+     */
+    public synchronized List<JournalEntry> recover() {
+        List<JournalEntry> entries = new ArrayList<>();
+        buffer.position(0);
+        long previous = -1;
+        while (buffer.remaining() >= HEADER + TRAILER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - Long.BYTES - TRAILER) {
+                buffer.position(start);
+                break;
+            }
+            long seq = buffer.getLong();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            int crc = buffer.getInt();
+            if (crc != checksum(seq, payload) || (previous >= 0 && seq != previous + 1)) {
+                buffer.position(start);
+                break;
+            }
+            entries.add(decode(seq, ByteBuffer.wrap(payload)));
+            previous = seq;
+        }
+        if (previous >= 0) {
+            lastSeq = Math.max(lastSeq, previous);
+        }
+        writeEndMarker();
+        return entries;
+    }
+
+    /**
+     * Makes sure new records get a sequence number above the given one (e.g. the last persisted one).
+     */
+    public synchronized void continueAfter(long seq) {
+        lastSeq = Math.max(lastSeq, seq);
+    }
+
+    /**
+     * Appends an entry and assigns the next sequence number.
+     *
+     * @param entry the entry, its seq is ignored
+     * @return the entry with its sequence number, or null if the journal is full
+     */
+    public synchronized JournalEntry append(JournalEntry entry) {
+        byte[] payload = encode(entry);
+        if (buffer.remaining() < HEADER + payload.length + TRAILER + Integer.BYTES) {
+            return null;
+        }
+        long seq = lastSeq + 1;
+        int start = buffer.position();
+        // length last, a record is only visible once it is complete
+        buffer.position(start + Integer.BYTES);
+        buffer.putLong(seq);
+        buffer.put(payload);
+        buffer.putInt(checksum(seq, payload));
+        writeEndMarker();
+        buffer.putInt(start, payload.length);
+        if (fsync) {
+            buffer.force();
+        }
+        lastSeq = seq;
+        appended++;
+        return entry.withSeq(seq);
+    }
+
+    /**
+     * Starts writing from the beginning of the file again, but only if every record has been persisted.
+     *
+     * @param persistedSeq the highest sequence number stored in the database
+     * @return true if the journal was reset
+     */
+    public synchronized boolean resetIfPersisted(long persistedSeq) {
+        if (persistedSeq < lastSeq || buffer.position() == 0) {
+            return false;
+        }
+        buffer.position(0);
+        writeEndMarker();
+        if (fsync) {
+            buffer.force();
+        }
+        resets++;
+        return true;
+    }
+
+    /**
+     * Returns the sequence number of the last appended record.
+     */
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns fill level and counters of the journal.
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacityBytes", buffer.capacity());
+        stats.put("usedBytes", buffer.position());
+        stats.put("lastSeq", lastSeq);
+        stats.put("appended", appended);
+        stats.put("resets", resets);
+        stats.put("fsync", fsync);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void writeEndMarker() {
+        if (buffer.remaining() >= Integer.BYTES) {
+            buffer.putInt(buffer.position(), 0);
+        }
+    }
+
+    private static int checksum(long seq, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, seq));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(JournalEntry entry) {
+        byte[] user = entry.idUser().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(Short.BYTES + user.length + 3 * Long.BYTES + 1 + 3 * Double.BYTES + Long.BYTES + Integer.BYTES);
+        out.putShort((short) user.length).put(user);
+        out.putLong(entry.idStock());
+        out.putLong(entry.idStockPrice());
+        out.put((byte) (entry.bs() ? 1 : 0));
+        out.putLong(entry.count());
+        out.putDouble(entry.price());
+        out.putDouble(entry.balanceBefore());
+        out.putDouble(entry.balanceAfter());
+        out.putLong(entry.date().toEpochSecond(ZoneOffset.UTC));
+        out.putInt(entry.date().getNano());
+        return out.array();
+    }
+
+    private static JournalEntry decode(long seq, ByteBuffer in) {
+        byte[] user = new byte[in.getShort()];
+        in.get(user);
+        long idStock = in.getLong();
+        long idStockPrice = in.getLong();
+        boolean bs = in.get() == 1;
+        long count = in.getLong();
+        double price = in.getDouble();
+        double balanceBefore = in.getDouble();
+        double balanceAfter = in.getDouble();
+        LocalDateTime date = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        return new JournalEntry(seq, new String(user, StandardCharsets.UTF_8), idStock, idStockPrice, bs, count,
+            price, balanceBefore, balanceAfter, date);
+    }
+}
@@ -0,0 +1,19 @@
+package Swift.Backend.Swift.Trading;
+
+/**
+ * TradeOutcomeUnknownException
+ *
+ * Thrown when a trade was handed on (queued for a group commit, journaled) but its commit was not confirmed in time:
+ * it may still be committed or may have failed. Unlike a rejection this does not mean that nothing was executed, so a
+ * retry must not simply run the trade again.
+ */
+public class TradeOutcomeUnknownException extends IllegalStateException {
+
+    public TradeOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TradeOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
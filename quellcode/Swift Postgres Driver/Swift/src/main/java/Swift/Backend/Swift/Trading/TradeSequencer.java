@@ -0,0 +1,243 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * TradeSequencer
+ *
+ * Single-writer execution of trade commands. Users are spread over a fixed number of partitions by the hash of their
+ * id; every partition has a pre-allocated ring of {@link TradeCommand} slots and one consumer thread that executes
+ * the partition's commands strictly in the order they were claimed. State owned by a partition (balances, positions)
+ * is only touched by its consumer, so it needs no locks.
+ * <p>
+ * Producers claim a sequence number with one atomic increment, fill the slot and publish it; the submitter then parks
+ * until the consumer has completed its command. A full ring makes producers wait (back pressure).
+ * The consumer hands every command to the {@link Handler} and calls {@link Handler#endOfBatch} whenever its ring is
+ * drained or maxBatch commands were handled, so the handler can persist a whole run of commands at once.
+ */
+public class TradeSequencer implements AutoCloseable {
+
+    /**
+     * Executes commands on the consumer thread of a partition.
+     */
+    public interface Handler {
+        /**
+         * Handles a command. The handler completes or fails it now, or keeps it open until {@link #endOfBatch}.
+         */
+        void handle(int partition, TradeCommand command);
+
+        /**
+         * Called after a run of commands, every command still open has to be completed or failed here.
+         */
+        void endOfBatch(int partition);
+    }
+
+    private final Partition[] partitions;
+    private final int ringSize;
+    private final int maxBatch;
+    private final Handler handler;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+
+    /**
+     * @param name       prefix of the consumer thread names
+     * @param partitions number of partitions (rounded up to a power of two)
+     * @param ringSize   slots per partition (rounded up to a power of two)
+     * @param maxBatch   maximum commands per run before {@link Handler#endOfBatch} is called
+     * @param handler    executes the commands, see {@link #start()}
+     */
+    public TradeSequencer(String name, int partitions, int ringSize, int maxBatch, Handler handler) {
+        this.ringSize = powerOfTwo(ringSize);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.handler = handler;
+        this.partitions = new Partition[powerOfTwo(partitions)];
+        for (int i = 0; i < this.partitions.length; i++) {
+            this.partitions[i] = new Partition(i, this.ringSize);
+            this.partitions[i].consumer = new Thread(this.partitions[i]::run, name + "-" + i);
+            this.partitions[i].consumer.setDaemon(true);
+        }
+    }
+
+    /**
+     * Starts the consumer threads; the handler must be ready to handle commands from now on.
+     */
+    public void start() {
+        for (Partition partition : partitions) {
+            partition.consumer.start();
+        }
+    }
+
+    /**
+     * Returns the partition the user's commands are executed on.
+     */
+    public int partitionOf(String idUser) {
+        int h = idUser.hashCode();
+        return (h ^ (h >>> 16)) & (partitions.length - 1);
+    }
+
+    /**
+     * Returns the number of partitions.
+     */
+    public int partitions() {
+        return partitions.length;
+    }
+
+    /**
+     * Submits a command and waits until the consumer has executed it.
+     *
+     * @param type    {@link TradeCommand#BUY}, {@link TradeCommand#SELL} or {@link TradeCommand#DIRECT}
+     * @param idUser  the user the command belongs to, selects the partition
+     * @param payload data for the handler
+     * @param action  action for {@link TradeCommand#DIRECT} commands, otherwise null
+     * @return the result the handler completed the command with
+     * @throws RuntimeException the error the handler failed the command with
+     */
+    public Object submit(int type, String idUser, Object payload, Supplier<?> action) {
+        if (!running) {
+            throw new IllegalStateException("TradeSequencer is closed");
+        }
+        Partition partition = partitions[partitionOf(idUser)];
+        long seq = partition.claimed.getAndIncrement();
+        TradeCommand slot = partition.ring[(int) (seq & (ringSize - 1))];
+
+        // wait until the submitter of the previous round has taken its outcome out of the slot
+        if (slot.freeFor != seq) {
+            producerWaits.increment();
+            while (slot.freeFor != seq) {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+        Thread self = Thread.currentThread();
+        slot.fill(seq, type, idUser, payload, action, self);
+        slot.published = seq;
+        submitted.increment();
+        if (partition.sleeping) {
+            LockSupport.unpark(partition.consumer);
+        }
+
+        while (slot.completed != seq) {
+            LockSupport.park(this);
+        }
+        Object result = slot.getResult();
+        RuntimeException error = slot.getError();
+        slot.clear(ringSize);
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+
+    /**
+     * Stops the consumers after they have executed everything that was submitted.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.consumer);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.consumer.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns submitted commands, producer waits on a full ring and per partition the backlog and run sizes.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partitions", partitions.length);
+        stats.put("ringSize", ringSize);
+        stats.put("submitted", submitted.sum());
+        stats.put("producerWaits", producerWaits.sum());
+        List<Map<String, Object>> perPartition = new ArrayList<>();
+        for (Partition partition : partitions) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            long executed = partition.executed;
+            long runs = partition.runs;
+            p.put("executed", executed);
+            p.put("backlog", partition.claimed.get() - executed);
+            p.put("runs", runs);
+            p.put("averageRun", runs == 0 ? 0.0 : Math.round(executed * 10.0 / runs) / 10.0);
+            perPartition.add(p);
+        }
+        stats.put("perPartition", perPartition);
+        return stats;
+    }
+
+    private static int powerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private final class Partition {
+        final int index;
+        final TradeCommand[] ring;
+        final AtomicLong claimed = new AtomicLong();
+        Thread consumer;
+        volatile boolean sleeping;
+        // only written by the consumer, read by stats()
+        volatile long executed;
+        volatile long runs;
+
+        Partition(int index, int size) {
+            this.index = index;
+            this.ring = new TradeCommand[size];
+            for (int i = 0; i < size; i++) {
+                ring[i] = new TradeCommand(i);
+            }
+        }
+
+        void run() {
+            long next = 0;
+            while (true) {
+                TradeCommand slot = ring[(int) (next & (ringSize - 1))];
+                if (slot.published != next) {
+                    if (!running && claimed.get() == next) {
+                        return;
+                    }
+                    sleeping = true;
+                    if (slot.published != next) {
+                        LockSupport.parkNanos(this, 1_000_000);
+                    }
+                    sleeping = false;
+                    continue;
+                }
+
+                int handled = 0;
+                while (slot.published == next && handled < maxBatch) {
+                    try {
+                        handler.handle(index, slot);
+                    } catch (RuntimeException e) {
+                        if (!slot.isDone()) {
+                            slot.fail(e);
+                        }
+                    }
+                    next++;
+                    handled++;
+                    slot = ring[(int) (next & (ringSize - 1))];
+                }
+                try {
+                    handler.endOfBatch(index);
+                } catch (RuntimeException e) {
+                    System.out.println("TradeSequencer: Fehler am Ende eines Laufs: " + e.getMessage());
+                }
+                executed = next;
+                runs++;
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TrailingStopBook
+ *
+ * Open TRAILING_STOP orders per stock. A trailing sell stop follows the highest price since it was created
+ * (high-water mark) at a fixed amount or percentage below and fires when the price falls to that stop level, a
+ * trailing buy stop follows the lowest price (low-water mark) from above and fires when the price rises to it.
+ * <p>
+ * Every stock and side has two heaps over the same orders: one by water mark with the mark furthest behind the price
+ * on top, and one by stop level with the level closest to the price on top. A new price only moves the marks it
+ * passes, taken from the top of the first heap, and only fires the levels it crossed, taken from the top of the
+ * second heap; orders whose mark and level stay the same are not touched. Buy orders are held with negated prices,
+ * so both sides use the same heaps.
+ * <p>
+ * Not thread-safe, the caller serializes all access.
+ */
+public class TrailingStopBook {
+
+    private final Map<Long, StockStops> stocks = new HashMap<>();
+    private final Map<Long, Node> orders = new HashMap<>();
+
+    /**
+     * Adds an order, an order with the same ID is replaced.
+     *
+     * @param idOrder      ID of the order
+     * @param idStock      ID of the stock
+     * @param bs           false = buy, true = sell
+     * @param trailAmount  distance of the stop level from the water mark, 0 if the order trails by percentage
+     * @param trailPercent distance of the stop level from the water mark in percent of the mark, 0 if the order
+     *                     trails by amount
+     * @param mark         highest (sell) or lowest (buy) price since the order was created, NaN if not known yet:
+     *                     the next price becomes the mark
+     */
+    public void add(long idOrder, long idStock, boolean bs, double trailAmount, double trailPercent, double mark) {
+        remove(idOrder);
+        // sell side: level = mark * (1 - percent) - amount; buy side negated: -(mark * (1 + percent) + amount)
+        double factor = bs ? 1 - trailPercent / 100 : 1 + trailPercent / 100;
+        double signedMark = Double.isNaN(mark) ? Double.NEGATIVE_INFINITY : (bs ? mark : -mark);
+        Node node = new Node(idOrder, idStock, bs, trailAmount, factor, signedMark);
+        StockStops stops = stocks.computeIfAbsent(idStock, id -> new StockStops());
+        (bs ? stops.sells : stops.buys).add(node);
+        orders.put(idOrder, node);
+    }
+
+    /**
+     * Removes an order.
+     *
+     * @return true if the order was in the book
+     */
+    public boolean remove(long idOrder) {
+        Node node = orders.remove(idOrder);
+        if (node == null) {
+            return false;
+        }
+        StockStops stops = stocks.get(node.idStock);
+        (node.bs ? stops.sells : stops.buys).remove(node);
+        if (stops.isEmpty()) {
+            stocks.remove(node.idStock);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the water marks of the stock's orders to the new price where it passed them and takes all orders whose
+     * stop level the price has reached out of the book.
+     *
+     * @param idStock ID of the stock
+     * @param price   the new price
+     * @return the fired orders as STOP orders at their stop level, empty if no level was reached
+     */
+    public List<OrderTrigger> match(long idStock, double price) {
+        StockStops stops = stocks.get(idStock);
+        if (stops == null) {
+            return List.of();
+        }
+        List<Node> fired = new ArrayList<>();
+        stops.sells.tick(price, fired);
+        stops.buys.tick(-price, fired);
+        if (stops.isEmpty()) {
+            stocks.remove(idStock);
+        }
+        List<OrderTrigger> triggers = new ArrayList<>(fired.size());
+        for (Node node : fired) {
+            orders.remove(node.idOrder);
+            triggers.add(new OrderTrigger(node.idOrder, idStock, node.bs, true, node.bs ? node.level : -node.level));
+        }
+        return triggers;
+    }
+
+    /**
+     * Returns the current stop level of an order, NaN if the order is not in the book or has no water mark yet.
+     */
+    public double level(long idOrder) {
+        Node node = orders.get(idOrder);
+        if (node == null || node.level == Double.NEGATIVE_INFINITY) {
+            return Double.NaN;
+        }
+        return node.bs ? node.level : -node.level;
+    }
+
+    /**
+     * Returns the IDs of all stocks with open orders.
+     */
+    public List<Long> stocks() {
+        return new ArrayList<>(stocks.keySet());
+    }
+
+    /**
+     * Returns the number of open orders.
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    private static final class StockStops {
+        final Side sells = new Side();
+        final Side buys = new Side();
+
+        boolean isEmpty() {
+            return sells.size == 0 && buys.size == 0;
+        }
+    }
+
+    private static final class Node {
+        final long idOrder;
+        final long idStock;
+        final boolean bs;
+        final double trailAmount;
+        final double factor;
+        // mark and level with negated prices for buy orders
+        double mark;
+        double level;
+        int markPos;
+        int levelPos;
+
+        Node(long idOrder, long idStock, boolean bs, double trailAmount, double factor, double mark) {
+            this.idOrder = idOrder;
+            this.idStock = idStock;
+            this.bs = bs;
+            this.trailAmount = trailAmount;
+            this.factor = factor;
+            setMark(mark);
+        }
+
+        void setMark(double mark) {
+            this.mark = mark;
+            this.level = mark * factor - trailAmount;
+        }
+    }
+
+    /**
+     * The orders of one stock and side in two binary heaps that share their nodes: byMark with the lowest mark on
+     * top, byLevel with the highest level on top. Every node knows its position in both heaps, so a moved mark is
+     * sifted in place.
+     */
+    private static final class Side {
+        Node[] byMark = new Node[8];
+        Node[] byLevel = new Node[8];
+        int size;
+
+        void add(Node node) {
+            if (size == byMark.length) {
+                byMark = Arrays.copyOf(byMark, size * 2);
+                byLevel = Arrays.copyOf(byLevel, size * 2);
+            }
+            byMark[size] = node;
+            node.markPos = size;
+            byLevel[size] = node;
+            node.levelPos = size;
+            size++;
+            siftUpMark(node.markPos);
+            siftUpLevel(node.levelPos);
+        }
+
+        void remove(Node node) {
+            size--;
+            removeMarkAt(node.markPos);
+            removeLevelAt(node.levelPos);
+        }
+
+        void tick(double price, List<Node> fired) {
+            // a higher mark only raises the level, so it can move up in byLevel but never down
+            while (size > 0 && byMark[0].mark < price) {
+                Node node = byMark[0];
+                node.setMark(price);
+                siftDownMark(0);
+                siftUpLevel(node.levelPos);
+            }
+            while (size > 0 && byLevel[0].level >= price) {
+                Node node = byLevel[0];
+                fired.add(node);
+                remove(node);
+            }
+        }
+
+        private void removeMarkAt(int pos) {
+            Node last = byMark[size];
+            byMark[size] = null;
+            if (pos != size) {
+                byMark[pos] = last;
+                last.markPos = pos;
+                siftDownMark(pos);
+                siftUpMark(last.markPos);
+            }
+        }
+
+        private void removeLevelAt(int pos) {
+            Node last = byLevel[size];
+            byLevel[size] = null;
+            if (pos != size) {
+                byLevel[pos] = last;
+                last.levelPos = pos;
+                siftDownLevel(pos);
+                siftUpLevel(last.levelPos);
+            }
+        }
+
+        private void siftUpMark(int pos) {
+            Node node = byMark[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (byMark[parent].mark <= node.mark) {
+                    break;
+                }
+                byMark[pos] = byMark[parent];
+                byMark[pos].markPos = pos;
+                pos = parent;
+            }
+            byMark[pos] = node;
+            node.markPos = pos;
+        }
+
+        private void siftDownMark(int pos) {
+            Node node = byMark[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < size && byMark[child + 1].mark < byMark[child].mark) {
+                    child++;
+                }
+                if (node.mark <= byMark[child].mark) {
+                    break;
+                }
+                byMark[pos] = byMark[child];
+                byMark[pos].markPos = pos;
+                pos = child;
+            }
+            byMark[pos] = node;
+            node.markPos = pos;
+        }
+
+        private void siftUpLevel(int pos) {
+            Node node = byLevel[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (byLevel[parent].level >= node.level) {
+                    break;
+                }
+                byLevel[pos] = byLevel[parent];
+                byLevel[pos].levelPos = pos;
+                pos = parent;
+            }
+            byLevel[pos] = node;
+            node.levelPos = pos;
+        }
+
+        private void siftDownLevel(int pos) {
+            Node node = byLevel[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < size && byLevel[child + 1].level > byLevel[child].level) {
+                    child++;
+                }
+                if (node.level >= byLevel[child].level) {
+                    break;
+                }
+                byLevel[pos] = byLevel[child];
+                byLevel[pos].levelPos = pos;
+                pos = child;
+            }
+            byLevel[pos] = node;
+            node.levelPos = pos;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package Swift.Backend.Swift.Trading;
+
+/**
+ * TriggerIndex
+ *
+ * Order IDs sorted by their trigger threshold, kept in primitive arrays (double thresholds, long IDs) without any
+ * per-order object. The entries are split into blocks of limited size like the leaves of a B+-tree: the blocks are
+ * ordered by threshold and then ID, and so are the entries inside each block. The orders crossed by a price move are
+ * a range at one end of the index, so taking them out only moves the bounds of the first or last blocks. Inserting
+ * and removing finds the block by binary search and shifts at most one block; a full block is split in two.
+ * <p>
+ * Not thread-safe, the caller serializes all access.
+ */
+public class TriggerIndex {
+
+    /**
+     * Receives the orders taken out of the index.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(long idOrder, double threshold);
+    }
+
+    private static final int DEFAULT_BLOCK_CAPACITY = 256;
+
+    private final int blockCapacity;
+    // the blocks live in the window [first, last) of the array
+    private Block[] blocks = new Block[8];
+    private int first = 4;
+    private int last = 4;
+    private int size;
+
+    public TriggerIndex() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * @param blockCapacity maximum number of orders per block
+     */
+    public TriggerIndex(int blockCapacity) {
+        this.blockCapacity = Math.max(4, blockCapacity);
+    }
+
+    /**
+     * Adds an order.
+     */
+    public void add(double threshold, long idOrder) {
+        if (first == last) {
+            insertBlock(first, new Block(blockCapacity));
+        }
+        int b = blockFor(threshold, idOrder);
+        Block block = blocks[b];
+        int pos = block.search(threshold, idOrder);
+        if (pos >= 0) {
+            return;
+        }
+        if (block.size() == blockCapacity) {
+            b = split(b);
+            if (compare(threshold, idOrder, blocks[b].lastThreshold(), blocks[b].lastId()) > 0) {
+                b++;
+            }
+            block = blocks[b];
+            pos = block.search(threshold, idOrder);
+        }
+        block.insert(-pos - 1, threshold, idOrder);
+        size++;
+    }
+
+    /**
+     * Removes an order.
+     *
+     * @return true if the order was in the index
+     */
+    public boolean remove(double threshold, long idOrder) {
+        if (first == last) {
+            return false;
+        }
+        int b = blockFor(threshold, idOrder);
+        Block block = blocks[b];
+        int pos = block.search(threshold, idOrder);
+        if (pos < 0) {
+            return false;
+        }
+        block.delete(pos);
+        size--;
+        if (block.size() == 0) {
+            removeBlock(b);
+        }
+        return true;
+    }
+
+    /**
+     * Takes out all orders with a threshold at or below the price, lowest first.
+     *
+     * @return number of orders taken out
+     */
+    public int pollAtOrBelow(double price, Sink sink) {
+        int polled = 0;
+        while (first < last) {
+            Block block = blocks[first];
+            while (block.from < block.to && block.thresholds[block.from] <= price) {
+                sink.accept(block.ids[block.from], block.thresholds[block.from]);
+                block.from++;
+                polled++;
+            }
+            if (block.size() > 0) {
+                break;
+            }
+            blocks[first++] = null;
+        }
+        size -= polled;
+        recenterIfEmpty();
+        return polled;
+    }
+
+    /**
+     * Takes out all orders with a threshold at or above the price, highest first.
+     *
+     * @return number of orders taken out
+     */
+    public int pollAtOrAbove(double price, Sink sink) {
+        int polled = 0;
+        while (first < last) {
+            Block block = blocks[last - 1];
+            while (block.to > block.from && block.thresholds[block.to - 1] >= price) {
+                block.to--;
+                sink.accept(block.ids[block.to], block.thresholds[block.to]);
+                polled++;
+            }
+            if (block.size() > 0) {
+                break;
+            }
+            blocks[--last] = null;
+        }
+        size -= polled;
+        recenterIfEmpty();
+        return polled;
+    }
+
+    /**
+     * Returns the number of orders.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // the first block whose last entry is not below the key, the last block if the key is above all entries
+    private int blockFor(double threshold, long idOrder) {
+        int low = first;
+        int high = last - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(blocks[mid].lastThreshold(), blocks[mid].lastId(), threshold, idOrder) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // moves the upper half of a full block into a new block right after it, returns the new index of the full block
+    private int split(int b) {
+        Block block = blocks[b];
+        Block upper = new Block(blockCapacity);
+        int half = block.size() / 2;
+        int count = block.size() - half;
+        System.arraycopy(block.thresholds, block.from + half, upper.thresholds, 0, count);
+        System.arraycopy(block.ids, block.from + half, upper.ids, 0, count);
+        upper.to = count;
+        block.to = block.from + half;
+        return insertBlock(b + 1, upper) - 1;
+    }
+
+    // returns the index the block was inserted at, the window moves if the array has to grow
+    private int insertBlock(int at, Block block) {
+        if (last == blocks.length) {
+            int count = last - first;
+            int capacity = count + 1 > blocks.length / 2 ? blocks.length * 2 : blocks.length;
+            int newFirst = (capacity - count) / 2;
+            Block[] newBlocks = new Block[capacity];
+            System.arraycopy(blocks, first, newBlocks, newFirst, count);
+            at += newFirst - first;
+            blocks = newBlocks;
+            first = newFirst;
+            last = newFirst + count;
+        }
+        System.arraycopy(blocks, at, blocks, at + 1, last - at);
+        blocks[at] = block;
+        last++;
+        return at;
+    }
+
+    private void removeBlock(int at) {
+        if (at == first) {
+            blocks[first++] = null;
+        } else {
+            System.arraycopy(blocks, at + 1, blocks, at, last - at - 1);
+            blocks[--last] = null;
+        }
+        recenterIfEmpty();
+    }
+
+    private void recenterIfEmpty() {
+        if (first == last) {
+            first = blocks.length / 2;
+            last = first;
+        }
+    }
+
+    private static int compare(double threshold, long idOrder, double otherThreshold, long otherId) {
+        int cmp = Double.compare(threshold, otherThreshold);
+        return cmp != 0 ? cmp : Long.compare(idOrder, otherId);
+    }
+
+    /**
+     * Sorted entries in the window [from, to) of two primitive arrays.
+     */
+    private static final class Block {
+        final double[] thresholds;
+        final long[] ids;
+        int from;
+        int to;
+
+        Block(int capacity) {
+            thresholds = new double[capacity];
+            ids = new long[capacity];
+        }
+
+        int size() {
+            return to - from;
+        }
+
+        double lastThreshold() {
+            return thresholds[to - 1];
+        }
+
+        long lastId() {
+            return ids[to - 1];
+        }
+
+        // binary search over [from, to) by (threshold, id), like Arrays.binarySearch
+        int search(double threshold, long idOrder) {
+            int low = from;
+            int high = to - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(thresholds[mid], ids[mid], threshold, idOrder);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // inserts at the position returned by search, shifting the shorter side that has room
+        void insert(int at, double threshold, long idOrder) {
+            boolean shiftLeft = from > 0 && (at - from < to - at || to == ids.length);
+            if (shiftLeft) {
+                System.arraycopy(thresholds, from, thresholds, from - 1, at - from);
+                System.arraycopy(ids, from, ids, from - 1, at - from);
+                from--;
+                at--;
+            } else {
+                System.arraycopy(thresholds, at, thresholds, at + 1, to - at);
+                System.arraycopy(ids, at, ids, at + 1, to - at);
+                to++;
+            }
+            thresholds[at] = threshold;
+            ids[at] = idOrder;
+        }
+
+        void delete(int at) {
+            if (at - from < to - at - 1) {
+                System.arraycopy(thresholds, from, thresholds, from + 1, at - from);
+                System.arraycopy(ids, from, ids, from + 1, at - from);
+                from++;
+            } else {
+                System.arraycopy(thresholds, at + 1, thresholds, at, to - at - 1);
+                System.arraycopy(ids, at + 1, ids, at, to - at - 1);
+                to--;
+            }
+        }
+    }
+}
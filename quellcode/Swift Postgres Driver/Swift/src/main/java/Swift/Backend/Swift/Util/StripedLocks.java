@@ -0,0 +1,115 @@
+package Swift.Backend.Swift.Util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * StripedLocks
+ * 
+ * A fixed number of locks, a key always maps to the same lock.
+ * Actions for the same key run one after another, actions for different keys run in parallel
+ * (unless two keys happen to share a stripe, which gets unlikely with enough stripes).
+ * Waiting for a lock is bounded, a caller that does not get the lock in time gets an exception.
+ * The locks are reentrant, nested calls for the same key on the same thread do not block.
+ *
+ * @param <K> key type
+ */
+public class StripedLocks<K> {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final long timeoutNanos;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * @param stripes number of locks, rounded up to the next power of two
+     * @param timeout maximum time to wait for a lock
+     */
+    public StripedLocks(int stripes, Duration timeout) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Runs the action while holding the lock of the key.
+     *
+     * @param key    e.g. the user id
+     * @param action the action to run exclusively for this key
+     * @return the result of the action
+     * @throws IllegalStateException if the lock could not be acquired within the timeout
+     */
+    public <T> T withLock(K key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        if (!lock.tryLock()) {
+            contended.increment();
+            long start = System.nanoTime();
+            boolean locked;
+            try {
+                locked = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Warten auf die Sperre wurde unterbrochen.", e);
+            }
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+            if (!locked) {
+                timeouts.increment();
+                throw new IllegalStateException("Es wird bereits ein anderer Auftrag ausgeführt, bitte erneut versuchen.");
+            }
+        }
+        acquired.increment();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.
+     */
+    public int stripes() {
+        return locks.length;
+    }
+
+    /**
+     * Returns how often locks were taken, had to be waited for or timed out.
+     */
+    public Map<String, Object> stats() {
+        long contendedCount = contended.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", locks.length);
+        stats.put("acquired", acquired.sum());
+        stats.put("contended", contendedCount);
+        stats.put("timeouts", timeouts.sum());
+        stats.put("avgWaitMillis", contendedCount == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / contendedCount);
+        stats.put("maxWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private ReentrantLock lockFor(K key) {
+        int h = key.hashCode();
+        // spread the higher bits, String hash codes of similar ids differ mostly in the lower bits
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return locks[h & mask];
+    }
+}
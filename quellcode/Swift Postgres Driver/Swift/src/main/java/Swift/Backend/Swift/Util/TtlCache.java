@@ -0,0 +1,132 @@
+package Swift.Backend.Swift.Util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TtlCache
+ * 
+ * Small, size-bounded in-memory cache whose entries expire after an individual time-to-live.
+ * When the cache is full the least recently used entry is evicted.
+ * Hits, misses, expirations and evictions are counted so they can be reported via {@link #stats()}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of entries kept in memory
+     */
+    public TtlCache(int maxSize) {
+        this.maxSize = maxSize;
+        // access-order = true turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value or {@code null} if it is missing or already expired.
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Stores a value for the given time-to-live. Non-positive lifetimes are ignored.
+     */
+    public void put(K key, V value, Duration ttl) {
+        if (maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttl.toNanos();
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Removes a single entry.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the current counters of this cache.
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size());
+        result.put("maxSize", maxSize);
+        result.put("hits", hitCount);
+        result.put("misses", missCount);
+        result.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        result.put("expirations", expirations.sum());
+        result.put("evictions", evictions.sum());
+        return result;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value; this.expiresAt = expiresAt;
+        }
+    }
+}
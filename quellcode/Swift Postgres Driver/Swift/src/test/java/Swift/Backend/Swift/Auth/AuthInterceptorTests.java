@@ -0,0 +1,108 @@
+package Swift.Backend.Swift.Auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Swift.Backend.Swift.Googlecheck;
+
+/**
+ * Authenticates requests once in the interceptor against the local stub identity server.
+ */
+class AuthInterceptorTests {
+
+    private StubIdentityServer stub;
+    private IdentityHttpClient client;
+    private AuthInterceptor interceptor;
+    private Googlecheck google;
+    private SessionTokenService sessions;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubIdentityServer();
+        client = new IdentityHttpClient("", 0, 10, 5, 1000, 2000, 500);
+        GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier(new ObjectMapper(), client, "userinfo", "", "", "", "", 60);
+        sessions = new SessionTokenService("test-secret", 60);
+        google = new Googlecheck(null, null, verifier, client, sessions, stub.userinfoUrl(), 100, 300);
+        interceptor = new AuthInterceptor(google);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        stub.close();
+    }
+
+    @Test
+    void exposesUserIdAsRequestAttribute() throws Exception {
+        MockHttpServletRequest request = requestWithToken("valid-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertEquals("42", request.getAttribute(AuthInterceptor.USER_ID));
+        assertTrue(response.getHeader("Server-Timing").startsWith("auth;dur="));
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void rejectsInvalidTokenWith401() throws Exception {
+        MockHttpServletRequest request = requestWithToken("expired");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, null));
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().startsWith("Token ungültig"));
+        assertNull(request.getAttribute(AuthInterceptor.USER_ID));
+        assertEquals(1L, interceptor.stats().get("rejected"));
+    }
+
+    @Test
+    void acceptsSessionTokenOnlyFromTheAuthorizationHeader() throws Exception {
+        String sessionToken = sessions.issue("42").token();
+
+        MockHttpServletRequest inHeader = requestWithToken("unused");
+        inHeader.addHeader("Authorization", "Bearer " + sessionToken);
+        assertTrue(interceptor.preHandle(inHeader, new MockHttpServletResponse(), null));
+        assertEquals("42", inHeader.getAttribute(AuthInterceptor.USER_ID));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(requestWithToken(sessionToken), response, null));
+        assertEquals(401, response.getStatus());
+        assertEquals(0, stub.requestCount());
+    }
+
+    @Test
+    void googleLoginDoesNotAcceptSessionTokens() {
+        String sessionToken = sessions.issue("42").token();
+
+        assertThrows(IllegalArgumentException.class, () -> google.handleGoogleToken(sessionToken));
+    }
+
+    @Test
+    void ignoresRoutesWithoutToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/executeOrder/1/pw");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("idOrder", "1"));
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        assertEquals(0, stub.requestCount());
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/getAllOrders/" + token);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("token", token));
+        return request;
+    }
+}
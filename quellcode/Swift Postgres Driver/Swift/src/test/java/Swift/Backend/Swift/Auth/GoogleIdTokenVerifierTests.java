@@ -0,0 +1,121 @@
+package Swift.Backend.Swift.Auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Verifies ID tokens offline against a JWKS file generated for the test.
+ */
+class GoogleIdTokenVerifierTests {
+
+    private static final String AUDIENCE = "swift-client-id";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KeyPair keyPair;
+    private GoogleIdTokenVerifier verifier;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", "test-key");
+        jwk.put("kty", "RSA");
+        jwk.put("alg", "RS256");
+        jwk.put("n", base64(unsigned(publicKey.getModulus().toByteArray())));
+        jwk.put("e", base64(unsigned(publicKey.getPublicExponent().toByteArray())));
+        Path jwksFile = tempDir.resolve("jwks.json");
+        Files.writeString(jwksFile, objectMapper.writeValueAsString(Map.of("keys", List.of(jwk))));
+
+        verifier = new GoogleIdTokenVerifier(objectMapper, null, "jwt", "http://unused", jwksFile.toString(),
+            AUDIENCE, "accounts.google.com,https://accounts.google.com", 60);
+        verifier.start();
+    }
+
+    @Test
+    void acceptsValidToken() throws Exception {
+        Map<String, Object> claims = verifier.verify(sign(claims(AUDIENCE, Instant.now().plusSeconds(600))));
+        assertEquals("42", claims.get("sub"));
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        String token = sign(claims(AUDIENCE, Instant.now().minusSeconds(3600)));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void rejectsForeignAudience() throws Exception {
+        String token = sign(claims("other-client", Instant.now().plusSeconds(600)));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedPayload() throws Exception {
+        String[] parts = sign(claims(AUDIENCE, Instant.now().plusSeconds(600))).split("\\.");
+        Map<String, Object> forged = claims(AUDIENCE, Instant.now().plusSeconds(600));
+        forged.put("sub", "1");
+        String token = parts[0] + "." + base64(objectMapper.writeValueAsBytes(forged)) + "." + parts[2];
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void rejectsTokenWithoutKeyId() throws Exception {
+        String header = base64(objectMapper.writeValueAsBytes(Map.of("alg", "RS256", "typ", "JWT")));
+        String[] parts = sign(claims(AUDIENCE, Instant.now().plusSeconds(600))).split("\\.");
+        String token = header + "." + parts[1] + "." + parts[2];
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(token));
+    }
+
+    private Map<String, Object> claims(String audience, Instant expiry) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://accounts.google.com");
+        claims.put("aud", audience);
+        claims.put("sub", "42");
+        claims.put("email", "test@mail.de");
+        claims.put("exp", expiry.getEpochSecond());
+        return claims;
+    }
+
+    private String sign(Map<String, Object> claims) throws Exception {
+        String header = base64(objectMapper.writeValueAsBytes(Map.of("alg", "RS256", "kid", "test-key", "typ", "JWT")));
+        String payload = base64(objectMapper.writeValueAsBytes(claims));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + payload + "." + base64(signature.sign());
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes[0] == 0 ? java.util.Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+}
@@ -0,0 +1,64 @@
+package Swift.Backend.Swift.Auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Swift.Backend.Swift.Googlecheck;
+
+/**
+ * Runs Googlecheck against the local stub identity server through the shared pooled client.
+ */
+class IdentityHttpClientTests {
+
+    private StubIdentityServer stub;
+    private IdentityHttpClient client;
+    private Googlecheck google;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubIdentityServer();
+        client = new IdentityHttpClient("", 0, 10, 5, 1000, 2000, 500);
+        GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier(new ObjectMapper(), client, "userinfo", "", "", "", "", 60);
+        google = new Googlecheck(null, null, verifier, client, new SessionTokenService("test-secret", 60), stub.userinfoUrl(), 100, 300);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        stub.close();
+    }
+
+    @Test
+    void reusesPooledConnection() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals("user" + i, google.handleGoogleToken("valid-user" + i).get("sub"));
+        }
+        assertEquals(20, stub.requestCount());
+        assertEquals(1, stub.connectionCount());
+    }
+
+    @Test
+    void answersRepeatedTokenFromCache() {
+        for (int i = 0; i < 5; i++) {
+            google.handleGoogleToken("valid-42");
+        }
+        assertEquals(1, stub.requestCount());
+
+        google.invalidateToken("valid-42");
+        google.handleGoogleToken("valid-42");
+        assertEquals(2, stub.requestCount());
+    }
+
+    @Test
+    void doesNotCacheRejectedTokens() {
+        assertThrows(Exception.class, () -> google.handleGoogleToken("expired"));
+        assertThrows(Exception.class, () -> google.handleGoogleToken("expired"));
+        assertEquals(2, stub.requestCount());
+    }
+}
@@ -0,0 +1,48 @@
+package Swift.Backend.Swift.Auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Issues and verifies session tokens without any network or database access.
+ */
+class SessionTokenServiceTests {
+
+    private final SessionTokenService service = new SessionTokenService("test-secret", 60);
+
+    @Test
+    void verifiesIssuedToken() {
+        SessionTokenService.Session session = service.issue("109876543210");
+
+        assertTrue(SessionTokenService.isSessionToken(session.token()));
+        assertEquals("109876543210", service.verify(session.token()).get("sub"));
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = service.issue("1").token();
+        String otherUser = service.issue("2").token();
+        String forged = token.substring(0, token.indexOf('.')) + otherUser.substring(otherUser.indexOf('.'));
+
+        assertThrows(IllegalArgumentException.class, () -> service.verify(forged));
+        assertThrows(IllegalArgumentException.class, () -> service.verify(token + "x"));
+        assertThrows(IllegalArgumentException.class, () -> service.verify("swift_garbage"));
+    }
+
+    @Test
+    void rejectsTokenSignedWithOtherSecret() {
+        String token = new SessionTokenService("other-secret", 60).issue("1").token();
+
+        assertThrows(IllegalArgumentException.class, () -> service.verify(token));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = new SessionTokenService("test-secret", 0).issue("1").token();
+
+        assertThrows(IllegalArgumentException.class, () -> service.verify(token));
+    }
+}
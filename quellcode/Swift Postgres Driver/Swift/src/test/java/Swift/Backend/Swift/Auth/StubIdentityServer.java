@@ -0,0 +1,93 @@
+package Swift.Backend.Swift.Auth;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * StubIdentityServer
+ * 
+ * Local stand-in for Google's userinfo endpoint used by tests.
+ * Every bearer token starting with "valid-" is accepted; the rest of the token becomes the user's "sub".
+ * Counts requests and distinct client connections so tests can check caching and connection reuse.
+ */
+public class StubIdentityServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long delayMillis;
+
+    public StubIdentityServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/oauth2/v3/userinfo", this::handleUserinfo);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return URL of the stubbed userinfo endpoint
+     */
+    public String userinfoUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/oauth2/v3/userinfo";
+    }
+
+    /**
+     * Simulates the latency of the remote identity provider.
+     */
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public int connectionCount() {
+        return clientPorts.size();
+    }
+
+    private void handleUserinfo(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer valid-")) {
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+            return;
+        }
+        String sub = authorization.substring("Bearer valid-".length());
+        String body = "{\"sub\":\"" + sub + "\",\"name\":\"swift\",\"given_name\":\"swiftie\","
+            + "\"picture\":\"testbild\",\"email\":\"test@mail.de\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
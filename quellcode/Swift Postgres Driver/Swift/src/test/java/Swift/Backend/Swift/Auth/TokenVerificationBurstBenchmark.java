@@ -0,0 +1,85 @@
+package Swift.Backend.Swift.Auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Swift.Backend.Swift.Googlecheck;
+
+/**
+ * Burst of 50 parallel verifications of the same token (what the frontend does on page load),
+ * once as independent calls (previous behaviour) and once through Googlecheck with coalescing.
+ * 
+ * Run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class TokenVerificationBurstBenchmark {
+
+    private static final int BURST = 50;
+    private static final long IDENTITY_LATENCY_MS = 80;
+
+    @Test
+    void burstOfParallelVerifications() throws Exception {
+        try (StubIdentityServer stub = new StubIdentityServer()) {
+            stub.setDelayMillis(IDENTITY_LATENCY_MS);
+            IdentityHttpClient client = new IdentityHttpClient("", 0, BURST, BURST, 1000, 5000, 5000);
+            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier(new ObjectMapper(), client, "userinfo", "", "", "", "", 60);
+
+            // Independent calls: every request asks the identity provider itself
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth("valid-burst-a");
+            long uncoalescedNanos = burst(i -> client.getRestTemplate()
+                .exchange(stub.userinfoUrl(), HttpMethod.GET, new HttpEntity<>(headers), String.class));
+            int uncoalescedCalls = stub.requestCount();
+
+            // Coalesced: concurrent verifications of one token share a single outbound call
+            Googlecheck google = new Googlecheck(null, null, verifier, client, new SessionTokenService("test-secret", 60), stub.userinfoUrl(), 100, 300);
+            long coalescedNanos = burst(i -> google.handleGoogleToken("valid-burst-b"));
+            int coalescedCalls = stub.requestCount() - uncoalescedCalls;
+
+            System.out.printf("burst of %d parallel verifications, identity latency %d ms%n", BURST, IDENTITY_LATENCY_MS);
+            System.out.printf("  independent: %3d outbound calls, %6.1f ms%n", uncoalescedCalls, uncoalescedNanos / 1e6);
+            System.out.printf("  coalesced:   %3d outbound calls, %6.1f ms  %s%n", coalescedCalls, coalescedNanos / 1e6, google.getInFlightStats());
+
+            assertEquals(BURST, uncoalescedCalls);
+            assertEquals(1, coalescedCalls);
+            client.close();
+        }
+    }
+
+    private static long burst(Consumer<Integer> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BURST);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                call.accept(n);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        return elapsed;
+    }
+}
@@ -0,0 +1,38 @@
+package Swift.Backend.Swift;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Auth.SessionTokenService;
+import Swift.Backend.Swift.Entities.User_service;
+import Swift.Backend.Swift.Repositories.UserRepository;
+import Swift.Backend.Swift.Services.SeasonService;
+
+/**
+ * First login against mocked repositories.
+ */
+class GooglecheckTests {
+
+    @Test
+    void loginWithoutProfileClaimsUsesDefaults() {
+        UserRepository users = mock(UserRepository.class);
+        SeasonService seasons = mock(SeasonService.class);
+        when(seasons.getActiveStartBalance()).thenReturn(10000.0);
+        User_service user = new User_service();
+        when(users.upsertOnLogin("42", "test@mail.de", "test@mail.de", "", "test@mail.de", 10000.0)).thenReturn(user);
+        Googlecheck google = new Googlecheck(users, seasons, null, null, new SessionTokenService("test-secret", 60), "", 100, 300);
+
+        LinkedHashMap<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", "42");
+        claims.put("email", "test@mail.de");
+
+        assertSame(user, google.handleUserLogin(claims));
+        verify(users).upsertOnLogin("42", "test@mail.de", "test@mail.de", "", "test@mail.de", 10000.0);
+    }
+}
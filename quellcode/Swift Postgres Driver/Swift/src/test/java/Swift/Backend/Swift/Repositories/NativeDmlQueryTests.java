@@ -0,0 +1,77 @@
+package Swift.Backend.Swift.Repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks the native queries of all repositories without a database: a statement that writes is either
+ * {@link Modifying} (run with executeUpdate, returns the row count) or returns its rows with RETURNING, then it
+ * runs as a query and needs its own write transaction.
+ */
+class NativeDmlQueryTests {
+
+    private static final Pattern DML = Pattern.compile("\\b(INSERT\\s+INTO|UPDATE\\s+\\w+\\s+SET|DELETE\\s+FROM)\\b",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern RETURNING = Pattern.compile("\\bRETURNING\\b", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void writingQueriesAreModifyingOrReturnRows() throws Exception {
+        List<Class<?>> repositories = repositories();
+        assertFalse(repositories.isEmpty());
+        List<String> checked = new ArrayList<>();
+        for (Class<?> repository : repositories) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query == null || !query.nativeQuery() || !DML.matcher(query.value()).find()) {
+                    continue;
+                }
+                String name = repository.getSimpleName() + "." + method.getName();
+                checked.add(name);
+                boolean modifying = method.isAnnotationPresent(Modifying.class);
+                boolean returning = RETURNING.matcher(query.value()).find();
+                if (modifying) {
+                    assertFalse(returning, name + ": a @Modifying query can not return rows");
+                    Class<?> type = method.getReturnType();
+                    assertTrue(type == void.class || type == int.class || type == Integer.class,
+                        name + ": a @Modifying query returns void or the row count");
+                } else {
+                    assertTrue(returning, name + ": writes without @Modifying and without RETURNING");
+                    assertTrue(method.isAnnotationPresent(Transactional.class) || repository.isAnnotationPresent(Transactional.class),
+                        name + ": a writing query needs a write transaction");
+                }
+            }
+        }
+        assertTrue(checked.contains("UserRepository.upsertOnLogin"));
+        assertTrue(checked.contains("OrdersRepository.markExpired"));
+    }
+
+    private static List<Class<?>> repositories() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+        List<Class<?>> repositories = new ArrayList<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents(NativeDmlQueryTests.class.getPackageName())) {
+            repositories.add(Class.forName(definition.getBeanClassName()));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,172 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Swift.Backend.Swift.Entities.Idempotency_key;
+import Swift.Backend.Swift.Repositories.Idempotency_keyRepository;
+import Swift.Backend.Swift.Trading.TradeOutcomeUnknownException;
+
+/**
+ * Retries with the same Idempotency-Key against a mocked key table.
+ */
+class IdempotencyServiceTests {
+
+    private Idempotency_keyRepository repository;
+    private IdempotencyService service;
+    private final AtomicInteger trades = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(Idempotency_keyRepository.class);
+        when(repository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+        service = new IdempotencyService(repository, new ObjectMapper(), 100, 24, 0);
+    }
+
+    @Test
+    void retryReturnsOriginalResponseWithoutTradingAgain() {
+        ResponseEntity<?> first = service.execute("u1", "key-1", "buyStock", Map.of("id_stock", 1, "count", 5), this::trade);
+        ResponseEntity<?> retry = service.execute("u1", "key-1", "buyStock", Map.of("id_stock", 1, "count", 5), this::trade);
+
+        assertEquals(1, trades.get());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals("{\"trade\":1}", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(Map.of("trade", 1), first.getBody());
+        verify(repository).complete("u1", "key-1", 200, "{\"trade\":1}");
+    }
+
+    @Test
+    void sameKeyWithOtherBodyIsRejected() {
+        service.execute("u1", "key-1", "buyStock", Map.of("id_stock", 1, "count", 5), this::trade);
+        ResponseEntity<?> other = service.execute("u1", "key-1", "buyStock", Map.of("id_stock", 1, "count", 50), this::trade);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, other.getStatusCode());
+        assertEquals(1, trades.get());
+    }
+
+    @Test
+    void failedRequestReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> service.execute("u1", "key-1", "buyStock", Map.of("count", 5), () -> {
+            throw new IllegalStateException("Nicht genug Guthaben auf dem Bankkonto.");
+        }));
+        verify(repository).release("u1", "key-1");
+
+        service.execute("u1", "key-1", "buyStock", Map.of("count", 5), this::trade);
+        assertEquals(1, trades.get());
+    }
+
+    @Test
+    void unknownOutcomeKeepsKeyClaimed() {
+        assertThrows(TradeOutcomeUnknownException.class, () -> service.execute("u1", "key-1", "buyStock", Map.of("count", 5), () -> {
+            throw new TradeOutcomeUnknownException("Der Auftrag konnte nicht rechtzeitig gespeichert werden.");
+        }));
+        verify(repository, never()).release(anyString(), anyString());
+
+        // the claim is still in the table, the retry does not trade
+        when(repository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(0);
+        ResponseEntity<?> retry = service.execute("u1", "key-1", "buyStock", Map.of("count", 5), this::trade);
+        assertEquals(HttpStatus.CONFLICT, retry.getStatusCode());
+        assertEquals(0, trades.get());
+    }
+
+    @Test
+    void concurrentRetryIsAnsweredAsReplay() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(() -> service.execute("u1", "key-1", "buyStock", Map.of("count", 5), () -> {
+                started.countDown();
+                await(release);
+                return trade();
+            }));
+            started.await();
+            Future<ResponseEntity<?>> retry = executor.submit(
+                () -> service.execute("u1", "key-1", "buyStock", Map.of("count", 5), this::trade));
+            release.countDown();
+
+            assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+            ResponseEntity<?> replayed = retry.get(5, TimeUnit.SECONDS);
+            assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+            assertEquals("{\"trade\":1}", replayed.getBody());
+            assertEquals(1, trades.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentRequestWithOtherBodyIsRejected() throws Exception {
+        AtomicReference<String> claimed = new AtomicReference<>();
+        when(repository.claim(anyString(), anyString(), anyString(), anyString())).thenAnswer(call -> {
+            return claimed.compareAndSet(null, call.getArgument(3)) ? 1 : 0;
+        });
+        Idempotency_key running = mock(Idempotency_key.class);
+        when(running.getFingerprint()).thenAnswer(call -> claimed.get());
+        when(running.getStatusCode()).thenReturn(0);
+        when(repository.findByKey("u1", "key-1")).thenReturn(running);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(() -> service.execute("u1", "key-1", "buyStock", Map.of("count", 5), () -> {
+                started.countDown();
+                await(release);
+                return trade();
+            }));
+            started.await();
+            ResponseEntity<?> other = service.execute("u1", "key-1", "buyStock", Map.of("count", 50), this::trade);
+            release.countDown();
+
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, other.getStatusCode());
+            assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(1, trades.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void withoutKeyEveryRequestTrades() {
+        service.execute("u1", null, "buyStock", Map.of("count", 5), this::trade);
+        service.execute("u1", null, "buyStock", Map.of("count", 5), this::trade);
+
+        assertEquals(2, trades.get());
+        verify(repository, never()).claim(anyString(), anyString(), anyString(), anyString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ResponseEntity<?> trade() {
+        return ResponseEntity.ok(Map.of("trade", trades.incrementAndGet()));
+    }
+}
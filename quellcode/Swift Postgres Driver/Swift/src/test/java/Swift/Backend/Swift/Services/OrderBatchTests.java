@@ -0,0 +1,160 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Repositories.BankaccountRepository;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.Orders_conditionRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Repositories.TransactionRepository;
+
+/**
+ * Batch execution of triggered orders against mocked repositories: one price read, one order query,
+ * one position query and one update marking the executed orders.
+ */
+class OrderBatchTests {
+
+    private Stock_priceRepository prices;
+    private TransactionRepository transactions;
+    private PortfolioRepository portfolio;
+    private BankaccountRepository bankaccounts;
+    private Bankaccount_balanceRepository balances;
+    private OrdersRepository orders;
+    private OrdersService ordersService;
+
+    @BeforeEach
+    void setUp() {
+        prices = mock(Stock_priceRepository.class);
+        transactions = mock(TransactionRepository.class);
+        portfolio = mock(PortfolioRepository.class);
+        bankaccounts = mock(BankaccountRepository.class);
+        balances = mock(Bankaccount_balanceRepository.class);
+        orders = mock(OrdersRepository.class);
+        // refresh disabled, every price lookup reads the (mocked) database
+        Service service = new Service(prices, transactions, portfolio, bankaccounts, balances, null, null, null,
+            new LatestPriceService(prices, 0, 5000, 0), null, null, null);
+        ordersService = new OrdersService(orders, mock(Orders_conditionRepository.class), prices, portfolio, service,
+            mock(OrderEventService.class), "22:00");
+
+        List<Stock_priceRepository.LatestStockPrice> latest = List.of(price(1L, 11L, 10.0));
+        when(prices.getLatestStockPrices(any())).thenReturn(latest);
+    }
+
+    @Test
+    void executesTriggeredOrdersTogether() {
+        List<OrdersRepository.ExecutableOrder> open = List.of(
+            order(1, "u1", false, "LIMIT", 3L, 0.0, 12.0, 0.0),
+            order(2, "u2", true, "LIMIT", 5L, 0.0, 8.0, 0.0),
+            order(3, "u3", false, "STOP", 1L, 0.0, 0.0, 15.0),
+            order(4, "u1", false, "LIMIT", 0L, 25.0, 12.0, 0.0));
+        when(orders.findOrdersForExecution(any())).thenReturn(open);
+        List<PortfolioRepository.PositionCount> held = List.of(position("u2", 2L));
+        when(portfolio.getCountsOfStock(eq(1L), any())).thenReturn(held);
+        when(balances.applyDelta("u1", -30.0)).thenReturn(70.0);
+        when(balances.applyDelta("u1", -20.0)).thenReturn(50.0);
+        when(transactions.insertAll(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of(100L, 101L));
+
+        OrdersService.BatchResult result = ordersService.executeOrderBatch(1L, List.of(1L, 2L, 3L, 4L, 5L));
+
+        // the seller only has 2 of 5 shares, the sale is rejected and not partly filled
+        assertEquals(List.of(1L, 4L), result.executed());
+        assertEquals(List.of(3L), result.conditionMissed());
+        assertEquals(Set.of(2L), result.rejected().keySet());
+        assertEquals("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!", result.rejected().get(2L));
+        // order 5 is no longer open
+        assertEquals(List.of(5L), result.closed());
+        assertEquals(Set.of("u1"), result.users());
+        verify(portfolio, never()).removeFromPosition(anyLong(), anyString(), anyLong());
+        verify(prices, times(1)).getLatestStockPrices(any());
+        verify(orders, times(1)).findOrdersForExecution(any());
+        verify(portfolio, never()).getCountofStock(anyLong(), anyString());
+        verify(portfolio, times(1)).addToPositions(aryEq(new String[] {"u1"}), aryEq(new long[] {1L}), aryEq(new long[] {11L}),
+            aryEq(new long[] {5L}), aryEq(new double[] {10.0}));
+        verify(orders, times(1)).markExecuted(aryEq(new long[] {1L, 4L}), eq(11L), eq(10.0));
+    }
+
+    @Test
+    void rejectedOrdersStayOpen() {
+        List<OrdersRepository.ExecutableOrder> open = List.of(order(1, "u1", false, "LIMIT", 3L, 0.0, 12.0, 0.0));
+        when(orders.findOrdersForExecution(any())).thenReturn(open);
+        when(balances.applyDelta("u1", -30.0)).thenReturn(null);
+
+        OrdersService.BatchResult result = ordersService.executeOrderBatch(1L, List.of(1L));
+
+        assertTrue(result.executed().isEmpty());
+        assertEquals("Nicht genug Guthaben auf dem Bankkonto.", result.rejected().get(1L));
+        verify(balances, times(1)).applyDelta(anyString(), anyDouble());
+        verify(orders, never()).markExecuted(any(), anyLong(), anyDouble());
+        verify(transactions, never()).insertAll(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void firedTrailingStopsAreCheckedAndStoredAtTheirStopLevel() {
+        List<OrdersRepository.ExecutableOrder> open = List.of(
+            order(1, "u1", false, "TRAILING_STOP", 2L, 0.0, 0.0, 0.0),
+            order(2, "u2", false, "TRAILING_STOP", 2L, 0.0, 0.0, 0.0));
+        when(orders.findOrdersForExecution(any())).thenReturn(open);
+        when(balances.applyDelta("u1", -20.0)).thenReturn(80.0);
+        when(transactions.insertAll(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of(100L));
+
+        // order 1 fired at 9.5, order 2 was not reported as fired by the engine
+        OrdersService.BatchResult result = ordersService.executeOrderBatch(1L, List.of(1L, 2L), Map.of(1L, 9.5));
+
+        assertEquals(List.of(1L), result.executed());
+        assertEquals(List.of(2L), result.conditionMissed());
+        verify(orders, times(1)).setStopPrices(aryEq(new long[] {1L}), aryEq(new double[] {9.5}));
+    }
+
+    private static OrdersRepository.ExecutableOrder order(long idOrder, String idUser, boolean bs, String orderType,
+            Long quantity, Double amount, Double limitPrice, Double stopPrice) {
+        OrdersRepository.ExecutableOrder order = mock(OrdersRepository.ExecutableOrder.class);
+        when(order.getIdOrder()).thenReturn(idOrder);
+        when(order.getIdUser()).thenReturn(idUser);
+        when(order.getIdStock()).thenReturn(1L);
+        when(order.getBs()).thenReturn(bs);
+        when(order.getOrderType()).thenReturn(orderType);
+        when(order.getQuantity()).thenReturn(quantity);
+        when(order.getAmount()).thenReturn(amount);
+        when(order.getLimitPrice()).thenReturn(limitPrice);
+        when(order.getStopPrice()).thenReturn(stopPrice);
+        return order;
+    }
+
+    private static PortfolioRepository.PositionCount position(String idUser, Long count) {
+        PortfolioRepository.PositionCount position = mock(PortfolioRepository.PositionCount.class);
+        when(position.getIdUser()).thenReturn(idUser);
+        when(position.getCount()).thenReturn(count);
+        return position;
+    }
+
+    private static Stock_priceRepository.LatestStockPrice price(long idStock, long idStockPrice, double price) {
+        Stock_priceRepository.LatestStockPrice latest = mock(Stock_priceRepository.LatestStockPrice.class);
+        when(latest.getIdStock()).thenReturn(idStock);
+        when(latest.getIdStockPrice()).thenReturn(idStockPrice);
+        when(latest.getPrice()).thenReturn(price);
+        when(latest.getDate()).thenReturn(LocalDateTime.of(2025, 7, 18, 18, 0));
+        return latest;
+    }
+}
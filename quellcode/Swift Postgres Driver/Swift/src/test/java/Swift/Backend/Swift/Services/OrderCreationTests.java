@@ -0,0 +1,65 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.DTO.OrderRequestDTO;
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.Orders_conditionRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+
+/**
+ * Creating orders against a mocked repository: the created listeners (engine, expiry).
+ */
+class OrderCreationTests {
+
+    private OrdersService ordersService;
+    private Orders saved;
+
+    @BeforeEach
+    void setUp() {
+        OrdersRepository orders = mock(OrdersRepository.class);
+        saved = mock(Orders.class);
+        when(saved.getId()).thenReturn(7L);
+        when(orders.save(any())).thenReturn(saved);
+        ordersService = new OrdersService(orders, mock(Orders_conditionRepository.class), mock(Stock_priceRepository.class),
+            mock(PortfolioRepository.class), mock(Service.class), mock(OrderEventService.class), "22:00");
+    }
+
+    @Test
+    void failingListenerDoesNotFailTheOrder() {
+        List<Orders> notified = new ArrayList<>();
+        ordersService.addCreatedListener((order, request) -> {
+            throw new IllegalStateException("Order-Engine nicht bereit");
+        });
+        ordersService.addCreatedListener((order, request) -> notified.add(order));
+
+        Orders order = ordersService.saveOrder("u1", marketOrder());
+
+        assertSame(saved, order);
+        assertEquals(List.of(saved), notified);
+    }
+
+    private static OrderRequestDTO marketOrder() {
+        OrderRequestDTO request = new OrderRequestDTO();
+        request.setIdStock(1L);
+        request.setBs(false);
+        request.setQuantity(5L);
+        request.setAmount(0.0);
+        request.setOrderType("MARKET");
+        request.setLimitPrice(0.0);
+        request.setStopPrice(0.0);
+        return request;
+    }
+}
@@ -0,0 +1,126 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Trading.PriceTick;
+
+/**
+ * Order execution by the engine with a mocked TradeService: orders that could not be executed are executed
+ * with a later price.
+ */
+class OrderEngineServiceTests {
+
+    private TradeService tradeService;
+    private OrderEngineService engine;
+
+    @BeforeEach
+    void setUp() {
+        tradeService = mock(TradeService.class);
+        OrdersRepository orders = mock(OrdersRepository.class);
+        when(orders.findOpenOrders()).thenReturn(List.of());
+        LatestPriceService prices = mock(LatestPriceService.class);
+        when(prices.getLatest(any())).thenReturn(Map.of());
+        engine = new OrderEngineService(orders, mock(OrdersService.class), tradeService, prices, true, 1, 500);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void failedBatchIsExecutedAtTheNextTick() throws Exception {
+        OrdersService.BatchResult executed = new OrdersService.BatchResult(List.of(7L), List.of(), Map.of(), List.of(), Set.of("u1"));
+        when(tradeService.executeOrders(eq(1L), eq(List.of(7L)), any()))
+            .thenThrow(new IllegalStateException("Der Saisonwechsel läuft, bitte später erneut versuchen."))
+            .thenReturn(executed);
+        engine.add(order(7L, "LIMIT"), 12.0, 0.0, null, null);
+
+        engine.onTick(tick(10.0));
+        verify(tradeService, timeout(5000).times(1)).executeOrders(eq(1L), eq(List.of(7L)), any());
+        // the order is back in the book once the failure was handled
+        awaitStat("openOrders", 1);
+
+        engine.onTick(tick(10.5));
+        verify(tradeService, timeout(5000).times(2)).executeOrders(eq(1L), eq(List.of(7L)), any());
+        awaitStat("executed", 1L);
+        assertEquals(0, engine.getStats().get("openOrders"));
+    }
+
+    @Test
+    void rejectedOrderGoesBackIntoTheBook() throws Exception {
+        OrdersService.BatchResult rejected = new OrdersService.BatchResult(List.of(), List.of(),
+            Map.of(7L, "Nicht genug Guthaben auf dem Bankkonto."), List.of(), Set.of());
+        OrdersService.BatchResult closed = new OrdersService.BatchResult(List.of(), List.of(), Map.of(), List.of(7L), Set.of());
+        when(tradeService.executeOrders(eq(1L), eq(List.of(7L)), any())).thenReturn(rejected, closed);
+        engine.add(order(7L, "LIMIT"), 12.0, 0.0, null, null);
+
+        engine.onTick(tick(10.0));
+        awaitStat("failed", 1L);
+        awaitStat("openOrders", 1);
+
+        // an order that is no longer open is dropped
+        engine.onTick(tick(10.0));
+        verify(tradeService, timeout(5000).times(2)).executeOrders(eq(1L), eq(List.of(7L)), any());
+        engine.stop();
+        assertEquals(0, engine.getStats().get("openOrders"));
+    }
+
+    @Test
+    void failedMarketOrderIsRetriedWithTheNextPrice() throws Exception {
+        when(tradeService.executeOrder(7L))
+            .thenThrow(new IllegalStateException("Der Saisonwechsel läuft, bitte später erneut versuchen."))
+            .thenReturn(7L);
+        engine.add(order(7L, "MARKET"), 0.0, 0.0, null, null);
+        awaitStat("failed", 1L);
+        awaitStat("openOrders", 1);
+
+        engine.onTick(tick(10.0));
+        verify(tradeService, timeout(5000).times(2)).executeOrder(anyLong());
+        awaitStat("executed", 1L);
+        assertEquals(0, engine.getStats().get("openOrders"));
+    }
+
+    private void awaitStat(String name, Object expected) throws InterruptedException {
+        Supplier<Object> actual = () -> engine.getStats().get(name);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(actual.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, actual.get());
+    }
+
+    private static Orders order(long idOrder, String orderType) {
+        Orders order = mock(Orders.class);
+        when(order.getId()).thenReturn(idOrder);
+        when(order.getIdStock()).thenReturn(1L);
+        when(order.getBs()).thenReturn(false);
+        when(order.getOrderType()).thenReturn(orderType);
+        return order;
+    }
+
+    private static PriceTick tick(double price) {
+        return new PriceTick(1L, 11L, price, LocalDateTime.of(2025, 7, 18, 18, 0));
+    }
+}
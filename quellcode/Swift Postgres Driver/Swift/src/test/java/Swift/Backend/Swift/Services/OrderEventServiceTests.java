@@ -0,0 +1,89 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import Swift.Backend.Swift.Trading.OrderEvent;
+
+/**
+ * Order events per user with bounded drop-oldest queues, written on the calling thread instead of the senders.
+ */
+class OrderEventServiceTests {
+
+    @Test
+    void eventsReachOnlyTheStreamsOfTheOrdersUser() {
+        OrderEventService events = new OrderEventService(true, 8, 4, 0, 1);
+        RecordingEmitter u1 = new RecordingEmitter();
+        RecordingEmitter u2 = new RecordingEmitter();
+        events.subscribe("u1", u1);
+        events.subscribe("u2", u2);
+
+        events.publish(event(OrderEvent.TRIGGERED, 1, "u1"));
+        events.publish(event(OrderEvent.EXECUTED, 1, "u1"));
+        events.publish(event(OrderEvent.EXPIRED, 2, "u3"));
+        events.sendReady();
+
+        assertEquals(List.of(OrderEvent.TRIGGERED, OrderEvent.EXECUTED), u1.names);
+        assertTrue(u2.names.isEmpty());
+    }
+
+    @Test
+    void slowStreamsLoseTheOldestEventsAndGetAnOverflow() {
+        OrderEventService events = new OrderEventService(true, 2, 4, 0, 1);
+        RecordingEmitter emitter = new RecordingEmitter();
+        events.subscribe("u1", emitter);
+
+        for (int i = 1; i <= 5; i++) {
+            events.publish(event(OrderEvent.CREATED, i, "u1"));
+        }
+        events.sendReady();
+
+        assertEquals(List.of(OrderEventService.OVERFLOW, OrderEvent.CREATED, OrderEvent.CREATED), emitter.names);
+        assertEquals(3L, events.getStats().get("dropped"));
+    }
+
+    @Test
+    void anotherStreamOverTheLimitClosesTheOldest() {
+        OrderEventService events = new OrderEventService(true, 8, 1, 0, 1);
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        events.subscribe("u1", first);
+        events.subscribe("u1", second);
+
+        events.publish(event(OrderEvent.CANCELLED, 1, "u1"));
+        events.sendReady();
+
+        assertTrue(first.names.isEmpty());
+        assertEquals(List.of(OrderEvent.CANCELLED), second.names);
+        Map<String, Object> stats = events.getStats();
+        assertEquals(1, stats.get("streams"));
+        assertEquals(1L, stats.get("closed"));
+    }
+
+    private static OrderEvent event(String type, long idOrder, String idUser) {
+        return OrderEvent.of(type, idOrder, idUser, 1L, null, null);
+    }
+
+    /**
+     * Records the event names instead of writing to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> names = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String event = builder.build().stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining());
+            int start = event.indexOf("event:") + "event:".length();
+            names.add(event.substring(start, event.indexOf('\n', start)));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.Orders_conditionRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Trading.PriceTick;
+
+/**
+ * Single order execution racing a batch execution or a cancel of the same order: the order is read with a lock and
+ * only marked as executed while it is still open, otherwise the trade is rolled back by the exception.
+ */
+class OrderExecutionTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 7, 18, 18, 0);
+
+    private OrdersRepository orders;
+    private Service service;
+    private OrderEventService events;
+    private OrdersService ordersService;
+
+    @BeforeEach
+    void setUp() {
+        orders = mock(OrdersRepository.class);
+        service = mock(Service.class);
+        events = mock(OrderEventService.class);
+        ordersService = new OrdersService(orders, mock(Orders_conditionRepository.class), mock(Stock_priceRepository.class),
+            mock(PortfolioRepository.class), service, events, "22:00");
+        when(service.getLatestPrice(1L)).thenReturn(new PriceTick(1L, 11L, 10.0, NOW));
+    }
+
+    @Test
+    void executesAnOpenOrderReadWithALock() {
+        when(orders.findOrderForUpdate(7L)).thenReturn(marketBuy());
+        when(orders.updateExecutedOrders(7L, 11L, 10.0)).thenReturn(1);
+
+        ordersService.executeOrder(7L);
+
+        verify(service, times(1)).buyStock(anyString(), any());
+        verify(orders, never()).findOrdersById(anyLong());
+        verify(events, times(1)).publishAfterCommit(any());
+    }
+
+    @Test
+    void orderExecutedByTheBatchInTheMeantimeRollsTheTradeBack() {
+        when(orders.findOrderForUpdate(7L)).thenReturn(marketBuy());
+        // the order was marked by another execution before this update, the guard leaves it untouched
+        when(orders.updateExecutedOrders(7L, 11L, 10.0)).thenReturn(0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> ordersService.executeOrder(7L));
+
+        assertEquals("Die Order ist nicht mehr offen.", e.getMessage());
+        verify(events, never()).publishAfterCommit(any());
+    }
+
+    @Test
+    void executedOrCancelledOrdersAreNotTradedAgain() {
+        Orders executed = marketBuy();
+        executed.setExecutedAt(NOW);
+        when(orders.findOrderForUpdate(7L)).thenReturn(executed);
+        Orders cancelled = marketBuy();
+        cancelled.setCancelledAt(NOW);
+        when(orders.findOrderForUpdate(8L)).thenReturn(cancelled);
+
+        assertThrows(IllegalStateException.class, () -> ordersService.executeOrder(7L));
+        assertThrows(IllegalStateException.class, () -> ordersService.executeOrder(8L));
+
+        verify(service, never()).buyStock(anyString(), any());
+        verify(orders, never()).updateExecutedOrders(anyLong(), anyLong(), anyDouble());
+    }
+
+    private static Orders marketBuy() {
+        return new Orders("u1", 1L, false, 2L, 0.0, "MARKET", NOW, NOW);
+    }
+}
@@ -0,0 +1,75 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Projections.OrderSummaryProjection;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.Orders_conditionRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+
+/**
+ * Keyset pagination of the order list against a mocked repository.
+ */
+class OrderListingTests {
+
+    private OrdersRepository orders;
+    private OrdersService ordersService;
+
+    @BeforeEach
+    void setUp() {
+        orders = mock(OrdersRepository.class);
+        ordersService = new OrdersService(orders, mock(Orders_conditionRepository.class), mock(Stock_priceRepository.class),
+            mock(PortfolioRepository.class), mock(Service.class), mock(OrderEventService.class), "22:00");
+    }
+
+    @Test
+    void firstPageFetchesOneMoreOrderForTheCursor() {
+        List<OrderSummaryProjection> found = List.of(order(9), order(7), order(4));
+        when(orders.findOrderPage("u1", Long.MAX_VALUE, 0L, "ALL", 3)).thenReturn(found);
+
+        OrdersService.OrderPage page = ordersService.getOrders("u1", null, null, null, 2);
+
+        assertEquals(2, page.orders().size());
+        assertEquals(7L, page.nextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        List<OrderSummaryProjection> found = List.of(order(4), order(2));
+        when(orders.findOrderPage("u1", 7L, 3L, "OPEN", 3)).thenReturn(found);
+
+        OrdersService.OrderPage page = ordersService.getOrders("u1", "open", 3L, 7L, 2);
+
+        assertEquals(2, page.orders().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void rejectsUnknownStatusAndOversizedPages() {
+        assertThrows(IllegalArgumentException.class, () -> ordersService.getOrders("u1", "DELETED", null, null, 50));
+        assertThrows(IllegalArgumentException.class,
+            () -> ordersService.getOrders("u1", null, null, null, OrdersService.MAX_PAGE_SIZE + 1));
+        verify(orders, never()).findOrderPage(anyString(), anyLong(), anyLong(), anyString(), anyInt());
+    }
+
+    private static OrderSummaryProjection order(long idOrder) {
+        OrderSummaryProjection order = mock(OrderSummaryProjection.class);
+        when(order.getIdOrder()).thenReturn(idOrder);
+        return order;
+    }
+}
@@ -0,0 +1,97 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Trading.PriceTick;
+
+/**
+ * Quotes against a mocked price table, the price cache is switched off so every quote reads the current price.
+ */
+class QuoteServiceTests {
+
+    private Stock_priceRepository prices;
+    private LatestPriceService latestPriceService;
+
+    @BeforeEach
+    void setUp() {
+        prices = mock(Stock_priceRepository.class);
+        latestPriceService = new LatestPriceService(prices, 0, 0, 0);
+        List<Stock_priceRepository.LatestStockPrice> latest = List.of(price(11L, 10.0));
+        when(prices.getLatestStockPrices(any())).thenReturn(latest);
+    }
+
+    @Test
+    void quotedPriceIsKeptWhenThePriceMoves() {
+        QuoteService quotes = new QuoteService(latestPriceService, "secret", 10, 100);
+        QuoteService.Quote quote = quotes.quote("u1", 1L, 5);
+        assertEquals(50.0, quote.amount());
+
+        List<Stock_priceRepository.LatestStockPrice> moved = List.of(price(12L, 12.0));
+        when(prices.getLatestStockPrices(any())).thenReturn(moved);
+        PriceTick tick = quotes.redeem(quote.quoteId(), "u1", 1L, 5);
+
+        assertEquals(10.0, tick.price());
+        assertEquals(11L, tick.idStockPrice());
+        assertEquals(LocalDateTime.of(2025, 7, 18, 18, 0), tick.date());
+    }
+
+    @Test
+    void quoteCanOnlyBeUsedOnce() {
+        QuoteService quotes = new QuoteService(latestPriceService, "secret", 10, 100);
+        String quoteId = quotes.quote("u1", 1L, 5).quoteId();
+        quotes.redeem(quoteId, "u1", 1L, 5);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> quotes.redeem(quoteId, "u1", 1L, 5));
+        assertEquals("Quote wurde bereits verwendet.", e.getMessage());
+    }
+
+    @Test
+    void quoteMustMatchUserStockAndCount() {
+        QuoteService quotes = new QuoteService(latestPriceService, "secret", 10, 100);
+        String quoteId = quotes.quote("u1", 1L, 5).quoteId();
+
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem(quoteId, "u2", 1L, 5));
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem(quoteId, "u1", 2L, 5));
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem(quoteId, "u1", 1L, 6));
+        // none of the failed attempts used up the quote
+        assertEquals(10.0, quotes.redeem(quoteId, "u1", 1L, 5).price());
+    }
+
+    @Test
+    void forgedOrExpiredQuotesAreRejected() throws InterruptedException {
+        QuoteService quotes = new QuoteService(latestPriceService, "secret", 10, 100);
+        String quoteId = quotes.quote("u1", 1L, 5).quoteId();
+        String forged = new QuoteService(latestPriceService, "other secret", 10, 100).quote("u1", 1L, 5).quoteId();
+
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem(forged, "u1", 1L, 5));
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem(quoteId.substring(0, quoteId.length() - 2), "u1", 1L, 5));
+        assertThrows(IllegalArgumentException.class, () -> quotes.redeem("garbage", "u1", 1L, 5));
+
+        QuoteService shortLived = new QuoteService(latestPriceService, "secret", 0, 100);
+        String expired = shortLived.quote("u1", 1L, 5).quoteId();
+        Thread.sleep(5);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> shortLived.redeem(expired, "u1", 1L, 5));
+        assertEquals("Quote abgelaufen, bitte neuen Kurs abfragen.", e.getMessage());
+        assertEquals(1L, shortLived.getStats().get("rejected"));
+    }
+
+    private static Stock_priceRepository.LatestStockPrice price(long idStockPrice, double price) {
+        Stock_priceRepository.LatestStockPrice latest = mock(Stock_priceRepository.LatestStockPrice.class);
+        when(latest.getIdStock()).thenReturn(1L);
+        when(latest.getIdStockPrice()).thenReturn(idStockPrice);
+        when(latest.getPrice()).thenReturn(price);
+        when(latest.getDate()).thenReturn(LocalDateTime.of(2025, 7, 18, 18, 0));
+        return latest;
+    }
+}
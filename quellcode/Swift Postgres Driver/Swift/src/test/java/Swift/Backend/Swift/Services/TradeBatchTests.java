@@ -0,0 +1,105 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.DTO.TradeLegDTO;
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Repositories.BankaccountRepository;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Repositories.TransactionRepository;
+
+/**
+ * Batch trades against mocked repositories: one price lookup, one balance update, all-or-nothing.
+ */
+class TradeBatchTests {
+
+    private Stock_priceRepository prices;
+    private TransactionRepository transactions;
+    private PortfolioRepository portfolio;
+    private BankaccountRepository bankaccounts;
+    private Bankaccount_balanceRepository balances;
+    private Service service;
+
+    @BeforeEach
+    void setUp() {
+        prices = mock(Stock_priceRepository.class);
+        transactions = mock(TransactionRepository.class);
+        portfolio = mock(PortfolioRepository.class);
+        bankaccounts = mock(BankaccountRepository.class);
+        balances = mock(Bankaccount_balanceRepository.class);
+        // refresh disabled, every price lookup reads the (mocked) database
+        service = new Service(prices, transactions, portfolio, bankaccounts, balances, null, null, null,
+            new LatestPriceService(prices, 0, 5000, 0), null, null, null);
+
+        List<Stock_priceRepository.LatestStockPrice> latest = List.of(price(1L, 11L, 10.0), price(2L, 21L, 50.0));
+        when(prices.getLatestStockPrices(any())).thenReturn(latest);
+        PortfolioRepository.PortfolioGroup position = mock(PortfolioRepository.PortfolioGroup.class);
+        when(position.getIdStock()).thenReturn(2L);
+        when(position.getCount()).thenReturn(4L);
+        when(portfolio.findPortfolioGroupByIdUser("u1")).thenReturn(List.of(position));
+    }
+
+    @Test
+    void executesAllLegsWithOneBalanceUpdate() {
+        when(balances.getCurrentWorth("u1")).thenReturn(100.0);
+        when(balances.applyDelta("u1", 120.0)).thenReturn(220.0);
+        when(portfolio.removeFromPosition(2L, "u1", 4L)).thenReturn(1);
+
+        List<TradeLegDTO> legs = service.tradeBatch("u1", List.of(leg(1, 3, false), leg(2, 4, true), leg(1, 5, false)));
+
+        assertEquals(3, legs.size());
+        legs.forEach(leg -> assertEquals(TradeLegDTO.EXECUTED, leg.getStatus()));
+        verify(prices, times(1)).getLatestStockPrices(any());
+        verify(balances, times(1)).applyDelta("u1", 120.0);
+        verify(portfolio, times(1)).addToPosition("u1", 1L, 11L, 8L, 10.0);
+        verify(bankaccounts, times(1)).save(any());
+    }
+
+    @Test
+    void rejectsWholeBatchWithoutWriting() {
+        when(balances.getCurrentWorth("u1")).thenReturn(100.0);
+
+        TradeBatchException e = assertThrows(TradeBatchException.class,
+            () -> service.tradeBatch("u1", List.of(leg(1, 20, false), leg(2, 5, true), leg(3, 1, false))));
+
+        assertEquals(TradeLegDTO.REJECTED, e.getLegs().get(0).getStatus());
+        assertEquals(TradeLegDTO.REJECTED, e.getLegs().get(1).getStatus());
+        assertEquals(TradeLegDTO.REJECTED, e.getLegs().get(2).getStatus());
+        verify(transactions, never()).saveAll(any());
+        verify(balances, never()).applyDelta(anyString(), anyDouble());
+        verify(portfolio, never()).removeFromPosition(anyLong(), anyString(), anyLong());
+    }
+
+    private static Transaction leg(long idStock, long count, boolean bs) {
+        Transaction transaction = new Transaction(idStock, count);
+        transaction.setBs(bs);
+        return transaction;
+    }
+
+    private static Stock_priceRepository.LatestStockPrice price(long idStock, long idStockPrice, double price) {
+        Stock_priceRepository.LatestStockPrice latest = mock(Stock_priceRepository.LatestStockPrice.class);
+        when(latest.getIdStock()).thenReturn(idStock);
+        when(latest.getIdStockPrice()).thenReturn(idStockPrice);
+        when(latest.getPrice()).thenReturn(price);
+        when(latest.getDate()).thenReturn(LocalDateTime.of(2025, 7, 18, 18, 0));
+        return latest;
+    }
+}
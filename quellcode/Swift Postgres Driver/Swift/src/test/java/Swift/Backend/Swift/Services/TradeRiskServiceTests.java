@@ -0,0 +1,82 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+
+/**
+ * Pre-trade checks against a mocked balance (1000) and position (10 shares of stock 2).
+ */
+class TradeRiskServiceTests {
+
+    private Bankaccount_balanceRepository balances;
+    private PortfolioRepository portfolio;
+    private TradeRiskService risk;
+
+    @BeforeEach
+    void setUp() {
+        balances = mock(Bankaccount_balanceRepository.class);
+        portfolio = mock(PortfolioRepository.class);
+        when(balances.getCurrentWorth("u1")).thenReturn(1000.0);
+        PortfolioRepository.PortfolioGroup position = mock(PortfolioRepository.PortfolioGroup.class);
+        when(position.getIdStock()).thenReturn(2L);
+        when(position.getCount()).thenReturn(10L);
+        when(portfolio.findPortfolioGroupByIdUser("u1")).thenReturn(List.of(position));
+        risk = new TradeRiskService(balances, portfolio, true, 500, 0);
+    }
+
+    @Test
+    void rejectsOversellAndMissingFundsWithoutWriting() {
+        IllegalStateException oversell = assertThrows(IllegalStateException.class, () -> risk.check("u1", 2L, 11, 110.0, true));
+        IllegalStateException funds = assertThrows(IllegalStateException.class, () -> risk.check("u1", 1L, 10, 1000.0, false));
+
+        assertEquals("Es wird versucht mehr Aktien zu verkaufen als im Portfolio überhaupt vorhanden sind!", oversell.getMessage());
+        assertEquals("Nicht genug Guthaben auf dem Bankkonto.", funds.getMessage());
+        risk.check("u1", 2L, 10, 100.0, true);
+        risk.check("u1", 1L, 9, 999.0, false);
+        // the account was read once, all checks ran against memory
+        verify(balances, times(1)).getCurrentWorth("u1");
+    }
+
+    @Test
+    void rejectsOrderSize() {
+        assertThrows(IllegalArgumentException.class, () -> risk.check("u1", 1L, 0, 0.0, false));
+        assertThrows(IllegalArgumentException.class, () -> risk.check("u1", 1L, 501, 5.0, false));
+        assertEquals(2L, risk.getStats().get("rejectedSize"));
+    }
+
+    @Test
+    void recordedTradesKeepStateUpToDate() {
+        risk.check("u1", 2L, 10, 100.0, true);
+        risk.record("u1", 2L, 10, 100.0, true);
+        assertThrows(IllegalStateException.class, () -> risk.check("u1", 2L, 1, 10.0, true));
+
+        // 1000 + 100 from the sale
+        risk.check("u1", 1L, 1, 1099.0, false);
+        risk.record("u1", 1L, 1, 1099.0, false);
+        assertThrows(IllegalStateException.class, () -> risk.check("u1", 1L, 1, 1.0, false));
+        risk.check("u1", 1L, 1, 1.0, true);
+
+        risk.invalidate("u1");
+        risk.check("u1", 2L, 10, 100.0, true);
+        verify(balances, times(2)).getCurrentWorth("u1");
+    }
+
+    @Test
+    void userWithoutBankAccountIsRejected() {
+        when(balances.getCurrentWorth("nobody")).thenReturn(null);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> risk.check("nobody", 1L, 1, 1.0, false));
+        assertEquals("Kein Bankkonto vorhanden.", e.getMessage());
+    }
+}
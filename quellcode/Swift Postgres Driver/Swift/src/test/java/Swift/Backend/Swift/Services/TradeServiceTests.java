@@ -0,0 +1,207 @@
+package Swift.Backend.Swift.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Entities.Orders;
+import Swift.Backend.Swift.Entities.Transaction;
+import Swift.Backend.Swift.Repositories.BankaccountRepository;
+import Swift.Backend.Swift.Repositories.Bankaccount_balanceRepository;
+import Swift.Backend.Swift.Repositories.OrdersRepository;
+import Swift.Backend.Swift.Repositories.PortfolioRepository;
+import Swift.Backend.Swift.Repositories.Stock_priceRepository;
+import Swift.Backend.Swift.Repositories.TransactionRepository;
+
+/**
+ * Trades through TradeService: the season change gate with a mocked Service, concurrent buys of one user with the
+ * real Service and risk check against mocked repositories, journaled order execution.
+ */
+class TradeServiceTests {
+
+    private Service service;
+    private TradeService tradeService;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        service = mock(Service.class);
+        // journal, group commit and sequencer disabled, trades go to Service under the user's lock
+        tradeService = new TradeService(service, mock(OrdersService.class), mock(OrdersRepository.class),
+            mock(TradeJournalService.class), mock(TradeGroupCommitService.class), mock(TradeRiskService.class),
+            mock(TradeSequencerService.class), 16, 2000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentBuysOfOneUserDoNotSpendTwice() throws Exception {
+        Stock_priceRepository prices = mock(Stock_priceRepository.class);
+        PortfolioRepository portfolio = mock(PortfolioRepository.class);
+        Bankaccount_balanceRepository balances = mock(Bankaccount_balanceRepository.class);
+        List<Stock_priceRepository.LatestStockPrice> latest = List.of(price(1L, 11L, 60.0));
+        when(prices.getLatestStockPrices(any())).thenReturn(latest);
+
+        // the balance is read, checked and written back with a pause in between, overlapping buys would both pass
+        double[] balance = {100.0};
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(balances.getCurrentWorth("u1")).thenAnswer(call -> balance[0]);
+        when(balances.applyDelta(eq("u1"), anyDouble())).thenAnswer(call -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                double next = balance[0] + (double) call.getArgument(1);
+                Thread.sleep(50);
+                if (next <= 0) {
+                    return null;
+                }
+                balance[0] = next;
+                return next;
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+
+        TradeRiskService risk = new TradeRiskService(balances, portfolio, true, 100000, 0);
+        Service real = new Service(prices, mock(TransactionRepository.class), portfolio, mock(BankaccountRepository.class),
+            balances, null, null, null, new LatestPriceService(prices, 0, 5000, 0), null, null, risk);
+        TradeService trades = new TradeService(real, mock(OrdersService.class), mock(OrdersRepository.class),
+            mock(TradeJournalService.class), mock(TradeGroupCommitService.class), risk, mock(TradeSequencerService.class),
+            16, 2000, 100);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Transaction>> buys = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            buys.add(executor.submit(() -> {
+                start.await();
+                Transaction transaction = new Transaction();
+                transaction.setIdStock(1L);
+                transaction.setCount(1L);
+                return trades.buyStock("u1", transaction);
+            }));
+        }
+        start.countDown();
+
+        int filled = 0;
+        int rejected = 0;
+        for (Future<Transaction> buy : buys) {
+            try {
+                buy.get(5, TimeUnit.SECONDS);
+                filled++;
+            } catch (ExecutionException e) {
+                assertEquals("Nicht genug Guthaben auf dem Bankkonto.", e.getCause().getMessage());
+                rejected++;
+            }
+        }
+        assertEquals(1, filled);
+        assertEquals(1, rejected);
+        assertEquals(40.0, balance[0]);
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void tradesAreRejectedDuringSeasonChange() throws Exception {
+        Transaction transaction = new Transaction();
+        when(service.buyStock(eq("u1"), any())).thenReturn(transaction);
+
+        tradeService.closeForSeasonChange(Duration.ofSeconds(1));
+        // from another thread, the season change itself could still trade
+        Future<Transaction> rejected = executor.submit(() -> tradeService.buyStock("u1", transaction));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertEquals(IllegalStateException.class, e.getCause().getClass());
+        verify(service, never()).buyStock(any(), any());
+
+        tradeService.reopenAfterSeasonChange();
+        assertSame(transaction, tradeService.buyStock("u1", transaction));
+    }
+
+    @Test
+    void seasonChangeWaitsForRunningTrade() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Transaction transaction = new Transaction();
+        when(service.sellStock(eq("u1"), any())).thenAnswer(call -> {
+            started.countDown();
+            release.await();
+            return transaction;
+        });
+        Future<Transaction> running = executor.submit(() -> tradeService.sellStock("u1", transaction));
+        started.await();
+
+        // the trade has not finished yet
+        assertThrows(IllegalStateException.class, () -> tradeService.closeForSeasonChange(Duration.ofMillis(50)));
+
+        release.countDown();
+        assertSame(transaction, running.get(5, TimeUnit.SECONDS));
+        tradeService.closeForSeasonChange(Duration.ofSeconds(1));
+        tradeService.reopenAfterSeasonChange();
+        assertEquals(transaction, tradeService.sellStock("u1", transaction));
+    }
+
+    @Test
+    void journaledOrdersReportTheirUsers() {
+        OrdersService orders = mock(OrdersService.class);
+        OrdersRepository repository = mock(OrdersRepository.class);
+        TradeJournalService journal = mock(TradeJournalService.class);
+        when(journal.isEnabled()).thenReturn(true);
+        Orders first = order(1L, "u1");
+        Orders second = order(2L, "u2");
+        when(repository.findOrdersById(1L)).thenReturn(first);
+        when(repository.findOrdersById(2L)).thenReturn(second);
+        when(orders.executeOrder(2L)).thenThrow(new OrderConditionException("current_stock_price higher as the Limit-Buy_price"));
+        TradeService trades = new TradeService(service, orders, repository, journal, mock(TradeGroupCommitService.class),
+            mock(TradeRiskService.class), mock(TradeSequencerService.class), 16, 2000, 100);
+
+        // order 3 does not exist
+        OrdersService.BatchResult result = trades.executeOrders(1L, List.of(1L, 2L, 3L), Map.of());
+
+        assertEquals(List.of(1L), result.executed());
+        assertEquals(List.of(2L), result.conditionMissed());
+        assertEquals(List.of(3L), result.closed());
+        assertEquals(Set.of("u1"), result.users());
+    }
+
+    private static Orders order(long idOrder, String idUser) {
+        Orders order = mock(Orders.class);
+        when(order.getId()).thenReturn(idOrder);
+        when(order.getIdUser()).thenReturn(idUser);
+        return order;
+    }
+
+    private static Stock_priceRepository.LatestStockPrice price(long idStock, long idStockPrice, double price) {
+        Stock_priceRepository.LatestStockPrice latest = mock(Stock_priceRepository.LatestStockPrice.class);
+        when(latest.getIdStock()).thenReturn(idStock);
+        when(latest.getIdStockPrice()).thenReturn(idStockPrice);
+        when(latest.getPrice()).thenReturn(price);
+        when(latest.getDate()).thenReturn(LocalDateTime.of(2025, 7, 18, 18, 0));
+        return latest;
+    }
+}
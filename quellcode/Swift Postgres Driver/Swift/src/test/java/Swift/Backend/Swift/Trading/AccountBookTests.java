@@ -0,0 +1,50 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks of the in-memory account book used by the journaled trades.
+ */
+class AccountBookTests {
+
+    @Test
+    void buyNeedsPositiveBalanceAfterwards() {
+        AccountBook.Account account = new AccountBook.Account(100.0, Map.of());
+
+        assertFalse(account.buy(1, 10, 100.0));
+        assertTrue(account.buy(1, 9, 90.0));
+        assertEquals(10.0, account.getBalance(), 1e-9);
+        assertEquals(9, account.getShares(1));
+    }
+
+    @Test
+    void sellNeedsEnoughShares() {
+        AccountBook.Account account = new AccountBook.Account(100.0, Map.of(1L, 5L));
+
+        assertFalse(account.sell(1, 6, 60.0));
+        assertTrue(account.sell(1, 5, 50.0));
+        assertEquals(150.0, account.getBalance(), 1e-9);
+        assertEquals(0, account.getShares(1));
+    }
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        AccountBook book = new AccountBook();
+        AtomicInteger loads = new AtomicInteger();
+
+        book.get("user-1", id -> { loads.incrementAndGet(); return new AccountBook.Account(100.0, Map.of()); });
+        book.get("user-1", id -> { loads.incrementAndGet(); return new AccountBook.Account(100.0, Map.of()); });
+        assertEquals(1, loads.get());
+
+        book.invalidate("user-1");
+        book.get("user-1", id -> { loads.incrementAndGet(); return new AccountBook.Account(100.0, Map.of()); });
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,53 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bounded FIFO that drops its oldest elements when full and counts them until the next drain.
+ */
+class DropOldestQueueTests {
+
+    @Test
+    void keepsTheNewestElementsInOrder() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(3);
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(queue.offer(i));
+        }
+        assertTrue(queue.offer(4));
+        assertTrue(queue.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(List.of(3, 4, 5), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void drainResetsTheDroppedCountAndWrapsAround() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(2);
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+        queue.drainTo(new ArrayList<>());
+
+        List<Integer> drained = new ArrayList<>();
+        queue.offer(4);
+        assertEquals(0, queue.drainTo(drained));
+        assertEquals(List.of(4), drained);
+
+        drained.clear();
+        for (int i = 5; i <= 11; i++) {
+            queue.offer(i);
+        }
+        assertEquals(2, queue.size());
+        assertEquals(5, queue.drainTo(drained));
+        assertEquals(List.of(10, 11), drained);
+    }
+}
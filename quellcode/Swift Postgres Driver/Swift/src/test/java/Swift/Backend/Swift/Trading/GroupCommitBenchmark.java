@@ -0,0 +1,139 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Trade throughput with direct persistence (one transaction per trade) and with group commit.
+ * The database is simulated: every statement waits 0.1 ms on one of 10 pooled connections and every commit
+ * flushes the WAL for 1 ms; WAL flushes are serialized, like on a single disk.
+ * A direct trade runs 4 statements and a commit, a grouped trade runs 2 statements and shares
+ * the 2 insert statements and the commit with the rest of its group.
+ *
+ * Run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class GroupCommitBenchmark {
+
+    private static final int TRADES_PER_THREAD = 100;
+    private static final long STATEMENT_NANOS = 100_000;
+    private static final long COMMIT_NANOS = 1_000_000;
+    private static final int CONNECTIONS = 10;
+    private static final int[] THREADS = {1, 4, 16, 32};
+
+    private final Semaphore connections = new Semaphore(CONNECTIONS);
+    private final ReentrantLock wal = new ReentrantLock();
+
+    @Test
+    void directVersusGroupCommit() throws Exception {
+        System.out.printf("%d trades per thread, %.1f ms per statement, %.1f ms per commit%n",
+            TRADES_PER_THREAD, STATEMENT_NANOS / 1e6, COMMIT_NANOS / 1e6);
+        for (int threads : THREADS) {
+            run("direct", threads, null);
+        }
+        for (int threads : THREADS) {
+            try (GroupCommitter<Integer> committer = new GroupCommitter<>("benchmark-commit", 64, Duration.ofMillis(2),
+                    Duration.ofSeconds(30), this::commitGroup)) {
+                run("group", threads, committer);
+                System.out.println("      " + committer.stats());
+            }
+        }
+    }
+
+    private void run(String mode, int threads, GroupCommitter<Integer> committer) throws Exception {
+        LongAdder trades = new LongAdder();
+        long begin = System.nanoTime();
+        runConcurrently(threads, i -> {
+            for (int n = 0; n < TRADES_PER_THREAD; n++) {
+                if (committer == null) {
+                    commitDirect();
+                } else {
+                    committer.submit(n);
+                }
+                trades.increment();
+            }
+        });
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals((long) threads * TRADES_PER_THREAD, trades.sum());
+        System.out.printf("  %-6s %2d threads: %8.0f trades/s%n", mode, threads, trades.sum() / (elapsed / 1e9));
+    }
+
+    // balance, position, transaction row, ledger row, commit
+    private void commitDirect() throws InterruptedException {
+        connections.acquire();
+        try {
+            statements(4);
+            commit();
+        } finally {
+            connections.release();
+        }
+    }
+
+    // balance and position per trade, one insert each for transactions and ledger rows, one commit
+    private void commitGroup(List<Integer> group) {
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        try {
+            statements(2 * group.size() + 2);
+            commit();
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static void statements(int count) {
+        LockSupport.parkNanos(count * STATEMENT_NANOS);
+    }
+
+    private void commit() {
+        wal.lock();
+        try {
+            LockSupport.parkNanos(COMMIT_NANOS);
+        } finally {
+            wal.unlock();
+        }
+    }
+
+    private static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(n);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,108 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Grouping, failure isolation and shutdown of the group committer.
+ */
+class GroupCommitterTests {
+
+    @Test
+    void concurrentSubmitsShareCommits() throws Exception {
+        List<List<Integer>> commits = new CopyOnWriteArrayList<>();
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>("test-commit", 64, Duration.ofMillis(20),
+                Duration.ofSeconds(5), group -> {
+                    commits.add(List.copyOf(group));
+                    LockSupport.parkNanos(5_000_000);
+                })) {
+            submitConcurrently(committer, 16);
+        }
+
+        assertEquals(16, commits.stream().mapToInt(List::size).sum());
+        assertTrue(commits.size() < 16, "expected shared commits, got " + commits);
+    }
+
+    @Test
+    void failingItemOnlyFailsItsOwnSubmitter() throws Exception {
+        List<Integer> committed = new CopyOnWriteArrayList<>();
+        CountDownLatch queued = new CountDownLatch(1);
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>("test-commit", 64, Duration.ofMillis(200),
+                Duration.ofSeconds(5), group -> {
+                    if (group.contains(13)) {
+                        throw new IllegalStateException("bad item");
+                    }
+                    committed.addAll(group);
+                })) {
+            ExecutorService pool = Executors.newFixedThreadPool(3);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int item : new int[] {1, 13, 2}) {
+                futures.add(pool.submit(() -> {
+                    queued.await();
+                    committer.submit(item);
+                    return null;
+                }));
+            }
+            queued.countDown();
+
+            int failures = 0;
+            for (Future<?> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertEquals("bad item", e.getCause().getMessage());
+                    failures++;
+                }
+            }
+            pool.shutdown();
+
+            assertEquals(1, failures);
+            assertEquals(List.of(1, 2), committed.stream().sorted().toList());
+            assertEquals(1L, committer.stats().get("failed"));
+        }
+    }
+
+    @Test
+    void closedCommitterRejectsNewItems() {
+        GroupCommitter<Integer> committer = new GroupCommitter<>("test-commit", 8, Duration.ZERO, Duration.ofSeconds(5), group -> {});
+        committer.submit(1);
+        committer.close();
+
+        assertThrows(IllegalStateException.class, () -> committer.submit(2));
+        assertEquals(1L, committer.stats().get("committed"));
+    }
+
+    private static void submitConcurrently(GroupCommitter<Integer> committer, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int item = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                committer.submit(item);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
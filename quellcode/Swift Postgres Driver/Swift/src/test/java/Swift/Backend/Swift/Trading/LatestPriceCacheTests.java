@@ -0,0 +1,87 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Publishing, watermark and staleness bound of the latest-price cache with a manual clock.
+ */
+class LatestPriceCacheTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 7, 18, 18, 0);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final LatestPriceCache cache = new LatestPriceCache(Duration.ofSeconds(5), Duration.ofSeconds(3), clock::get);
+
+    @Test
+    void servesNothingBeforeFirstRefresh() {
+        cache.publish(new PriceTick(1, 10, 100.0, T0));
+
+        assertNull(cache.get(1));
+        assertEquals(1L, cache.stats().get("staleMisses"));
+    }
+
+    @Test
+    void keepsTheMostRecentTick() {
+        cache.publish(new PriceTick(1, 11, 101.0, T0.plusSeconds(1)));
+        cache.publish(new PriceTick(1, 10, 100.0, T0));
+        cache.markRefreshed();
+
+        assertEquals(101.0, cache.get(1).price());
+
+        cache.publish(new PriceTick(1, 12, 102.0, T0.plusSeconds(2)));
+        assertEquals(12, cache.get(1).idStockPrice());
+        assertEquals(1.0, cache.stats().get("hitRate"));
+    }
+
+    @Test
+    void reportsMissWhenRefresherFallsBehind() {
+        cache.publish(new PriceTick(1, 10, 100.0, T0));
+        cache.markRefreshed();
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals(100.0, cache.get(1).price());
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertNull(cache.get(1));
+
+        cache.markRefreshed();
+        assertEquals(100.0, cache.get(1).price());
+        assertEquals(4000.0, cache.stats().get("maxServedAgeMillis"));
+    }
+
+    @Test
+    void watermarkOnlyMovesForward() {
+        cache.advanceWatermark(50);
+        cache.advanceWatermark(40);
+
+        assertEquals(50, cache.watermark());
+    }
+
+    @Test
+    void refreshReadsAgainFromWatermarkBeforeOverlap() {
+        assertEquals(0, cache.refreshFrom());
+        cache.advanceWatermark(10);
+        cache.markRefreshed();
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.advanceWatermark(20);
+        cache.markRefreshed();
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.advanceWatermark(30);
+        cache.markRefreshed();
+        // no refresh is 3 seconds old yet, read from the oldest one
+        assertEquals(10, cache.refreshFrom());
+
+        clock.addAndGet(Duration.ofMillis(2500).toNanos());
+        // the refreshes at watermark 10 and 20 are older than 3 seconds, the newer of them counts
+        assertEquals(20, cache.refreshFrom());
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(30, cache.refreshFrom());
+    }
+}
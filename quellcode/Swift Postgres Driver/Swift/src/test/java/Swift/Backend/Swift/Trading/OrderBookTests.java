@@ -0,0 +1,76 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Matching of LIMIT and STOP orders against new prices.
+ */
+class OrderBookTests {
+
+    private static final boolean BUY = false;
+    private static final boolean SELL = true;
+    private static final boolean LIMIT = false;
+    private static final boolean STOP = true;
+
+    @Test
+    void eachOrderTypeFiresFromItsSide() {
+        OrderBook book = new OrderBook();
+        book.add(new OrderTrigger(1, 7, BUY, LIMIT, 90));
+        book.add(new OrderTrigger(2, 7, SELL, LIMIT, 110));
+        book.add(new OrderTrigger(3, 7, BUY, STOP, 120));
+        book.add(new OrderTrigger(4, 7, SELL, STOP, 80));
+
+        assertTrue(book.match(7, 100).isEmpty());
+        assertEquals(List.of(2L), ids(book.match(7, 110)));
+        assertEquals(List.of(3L), ids(book.match(7, 125)));
+        assertEquals(List.of(1L, 4L), ids(book.match(7, 75)));
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void onlyCrossedOrdersFireClosestThresholdFirst() {
+        OrderBook book = new OrderBook();
+        for (int i = 1; i <= 10; i++) {
+            book.add(new OrderTrigger(i, 7, SELL, LIMIT, 100 + i));
+        }
+        book.add(new OrderTrigger(99, 8, SELL, LIMIT, 101));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(book.match(7, 103.5)));
+        assertEquals(8, book.size());
+        assertEquals(List.of(4L), ids(book.match(7, 104)));
+        assertTrue(book.match(9, 1_000).isEmpty());
+    }
+
+    @Test
+    void removedOrdersDoNotFire() {
+        OrderBook book = new OrderBook();
+        book.add(new OrderTrigger(1, 7, BUY, LIMIT, 90));
+        book.add(new OrderTrigger(2, 7, BUY, LIMIT, 90));
+
+        assertTrue(book.remove(1));
+        assertFalse(book.remove(1));
+        assertEquals(List.of(2L), ids(book.match(7, 90)));
+        assertTrue(book.stocks().isEmpty());
+    }
+
+    @Test
+    void addingAnOrderAgainReplacesIt() {
+        OrderBook book = new OrderBook();
+        book.add(new OrderTrigger(1, 7, BUY, LIMIT, 90));
+        book.add(new OrderTrigger(1, 7, BUY, LIMIT, 50));
+
+        assertEquals(1, book.size());
+        assertTrue(book.match(7, 80).isEmpty());
+        assertEquals(List.of(1L), ids(book.match(7, 50)));
+    }
+
+    private static List<Long> ids(List<OrderTrigger> triggers) {
+        return triggers.stream().map(OrderTrigger::idOrder).toList();
+    }
+}
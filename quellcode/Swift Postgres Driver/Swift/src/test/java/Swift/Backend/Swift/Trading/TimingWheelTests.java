@@ -0,0 +1,103 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Deadlines in the hierarchical timing wheel: due at (never before) the deadline, across all wheels and the overflow.
+ */
+class TimingWheelTests {
+
+    @Test
+    void idsAreDueOnceTheirDeadlineTickHasPassed() {
+        TimingWheel wheel = new TimingWheel(1000, 10_000);
+        wheel.schedule(1, 12_500);
+        wheel.schedule(2, 12_000);
+        wheel.schedule(3, 9_000);
+
+        assertEquals(List.of(3L), advance(wheel, 10_000));
+        assertEquals(List.of(2L), advance(wheel, 12_000));
+        assertTrue(advance(wheel, 12_999).isEmpty());
+        assertEquals(List.of(1L), advance(wheel, 13_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledIdsAreNotDueAtTheOldDeadline() {
+        TimingWheel wheel = new TimingWheel(1, 0);
+        wheel.schedule(1, 100);
+        wheel.schedule(2, 100);
+        wheel.schedule(2, 5_000);
+
+        assertTrue(wheel.cancel(1));
+        assertFalse(wheel.cancel(1));
+        assertTrue(advance(wheel, 4_999).isEmpty());
+        assertEquals(List.of(2L), advance(wheel, 5_000));
+    }
+
+    @Test
+    void dayOrdersAtTheSameCloseAreDueTogether() {
+        TimingWheel wheel = new TimingWheel(1000, 0);
+        long close = 8 * 3_600_000L;
+        for (long id = 1; id <= 1_000; id++) {
+            wheel.schedule(id, close);
+        }
+        wheel.schedule(1_001, close + 1_000);
+
+        assertTrue(advance(wheel, close - 1).isEmpty());
+        assertEquals(1_000, advance(wheel, close).size());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void matchesTheDeadlinesAcrossAllWheelsAndTheOverflow() {
+        Random random = new Random(5);
+        long now = 123_456;
+        TimingWheel wheel = new TimingWheel(1, now);
+        Map<Long, Long> deadlines = new HashMap<>();
+        long nextId = 1;
+        // deadlines up to 2^25 ticks ahead, beyond the 2^24 ticks the four wheels cover
+        while (now < 123_456 + (1L << 26)) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                long deadline = now + (long) (random.nextDouble() * random.nextDouble() * (1L << 25));
+                wheel.schedule(nextId, deadline);
+                deadlines.put(nextId++, deadline);
+            }
+            if (random.nextInt(4) == 0 && !deadlines.isEmpty()) {
+                long id = deadlines.keySet().iterator().next();
+                deadlines.remove(id);
+                assertTrue(wheel.cancel(id));
+            }
+            now += random.nextInt(100_000);
+
+            List<Long> expected = new ArrayList<>();
+            for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() <= now) {
+                    expected.add(entry.getKey());
+                }
+            }
+            expected.forEach(deadlines::remove);
+            List<Long> due = advance(wheel, now);
+            due.sort(null);
+            expected.sort(null);
+            assertEquals(expected, due);
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+
+    private static List<Long> advance(TimingWheel wheel, long now) {
+        List<Long> due = new ArrayList<>();
+        int count = wheel.advance(now, due::add);
+        assertEquals(count, due.size());
+        return due;
+    }
+}
@@ -0,0 +1,119 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Append, recovery after a crash and reset of the memory-mapped trade journal.
+ */
+class TradeJournalTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 7, 18, 18, 11, 8, 11_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversAppendedEntriesAfterReopen() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            journal.recover();
+            assertEquals(1, journal.append(entry("user-1", false, 5)).seq());
+            assertEquals(2, journal.append(entry("user-2", true, 3)).seq());
+        }
+
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            List<JournalEntry> entries = journal.recover();
+
+            assertEquals(2, entries.size());
+            assertEquals(entry("user-1", false, 5).withSeq(1), entries.get(0));
+            assertEquals(entry("user-2", true, 3).withSeq(2), entries.get(1));
+            assertEquals(3, journal.append(entry("user-1", false, 1)).seq());
+        }
+    }
+
+    @Test
+    void stopsAtTornRecord() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            journal.recover();
+            journal.append(entry("user-1", false, 5));
+            journal.append(entry("user-1", false, 6));
+        }
+        // damage the last byte of the second record's payload
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long recordSize = firstRecordSize(raf);
+            raf.seek(2 * recordSize - Integer.BYTES - 1);
+            raf.write(0x7f);
+        }
+
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            List<JournalEntry> entries = journal.recover();
+            assertEquals(1, entries.size());
+            assertEquals(2, journal.append(entry("user-1", false, 7)).seq());
+        }
+    }
+
+    @Test
+    void resetsOnlyWhenEverythingIsPersisted() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            journal.recover();
+            journal.append(entry("user-1", false, 5));
+            journal.append(entry("user-1", false, 6));
+
+            assertFalse(journal.resetIfPersisted(1));
+            assertTrue(journal.resetIfPersisted(2));
+            assertEquals(3, journal.append(entry("user-1", false, 7)).seq());
+        }
+
+        // old records behind the reset must not come back
+        try (TradeJournal journal = new TradeJournal(file, 64 * 1024, false)) {
+            List<JournalEntry> entries = journal.recover();
+            assertEquals(1, entries.size());
+            assertEquals(3, entries.get(0).seq());
+        }
+    }
+
+    @Test
+    void reportsFullJournal() throws Exception {
+        try (TradeJournal journal = new TradeJournal(dir.resolve("journal.dat"), 256, false)) {
+            journal.recover();
+            int appended = 0;
+            while (journal.append(entry("user-1", false, 1)) != null) {
+                appended++;
+            }
+            assertTrue(appended > 0);
+            assertNull(journal.append(entry("user-1", false, 1)));
+        }
+    }
+
+    @Test
+    void continuesAfterPersistedSequence() throws Exception {
+        try (TradeJournal journal = new TradeJournal(dir.resolve("journal.dat"), 64 * 1024, false)) {
+            journal.recover();
+            journal.continueAfter(41);
+            assertEquals(42, journal.append(entry("user-1", false, 1)).seq());
+        }
+    }
+
+    private static JournalEntry entry(String idUser, boolean bs, long count) {
+        return new JournalEntry(0, idUser, 1, 1735127, bs, count, 211.05, 10000.0, bs ? 10000.0 + 211.05 * count : 10000.0 - 211.05 * count, T0);
+    }
+
+    private static long firstRecordSize(RandomAccessFile raf) throws Exception {
+        raf.seek(0);
+        int length = raf.readInt();
+        return Integer.BYTES + Long.BYTES + length + Integer.BYTES;
+    }
+}
@@ -0,0 +1,177 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import Swift.Backend.Swift.Util.StripedLocks;
+
+/**
+ * Season start: every user places a few buys right after the new season began.
+ * Compares lock-based execution (lock of the user, read the account, write and commit the trade) with the
+ * sequencer (check against the partition's accounts in memory, one transaction per drained run).
+ * The database is simulated like in {@link GroupCommitBenchmark}: 0.1 ms per statement on one of 10 pooled
+ * connections and 1 ms per commit, commits are serialized.
+ *
+ * Run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class TradeSequencerBenchmark {
+
+    private static final int USERS = 512;
+    private static final int TRADES_PER_USER = 4;
+    private static final long STATEMENT_NANOS = 100_000;
+    private static final long COMMIT_NANOS = 1_000_000;
+    private static final int CONNECTIONS = 10;
+    private static final int[] THREADS = {4, 16, 64};
+
+    private final Semaphore connections = new Semaphore(CONNECTIONS);
+    private final ReentrantLock wal = new ReentrantLock();
+
+    @Test
+    void locksVersusSequencer() throws Exception {
+        System.out.printf("%d users with %d trades each, %.1f ms per statement, %.1f ms per commit%n",
+            USERS, TRADES_PER_USER, STATEMENT_NANOS / 1e6, COMMIT_NANOS / 1e6);
+        for (int threads : THREADS) {
+            StripedLocks<String> locks = new StripedLocks<>(1024, Duration.ofSeconds(30));
+            run("locks", threads, idUser -> locks.withLock(idUser, () -> {
+                // balance and positions, then the 4 writes and the commit
+                database(1 + 4, true);
+                return Boolean.TRUE;
+            }));
+        }
+        for (int threads : THREADS) {
+            try (TradeSequencer sequencer = new TradeSequencer("benchmark-sequencer", 4, 1024, 256, new Persister())) {
+                sequencer.start();
+                run("seq", threads, idUser -> sequencer.submit(TradeCommand.BUY, idUser, 10.0, null));
+                System.out.println("      " + sequencer.stats());
+            }
+        }
+    }
+
+    private void run(String mode, int threads, Trade trade) throws Exception {
+        LongAdder trades = new LongAdder();
+        int perThread = USERS * TRADES_PER_USER / threads;
+        long begin = System.nanoTime();
+        runConcurrently(threads, i -> {
+            for (int n = 0; n < perThread; n++) {
+                // consecutive trades of a thread go to different users, all users are busy at once
+                trade.execute("user-" + ((i + (long) n * threads) % USERS));
+                trades.increment();
+            }
+        });
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals((long) perThread * threads, trades.sum());
+        System.out.printf("  %-5s %2d threads: %8.0f trades/s%n", mode, threads, trades.sum() / (elapsed / 1e9));
+    }
+
+    // the accounts of its users in memory, loaded with one statement on the first trade
+    private final class Persister implements TradeSequencer.Handler {
+        private final Map<String, Double>[] balances = newBalances();
+        private final List<TradeCommand>[] open = newOpen();
+
+        @Override
+        public void handle(int partition, TradeCommand command) {
+            Double balance = balances[partition].get(command.getIdUser());
+            if (balance == null) {
+                database(1, false);
+                balance = 1_000.0;
+            }
+            balances[partition].put(command.getIdUser(), balance - (Double) command.getPayload());
+            open[partition].add(command);
+        }
+
+        @Override
+        public void endOfBatch(int partition) {
+            List<TradeCommand> run = open[partition];
+            if (run.isEmpty()) {
+                return;
+            }
+            // balance and position per trade, one insert each for transactions and ledger rows, one commit
+            database(2 * run.size() + 2, true);
+            for (TradeCommand command : run) {
+                command.complete(Boolean.TRUE);
+            }
+            run.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Double>[] newBalances() {
+            Map<String, Double>[] maps = new Map[4];
+            for (int i = 0; i < maps.length; i++) {
+                maps[i] = new HashMap<>();
+            }
+            return maps;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<TradeCommand>[] newOpen() {
+            List<TradeCommand>[] lists = new List[4];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = new ArrayList<>();
+            }
+            return lists;
+        }
+    }
+
+    private void database(int statements, boolean commit) {
+        connections.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(statements * STATEMENT_NANOS);
+            if (commit) {
+                wal.lock();
+                try {
+                    LockSupport.parkNanos(COMMIT_NANOS);
+                } finally {
+                    wal.unlock();
+                }
+            }
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(n);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private interface Trade {
+        Object execute(String idUser) throws Exception;
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,174 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ordering, run hand-off, failure isolation and back pressure of the trade sequencer.
+ */
+class TradeSequencerTests {
+
+    @Test
+    void commandsOfAUserRunInSubmitOrderOnOnePartitionThread() throws Exception {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        TradeSequencer.Handler handler = new TradeSequencer.Handler() {
+            @Override
+            public void handle(int partition, TradeCommand command) {
+                seen.computeIfAbsent(command.getIdUser(), u -> new ArrayList<>()).add((Integer) command.getPayload());
+                threads.merge(command.getIdUser(), Thread.currentThread().getName(),
+                    (a, b) -> a.equals(b) ? a : "more than one thread");
+                command.complete(command.getPayload());
+            }
+
+            @Override
+            public void endOfBatch(int partition) {}
+        };
+        try (TradeSequencer sequencer = new TradeSequencer("test-sequencer", 4, 64, 16, handler)) {
+            sequencer.start();
+            runConcurrently(8, i -> {
+                String idUser = "user-" + i;
+                for (int n = 0; n < 200; n++) {
+                    assertEquals(n, sequencer.submit(TradeCommand.BUY, idUser, n, null));
+                }
+            });
+        }
+
+        for (int i = 0; i < 8; i++) {
+            List<Integer> commands = seen.get("user-" + i);
+            assertEquals(200, commands.size());
+            for (int n = 0; n < 200; n++) {
+                assertEquals(n, commands.get(n));
+            }
+            assertTrue(threads.get("user-" + i).startsWith("test-sequencer-"), threads.get("user-" + i));
+        }
+    }
+
+    @Test
+    void openCommandsAreCompletedAtTheEndOfTheRun() throws Exception {
+        List<TradeCommand> open = new ArrayList<>();
+        List<Integer> runs = new ArrayList<>();
+        TradeSequencer.Handler handler = new TradeSequencer.Handler() {
+            @Override
+            public void handle(int partition, TradeCommand command) {
+                open.add(command);
+            }
+
+            @Override
+            public void endOfBatch(int partition) {
+                runs.add(open.size());
+                for (TradeCommand command : open) {
+                    command.complete("run " + runs.size());
+                }
+                open.clear();
+            }
+        };
+        try (TradeSequencer sequencer = new TradeSequencer("test-sequencer", 1, 64, 4, handler)) {
+            sequencer.start();
+            runConcurrently(10, i -> assertTrue(((String) sequencer.submit(TradeCommand.SELL, "user", i, null)).startsWith("run ")));
+        }
+
+        assertEquals(10, runs.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(runs.stream().allMatch(size -> size <= 4), runs.toString());
+    }
+
+    @Test
+    void failingCommandOnlyFailsItsOwnSubmitter() {
+        TradeSequencer.Handler handler = new TradeSequencer.Handler() {
+            @Override
+            public void handle(int partition, TradeCommand command) {
+                if ((Integer) command.getPayload() == 13) {
+                    throw new IllegalStateException("bad command");
+                }
+                command.complete(command.getPayload());
+            }
+
+            @Override
+            public void endOfBatch(int partition) {}
+        };
+        try (TradeSequencer sequencer = new TradeSequencer("test-sequencer", 2, 8, 8, handler)) {
+            sequencer.start();
+            assertEquals(1, sequencer.submit(TradeCommand.BUY, "user", 1, null));
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> sequencer.submit(TradeCommand.BUY, "user", 13, null));
+            assertEquals("bad command", e.getMessage());
+            assertEquals(2, sequencer.submit(TradeCommand.BUY, "user", 2, null));
+        }
+    }
+
+    @Test
+    void fullRingMakesProducersWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TradeSequencer.Handler handler = new TradeSequencer.Handler() {
+            @Override
+            public void handle(int partition, TradeCommand command) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                command.complete(command.getPayload());
+            }
+
+            @Override
+            public void endOfBatch(int partition) {}
+        };
+        try (TradeSequencer sequencer = new TradeSequencer("test-sequencer", 1, 2, 8, handler)) {
+            sequencer.start();
+            ExecutorService pool = Executors.newFixedThreadPool(6);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> sequencer.submit(TradeCommand.BUY, "user", n, null)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((long) sequencer.stats().get("producerWaits") == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue((long) sequencer.stats().get("producerWaits") > 0);
+
+            release.countDown();
+            for (Future<Object> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            assertEquals(6L, sequencer.stats().get("submitted"));
+        }
+    }
+
+    private static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(n);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,123 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Trailing stop levels following the high- and low-water marks and firing when the price reaches them.
+ */
+class TrailingStopBookTests {
+
+    private static final boolean BUY = false;
+    private static final boolean SELL = true;
+
+    @Test
+    void sellTrailsTheHighByAmount() {
+        TrailingStopBook book = new TrailingStopBook();
+        book.add(1, 7, SELL, 5, 0, 100);
+
+        assertTrue(book.match(7, 98).isEmpty());
+        assertEquals(95, book.level(1));
+        assertTrue(book.match(7, 110).isEmpty());
+        assertEquals(105, book.level(1));
+        assertTrue(book.match(7, 106).isEmpty());
+
+        List<OrderTrigger> fired = book.match(7, 104);
+        assertEquals(List.of(new OrderTrigger(1, 7, SELL, true, 105)), fired);
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void buyTrailsTheLowByPercent() {
+        TrailingStopBook book = new TrailingStopBook();
+        book.add(2, 7, BUY, 0, 25, 100);
+
+        assertEquals(125, book.level(2));
+        assertTrue(book.match(7, 80).isEmpty());
+        assertEquals(100, book.level(2));
+        assertTrue(book.match(7, 99.5).isEmpty());
+        assertEquals(List.of(new OrderTrigger(2, 7, BUY, true, 100)), book.match(7, 100));
+    }
+
+    @Test
+    void unknownMarkStartsAtTheNextPrice() {
+        TrailingStopBook book = new TrailingStopBook();
+        book.add(3, 7, SELL, 5, 0, Double.NaN);
+
+        assertTrue(Double.isNaN(book.level(3)));
+        assertTrue(book.match(7, 50).isEmpty());
+        assertEquals(45, book.level(3));
+    }
+
+    @Test
+    void removedOrdersAndOtherStocksDoNotFire() {
+        TrailingStopBook book = new TrailingStopBook();
+        book.add(1, 7, SELL, 5, 0, 100);
+        book.add(2, 7, SELL, 10, 0, 100);
+        book.add(3, 7, SELL, 2, 0, 100);
+        book.add(4, 8, SELL, 1, 0, 100);
+
+        assertTrue(book.remove(3));
+        assertFalse(book.remove(3));
+        assertEquals(List.of(1L), ids(book.match(7, 94)));
+        assertEquals(List.of(7L, 8L), book.stocks().stream().sorted().toList());
+        assertEquals(List.of(2L), ids(book.match(7, 80)));
+        assertEquals(List.of(8L), book.stocks());
+    }
+
+    @Test
+    void matchesAFullScanOfAllOrders() {
+        Random random = new Random(11);
+        TrailingStopBook book = new TrailingStopBook();
+        Map<Long, double[]> expected = new HashMap<>();
+        double price = 100;
+        long nextId = 1;
+        for (int tick = 0; tick < 5_000; tick++) {
+            if (random.nextInt(3) == 0) {
+                // { bs, amount, percent, mark }
+                boolean bs = random.nextBoolean();
+                double amount = random.nextBoolean() ? 1 + random.nextInt(5) : 0;
+                double percent = amount == 0 ? 1 + random.nextInt(5) : 0;
+                book.add(nextId, 1, bs, amount, percent, price);
+                expected.put(nextId++, new double[] {bs ? 1 : 0, amount, percent, price});
+            }
+            if (random.nextInt(20) == 0 && !expected.isEmpty()) {
+                long idOrder = expected.keySet().iterator().next();
+                expected.remove(idOrder);
+                assertTrue(book.remove(idOrder));
+            }
+            price = Math.max(1, price + random.nextInt(11) - 5);
+
+            List<Long> firedByScan = new ArrayList<>();
+            for (Map.Entry<Long, double[]> entry : expected.entrySet()) {
+                double[] order = entry.getValue();
+                boolean sell = order[0] == 1;
+                order[3] = sell ? Math.max(order[3], price) : Math.min(order[3], price);
+                double level = sell ? order[3] * (1 - order[2] / 100) - order[1] : order[3] * (1 + order[2] / 100) + order[1];
+                if (sell ? price <= level : price >= level) {
+                    firedByScan.add(entry.getKey());
+                }
+            }
+            firedByScan.forEach(expected::remove);
+
+            List<Long> fired = new ArrayList<>(ids(book.match(1, price)));
+            fired.sort(null);
+            firedByScan.sort(null);
+            assertEquals(firedByScan, fired);
+            assertEquals(expected.size(), book.size());
+        }
+    }
+
+    private static List<Long> ids(List<OrderTrigger> triggers) {
+        return triggers.stream().map(OrderTrigger::idOrder).toList();
+    }
+}
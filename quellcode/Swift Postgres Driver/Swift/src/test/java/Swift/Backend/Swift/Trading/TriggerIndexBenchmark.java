@@ -0,0 +1,112 @@
+package Swift.Backend.Swift.Trading;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * One stock with one million open LIMIT and STOP orders around the current price. Every tick moves the price a
+ * random step, takes the crossed orders out of the book and places them again on the other side of the price,
+ * so the book keeps its size. Compares the {@link OrderBook} on primitive {@link TriggerIndex} arrays with sorted
+ * sets of order objects like the book used before.
+ *
+ * Run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class TriggerIndexBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int WARMUP_TICKS = 50_000;
+    private static final int TICKS = 500_000;
+    private static final long STOCK = 1;
+
+    @Test
+    void primitiveIndexVersusSortedSets() {
+        System.out.printf("%d open orders on one stock, %d ticks%n", ORDERS, TICKS);
+        OrderBook book = new OrderBook();
+        run("index", book::add, book::match);
+        SortedSetBook sets = new SortedSetBook();
+        run("sets", sets::add, sets::match);
+    }
+
+    private interface Add {
+        void add(OrderTrigger trigger);
+    }
+
+    private interface Match {
+        List<OrderTrigger> match(long idStock, double price);
+    }
+
+    private static void run(String mode, Add add, Match match) {
+        Random random = new Random(7);
+        double[] price = {100};
+        for (long id = 0; id < ORDERS; id++) {
+            add.add(place(id, random, price[0]));
+        }
+        long fired = 0;
+        long begin = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++) {
+            if (tick == WARMUP_TICKS) {
+                fired = 0;
+                begin = System.nanoTime();
+            }
+            // random walk in cent steps, kept around 100
+            price[0] = Math.max(50, Math.min(150, price[0] + (random.nextInt(21) - 10) / 100.0));
+            for (OrderTrigger trigger : match.match(STOCK, price[0])) {
+                add.add(place(trigger.idOrder(), random, price[0]));
+                fired++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-6s %,12.0f ticks/s  %6.1f fired per tick%n", mode, TICKS / (elapsed / 1e9), (double) fired / TICKS);
+    }
+
+    // a new order of a random type with its threshold up to 10 % away from the price on the side it fires from
+    private static OrderTrigger place(long idOrder, Random random, double price) {
+        boolean bs = random.nextBoolean();
+        boolean stop = random.nextBoolean();
+        double distance = Math.round(random.nextDouble() * price * 10) / 100.0 + 0.01;
+        boolean above = bs != stop;
+        return new OrderTrigger(idOrder, STOCK, bs, stop, above ? price + distance : price - distance);
+    }
+
+    /**
+     * Baseline: the orders of a stock in two sorted sets of {@link OrderTrigger} objects, one per firing direction.
+     */
+    private static final class SortedSetBook {
+        private static final Comparator<OrderTrigger> BY_THRESHOLD =
+            Comparator.comparingDouble(OrderTrigger::threshold).thenComparingLong(OrderTrigger::idOrder);
+
+        private final NavigableSet<OrderTrigger> above = new TreeSet<>(BY_THRESHOLD);
+        private final NavigableSet<OrderTrigger> below = new TreeSet<>(BY_THRESHOLD);
+        private final Map<Long, OrderTrigger> byId = new HashMap<>();
+
+        void add(OrderTrigger trigger) {
+            OrderTrigger old = byId.put(trigger.idOrder(), trigger);
+            if (old != null) {
+                (old.firesAtOrAbove() ? above : below).remove(old);
+            }
+            (trigger.firesAtOrAbove() ? above : below).add(trigger);
+        }
+
+        List<OrderTrigger> match(long idStock, double price) {
+            List<OrderTrigger> fired = new ArrayList<>();
+            while (!above.isEmpty() && above.first().threshold() <= price) {
+                fired.add(above.pollFirst());
+            }
+            while (!below.isEmpty() && below.last().threshold() >= price) {
+                fired.add(below.pollLast());
+            }
+            fired.forEach(trigger -> byId.remove(trigger.idOrder()));
+            return fired;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package Swift.Backend.Swift.Trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sorted primitive index of order thresholds: ordering, removal and taking orders out from both ends.
+ */
+class TriggerIndexTests {
+
+    private record Entry(double threshold, long idOrder) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::threshold).thenComparingLong(Entry::idOrder);
+
+    @Test
+    void pollsFromBothEndsClosestFirst() {
+        TriggerIndex index = new TriggerIndex();
+        index.add(105, 5);
+        index.add(101, 1);
+        index.add(103, 3);
+        index.add(101, 0);
+        index.add(104, 4);
+
+        List<Long> low = new ArrayList<>();
+        assertEquals(3, index.pollAtOrBelow(103, (id, threshold) -> low.add(id)));
+        assertEquals(List.of(0L, 1L, 3L), low);
+
+        List<Long> high = new ArrayList<>();
+        assertEquals(2, index.pollAtOrAbove(104, (id, threshold) -> high.add(id)));
+        assertEquals(List.of(5L, 4L), high);
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void removesOnlyMatchingEntries() {
+        TriggerIndex index = new TriggerIndex();
+        index.add(10, 1);
+        index.add(10, 2);
+        index.add(10, 2);
+
+        assertEquals(2, index.size());
+        assertFalse(index.remove(11, 1));
+        assertTrue(index.remove(10, 1));
+        assertFalse(index.remove(10, 1));
+        assertEquals(0, index.pollAtOrBelow(9.99, (id, threshold) -> { }));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void staysSortedWhileGrowingAndShrinking() {
+        Random random = new Random(42);
+        TriggerIndex index = new TriggerIndex(4);
+        TreeSet<Entry> expected = new TreeSet<>(ORDER);
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                Entry entry = new Entry(random.nextInt(200) / 2.0, random.nextInt(5_000));
+                index.add(entry.threshold(), entry.idOrder());
+                expected.add(entry);
+            } else if (action < 8) {
+                Entry entry = new Entry(random.nextInt(200) / 2.0, random.nextInt(5_000));
+                assertEquals(expected.remove(entry), index.remove(entry.threshold(), entry.idOrder()));
+            } else if (action == 8) {
+                double price = random.nextInt(40) / 2.0;
+                List<Entry> polled = new ArrayList<>();
+                index.pollAtOrBelow(price, (id, threshold) -> polled.add(new Entry(threshold, id)));
+                List<Entry> crossed = new ArrayList<>(expected.headSet(new Entry(price, Long.MAX_VALUE), true));
+                expected.removeAll(crossed);
+                assertEquals(crossed, polled);
+            } else {
+                double price = 80 + random.nextInt(40) / 2.0;
+                List<Entry> polled = new ArrayList<>();
+                index.pollAtOrAbove(price, (id, threshold) -> polled.add(new Entry(threshold, id)));
+                List<Entry> crossed = new ArrayList<>(expected.tailSet(new Entry(price, Long.MIN_VALUE), true).descendingSet());
+                expected.removeAll(crossed);
+                assertEquals(crossed, polled);
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        List<Entry> rest = new ArrayList<>();
+        index.pollAtOrBelow(Double.MAX_VALUE, (id, threshold) -> rest.add(new Entry(threshold, id)));
+        assertEquals(new ArrayList<>(expected), rest);
+    }
+}
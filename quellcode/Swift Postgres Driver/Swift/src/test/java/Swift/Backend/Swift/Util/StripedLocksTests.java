@@ -0,0 +1,137 @@
+package Swift.Backend.Swift.Util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Concurrent trades against an in-memory account that checks the funds and writes back later,
+ * like a buy that reads the balance and saves the new balance afterwards.
+ */
+class StripedLocksTests {
+
+    @Test
+    void concurrentBuysOfOneUserDoNotSpendTwice() throws Exception {
+        StripedLocks<String> locks = new StripedLocks<>(64, Duration.ofSeconds(5));
+        Account account = new Account(1000);
+        AtomicInteger filled = new AtomicInteger();
+
+        // 40 buys of 100 each, only 10 can be paid
+        runConcurrently(40, i -> {
+            if (locks.withLock("user-1", () -> account.buy(100))) {
+                filled.incrementAndGet();
+            }
+        });
+
+        assertEquals(10, filled.get());
+        assertEquals(0, account.balance);
+    }
+
+    @Test
+    void tradesOfDifferentUsersRunInParallel() throws Exception {
+        StripedLocks<String> locks = new StripedLocks<>(1024, Duration.ofSeconds(5));
+        CountDownLatch allInside = new CountDownLatch(8);
+
+        // every user waits until all 8 are inside their lock, this only finishes if nobody blocks another user
+        runConcurrently(8, i -> locks.withLock("user-" + i, () -> {
+            allInside.countDown();
+            return await(allInside);
+        }));
+
+        assertEquals(0, allInside.getCount());
+    }
+
+    @Test
+    void giveUpAfterTimeout() throws Exception {
+        StripedLocks<String> locks = new StripedLocks<>(16, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> holder = pool.submit(() -> locks.withLock("user-1", () -> {
+            holding.countDown();
+            return await(release);
+        }));
+        holding.await();
+
+        assertThrows(IllegalStateException.class, () -> locks.withLock("user-1", () -> true));
+        assertEquals(1L, locks.stats().get("timeouts"));
+
+        release.countDown();
+        holder.get();
+        pool.shutdown();
+        assertTrue(locks.withLock("user-1", () -> true));
+    }
+
+    @Test
+    void stripesAreRoundedToPowerOfTwo() {
+        assertEquals(1024, new StripedLocks<String>(1000, Duration.ofSeconds(1)).stripes());
+        assertEquals(1, new StripedLocks<String>(1, Duration.ofSeconds(1)).stripes());
+    }
+
+    /**
+     * Reads the balance, "talks to the database" and writes the new balance back,
+     * without the lock two buys see the same balance.
+     */
+    static class Account {
+        long balance;
+
+        Account(long balance) {
+            this.balance = balance;
+        }
+
+        boolean buy(long cost) {
+            long current = balance;
+            if (current < cost) {
+                return false;
+            }
+            Thread.yield();
+            balance = current - cost;
+            return true;
+        }
+    }
+
+    interface Task {
+        void run(int i) throws Exception;
+    }
+
+    static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(n);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
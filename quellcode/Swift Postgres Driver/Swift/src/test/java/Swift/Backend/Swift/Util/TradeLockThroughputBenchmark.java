@@ -0,0 +1,77 @@
+package Swift.Backend.Swift.Util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Trade throughput with per-user locks as the number of threads grows.
+ * Each thread trades for its own user (fully parallel) and additionally all threads trade for one shared user
+ * (serialized). Every trade holds its lock for about as long as a short database transaction (1 ms).
+ * At the end no account may have spent more than it had.
+ *
+ * Run with: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class TradeLockThroughputBenchmark {
+
+    private static final int TRADES_PER_THREAD = 200;
+    private static final long TRADE_NANOS = 1_000_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    @Test
+    void throughputByThreadCount() throws Exception {
+        System.out.printf("%d trades per thread, %.1f ms per trade%n", TRADES_PER_THREAD, TRADE_NANOS / 1e6);
+        for (int threads : THREADS) {
+            run(threads, false);
+        }
+        for (int threads : THREADS) {
+            run(threads, true);
+        }
+    }
+
+    private static void run(int threads, boolean sharedUser) throws Exception {
+        StripedLocks<String> locks = new StripedLocks<>(1024, Duration.ofSeconds(30));
+        int accounts = sharedUser ? 1 : threads;
+        StripedLocksTests.Account[] account = new StripedLocksTests.Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            account[i] = new StripedLocksTests.Account(TRADES_PER_THREAD * 10L);
+        }
+        LongAdder filled = new LongAdder();
+
+        long begin = System.nanoTime();
+        StripedLocksTests.runConcurrently(threads, i -> {
+            int user = sharedUser ? 0 : i;
+            for (int n = 0; n < TRADES_PER_THREAD; n++) {
+                boolean ok = locks.withLock("user-" + user, () -> {
+                    databaseRoundTrip(TRADE_NANOS);
+                    return account[user].buy(10);
+                });
+                if (ok) {
+                    filled.increment();
+                }
+            }
+        });
+        long elapsed = System.nanoTime() - begin;
+
+        long trades = (long) threads * TRADES_PER_THREAD;
+        System.out.printf("  %-11s %2d threads: %8.0f trades/s  %s%n", sharedUser ? "shared user" : "own user",
+            threads, trades / (elapsed / 1e9), locks.stats());
+
+        // every account has funds for exactly TRADES_PER_THREAD buys
+        assertEquals((long) accounts * TRADES_PER_THREAD, filled.sum());
+        for (StripedLocksTests.Account a : account) {
+            assertEquals(0, a.balance);
+        }
+    }
+
+    // the thread waits for the database, it does not burn CPU
+    private static void databaseRoundTrip(long nanos) {
+        LockSupport.parkNanos(nanos);
+    }
+}
@@ -0,0 +1,62 @@
+package Swift.Backend.Swift.Util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Expiry, LRU eviction and counters of the token cache.
+ */
+class TtlCacheTests {
+
+    @Test
+    void entryExpiresAfterItsTtl() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(10);
+        cache.put("short", "a", Duration.ofMillis(20));
+        cache.put("long", "b", Duration.ofMinutes(5));
+        assertEquals("a", cache.get("short"));
+
+        Thread.sleep(50);
+
+        assertNull(cache.get("short"));
+        assertEquals("b", cache.get("long"));
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.stats().get("expirations"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        TtlCache<String, String> cache = new TtlCache<>(2);
+        cache.put("a", "1", Duration.ofMinutes(5));
+        cache.put("b", "2", Duration.ofMinutes(5));
+        // reading "a" makes "b" the least recently used entry
+        cache.get("a");
+        cache.put("c", "3", Duration.ofMinutes(5));
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void ignoresNonPositiveTtlAndCountsHits() {
+        TtlCache<String, String> cache = new TtlCache<>(10);
+        cache.put("zero", "a", Duration.ZERO);
+        cache.put("negative", "b", Duration.ofSeconds(-1));
+        cache.put("valid", "c", Duration.ofMinutes(5));
+
+        assertNull(cache.get("zero"));
+        assertNull(cache.get("negative"));
+        assertEquals("c", cache.get("valid"));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+
+        cache.invalidate("valid");
+        assertNull(cache.get("valid"));
+        assertEquals(0, cache.size());
+    }
+}